@@ -55,12 +55,14 @@ import io.joyrpc.invoker.ExceptionHandler;
 import io.joyrpc.invoker.FilterChainFactory;
 import io.joyrpc.invoker.GroupInvoker;
 import io.joyrpc.metric.DashboardFactory;
+import io.joyrpc.metric.TPWindowFactory;
 import io.joyrpc.permission.Authenticator;
 import io.joyrpc.protocol.ClientProtocol;
 import io.joyrpc.protocol.MessageHandler;
 import io.joyrpc.protocol.Protocol.ProtocolVersion;
 import io.joyrpc.protocol.ServerProtocol;
 import io.joyrpc.proxy.GrpcFactory;
+import io.joyrpc.proxy.MethodCallerFactory;
 import io.joyrpc.proxy.ProxyFactory;
 import io.joyrpc.thread.ThreadPool;
 import io.joyrpc.transport.EndpointFactory;
@@ -151,6 +153,11 @@ public interface Plugin {
      */
     ExtensionPoint<DashboardFactory, String> DASHBOARD_FACTORY = new ExtensionPointLazy<>(DashboardFactory.class);
 
+    /**
+     * 指标窗口工厂类
+     */
+    ExtensionPoint<TPWindowFactory, String> TP_WINDOW_FACTORY = new ExtensionPointLazy<>(TPWindowFactory.class);
+
     /**
      * 分发异常处理
      */
@@ -274,6 +281,11 @@ public interface Plugin {
      */
     ExtensionPoint<GrpcFactory, String> GRPC_FACTORY = new ExtensionPointLazy<>(GrpcFactory.class);
 
+    /**
+     * 服务端方法调用器
+     */
+    ExtensionPoint<MethodCallerFactory, String> METHOD_CALLER = new ExtensionPointLazy<>(MethodCallerFactory.class);
+
     /**
      * 医生插件
      */
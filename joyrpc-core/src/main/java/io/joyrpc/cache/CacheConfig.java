@@ -34,6 +34,10 @@ public class CacheConfig<K, V> {
     protected long expireAfterWrite = -1;
     //是否缓存空值
     protected boolean nullable;
+    //最大估算字节数
+    protected long capacityBytes = -1;
+    //权重计算，按字节计算容量时使用
+    protected Weigher<? super K, ? super V> weigher;
 
     public CacheConfig() {
     }
@@ -46,6 +50,13 @@ public class CacheConfig<K, V> {
         this.nullable = nullable;
     }
 
+    public CacheConfig(Class<K> keyClass, Class<V> valueClass, int capacity, long expireAfterWrite, boolean nullable,
+                       long capacityBytes, Weigher<? super K, ? super V> weigher) {
+        this(keyClass, valueClass, capacity, expireAfterWrite, nullable);
+        this.capacityBytes = capacityBytes;
+        this.weigher = weigher;
+    }
+
     public Class<K> getKeyClass() {
         return keyClass;
     }
@@ -86,6 +97,22 @@ public class CacheConfig<K, V> {
         this.nullable = nullable;
     }
 
+    public long getCapacityBytes() {
+        return capacityBytes;
+    }
+
+    public void setCapacityBytes(long capacityBytes) {
+        this.capacityBytes = capacityBytes;
+    }
+
+    public Weigher<? super K, ? super V> getWeigher() {
+        return weigher;
+    }
+
+    public void setWeigher(Weigher<? super K, ? super V> weigher) {
+        this.weigher = weigher;
+    }
+
     public static <K, V> Builder<K, V> builder() {
         return new Builder<>();
     }
@@ -108,6 +135,10 @@ public class CacheConfig<K, V> {
         protected long expireAfterWrite = -1;
         //是否缓存空值
         protected boolean nullable;
+        //最大估算字节数
+        protected long capacityBytes = -1;
+        //权重计算
+        protected Weigher<? super K, ? super V> weigher;
 
         public Builder<K, V> keyClass(final Class<K> keyClass) {
             this.keyClass = keyClass;
@@ -134,13 +165,23 @@ public class CacheConfig<K, V> {
             return this;
         }
 
+        public Builder<K, V> capacityBytes(final long capacityBytes) {
+            this.capacityBytes = capacityBytes;
+            return this;
+        }
+
+        public Builder<K, V> weigher(final Weigher<? super K, ? super V> weigher) {
+            this.weigher = weigher;
+            return this;
+        }
+
         /**
          * 构建
          *
          * @return
          */
         public CacheConfig<K, V> build() {
-            return new CacheConfig<>(keyClass, valueClass, capacity, expireAfterWrite, nullable);
+            return new CacheConfig<>(keyClass, valueClass, capacity, expireAfterWrite, nullable, capacityBytes, weigher);
         }
 
     }
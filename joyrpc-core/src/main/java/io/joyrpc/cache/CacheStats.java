@@ -0,0 +1,106 @@
+package io.joyrpc.cache;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * 缓存统计快照
+ */
+public class CacheStats {
+    /**
+     * 命中次数
+     */
+    protected final long hits;
+    /**
+     * 未命中次数
+     */
+    protected final long misses;
+    /**
+     * 容量淘汰次数
+     */
+    protected final long evictions;
+    /**
+     * 过期删除次数
+     */
+    protected final long expirations;
+    /**
+     * 条目数
+     */
+    protected final long size;
+    /**
+     * 权重(按字节计算容量时为估算的字节数)
+     */
+    protected final long weight;
+
+    public CacheStats(long hits, long misses, long evictions, long expirations, long size, long weight) {
+        this.hits = hits;
+        this.misses = misses;
+        this.evictions = evictions;
+        this.expirations = expirations;
+        this.size = size;
+        this.weight = weight;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    public long getEvictions() {
+        return evictions;
+    }
+
+    public long getExpirations() {
+        return expirations;
+    }
+
+    public long getSize() {
+        return size;
+    }
+
+    public long getWeight() {
+        return weight;
+    }
+
+    /**
+     * 命中率
+     *
+     * @return 命中率
+     */
+    public double getHitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 1.0 : (double) hits / requests;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheStats{" +
+                "hits=" + hits +
+                ", misses=" + misses +
+                ", evictions=" + evictions +
+                ", expirations=" + expirations +
+                ", size=" + size +
+                ", weight=" + weight +
+                '}';
+    }
+}
@@ -0,0 +1,97 @@
+package io.joyrpc.cache;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * 缓存条目权重计算，用于按字节估算容量
+ */
+@FunctionalInterface
+public interface Weigher<K, V> {
+
+    /**
+     * 默认的字节估算，只计算常见类型，其它对象按固定大小估算
+     */
+    Weigher<Object, Object> ESTIMATOR = (key, value) -> estimate(key) + estimate(value) + 64;
+
+    /**
+     * 计算权重
+     *
+     * @param key   键
+     * @param value 值
+     * @return 权重，不能为负数
+     */
+    int weigh(K key, V value);
+
+    /**
+     * 估算对象的字节数
+     *
+     * @param obj 对象
+     * @return 字节数
+     */
+    static int estimate(final Object obj) {
+        return estimate(obj, 2);
+    }
+
+    /**
+     * 估算对象的字节数
+     *
+     * @param obj   对象
+     * @param depth 剩余的递归深度
+     * @return 字节数
+     */
+    static int estimate(final Object obj, final int depth) {
+        if (obj == null) {
+            return 0;
+        } else if (obj instanceof String) {
+            return 40 + (((String) obj).length() << 1);
+        } else if (obj instanceof Number || obj instanceof Boolean || obj instanceof Character || obj instanceof Enum) {
+            return 16;
+        } else if (obj instanceof byte[]) {
+            return 16 + ((byte[]) obj).length;
+        } else if (obj instanceof CacheObject) {
+            return 16 + estimate(((CacheObject) obj).getResult(), depth);
+        } else if (depth <= 0) {
+            return 64;
+        } else if (obj instanceof Collection) {
+            int size = 32;
+            for (Object item : (Collection<?>) obj) {
+                size += 8 + estimate(item, depth - 1);
+            }
+            return size;
+        } else if (obj instanceof Map) {
+            int size = 48;
+            for (Map.Entry<?, ?> entry : ((Map<?, ?>) obj).entrySet()) {
+                size += 32 + estimate(entry.getKey(), depth - 1) + estimate(entry.getValue(), depth - 1);
+            }
+            return size;
+        } else if (obj instanceof Object[]) {
+            int size = 16;
+            for (Object item : (Object[]) obj) {
+                size += 8 + estimate(item, depth - 1);
+            }
+            return size;
+        }
+        return 64;
+    }
+}
@@ -0,0 +1,132 @@
+package io.joyrpc.cache.map;
+
+/*
+ * Copyright 2015 Ben Manes. All Rights Reserved.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+/**
+ * 4位计数的Count-Min Sketch，用于TinyLFU估算访问频率。<br/>
+ * 计数达到采样数后全部减半，让频率随时间衰减。非线程安全，由调用方加锁。<br/>
+ * 改编自Caffeine(https://github.com/ben-manes/caffeine)的com.github.benmanes.caffeine.cache.FrequencySketch，
+ * 遵循Apache License 2.0。
+ */
+public class FrequencySketch {
+
+    protected static final long RESET_MASK = 0x7777777777777777L;
+    protected static final long[] SEEDS = new long[]{
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L};
+
+    /**
+     * 每个long存放16个4位计数
+     */
+    protected final long[] table;
+    protected final int mask;
+    /**
+     * 采样数
+     */
+    protected final int sampleSize;
+    /**
+     * 当前累计数
+     */
+    protected int size;
+
+    /**
+     * 构造函数
+     *
+     * @param maximum 预计的最大条目数
+     */
+    public FrequencySketch(final long maximum) {
+        int capacity = (int) Math.max(16, Math.min(maximum, 1 << 24));
+        int length = Integer.highestOneBit(capacity - 1) << 1;
+        this.table = new long[length];
+        this.mask = length - 1;
+        this.sampleSize = 10 * capacity;
+    }
+
+    /**
+     * 获取估算频率
+     *
+     * @param hash 哈希值
+     * @return 频率，最大15
+     */
+    public int frequency(final int hash) {
+        int start = (hash & 3) << 2;
+        int frequency = 15;
+        for (int i = 0; i < 4; i++) {
+            int index = indexOf(hash, i);
+            int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+            frequency = Math.min(frequency, count);
+        }
+        return frequency;
+    }
+
+    /**
+     * 增加频率
+     *
+     * @param hash 哈希值
+     */
+    public void increment(final int hash) {
+        int start = (hash & 3) << 2;
+        boolean added = false;
+        for (int i = 0; i < 4; i++) {
+            added |= incrementAt(indexOf(hash, i), start + i);
+        }
+        if (added && ++size >= sampleSize) {
+            reset();
+        }
+    }
+
+    /**
+     * 计数加1，最大15
+     *
+     * @param i 数组索引
+     * @param j 计数的位置
+     * @return 是否增加
+     */
+    protected boolean incrementAt(final int i, final int j) {
+        int offset = j << 2;
+        long mask = (0xfL << offset);
+        if ((table[i] & mask) != mask) {
+            table[i] += (1L << offset);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 所有计数减半
+     */
+    protected void reset() {
+        int count = 0;
+        for (int i = 0; i < table.length; i++) {
+            count += Long.bitCount(table[i] & 0x1111111111111111L);
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        size = (size - (count >>> 2)) >>> 1;
+    }
+
+    /**
+     * 计算第i个哈希函数的索引
+     *
+     * @param hash 哈希值
+     * @param i    哈希函数序号
+     * @return 索引
+     */
+    protected int indexOf(final int hash, final int i) {
+        long h = (hash + SEEDS[i]) * SEEDS[i];
+        h += (h >>> 32);
+        return ((int) h) & mask;
+    }
+}
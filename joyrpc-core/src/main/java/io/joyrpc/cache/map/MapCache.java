@@ -23,17 +23,55 @@ package io.joyrpc.cache.map;
 import io.joyrpc.cache.AbstractCache;
 import io.joyrpc.cache.CacheConfig;
 import io.joyrpc.cache.CacheObject;
+import io.joyrpc.cache.CacheStats;
+import io.joyrpc.cache.Weigher;
 import io.joyrpc.util.SystemClock;
 
-import java.util.Collections;
-import java.util.Map;
+import java.lang.ref.WeakReference;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+import static io.joyrpc.util.Timer.timer;
 
 /**
- * 基于Map的缓存，缓存空值
+ * 基于Map的缓存，缓存空值。<br/>
+ * 读操作直接访问ConcurrentHashMap，不加锁；写操作按键分段加锁。<br/>
+ * 设置了容量(条目数或估算字节数)后，每个分段采用W-TinyLFU淘汰：新条目先进入窗口LRU，
+ * 窗口溢出的候选者和主区(分段LRU)的受害者按访问频率决定去留。<br/>
+ * 读操作的访问记录先放入按线程分条的有损读缓冲区，不加锁，缓冲区满了就丢弃；
+ * 缓冲区满的时候尝试加锁回放，写操作加锁后也会先回放。<br/>
+ * 设置了过期时间后，由时间轮定时按写入顺序清理过期条目。
  */
 public class MapCache<K, V> extends AbstractCache<K, V> {
+
+    /**
+     * 最大分段数
+     */
+    protected static final int MAX_SEGMENTS = Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1)) << 1;
+    /**
+     * 每个分段最少的条目数
+     */
+    protected static final int MIN_SEGMENT_ENTRIES = 128;
+    /**
+     * 按字节计算容量时，估算的平均条目大小
+     */
+    protected static final int AVERAGE_ENTRY_BYTES = 256;
+    /**
+     * 每个分段读缓冲区的条数
+     */
+    protected static final int READ_STRIPES = Math.min(4, Integer.highestOneBit(Runtime.getRuntime().availableProcessors()));
+
+    protected static final byte WINDOW = 0;
+    protected static final byte PROBATION = 1;
+    protected static final byte PROTECTED = 2;
+    protected static final byte DEAD = 3;
+
     /**
      * 名称
      */
@@ -42,7 +80,43 @@ public class MapCache<K, V> extends AbstractCache<K, V> {
     /**
      * 缓存
      */
-    protected Map<K, MapCacheObject<V>> caches;
+    protected ConcurrentHashMap<K, Node<K, V>> caches;
+    /**
+     * 分段
+     */
+    protected Segment[] segments;
+    /**
+     * 分段掩码
+     */
+    protected int segmentMask;
+    /**
+     * 权重计算，按条目数计算容量时为空
+     */
+    protected Weigher<? super K, ? super V> weigher;
+    /**
+     * 过期清理间隔
+     */
+    protected long sweepInterval;
+    /**
+     * 是否已经调度了过期清理
+     */
+    protected AtomicBoolean sweeping = new AtomicBoolean();
+    /**
+     * 命中次数
+     */
+    protected LongAdder hits = new LongAdder();
+    /**
+     * 未命中次数
+     */
+    protected LongAdder misses = new LongAdder();
+    /**
+     * 淘汰次数
+     */
+    protected LongAdder evictions = new LongAdder();
+    /**
+     * 过期次数
+     */
+    protected LongAdder expirations = new LongAdder();
 
     /**
      * 构造函数
@@ -53,44 +127,591 @@ public class MapCache<K, V> extends AbstractCache<K, V> {
     public MapCache(String name, CacheConfig<K, V> config) {
         this.name = name;
         this.config = config == null ? new CacheConfig<>() : config;
-        this.caches = createCaches();
+        long maximum;
+        long entries;
+        if (this.config.getCapacityBytes() > 0) {
+            maximum = this.config.getCapacityBytes();
+            entries = Math.max(1, maximum / AVERAGE_ENTRY_BYTES);
+            weigher = this.config.getWeigher() == null ? Weigher.ESTIMATOR : this.config.getWeigher();
+        } else if (this.config.getCapacity() > 0) {
+            maximum = this.config.getCapacity();
+            entries = maximum;
+        } else {
+            maximum = 0;
+            entries = 1024;
+        }
+        this.caches = new ConcurrentHashMap<>((int) Math.min(entries, 1024));
+        int count = maximum <= 0 ? MAX_SEGMENTS :
+                (int) Math.min(MAX_SEGMENTS, Long.highestOneBit(Math.max(1, entries / MIN_SEGMENT_ENTRIES)));
+        this.segmentMask = count - 1;
+        this.segments = new MapCache.Segment[count];
+        for (int i = 0; i < count; i++) {
+            segments[i] = maximum <= 0 ? new Segment(0, 0) :
+                    new Segment((maximum + count - 1) / count, Math.max(1, entries / count));
+        }
+        long expireAfterWrite = this.config.getExpireAfterWrite();
+        this.sweepInterval = Math.max(100, Math.min(expireAfterWrite, 1000));
     }
 
     /**
-     * 创建缓存
+     * 获取统计信息
      *
-     * @return
+     * @return 统计信息
      */
-    protected Map<K, MapCacheObject<V>> createCaches() {
-        return config.getCapacity() <= 0 ? new ConcurrentHashMap<>(1024) : Collections.synchronizedMap(new LRUHashMap<>(config.getCapacity()));
+    public CacheStats getStats() {
+        long weight = 0;
+        for (Segment segment : segments) {
+            weight += segment.weight;
+        }
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), expirations.sum(), caches.size(), weight);
     }
 
     @Override
     protected CompletableFuture<Void> doPut(final K key, final V value) {
         long expireTime = config.getExpireAfterWrite() > 0 ? SystemClock.now() + config.getExpireAfterWrite() : -1;
-        caches.put(key, new MapCacheObject<>(value, expireTime));
+        int hash = hash(key);
+        Node<K, V> node = new Node<>(key, value, expireTime, hash, weigher == null ? 1 : Math.max(0, weigher.weigh(key, value)));
+        Segment segment = segments[hash & segmentMask];
+        segment.lock();
+        try {
+            segment.put(node);
+        } finally {
+            segment.unlock();
+        }
+        if (expireTime > 0) {
+            schedule();
+        }
         return CompletableFuture.completedFuture(null);
     }
 
     @Override
     protected CompletableFuture<CacheObject<V>> doGet(final K key) {
         //获取缓存
-        MapCacheObject<V> cache = caches.get(key);
-        if (cache != null && cache.isExpire()) {
+        Node<K, V> cache = caches.get(key);
+        if (cache == null) {
+            //未命中不记录频率，后续放入缓存的时候会记录
+            misses.increment();
+            return CompletableFuture.completedFuture(null);
+        }
+        Segment segment = segments[cache.hash & segmentMask];
+        if (cache.isExpire()) {
             //过期了
+            misses.increment();
             if (cache.getCounter().compareAndSet(0, 1)) {
                 //让一个进行操作
-                caches.remove(key);
+                segment.lock();
+                try {
+                    segment.expire(cache);
+                } finally {
+                    segment.unlock();
+                }
             }
             return CompletableFuture.completedFuture(null);
         }
+        hits.increment();
+        segment.record(cache);
         return CompletableFuture.completedFuture(cache);
     }
 
     @Override
     protected CompletableFuture<Void> doRemove(final K key) {
-        caches.remove(key);
+        Segment segment = segments[hash(key) & segmentMask];
+        segment.lock();
+        try {
+            segment.remove(key);
+        } finally {
+            segment.unlock();
+        }
         return CompletableFuture.completedFuture(null);
     }
 
+    /**
+     * 调度过期清理任务
+     */
+    protected void schedule() {
+        if (sweeping.compareAndSet(false, true)) {
+            timer().add("MapCacheSweeper-" + name, SystemClock.now() + sweepInterval, new Sweeper(this));
+        }
+    }
+
+    /**
+     * 清理过期条目，缓存不为空则继续调度
+     */
+    protected void sweep() {
+        long now = SystemClock.now();
+        for (Segment segment : segments) {
+            if (segment.writeHead != null) {
+                segment.lock();
+                try {
+                    segment.expire(now);
+                } finally {
+                    segment.unlock();
+                }
+            }
+        }
+        sweeping.set(false);
+        if (!caches.isEmpty()) {
+            schedule();
+        }
+    }
+
+    /**
+     * 计算哈希
+     *
+     * @param key 键
+     * @return 哈希值
+     */
+    protected static int hash(final Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * 过期清理任务，弱引用缓存，避免时间轮持有不再使用的缓存导致无法回收
+     */
+    protected static class Sweeper implements Runnable {
+        /**
+         * 缓存
+         */
+        protected final WeakReference<MapCache<?, ?>> reference;
+
+        public Sweeper(final MapCache<?, ?> cache) {
+            this.reference = new WeakReference<>(cache);
+        }
+
+        @Override
+        public void run() {
+            MapCache<?, ?> cache = reference.get();
+            if (cache != null) {
+                cache.sweep();
+            }
+        }
+    }
+
+    /**
+     * 缓存节点，同时挂在访问队列和写入队列上，队列只在分段锁内修改
+     */
+    protected static class Node<K, V> extends MapCacheObject<V> {
+        protected final K key;
+        protected final int hash;
+        protected final int weight;
+        protected byte queue;
+        protected Node<K, V> prev;
+        protected Node<K, V> next;
+        protected Node<K, V> writePrev;
+        protected Node<K, V> writeNext;
+
+        public Node(final K key, final V result, final long expireTime, final int hash, final int weight) {
+            super(result, expireTime);
+            this.key = key;
+            this.hash = hash;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * 访问队列，双向链表
+     */
+    protected static class AccessQueue<K, V> {
+        protected Node<K, V> head;
+        protected Node<K, V> tail;
+        protected long weight;
+
+        protected void addLast(final Node<K, V> node) {
+            node.prev = tail;
+            node.next = null;
+            if (tail == null) {
+                head = node;
+            } else {
+                tail.next = node;
+            }
+            tail = node;
+            weight += node.weight;
+        }
+
+        protected void remove(final Node<K, V> node) {
+            if (node.prev == null) {
+                head = node.next;
+            } else {
+                node.prev.next = node.next;
+            }
+            if (node.next == null) {
+                tail = node.prev;
+            } else {
+                node.next.prev = node.prev;
+            }
+            node.prev = null;
+            node.next = null;
+            weight -= node.weight;
+        }
+
+        protected void moveToLast(final Node<K, V> node) {
+            if (node != tail) {
+                remove(node);
+                addLast(node);
+            }
+        }
+    }
+
+    /**
+     * 有损的读缓冲区，按线程分条，每条是一个固定大小的环形数组。<br/>
+     * 写入只在所在的条上做一次CAS，失败或者满了就丢弃；回放在分段锁内进行。
+     */
+    protected static class ReadBuffer<E> {
+        /**
+         * 每条的大小
+         */
+        protected static final int BUFFER_SIZE = 16;
+        protected static final int BUFFER_MASK = BUFFER_SIZE - 1;
+
+        protected final Stripe<E>[] stripes;
+        protected final int mask;
+
+        @SuppressWarnings("unchecked")
+        protected ReadBuffer(final int count) {
+            int size = Integer.highestOneBit(Math.max(1, count));
+            this.stripes = new Stripe[size];
+            for (int i = 0; i < size; i++) {
+                stripes[i] = new Stripe<>();
+            }
+            this.mask = size - 1;
+        }
+
+        /**
+         * 放入读记录
+         *
+         * @param e 读记录
+         * @return 所在的条满了，需要回放
+         */
+        protected boolean offer(final E e) {
+            Stripe<E> stripe = stripes[probe() & mask];
+            long head = stripe.readCounter;
+            long tail = stripe.writeCounter.get();
+            if (tail - head >= BUFFER_SIZE) {
+                return true;
+            } else if (stripe.writeCounter.compareAndSet(tail, tail + 1)) {
+                stripe.buffer.lazySet((int) (tail & BUFFER_MASK), e);
+                return tail - head + 1 >= BUFFER_SIZE;
+            }
+            return false;
+        }
+
+        /**
+         * 回放，需要在锁内调用
+         *
+         * @param consumer 消费者
+         */
+        protected void drain(final Consumer<E> consumer) {
+            for (Stripe<E> stripe : stripes) {
+                long head = stripe.readCounter;
+                long tail = stripe.writeCounter.get();
+                int index;
+                E e;
+                while (head < tail) {
+                    index = (int) (head & BUFFER_MASK);
+                    e = stripe.buffer.get(index);
+                    if (e == null) {
+                        //写入方已经占位，还没有设置值
+                        break;
+                    }
+                    stripe.buffer.lazySet(index, null);
+                    consumer.accept(e);
+                    head++;
+                }
+                stripe.readCounter = head;
+            }
+        }
+
+        /**
+         * 按线程选择条
+         *
+         * @return 线程探针
+         */
+        protected static int probe() {
+            long id = Thread.currentThread().getId();
+            return (int) ((id * 0x9E3779B97F4A7C15L) >>> 32);
+        }
+    }
+
+    /**
+     * 读缓冲区的条
+     */
+    protected static class Stripe<E> {
+        protected final AtomicReferenceArray<E> buffer = new AtomicReferenceArray<>(ReadBuffer.BUFFER_SIZE);
+        protected final AtomicLong writeCounter = new AtomicLong();
+        /**
+         * 只在锁内修改
+         */
+        protected volatile long readCounter;
+    }
+
+    /**
+     * 分段
+     */
+    protected class Segment extends ReentrantLock {
+        /**
+         * 最大权重，小于等于0表示不限制
+         */
+        protected final long maximum;
+        /**
+         * 窗口的最大权重
+         */
+        protected final long windowMaximum;
+        /**
+         * 保护区的最大权重
+         */
+        protected final long protectedMaximum;
+        /**
+         * 频率统计
+         */
+        protected final FrequencySketch sketch;
+        /**
+         * 读缓冲区
+         */
+        protected final ReadBuffer<Node<K, V>> reads;
+        protected final AccessQueue<K, V> window = new AccessQueue<>();
+        protected final AccessQueue<K, V> probation = new AccessQueue<>();
+        protected final AccessQueue<K, V> protect = new AccessQueue<>();
+        /**
+         * 写入队列，过期时间相同，写入顺序就是过期顺序
+         */
+        protected Node<K, V> writeHead;
+        protected Node<K, V> writeTail;
+        /**
+         * 当前权重
+         */
+        protected volatile long weight;
+
+        protected Segment(final long maximum, final long entries) {
+            this.maximum = maximum;
+            this.windowMaximum = Math.max(1, maximum / 100);
+            this.protectedMaximum = (maximum - windowMaximum) * 4 / 5;
+            this.sketch = maximum <= 0 ? null : new FrequencySketch(entries);
+            this.reads = maximum <= 0 ? null : new ReadBuffer<>(READ_STRIPES);
+        }
+
+        /**
+         * 记录读访问，放入读缓冲区，缓冲区满了再尝试加锁回放
+         *
+         * @param node 节点
+         */
+        protected void record(final Node<K, V> node) {
+            if (sketch != null && reads.offer(node) && tryLock()) {
+                try {
+                    drain();
+                } finally {
+                    unlock();
+                }
+            }
+        }
+
+        /**
+         * 回放读缓冲区，需要在锁内调用
+         */
+        protected void drain() {
+            if (sketch != null) {
+                reads.drain(this::onRead);
+            }
+        }
+
+        /**
+         * 回放读访问
+         *
+         * @param node 节点
+         */
+        protected void onRead(final Node<K, V> node) {
+            //已经删除的节点不再处理
+            if (node.queue != DEAD) {
+                onAccess(node);
+            }
+        }
+
+        /**
+         * 放入节点
+         *
+         * @param node 节点
+         */
+        protected void put(final Node<K, V> node) {
+            //先回放读访问，淘汰的时候才能用到最新的访问顺序和频率
+            drain();
+            Node<K, V> old = caches.put(node.key, node);
+            if (old != null) {
+                unlink(old);
+            }
+            weight += node.weight;
+            if (node.getExpireTime() > 0) {
+                node.writePrev = writeTail;
+                if (writeTail == null) {
+                    writeHead = node;
+                } else {
+                    writeTail.writeNext = node;
+                }
+                writeTail = node;
+            }
+            if (sketch != null) {
+                sketch.increment(node.hash);
+                node.queue = WINDOW;
+                window.addLast(node);
+                evict();
+            }
+        }
+
+        /**
+         * 删除键
+         *
+         * @param key 键
+         */
+        protected void remove(final K key) {
+            Node<K, V> old = caches.remove(key);
+            if (old != null) {
+                unlink(old);
+            }
+        }
+
+        /**
+         * 删除过期节点
+         *
+         * @param node 节点
+         */
+        protected void expire(final Node<K, V> node) {
+            if (caches.remove(node.key, node)) {
+                unlink(node);
+                expirations.increment();
+            }
+        }
+
+        /**
+         * 按写入顺序删除过期节点
+         *
+         * @param now 当前时间
+         */
+        protected void expire(final long now) {
+            Node<K, V> node;
+            while ((node = writeHead) != null && node.isExpire(now)) {
+                if (caches.remove(node.key, node)) {
+                    expirations.increment();
+                }
+                unlink(node);
+            }
+        }
+
+        /**
+         * 从队列中摘除节点
+         *
+         * @param node 节点
+         */
+        protected void unlink(final Node<K, V> node) {
+            if (node.queue == DEAD) {
+                return;
+            }
+            weight -= node.weight;
+            if (node.getExpireTime() > 0) {
+                if (node.writePrev == null) {
+                    writeHead = node.writeNext;
+                } else {
+                    node.writePrev.writeNext = node.writeNext;
+                }
+                if (node.writeNext == null) {
+                    writeTail = node.writePrev;
+                } else {
+                    node.writeNext.writePrev = node.writePrev;
+                }
+                node.writePrev = null;
+                node.writeNext = null;
+            }
+            if (sketch != null) {
+                queue(node).remove(node);
+            }
+            node.queue = DEAD;
+        }
+
+        /**
+         * 访问节点
+         *
+         * @param node 节点
+         */
+        protected void onAccess(final Node<K, V> node) {
+            sketch.increment(node.hash);
+            switch (node.queue) {
+                case WINDOW:
+                    window.moveToLast(node);
+                    break;
+                case PROBATION:
+                    //晋升到保护区，保护区溢出的降级到试用区
+                    probation.remove(node);
+                    node.queue = PROTECTED;
+                    protect.addLast(node);
+                    Node<K, V> demoted;
+                    while (protect.weight > protectedMaximum && (demoted = protect.head) != null) {
+                        protect.remove(demoted);
+                        demoted.queue = PROBATION;
+                        probation.addLast(demoted);
+                    }
+                    break;
+                case PROTECTED:
+                    protect.moveToLast(node);
+                    break;
+                default:
+            }
+        }
+
+        /**
+         * 淘汰超出容量的节点
+         */
+        protected void evict() {
+            //窗口溢出的节点进入试用区，作为候选者
+            Node<K, V> candidate = null;
+            Node<K, V> node;
+            while (window.weight > windowMaximum && (node = window.head) != null) {
+                window.remove(node);
+                node.queue = PROBATION;
+                probation.addLast(node);
+                if (candidate == null) {
+                    candidate = node;
+                }
+            }
+            Node<K, V> victim;
+            while (weight > maximum) {
+                victim = probation.head;
+                if (victim == null) {
+                    victim = protect.head;
+                    if (victim == null) {
+                        victim = window.head;
+                        if (victim == null) {
+                            break;
+                        }
+                    }
+                }
+                if (candidate != null && candidate != victim && candidate.queue == PROBATION
+                        && sketch.frequency(candidate.hash) <= sketch.frequency(victim.hash)) {
+                    //候选者频率不高于受害者，淘汰候选者
+                    victim = candidate;
+                }
+                if (victim == candidate) {
+                    candidate = candidate.next;
+                }
+                caches.remove(victim.key, victim);
+                unlink(victim);
+                evictions.increment();
+            }
+        }
+
+        /**
+         * 获取节点所在的访问队列
+         *
+         * @param node 节点
+         * @return 访问队列
+         */
+        protected AccessQueue<K, V> queue(final Node<K, V> node) {
+            switch (node.queue) {
+                case WINDOW:
+                    return window;
+                case PROBATION:
+                    return probation;
+                default:
+                    return protect;
+            }
+        }
+    }
+
 }
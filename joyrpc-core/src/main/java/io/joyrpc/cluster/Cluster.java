@@ -60,6 +60,7 @@ import java.util.function.Function;
 
 import static io.joyrpc.Plugin.*;
 import static io.joyrpc.constants.Constants.CANDIDATURE_OPTION;
+import static io.joyrpc.constants.Constants.METRIC_INLINE_OPTION;
 import static io.joyrpc.event.UpdateEvent.UpdateType.FULL;
 import static io.joyrpc.util.Status.CLOSED;
 import static io.joyrpc.util.StringUtils.toSimpleString;
@@ -112,6 +113,10 @@ public class Cluster {
      * 集群指标通知器
      */
     protected Publisher<MetricEvent> metricPublisher;
+    /**
+     * 是否在调用线程上直接记录指标
+     */
+    protected boolean metricInline;
     /**
      * 集群节点事件通知器
      */
@@ -152,6 +157,10 @@ public class Cluster {
      * 打开的次数
      */
     protected AtomicLong versions = new AtomicLong(0);
+    /**
+     * 节点共享的权重版本
+     */
+    protected AtomicLong weightVersion = new AtomicLong(0);
     /**
      * 控制器
      */
@@ -211,12 +220,16 @@ public class Cluster {
         this.dashboard = dashboardFactory != null ? dashboardFactory.create(url, DashboardType.Cluster) : null;
         //构建事件发布器
         this.clusterPublisher = clusterPublisher != null ? clusterPublisher : EVENT_BUS.get().getPublisher(EVENT_PUBLISHER_CLUSTER, this.name, EVENT_PUBLISHER_CLUSTER_CONF);
+        //在调用线程上直接记录指标，仪表盘不再通过事件队列
+        this.metricInline = url.getBoolean(METRIC_INLINE_OPTION);
         //额外的指标监听器
         if (dashboard != null || metricHandlers != null) {
-            Iterator<? extends MetricHandler> it = metricHandlers.iterator();
-            if (it.hasNext() || dashboard != null) {
+            boolean hasHandler = metricHandlers != null && metricHandlers.iterator().hasNext();
+            if (hasHandler || dashboard != null && !metricInline) {
                 this.metricPublisher = EVENT_BUS.get().getPublisher(EVENT_PUBLISHER_METRIC, String.valueOf(idCounter.incrementAndGet()), EVENT_PUBLISHER_METRIC_CONF);
-                this.metricPublisher.addHandler(dashboard);
+                if (!metricInline) {
+                    this.metricPublisher.addHandler(dashboard);
+                }
                 this.metricPublisher.addHandler(metricHandlers);
             }
         }
@@ -444,7 +457,9 @@ public class Cluster {
                 authorization,
                 handler,
                 dashboardFactory == null ? null : dashboardFactory.create(url, DashboardType.Node),
-                metricPublisher);
+                metricInline ? dashboard : null,
+                metricPublisher,
+                weightVersion);
     }
 
     /**
@@ -843,6 +858,11 @@ public class Cluster {
                     result.getBackups().size(),
                     result.getDiscards().size()
             ));*/
+            if (logger.isDebugEnabled()) {
+                //期望扇入比例，用于观察子集选择是否均匀
+                logger.debug(String.format("cluster %s candidate result, candidates:%d, standbys:%d, fanIns:%s",
+                        cluster.name, result.getCandidates().size(), result.getStandbys().size(), result.getFanIns()));
+            }
             final AtomicInteger semaphore = new AtomicInteger(result.getCandidates().size());
             //命中节点建立连接
             candidate(result.getCandidates(), (s, n) -> connect(n, r -> semaphore.decrementAndGet()), Node::getWeight);
@@ -128,6 +128,14 @@ public class Node implements Shard {
      * 仪表盘
      */
     protected Dashboard dashboard;
+    /**
+     * 集群仪表盘，在调用线程上直接记录指标的时候使用
+     */
+    protected Dashboard clusterDashboard;
+    /**
+     * 是否在调用线程上直接记录指标
+     */
+    protected boolean metricInline;
     /**
      * 原始权重
      */
@@ -140,6 +148,10 @@ public class Node implements Shard {
      * 权重：经过预热计算后
      */
     protected int weight;
+    /**
+     * 权重版本，由集群的节点共享，任意节点权重变化都会递增，便于负载均衡判断缓存的权重表是否失效
+     */
+    protected final AtomicLong weightVersion;
     /**
      * 状态
      */
@@ -239,6 +251,32 @@ public class Node implements Shard {
                 final NodeHandler nodeHandler,
                 final Dashboard dashboard,
                 final Publisher<MetricEvent> publisher) {
+        this(clusterName, clusterUrl, shard, factory, authorization, nodeHandler, dashboard, null, publisher, null);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param clusterName      集群名称
+     * @param clusterUrl       集群URL
+     * @param shard            分片
+     * @param factory          连接工程
+     * @param authorization    授权
+     * @param nodeHandler      节点事件处理器
+     * @param dashboard        当前节点指标面板
+     * @param clusterDashboard 集群指标面板，开启直接记录指标的时候使用
+     * @param publisher        额外的指标事件监听器
+     * @param weightVersion    集群共享的权重版本，为空则单独计数
+     */
+    public Node(final String clusterName, final URL clusterUrl,
+                final Shard shard,
+                final EndpointFactory factory,
+                final Function<URL, Message> authorization,
+                final NodeHandler nodeHandler,
+                final Dashboard dashboard,
+                final Dashboard clusterDashboard,
+                final Publisher<MetricEvent> publisher,
+                final AtomicLong weightVersion) {
         Objects.requireNonNull(clusterUrl, "clusterUrl can not be null.");
         Objects.requireNonNull(shard, "shard can not be null.");
         Objects.requireNonNull(factory, "factory can not be null.");
@@ -257,8 +295,11 @@ public class Node implements Shard {
         this.nodeHandler = nodeHandler;
         //仪表盘
         this.dashboard = dashboard;
+        this.clusterDashboard = clusterDashboard;
         this.publisher = publisher;
-        if (publisher != null && dashboard != null) {
+        this.weightVersion = weightVersion == null ? new AtomicLong() : weightVersion;
+        this.metricInline = clusterUrl.getBoolean(METRIC_INLINE_OPTION);
+        if (publisher != null && dashboard != null && !metricInline) {
             //节点的Dashboard应该只能收到本节点的指标事件
             this.handler = dashboard.wrap(o -> o.getSource() == this);
             this.publisher.addHandler(handler);
@@ -364,7 +405,7 @@ public class Node implements Shard {
         } else {
             //提供函数，减少一层包装
             final Client c = factory.createClient(url,
-                    t -> publisher == null ?
+                    t -> publisher == null && (!metricInline || dashboard == null && clusterDashboard == null) ?
                             new NodeClient(url, t, v -> new MyEventHandler<>(this, v)) :
                             new MetricClient(url, t, v -> new MyEventHandler<>(this, v),
                                     this, clusterUrl, clusterName, publisher));
@@ -394,7 +435,7 @@ public class Node implements Shard {
                             //若startTime为0，在session中获取远程启动时间
                             startTime = startTime == 0 ? c.session().getRemoteStartTime() : startTime;
                             //每次连接后，获取目标节点的启动的时间戳，并初始化计算一次权重
-                            weight = warmup();
+                            setWeight(warmup());
                             client = c;
                             //心跳定时任务
                             timer().add(new SessionbeatTask(this, c));
@@ -556,7 +597,19 @@ public class Node implements Shard {
     }
 
     protected void setWeight(int weight) {
-        this.weight = weight;
+        if (this.weight != weight) {
+            this.weight = weight;
+            weightVersion.incrementAndGet();
+        }
+    }
+
+    /**
+     * 获取权重版本，同一个集群的节点共享
+     *
+     * @return 权重版本
+     */
+    public long getWeightVersion() {
+        return weightVersion.get();
     }
 
     @Override
@@ -1009,6 +1062,14 @@ public class Node implements Shard {
          * 统计指标事件发布器
          */
         protected final Publisher<MetricEvent> publisher;
+        /**
+         * 直接记录的节点仪表盘
+         */
+        protected final Dashboard dashboard;
+        /**
+         * 直接记录的集群仪表盘
+         */
+        protected final Dashboard clusterDashboard;
 
         /**
          * 构造函数
@@ -1029,17 +1090,20 @@ public class Node implements Shard {
             this.clusterUrl = clusterUrl;
             this.clusterName = clusterName;
             this.publisher = publisher;
+            this.dashboard = node.metricInline ? node.dashboard : null;
+            this.clusterDashboard = node.metricInline ? node.clusterDashboard : null;
         }
 
         @Override
         public CompletableFuture<Message> async(final Message message, final int timeoutMillis) {
             //判空,验证是否需要统计
             final long startTime = SystemClock.now();
+            final long startNanos = System.nanoTime();
             try {
                 return transport.async(message, timeoutMillis).whenComplete((r, t) ->
-                        publish(message, r, startTime, SystemClock.now(), t));
+                        publish(message, r, startTime, SystemClock.now(), System.nanoTime() - startNanos, t));
             } catch (Exception e) {
-                publish(message, null, startTime, SystemClock.now(), e);
+                publish(message, null, startTime, SystemClock.now(), System.nanoTime() - startNanos, e);
                 throw e;
             }
         }
@@ -1051,13 +1115,25 @@ public class Node implements Shard {
          * @param response
          * @param startTime
          * @param endTime
+         * @param elapsedNanos
          * @param throwable
          */
         protected void publish(final Message request, final Message response,
-                               final long startTime, final long endTime, Throwable throwable) {
-            publisher.offer(new MetricEvent(node, null, clusterUrl, clusterName, url,
-                    request, response, throwable, getRequests(),
-                    startTime, endTime));
+                               final long startTime, final long endTime, final long elapsedNanos,
+                               final Throwable throwable) {
+            int concurrency = getRequests();
+            //直接在当前线程记录到仪表盘，无需创建事件和入队
+            if (dashboard != null) {
+                dashboard.record(request, response, throwable, concurrency, startTime, endTime, elapsedNanos);
+            }
+            if (clusterDashboard != null) {
+                clusterDashboard.record(request, response, throwable, concurrency, startTime, endTime, elapsedNanos);
+            }
+            if (publisher != null) {
+                publisher.offer(new MetricEvent(node, null, clusterUrl, clusterName, url,
+                        request, response, throwable, concurrency,
+                        startTime, endTime, elapsedNanos));
+            }
         }
     }
 
@@ -1326,7 +1402,9 @@ public class Node implements Shard {
 
         @Override
         protected void doRun() {
-            if (node.warmup() != node.originWeight) {
+            //更新预热权重
+            node.setWeight(node.warmup());
+            if (node.weight != node.originWeight) {
                 timer().add(this);
             }
         }
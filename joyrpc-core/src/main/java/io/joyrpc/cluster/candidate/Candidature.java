@@ -25,8 +25,10 @@ import io.joyrpc.cluster.Node;
 import io.joyrpc.extension.Extensible;
 import io.joyrpc.extension.URL;
 
+import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
 
 
 /**
@@ -57,6 +59,8 @@ public interface Candidature {
         protected List<Node> backups;
         //丢弃的节点
         protected List<Node> discards;
+        //建连节点的期望扇入比例，即同样位置和配置的消费者中连接到该节点的比例
+        protected Map<String, Double> fanIns;
 
         public Result(List<Node> candidates) {
             this(candidates, null, null, null);
@@ -67,10 +71,16 @@ public interface Candidature {
         }
 
         public Result(List<Node> candidates, List<Node> standbys, List<Node> backups, List<Node> discards) {
+            this(candidates, standbys, backups, discards, null);
+        }
+
+        public Result(List<Node> candidates, List<Node> standbys, List<Node> backups, List<Node> discards,
+                      Map<String, Double> fanIns) {
             this.candidates = candidates == null ? new LinkedList<>() : candidates;
             this.standbys = standbys == null ? new LinkedList<>() : standbys;
             this.backups = backups == null ? new LinkedList<>() : backups;
             this.discards = discards == null ? new LinkedList<>() : discards;
+            this.fanIns = fanIns == null ? new HashMap<>() : fanIns;
         }
 
         public List<Node> getCandidates() {
@@ -89,6 +99,10 @@ public interface Candidature {
             return discards;
         }
 
+        public Map<String, Double> getFanIns() {
+            return fanIns;
+        }
+
         /**
          * 建连的节点
          *
@@ -21,8 +21,9 @@ package io.joyrpc.cluster.candidate.region;
  */
 
 import io.joyrpc.cluster.Node;
+import io.joyrpc.extension.URL;
 
-import java.util.Collections;
+import java.util.Comparator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.function.Consumer;
@@ -43,6 +44,10 @@ public class DataCenterDistribution {
     protected LinkedList<Node> normal = new LinkedList<>();
     //本机房不好的分片
     protected LinkedList<Node> low = new LinkedList<>();
+    //子集选择排序
+    protected Comparator<Node> subset;
+    //选中的数量
+    protected int selected;
 
     /**
      * 构造函数
@@ -51,8 +56,20 @@ public class DataCenterDistribution {
      * @param dataCenter
      */
     public DataCenterDistribution(String region, String dataCenter) {
+        this(region, dataCenter, null);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param region
+     * @param dataCenter
+     * @param subset     子集选择排序
+     */
+    public DataCenterDistribution(String region, String dataCenter, Comparator<Node> subset) {
         this.region = region;
         this.dataCenter = dataCenter;
+        this.subset = subset == null ? new Rendezvous((URL) null) : subset;
     }
 
     /**
@@ -123,12 +140,23 @@ public class DataCenterDistribution {
      * @return 添加的数量
      */
     public int candidate(final List<Node> candidates, final List<Node> backups, final int count) {
-        int remain = count - candidate(candidates, backups, high, count, o -> o.sort(null));
-        remain -= candidate(candidates, backups, normal, remain, o -> Collections.shuffle(o));
-        remain -= candidate(candidates, backups, low, remain, o -> Collections.shuffle(o));
+        //状态和权重相同的情况下按照子集排序，保证每次选举的结果稳定
+        int remain = count - candidate(candidates, backups, high, count, o -> o.sort(Comparator.<Node>naturalOrder().thenComparing(subset)));
+        remain -= candidate(candidates, backups, normal, remain, o -> o.sort(subset));
+        remain -= candidate(candidates, backups, low, remain, o -> o.sort(subset));
+        selected += count - remain;
         return count - remain;
     }
 
+    /**
+     * 期望扇入比例，即同样位置和配置的消费者中连接到本机房单个节点的比例
+     *
+     * @return 期望扇入比例
+     */
+    public double getFanIn() {
+        return size == 0 ? 0 : Math.min(1.0, selected * 1.0 / size);
+    }
+
     public String getRegion() {
         return region;
     }
@@ -48,6 +48,8 @@ public class RegionDistribution {
     protected Map<String, Map<String, DataCenterDistribution>> regions = new HashMap<>(5);
     //机房分片
     protected Map<String, DataCenterDistribution> dataCenters = new HashMap<>(10);
+    //子集选择排序
+    protected Rendezvous subset;
 
     /**
      * 构造函数
@@ -75,6 +77,7 @@ public class RegionDistribution {
         this.standbyPerDc = url == null ? 1 : url.getPositive("standbyPerDc", 1);
         this.rejectRatio = url == null ? REJECT_RATIO : url.getInteger("rejectRatio", REJECT_RATIO);
         this.rejectRatio = Math.max(Math.min(100, rejectRatio), 0);
+        this.subset = new Rendezvous(url);
         add(nodes);
     }
 
@@ -92,7 +95,7 @@ public class RegionDistribution {
         String dc = node.getDataCenter() == null ? "" : node.getDataCenter();
         regions.computeIfAbsent(rg, v -> new HashMap<>()).
                 computeIfAbsent(dc, o -> {
-                    DataCenterDistribution v = new DataCenterDistribution(rg, dc);
+                    DataCenterDistribution v = new DataCenterDistribution(rg, dc, subset);
                     if (!dc.isEmpty()) {
                         dataCenters.put(dc, v);
                     }
@@ -162,15 +165,35 @@ public class RegionDistribution {
             foreach(o -> o != local && !prefers.contains(o), o -> o.candidate(candidates, discards, 0));
             //保持本地机房的优先级
             if (!otherBackups.isEmpty()) {
-                //其它机房随机
-                Collections.shuffle(otherBackups);
+                //其它机房按照子集排序
+                otherBackups.sort(subset);
                 localBackups.addAll(otherBackups);
             }
         } else {
             //其它机房都丢弃
             foreach(o -> o != local, o -> o.candidate(candidates, discards, 0));
         }
-        return new Candidature.Result(candidates, standbys, localBackups, discards);
+        return new Candidature.Result(candidates, standbys, localBackups, discards, getFanIns(candidates, standbys));
+    }
+
+    /**
+     * 计算选中节点的期望扇入比例
+     *
+     * @param candidates 选择的节点
+     * @param standbys   热备的节点
+     * @return 节点名称和期望扇入比例
+     */
+    protected Map<String, Double> getFanIns(final List<Node> candidates, final List<Node> standbys) {
+        Map<String, Double> result = new HashMap<>(candidates.size() + standbys.size());
+        Consumer<Node> consumer = node -> {
+            String rg = node.getRegion() == null ? "" : node.getRegion();
+            String dc = node.getDataCenter() == null ? "" : node.getDataCenter();
+            DataCenterDistribution v = regions.get(rg).get(dc);
+            result.put(node.getName(), v.getFanIn());
+        };
+        candidates.forEach(consumer);
+        standbys.forEach(consumer);
+        return result;
     }
 
     /**
@@ -0,0 +1,129 @@
+package io.joyrpc.cluster.candidate.region;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.cluster.Node;
+import io.joyrpc.context.GlobalContext;
+import io.joyrpc.extension.URL;
+import io.joyrpc.util.network.Ipv4;
+
+import java.util.Comparator;
+
+/**
+ * 最高随机权重(Rendezvous Hashing)子集选择。<br/>
+ * 每个消费者用自己的种子对节点打分，按分数降序选择，消费者之间的选择互相独立且均匀，
+ * 每个节点期望被"选择数/节点数"比例的消费者连接。节点上下线只影响该节点自身，其它节点的排序不变，避免重新选举时大量断连。
+ */
+public class Rendezvous implements Comparator<Node> {
+
+    /**
+     * 子集种子参数，默认为本机IP和进程号
+     */
+    public static final String SUBSET_KEY = "subsetKey";
+
+    /**
+     * 默认种子
+     */
+    protected static volatile String defaultKey;
+
+    /**
+     * 种子
+     */
+    protected final long seed;
+
+    /**
+     * 构造函数
+     *
+     * @param key 种子
+     */
+    public Rendezvous(final String key) {
+        this.seed = mix(hash(key == null ? "" : key));
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param url url
+     */
+    public Rendezvous(final URL url) {
+        this(url == null ? getDefaultKey() : url.getString(SUBSET_KEY, getDefaultKey()));
+    }
+
+    /**
+     * 节点分数
+     *
+     * @param node 节点
+     * @return 分数
+     */
+    public long score(final Node node) {
+        return mix(seed ^ hash(node.getName()));
+    }
+
+    @Override
+    public int compare(final Node o1, final Node o2) {
+        //分数高的排在前面
+        return Long.compare(score(o2), score(o1));
+    }
+
+    /**
+     * 获取默认种子
+     *
+     * @return 默认种子
+     */
+    protected static String getDefaultKey() {
+        if (defaultKey == null) {
+            defaultKey = Ipv4.getLocalIp() + ":" + GlobalContext.getPid();
+        }
+        return defaultKey;
+    }
+
+    /**
+     * FNV-1a 64位哈希
+     *
+     * @param value 字符串
+     * @return 哈希值
+     */
+    protected static long hash(final String value) {
+        long result = 0xcbf29ce484222325L;
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                result ^= value.charAt(i);
+                result *= 0x100000001b3L;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 混淆，让相近的输入均匀分布
+     *
+     * @param value 值
+     * @return 混淆后的值
+     */
+    protected static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb9fe1a85ec53L;
+        value ^= value >>> 33;
+        return value;
+    }
+}
@@ -23,6 +23,7 @@ package io.joyrpc.cluster.discovery.backup;
 import io.joyrpc.extension.Extensible;
 
 import java.io.IOException;
+import java.util.function.Supplier;
 
 /**
  * 备份恢复
@@ -48,4 +49,16 @@ public interface Backup {
      */
     void backup(String name, BackupDatum datum) throws IOException;
 
+    /**
+     * 增量备份数据，默认进行全量备份
+     *
+     * @param name     名称
+     * @param delta    变化的数据，值为空表示删除
+     * @param snapshot 全量数据
+     * @throws IOException
+     */
+    default void backup(String name, BackupDatum delta, Supplier<BackupDatum> snapshot) throws IOException {
+        backup(name, snapshot.get());
+    }
+
 }
@@ -0,0 +1,356 @@
+package io.joyrpc.cluster.discovery.backup.file;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.cluster.discovery.backup.BackupDatum;
+import io.joyrpc.cluster.discovery.backup.BackupShard;
+import io.joyrpc.util.Memory;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * 备份日志，只追加集群和配置的变化，恢复的时候在快照上重放。<br/>
+ * 每条记录格式为：长度(int) + CRC32(int) + 类型(byte) + 数据，遇到长度或校验和不对的记录就停止重放，容忍写了一半的记录。
+ */
+public class BackupJournal implements Closeable {
+
+    protected static final byte CLUSTER_PUT = 1;
+    protected static final byte CLUSTER_REMOVE = 2;
+    protected static final byte CONFIG_PUT = 3;
+    protected static final byte CONFIG_REMOVE = 4;
+    /**
+     * 记录头长度
+     */
+    protected static final int HEADER_SIZE = 8;
+
+    /**
+     * 文件
+     */
+    protected final File file;
+    /**
+     * 最大字节数，超过需要压缩成快照
+     */
+    protected final long capacity;
+    /**
+     * 是否使用内存映射
+     */
+    protected final boolean mapped;
+    /**
+     * 文件通道
+     */
+    protected FileChannel channel;
+    /**
+     * 内存映射
+     */
+    protected MappedByteBuffer buffer;
+    /**
+     * 写入位置
+     */
+    protected long position;
+
+    /**
+     * 构造函数，创建一个空的日志文件
+     *
+     * @param file     文件
+     * @param capacity 最大字节数
+     * @param mapped   是否使用内存映射
+     * @throws IOException
+     */
+    public BackupJournal(final File file, final long capacity, final boolean mapped) throws IOException {
+        this.file = file;
+        this.capacity = capacity;
+        this.mapped = mapped;
+        this.channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        if (mapped) {
+            //映射的区域用0填充，重放遇到长度为0的记录结束
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        }
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * 追加变化数据
+     *
+     * @param delta 变化的数据，值为空表示删除
+     * @return 成功标识，空间不足返回false，需要压缩成快照
+     * @throws IOException 写入失败，已经截掉写了一半的数据
+     */
+    public boolean append(final BackupDatum delta) throws IOException {
+        byte[] records = encode(delta);
+        if (records.length == 0) {
+            return true;
+        } else if (position + records.length > capacity) {
+            return false;
+        }
+        try {
+            if (buffer != null) {
+                buffer.put(records);
+            } else {
+                ByteBuffer src = ByteBuffer.wrap(records);
+                while (src.hasRemaining()) {
+                    channel.write(src, position + src.position());
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            rollback();
+            throw e instanceof IOException ? (IOException) e : new IOException(e.getMessage(), e);
+        }
+        position += records.length;
+        return true;
+    }
+
+    /**
+     * 截掉写入位置后面写了一半的数据
+     *
+     * @throws IOException
+     */
+    protected void rollback() throws IOException {
+        if (buffer != null) {
+            //映射区域恢复成0
+            for (int i = (int) position, end = buffer.position(); i < end; i++) {
+                buffer.put(i, (byte) 0);
+            }
+            buffer.position((int) position);
+        } else {
+            channel.truncate(position);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            if (buffer != null) {
+                buffer.force();
+            }
+        } finally {
+            if (buffer != null) {
+                //解除映射，否则文件在Windows上不能删除
+                Memory.free(buffer);
+                buffer = null;
+            }
+            channel.close();
+        }
+    }
+
+    /**
+     * 编码变化数据
+     *
+     * @param delta 变化的数据
+     * @return 记录
+     * @throws IOException
+     */
+    protected static byte[] encode(final BackupDatum delta) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream(1024);
+        ByteArrayOutputStream body = new ByteArrayOutputStream(256);
+        DataOutputStream out = new DataOutputStream(body);
+        if (delta.getClusters() != null) {
+            for (Map.Entry<String, List<BackupShard>> entry : delta.getClusters().entrySet()) {
+                body.reset();
+                if (entry.getValue() == null) {
+                    out.writeByte(CLUSTER_REMOVE);
+                    writeString(out, entry.getKey());
+                } else {
+                    out.writeByte(CLUSTER_PUT);
+                    writeString(out, entry.getKey());
+                    out.writeInt(entry.getValue().size());
+                    for (BackupShard shard : entry.getValue()) {
+                        writeString(out, shard.getName());
+                        writeString(out, shard.getRegion());
+                        writeString(out, shard.getDataCenter());
+                        writeString(out, shard.getProtocol());
+                        writeString(out, shard.getAddress());
+                        out.writeInt(shard.getWeight());
+                    }
+                }
+                writeRecord(result, body);
+            }
+        }
+        if (delta.getConfigs() != null) {
+            for (Map.Entry<String, Map<String, String>> entry : delta.getConfigs().entrySet()) {
+                body.reset();
+                if (entry.getValue() == null) {
+                    out.writeByte(CONFIG_REMOVE);
+                    writeString(out, entry.getKey());
+                } else {
+                    out.writeByte(CONFIG_PUT);
+                    writeString(out, entry.getKey());
+                    out.writeInt(entry.getValue().size());
+                    for (Map.Entry<String, String> config : entry.getValue().entrySet()) {
+                        writeString(out, config.getKey());
+                        writeString(out, config.getValue());
+                    }
+                }
+                writeRecord(result, body);
+            }
+        }
+        return result.toByteArray();
+    }
+
+    /**
+     * 写入记录
+     *
+     * @param out  输出
+     * @param body 记录内容
+     */
+    protected static void writeRecord(final ByteArrayOutputStream out, final ByteArrayOutputStream body) {
+        byte[] bytes = body.toByteArray();
+        CRC32 crc32 = new CRC32();
+        crc32.update(bytes, 0, bytes.length);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(bytes.length).putInt((int) crc32.getValue());
+        out.write(header.array(), 0, HEADER_SIZE);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    /**
+     * 在快照上重放日志
+     *
+     * @param file  日志文件
+     * @param datum 快照
+     * @return 重放的记录数
+     * @throws IOException
+     */
+    public static int replay(final File file, final BackupDatum datum) throws IOException {
+        if (!file.exists()) {
+            return 0;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(java.nio.file.Files.readAllBytes(file.toPath()));
+        if (datum.getClusters() == null) {
+            datum.setClusters(new HashMap<>());
+        }
+        if (datum.getConfigs() == null) {
+            datum.setConfigs(new HashMap<>());
+        }
+        int count = 0;
+        CRC32 crc32 = new CRC32();
+        while (buffer.remaining() >= HEADER_SIZE) {
+            int length = buffer.getInt();
+            int checksum = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining()) {
+                //到达末尾或记录不完整
+                break;
+            }
+            crc32.reset();
+            crc32.update(buffer.array(), buffer.position(), length);
+            if ((int) crc32.getValue() != checksum) {
+                break;
+            }
+            ByteBuffer record = ByteBuffer.wrap(buffer.array(), buffer.position(), length);
+            buffer.position(buffer.position() + length);
+            apply(record, datum);
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * 应用一条记录
+     *
+     * @param record 记录
+     * @param datum  快照
+     */
+    protected static void apply(final ByteBuffer record, final BackupDatum datum) {
+        byte type = record.get();
+        String key = readString(record);
+        int size;
+        switch (type) {
+            case CLUSTER_PUT:
+                size = record.getInt();
+                List<BackupShard> shards = new ArrayList<>(size);
+                for (int i = 0; i < size; i++) {
+                    shards.add(new BackupShard(readString(record), readString(record), readString(record),
+                            readString(record), readString(record), record.getInt()));
+                }
+                datum.getClusters().put(key, shards);
+                break;
+            case CLUSTER_REMOVE:
+                datum.getClusters().remove(key);
+                break;
+            case CONFIG_PUT:
+                size = record.getInt();
+                Map<String, String> configs = new HashMap<>(size);
+                for (int i = 0; i < size; i++) {
+                    configs.put(readString(record), readString(record));
+                }
+                datum.getConfigs().put(key, configs);
+                break;
+            case CONFIG_REMOVE:
+                datum.getConfigs().remove(key);
+                break;
+            default:
+        }
+    }
+
+    /**
+     * 写字符串，空字符串长度为-1
+     *
+     * @param out   输出
+     * @param value 字符串
+     * @throws IOException
+     */
+    protected static void writeString(final DataOutputStream out, final String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * 读字符串
+     *
+     * @param buffer 缓冲区
+     * @return 字符串
+     */
+    protected static String readString(final ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        String result = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return result;
+    }
+}
@@ -31,14 +31,15 @@ import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 import static io.joyrpc.Plugin.SERIALIZATION;
 
 /**
- * 文件备份
+ * 文件备份，全量数据写入快照文件，增量数据追加到快照对应的日志文件，日志写满后重新压缩成快照
  */
 public class FileBackup implements Backup {
     /**
@@ -50,11 +51,30 @@ public class FileBackup implements Backup {
      */
     protected int backups;
 
-    protected Map<String, AtomicInteger> counters = new HashMap<>();
+    /**
+     * 日志文件的最大字节数，小于等于0表示不启用日志
+     */
+    protected long journalSize;
+    /**
+     * 日志是否使用内存映射
+     */
+    protected boolean mapped;
+
+    protected Map<String, AtomicInteger> counters = new ConcurrentHashMap<>();
+    /**
+     * 当前打开的日志
+     */
+    protected Map<String, BackupJournal> journals = new ConcurrentHashMap<>();
 
     public FileBackup(File directory, int backups) throws IOException {
+        this(directory, backups, 0, false);
+    }
+
+    public FileBackup(File directory, int backups, long journalSize, boolean mapped) throws IOException {
         this.directory = directory;
         this.backups = backups;
+        this.journalSize = journalSize;
+        this.mapped = mapped;
         if (!directory.exists() && !directory.mkdirs() || !directory.isDirectory()) {
             throw new IOException(String.format("directory is not exists. %s", directory));
         } else if (!directory.canRead() || !directory.canWrite()) {
@@ -96,7 +116,12 @@ public class FileBackup implements Backup {
         }
         File target = new File(directory, name + "." + counter.get());
         try (FileInputStream out = new FileInputStream(target)) {
-            return getSerialization().getSerializer().deserialize(out, BackupDatum.class);
+            BackupDatum datum = getSerialization().getSerializer().deserialize(out, BackupDatum.class);
+            //在快照上重放日志
+            if (datum != null) {
+                BackupJournal.replay(getJournalFile(target), datum);
+            }
+            return datum;
         } catch (SerializerException e) {
             throw new IOException(String.format("Error occurs while restoring %s.", name), e);
         }
@@ -119,6 +144,15 @@ public class FileBackup implements Backup {
             }
 
             File target = new File(directory, name + "." + cursor);
+            File journalFile = getJournalFile(target);
+            //关闭上一个日志，并删除目标快照的旧日志，避免重放到新快照上
+            BackupJournal journal = journals.remove(name);
+            if (journal != null) {
+                journal.close();
+            }
+            if (journalFile.exists() && !journalFile.delete()) {
+                throw new IOException(String.format("Error occurs while backuping %s. Failed deleting file %s", name, journalFile));
+            }
             File temp = File.createTempFile("cluster", "backup");
             //TODO 可能存在并发写入的问题
             try (FileOutputStream out = new FileOutputStream(temp)) {
@@ -138,9 +172,45 @@ public class FileBackup implements Backup {
                     temp.delete();
                 }
             }
+            if (journalSize > 0) {
+                journals.put(name, new BackupJournal(journalFile, journalSize, mapped));
+            }
+        }
+    }
+
+    @Override
+    public void backup(final String name, final BackupDatum delta, final Supplier<BackupDatum> snapshot) throws IOException {
+        if (journalSize <= 0 || delta == null) {
+            backup(name, snapshot.get());
+            return;
+        }
+        AtomicInteger counter = counters.computeIfAbsent(name, o -> new AtomicInteger(-1));
+        synchronized (counter) {
+            BackupJournal journal = journals.get(name);
+            boolean success;
+            try {
+                success = journal != null && journal.append(delta);
+            } catch (IOException e) {
+                //追加失败，重新压缩成快照，不再使用可能损坏的日志
+                success = false;
+            }
+            //首次备份、日志已满或追加失败，压缩成快照
+            if (!success) {
+                backup(name, snapshot.get());
+            }
         }
     }
 
+    /**
+     * 获取快照对应的日志文件
+     *
+     * @param target 快照文件
+     * @return 日志文件
+     */
+    protected File getJournalFile(final File target) {
+        return new File(target.getParentFile(), target.getName() + ".journal");
+    }
+
     /**
      * 获取序列化插件
      *
@@ -130,6 +130,14 @@ public abstract class AbstractRegistry implements Registry, Configure {
      * 数据是否做了修改
      */
     protected AtomicBoolean dirty = new AtomicBoolean();
+    /**
+     * 修改过的集群
+     */
+    protected Set<String> dirtyClusters = ConcurrentHashMap.newKeySet();
+    /**
+     * 修改过的配置
+     */
+    protected Set<String> dirtyConfigs = ConcurrentHashMap.newKeySet();
     /**
      * 重连任务
      */
@@ -333,7 +341,7 @@ public abstract class AbstractRegistry implements Registry, Configure {
      * @return
      */
     protected ClusterMeta createClusterMeta(final URL url, final String key) {
-        return new ClusterMeta(url, key, this::dirty, getPublisher(key));
+        return new ClusterMeta(url, key, () -> dirty(dirtyClusters, key), getPublisher(key));
     }
 
     /**
@@ -344,7 +352,7 @@ public abstract class AbstractRegistry implements Registry, Configure {
      * @return
      */
     protected ConfigMeta createConfigMeta(final URL url, final String key) {
-        return new ConfigMeta(url, key, this::dirty, getPublisher(key));
+        return new ConfigMeta(url, key, () -> dirty(dirtyConfigs, key), getPublisher(key));
     }
 
     /**
@@ -493,6 +501,8 @@ public abstract class AbstractRegistry implements Registry, Configure {
                 return meta.removeHandler(handler, o -> {
                     //没有监听器了，则进行注销
                     Close.close(subscribes.remove(o));
+                    //备份中删除
+                    meta.dirty();
                     CompletableFuture<URL> future = meta.getFuture();
                     //判断是否订阅过
                     if (future.isDone() && !future.isCancelled() && !future.isCompletedExceptionally()) {
@@ -928,38 +938,110 @@ public abstract class AbstractRegistry implements Registry, Configure {
     }
 
     /**
-     * 备份数据
+     * 数据更新标识
+     *
+     * @param keys 修改的集合
+     * @param key  修改的键
+     */
+    protected void dirty(final Set<String> keys, final String key) {
+        if (backup != null) {
+            keys.add(key);
+            dirty();
+        }
+    }
+
+    /**
+     * 备份数据，只把修改过的集群和配置作为增量传给备份，由备份决定追加日志还是全量快照。<br/>
+     * 备份失败则把取出的键放回，下次继续备份。
      */
     protected void backup() {
         if (backup != null) {
+            BackupDatum delta = new BackupDatum();
+            //修改过的集群，值为空表示删除
+            Map<String, List<BackupShard>> backupClusters = new HashMap<>();
+            //修改过的配置，值为空表示删除
+            Map<String, Map<String, String>> backupConfigs = new HashMap<>();
+            boolean success = false;
             try {
-                BackupDatum datum = new BackupDatum();
-                //备份集群数据
-                Map<String, List<BackupShard>> backupClusters = new HashMap<>(this.clusters.size());
-                this.clusters.forEach((k, v) -> {
-                    if (v.persistable()) {
-                        List<BackupShard> backupShards = new LinkedList<>();
-                        v.datum.forEach((name, shard) -> backupShards.add(new BackupShard(shard)));
-                        backupClusters.put(k, backupShards);
-                    }
+                drain(dirtyClusters, key -> {
+                    ClusterMeta meta = clusters.get(key);
+                    backupClusters.put(key, meta == null || !meta.persistable() ? null : backup(meta));
                 });
-                datum.setClusters(backupClusters);
-                //备份配置数据
-                Map<String, Map<String, String>> configs = new HashMap<>(this.configs.size());
-                this.configs.forEach((k, v) -> {
-                    if (v.persistable()) {
-                        configs.put(k, v.datum);
-                    }
+                delta.setClusters(backupClusters);
+                drain(dirtyConfigs, key -> {
+                    ConfigMeta meta = configs.get(key);
+                    backupConfigs.put(key, meta == null || !meta.persistable() ? null : meta.datum);
                 });
-                datum.setConfigs(configs);
+                delta.setConfigs(backupConfigs);
                 //备份到backup
-                backup.backup(name, datum);
+                backup.backup(name, delta, this::snapshot);
+                success = true;
             } catch (IOException e) {
                 logger.error(String.format("Error occurs while backuping %s registry datum.", name), e);
+            } finally {
+                if (!success) {
+                    //放回修改的键，下次重试
+                    dirtyClusters.addAll(backupClusters.keySet());
+                    dirtyConfigs.addAll(backupConfigs.keySet());
+                    dirty.set(true);
+                }
             }
         }
     }
 
+    /**
+     * 取出修改的键
+     *
+     * @param keys     修改的集合
+     * @param consumer 消费者
+     */
+    protected void drain(final Set<String> keys, final Consumer<String> consumer) {
+        Iterator<String> iterator = keys.iterator();
+        while (iterator.hasNext()) {
+            String key = iterator.next();
+            iterator.remove();
+            consumer.accept(key);
+        }
+    }
+
+    /**
+     * 备份集群的节点
+     *
+     * @param meta 集群
+     * @return 节点
+     */
+    protected List<BackupShard> backup(final ClusterMeta meta) {
+        List<BackupShard> backupShards = new LinkedList<>();
+        meta.datum.forEach((name, shard) -> backupShards.add(new BackupShard(shard)));
+        return backupShards;
+    }
+
+    /**
+     * 全量数据
+     *
+     * @return 全量数据
+     */
+    protected BackupDatum snapshot() {
+        BackupDatum datum = new BackupDatum();
+        //备份集群数据
+        Map<String, List<BackupShard>> backupClusters = new HashMap<>(this.clusters.size());
+        this.clusters.forEach((k, v) -> {
+            if (v.persistable()) {
+                backupClusters.put(k, backup(v));
+            }
+        });
+        datum.setClusters(backupClusters);
+        //备份配置数据
+        Map<String, Map<String, String>> configs = new HashMap<>(this.configs.size());
+        this.configs.forEach((k, v) -> {
+            if (v.persistable()) {
+                configs.put(k, v.datum);
+            }
+        });
+        datum.setConfigs(configs);
+        return datum;
+    }
+
     /**
      * 恢复数据
      */
@@ -81,7 +81,9 @@ public abstract class AbstractRegistryFactory implements RegistryFactory {
             }
             File directory = new File(path + File.separator + name +
                     File.separator + (application == null || application.isEmpty() ? "no_app" : application) + File.separator);
-            Backup backup = new FileBackup(directory, url.getInteger(Constants.REGISTRY_BACKUP_DATUM_OPTION));
+            Backup backup = new FileBackup(directory, url.getInteger(Constants.REGISTRY_BACKUP_DATUM_OPTION),
+                    url.getLong(Constants.REGISTRY_BACKUP_JOURNAL_SIZE_OPTION),
+                    url.getBoolean(Constants.REGISTRY_BACKUP_MAPPED_OPTION));
             return createRegistry(name, url, backup);
         } catch (IOException e) {
             throw new InitializationException("Error occurs while creating registry. caused by: ", e);
@@ -48,6 +48,11 @@ public interface Route<T, R> extends Prototype {
      */
     String PIN_POINT = "pinpoint";
 
+    /**
+     * hedge插件常量
+     */
+    String HEDGE = "hedge";
+
     /**
      * Failfast顺序
      */
@@ -62,6 +67,11 @@ public interface Route<T, R> extends Prototype {
      */
     int ORDER_PINOINT = 120;
 
+    /**
+     * hedge顺序
+     */
+    int ORDER_HEDGE = 130;
+
     /**
      * 调用，不能修改候选者节点列表
      *
@@ -99,4 +109,13 @@ public interface Route<T, R> extends Prototype {
 
     }
 
+    /**
+     * 是否会取消调用返回的Future，调用方据此决定是否在取消后释放请求资源
+     *
+     * @return 可取消标识
+     */
+    default boolean isCancellable() {
+        return false;
+    }
+
 }
@@ -92,7 +92,7 @@ public class McCircuitBreaker implements CircuitBreaker {
         //先判断连续失败次数,再判断失败率
         if (successiveFailures > 0 && metric.getSuccessiveFailures() >= successiveFailures
                 || availability > 0 && metric.getSnapshot().getAvailability() <= availability) {
-            //熔断，内部处理了并发调用
+            //熔断，窗口内部加锁处理了并发调用
             window.broken(period, decubation);
         }
     }
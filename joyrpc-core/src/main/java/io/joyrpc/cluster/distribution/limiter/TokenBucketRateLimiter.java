@@ -0,0 +1,205 @@
+package io.joyrpc.cluster.distribution.limiter;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.cluster.distribution.RateLimiter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+
+/**
+ * 无锁令牌桶限流器，桶容量为一个周期的许可数，初始是满的。<br/>
+ * 采用GCRA算法，只维护一个理论到达时间(long)，获取许可就是一次CAS，拒绝的请求不修改状态，也不创建对象。<br/>
+ * 每秒许可数很高的时候按CPU分片，每个线程落在固定的分片上，按各分片的请求量定期重新分配许可，本分片没有许可时再尝试相邻分片。
+ */
+public class TokenBucketRateLimiter implements RateLimiter {
+
+    /**
+     * 每秒许可数达到该值后启用分片
+     */
+    protected static final long STRIPE_THRESHOLD = 100000L;
+    /**
+     * 最大分片数
+     */
+    protected static final int MAX_STRIPES = Math.min(16, Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() - 1)) << 1);
+    /**
+     * 重新分配许可的最小间隔
+     */
+    protected static final long MIN_REBALANCE_NANOS = TimeUnit.MILLISECONDS.toNanos(100);
+
+    protected static final AtomicLongFieldUpdater<TokenBucketRateLimiter> REBALANCE =
+            AtomicLongFieldUpdater.newUpdater(TokenBucketRateLimiter.class, "nextRebalanceNanos");
+
+    //最开始时间
+    protected final long startTimeNanos = System.nanoTime();
+    //周期最大允许次数
+    protected volatile int maxPermissions;
+    //限流周期，单位：纳秒
+    protected volatile long limitPeriodNanos;
+    //令牌桶分片
+    protected volatile Bucket[] buckets;
+    //下次重新分配许可的时间
+    protected volatile long nextRebalanceNanos;
+
+    /**
+     * 构造函数
+     */
+    public TokenBucketRateLimiter() {
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param config
+     */
+    public TokenBucketRateLimiter(final RateLimiterConfig config) {
+        reload(config);
+    }
+
+    @Override
+    public String type() {
+        return "tokenBucket";
+    }
+
+    @Override
+    public boolean getPermission() {
+        Bucket[] buckets = this.buckets;
+        if (buckets == null) {
+            return true;
+        }
+        long now = System.nanoTime() - startTimeNanos;
+        long period = limitPeriodNanos;
+        if (buckets.length == 1) {
+            return buckets[0].acquire(now, period);
+        }
+        rebalance(buckets, now);
+        int mask = buckets.length - 1;
+        int index = (int) Thread.currentThread().getId() & mask;
+        Bucket bucket = buckets[index];
+        Bucket.DEMAND.incrementAndGet(bucket);
+        //本分片没有许可，尝试相邻分片
+        return bucket.acquire(now, period) || buckets[(index + 1) & mask].acquire(now, period);
+    }
+
+    /**
+     * 按请求量重新分配各分片的许可数
+     *
+     * @param buckets 分片
+     * @param now     当前时间
+     */
+    protected void rebalance(final Bucket[] buckets, final long now) {
+        long next = nextRebalanceNanos;
+        if (now < next || !REBALANCE.compareAndSet(this, next, now + Math.max(limitPeriodNanos, MIN_REBALANCE_NANOS))) {
+            return;
+        }
+        int length = buckets.length;
+        long total = 0;
+        long[] demands = new long[length];
+        for (int i = 0; i < length; i++) {
+            demands[i] = Bucket.DEMAND.getAndSet(buckets[i], 0);
+            total += demands[i];
+        }
+        long permissions = maxPermissions;
+        long period = limitPeriodNanos;
+        for (int i = 0; i < length; i++) {
+            //加1平滑，避免空闲分片分不到许可
+            buckets[i].share(Math.max(1, permissions * (demands[i] + 1) / (total + length)), period);
+        }
+    }
+
+    @Override
+    public boolean reload(final RateLimiterConfig config) {
+        if (config == null) {
+            return false;
+        } else if (buckets != null && config.getLimitCount() == maxPermissions && config.getLimitPeriodNanos() == limitPeriodNanos) {
+            //配置没有发生变化
+            return true;
+        }
+        int permissions = config.getLimitCount();
+        long period = config.getLimitPeriodNanos();
+        long perSecond = (long) (permissions * (double) TimeUnit.SECONDS.toNanos(1) / period);
+        int stripes = perSecond >= STRIPE_THRESHOLD ? MAX_STRIPES : 1;
+        Bucket[] olds = buckets;
+        Bucket[] news = olds != null && olds.length == stripes ? olds : new Bucket[stripes];
+        for (int i = 0; i < stripes; i++) {
+            if (news[i] == null) {
+                news[i] = new Bucket();
+            }
+            //平均分配，余数分给前面的分片
+            news[i].share(Math.max(1, permissions / stripes + (i < permissions % stripes ? 1 : 0)), period);
+        }
+        this.maxPermissions = permissions;
+        this.limitPeriodNanos = period;
+        this.buckets = news;
+        return true;
+    }
+
+    /**
+     * 令牌桶
+     */
+    protected static class Bucket {
+
+        protected static final AtomicLongFieldUpdater<Bucket> TAT = AtomicLongFieldUpdater.newUpdater(Bucket.class, "tat");
+        protected static final AtomicLongFieldUpdater<Bucket> DEMAND = AtomicLongFieldUpdater.newUpdater(Bucket.class, "demand");
+
+        //填充，避免和相邻的分片伪共享
+        protected long p1, p2, p3, p4, p5, p6, p7;
+        //理论到达时间，即桶里令牌全部恢复的时间减去一个周期
+        protected volatile long tat;
+        //产生一个令牌的纳秒数
+        protected volatile long interval;
+        //请求量
+        protected volatile long demand;
+        protected long q1, q2, q3, q4, q5, q6, q7;
+
+        /**
+         * 获取许可
+         *
+         * @param now    当前时间
+         * @param period 周期，即桶容量对应的时间
+         * @return 成功标识
+         */
+        protected boolean acquire(final long now, final long period) {
+            long interval = this.interval;
+            long current;
+            long next;
+            do {
+                current = tat;
+                next = Math.max(current, now) + interval;
+                if (next - now > period) {
+                    return false;
+                }
+            } while (!TAT.compareAndSet(this, current, next));
+            return true;
+        }
+
+        /**
+         * 设置许可数
+         *
+         * @param permissions 周期内的许可数
+         * @param period      周期
+         */
+        protected void share(final long permissions, final long period) {
+            this.interval = Math.max(1, period / permissions);
+        }
+    }
+
+}
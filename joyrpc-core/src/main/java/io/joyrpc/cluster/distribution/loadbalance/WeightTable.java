@@ -0,0 +1,157 @@
+package io.joyrpc.cluster.distribution.loadbalance;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.cluster.Weighter;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 不可变的累计权重表，通过二分查找实现O(log n)的加权随机选择。<br/>
+ * 节点列表不变的情况下，权重变化只需要重新计算累计权重，无需重新拷贝节点。
+ */
+public class WeightTable<T extends Weighter> {
+
+    /**
+     * 构建时候的节点列表，便于引用比较
+     */
+    protected final List<T> source;
+    /**
+     * 节点
+     */
+    protected final Weighter[] items;
+    /**
+     * 累计权重，权重和不大于零的时候为空数组，退化为随机
+     */
+    protected final int[] weights;
+    /**
+     * 权重版本
+     */
+    protected final long version;
+
+    /**
+     * 构造函数
+     *
+     * @param source  节点列表
+     * @param version 权重版本
+     */
+    public WeightTable(final List<T> source, final long version) {
+        this.source = source;
+        this.items = source.toArray(new Weighter[0]);
+        this.weights = accumulate(items);
+        this.version = version;
+    }
+
+    /**
+     * 构造函数，复用节点重新计算权重
+     *
+     * @param table   原有权重表
+     * @param version 权重版本
+     */
+    protected WeightTable(final WeightTable<T> table, final long version) {
+        this.source = table.source;
+        this.items = table.items;
+        this.weights = accumulate(items);
+        this.version = version;
+    }
+
+    /**
+     * 计算累计权重
+     *
+     * @param items 节点
+     * @return 累计权重
+     */
+    protected static int[] accumulate(final Weighter[] items) {
+        int[] result = new int[items.length];
+        int total = 0;
+        for (int i = 0; i < items.length; i++) {
+            total += Math.max(items[i].getWeight(), 0);
+            result[i] = total;
+        }
+        return total <= 0 ? new int[0] : result;
+    }
+
+    /**
+     * 权重变化后重新计算累计权重
+     *
+     * @param version 权重版本
+     * @return 新的权重表
+     */
+    public WeightTable<T> reweight(final long version) {
+        return version == this.version ? this : new WeightTable<>(this, version);
+    }
+
+    /**
+     * 是否是同一个节点列表，只做引用比较
+     *
+     * @param candidates 节点列表
+     * @return 一致标识
+     */
+    public boolean match(final List<T> candidates) {
+        return candidates == source;
+    }
+
+    /**
+     * 随机选择
+     *
+     * @return 节点
+     */
+    @SuppressWarnings("unchecked")
+    public T select() {
+        switch (items.length) {
+            case 0:
+                return null;
+            case 1:
+                return (T) items[0];
+            default:
+                if (weights.length == 0) {
+                    return (T) items[ThreadLocalRandom.current().nextInt(items.length)];
+                }
+                //二分查找第一个累计权重大于随机数的节点
+                int random = ThreadLocalRandom.current().nextInt(weights[weights.length - 1]);
+                int low = 0;
+                int high = weights.length - 1;
+                int mid;
+                while (low < high) {
+                    mid = (low + high) >>> 1;
+                    if (weights[mid] <= random) {
+                        low = mid + 1;
+                    } else {
+                        high = mid;
+                    }
+                }
+                return (T) items[low];
+        }
+    }
+
+    public List<T> getSource() {
+        return source;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return items.length;
+    }
+}
@@ -26,6 +26,8 @@ import io.joyrpc.cluster.Candidate;
 import io.joyrpc.cluster.Cluster;
 import io.joyrpc.cluster.Node;
 import io.joyrpc.cluster.distribution.LoadBalance;
+import io.joyrpc.cluster.distribution.loadbalance.WeightTable;
+import io.joyrpc.cluster.distribution.loadbalance.adaptive.election.RandomWeightElection;
 import io.joyrpc.constants.Constants;
 import io.joyrpc.context.adaptive.AdaptiveConfiguration;
 import io.joyrpc.extension.Extension;
@@ -33,17 +35,19 @@ import io.joyrpc.extension.URL;
 import io.joyrpc.metric.*;
 import io.joyrpc.protocol.message.Invocation;
 import io.joyrpc.protocol.message.RequestMessage;
+import io.joyrpc.util.SystemClock;
 
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.LinkedList;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.function.Consumer;
 import java.util.function.Function;
 
 import static io.joyrpc.Plugin.*;
 import static io.joyrpc.util.StringUtils.SEMICOLON_COMMA_WHITESPACE;
 import static io.joyrpc.util.StringUtils.split;
+import static io.joyrpc.util.Timer.timer;
 
 /**
  * 自适应负载均衡
@@ -80,6 +84,10 @@ public class AdaptiveLoadBalance<T> implements LoadBalance<T>, InvokerAware, Das
      * 节点TP函数
      */
     protected Function<TPSnapshot, Integer> nodeFunction;
+    /**
+     * 缓存的评分结果，按方法名存储
+     */
+    protected Map<String, Ranking> rankings = new ConcurrentHashMap<>();
 
     /**
      * 接口
@@ -420,40 +428,118 @@ public class AdaptiveLoadBalance<T> implements LoadBalance<T>, InvokerAware, Das
         if (candidates == null || candidates.isEmpty()) {
             return null;
         }
-        //得到指标获取函数，增对不同的场景可能是节点或方法的
-        Function<Dashboard, TPWindow> metricFunction = apply(request);
-        //构建配置,计算并发及QPS的中位数
-        AdaptiveConfig config = compute(build(request), candidate, metricFunction);
-
-        AdaptiveLoadBalance.ClusterRank clusterRank = new AdaptiveLoadBalance.ClusterRank(candidate.getCluster(), config, metricFunction, nodeFunction);
-        int size = candidates.size();
-        //抽样随机打散，避免每次都拿到固定的节点
-        boolean sampling = clusterRank.enoughGoods > 0 && clusterRank.arbiter.sampling();
-        if (!sampling) {
-            //节点全选
-            clusterRank.enoughGoods = 0;
-            clusterRank.score(candidates);
-        } else {
-            int random = size > clusterRank.enoughGoods ? (int) (Math.random() * size) : -1;
-            if (random > 0) {
-                //判断是否有足够的最佳节点
-                if (!clusterRank.score(candidates.subList(random, size))) {
-                    clusterRank.score(candidates.subList(0, random));
+        //获取方法名，增对不同的场景可能是节点或方法的指标
+        String method = getMethodName(request);
+        AdaptiveConfig config = build(request);
+        String key = method == null ? "" : method;
+        Ranking ranking = rankings.get(key);
+        if (ranking == null) {
+            //首次计算，没有旧的评分可用，只能同步计算
+            ranking = rank(candidate, config, method);
+            Ranking exists = rankings.putIfAbsent(key, ranking);
+            ranking = exists == null ? ranking : exists;
+        } else if (!ranking.match(candidates)) {
+            //节点发生变化，可能是重试或路由后的子集，也可能是集群节点变化
+            if (!ranking.contains(candidates)) {
+                //有新节点，只用不小于原有节点的列表替换缓存，避免缓存在子集和全量之间来回切换
+                if (candidates.size() >= ranking.size()) {
+                    refresh(key, ranking, candidate, config, method);
                 }
-            } else {
-                clusterRank.score(candidates);
+            } else if (ranking.isExpired(config)) {
+                //子集的节点都已评分，按照原有节点异步重新计算，避免用子集替换缓存
+                refresh(key, ranking, new Candidate(candidate, ranking.getNodes()), config, method);
             }
+            //按成员过滤缓存的评分进行选择，子集中没有已评分的节点才单独计算
+            NodeRank rank = ranking.select(candidates);
+            if (rank == null) {
+                rank = rank(candidate, config, method).select();
+            }
+            if (rank != null) {
+                rank.distribution();
+                return rank.getNode();
+            }
+            return null;
+        } else if (ranking.isExpired(config)) {
+            //指标已经滚动，由一个线程异步重新计算，当前请求继续使用旧的评分
+            refresh(key, ranking, candidate, config, method);
         }
+        //选择最佳评分节点
+        NodeRank rank = ranking.select();
+        if (rank != null) {
+            rank.distribution();
+            return rank.getNode();
+        }
+        return null;
+    }
 
+    /**
+     * 异步重新计算评分，同一时刻只有抢占成功的线程会提交计算任务
+     *
+     * @param key       缓存键
+     * @param ranking   当前评分
+     * @param candidate 候选者
+     * @param config    配置
+     * @param method    方法名
+     */
+    protected void refresh(final String key, final Ranking ranking, final Candidate candidate,
+                           final AdaptiveConfig config, final String method) {
+        if (!ranking.lock()) {
+            return;
+        }
+        try {
+            timer().add("AdaptiveRanking-" + className + "." + key, SystemClock.now(), () -> {
+                try {
+                    //如果缓存已经被替换，则放弃本次结果
+                    rankings.replace(key, ranking, rank(candidate, config, method));
+                } catch (Throwable e) {
+                    //计算失败，释放锁，便于后续请求重试
+                    ranking.unlock();
+                }
+            });
+        } catch (Throwable e) {
+            ranking.unlock();
+        }
+    }
+
+    /**
+     * 对候选者进行评分，生成不可变的评分结果
+     *
+     * @param candidate 候选者
+     * @param config    配置
+     * @param method    方法名
+     * @return
+     */
+    protected Ranking rank(final Candidate candidate, final AdaptiveConfig config, final String method) {
+        List<Node> candidates = candidate.getNodes();
+        //得到指标获取函数
+        Function<Dashboard, TPWindow> metricFunction = method == null ? Dashboard::getMetric :
+                o -> o.getMethod(method);
+        //构建配置,计算并发及QPS的中位数
+        AdaptiveConfig target = compute(config, candidate, metricFunction);
+        AdaptiveLoadBalance.ClusterRank clusterRank = new AdaptiveLoadBalance.ClusterRank(candidate.getCluster(), target, metricFunction, nodeFunction);
+        //评分结果会被缓存复用，对所有节点进行评分
+        clusterRank.enoughGoods = 0;
+        clusterRank.score(candidates);
         //如果需要，对评分信息进行记录
         if (recorder != null) {
             recorder.accept(clusterRank.ranks);
         }
-        //选择最佳评分节点
-        NodeRank rank = clusterRank.select();
-        if (rank != null) {
-            rank.distribution();
-            return rank.getNode();
+        TPWindow window = metricFunction.apply(candidate.getCluster().getDashboard());
+        return new Ranking(candidates, config, window, clusterRank.ranks, clusterRank.bestRanks, clusterRank.selector, target);
+    }
+
+    /**
+     * 获取请求的方法名
+     *
+     * @param request
+     * @return
+     */
+    protected String getMethodName(final T request) {
+        if (request instanceof RequestMessage) {
+            Object payload = ((RequestMessage) request).getPayLoad();
+            if (payload instanceof Invocation) {
+                return ((Invocation) payload).getMethodName();
+            }
         }
         return null;
     }
@@ -465,14 +551,231 @@ public class AdaptiveLoadBalance<T> implements LoadBalance<T>, InvokerAware, Das
      * @return
      */
     protected Function<Dashboard, TPWindow> apply(final T request) {
-        if (request instanceof RequestMessage) {
-            Object payload = ((RequestMessage) request).getPayLoad();
-            if (payload != null && payload instanceof Invocation) {
-                String method = ((Invocation) payload).getMethodName();
-                return o -> o instanceof Dashboard ? o.getMethod(method) : o.getMetric();
+        String method = getMethodName(request);
+        return method == null ? o -> o.getMetric() : o -> o.getMethod(method);
+    }
+
+    /**
+     * 不可变的评分结果，在指标快照滚动或节点变化的时候重新计算
+     */
+    protected static class Ranking {
+        /**
+         * 参与评分的节点，便于快速比较
+         */
+        protected final WeightTable<Node> members;
+        /**
+         * 配置
+         */
+        protected final AdaptiveConfig config;
+        /**
+         * 集群指标窗口
+         */
+        protected final TPWindow window;
+        /**
+         * 计算时候的集群指标快照
+         */
+        protected final TPMetric snapshot;
+        /**
+         * 过期时间
+         */
+        protected final long expireTime;
+        /**
+         * 节点索引，值为节点在排序评分中的位置，被排除的节点为-1
+         */
+        protected final Map<Node, Integer> index;
+        /**
+         * 所有节点的评分，按照评分从好到差排序
+         */
+        protected final NodeRank[] sorted;
+        /**
+         * 最佳评分的节点
+         */
+        protected final NodeRank[] ranks;
+        /**
+         * 最佳评分节点的累计权重表，为空表示使用选择器进行选择
+         */
+        protected final WeightTable<NodeRank> weights;
+        /**
+         * 最佳评分节点列表
+         */
+        protected final List<NodeRank> rankList;
+        /**
+         * 选择器
+         */
+        protected final Election election;
+        /**
+         * 计算后的配置
+         */
+        protected final AdaptiveConfig electionConfig;
+        /**
+         * 是否有线程在重新计算
+         */
+        protected final AtomicBoolean refreshing = new AtomicBoolean();
+
+        /**
+         * 构造函数
+         *
+         * @param nodes          节点
+         * @param config         配置
+         * @param window         集群指标窗口
+         * @param allRanks       所有节点的评分
+         * @param bestRanks      最佳评分的节点
+         * @param election       选择器
+         * @param electionConfig 计算后的配置
+         */
+        public Ranking(final List<Node> nodes, final AdaptiveConfig config, final TPWindow window,
+                       final List<NodeRank> allRanks, final List<NodeRank> bestRanks,
+                       final Election election, final AdaptiveConfig electionConfig) {
+            this.members = new WeightTable<>(nodes, 0);
+            this.index = new IdentityHashMap<>(nodes.size() * 4 / 3 + 1);
+            for (Node node : nodes) {
+                index.put(node, -1);
+            }
+            //稳定排序，相同评分保持原有顺序
+            this.sorted = allRanks.toArray(new NodeRank[0]);
+            Arrays.sort(sorted, Comparator.comparing(NodeRank::getRank));
+            for (int i = 0; i < sorted.length; i++) {
+                index.put(sorted[i].getNode(), i);
+            }
+            this.config = config;
+            this.window = window;
+            this.snapshot = window == null ? null : window.getSnapshot();
+            this.expireTime = SystemClock.now() + (window == null ? 1000 : window.getWindowTime());
+            this.ranks = bestRanks.toArray(new NodeRank[0]);
+            this.rankList = Collections.unmodifiableList(Arrays.asList(ranks));
+            this.election = election;
+            this.electionConfig = electionConfig;
+            this.weights = election instanceof RandomWeightElection ? new WeightTable<>(rankList, 0) : null;
+        }
+
+        /**
+         * 节点是否一致
+         *
+         * @param candidates
+         * @return
+         */
+        public boolean match(final List<Node> candidates) {
+            return members.match(candidates);
+        }
+
+        public List<Node> getNodes() {
+            return members.getSource();
+        }
+
+        public int size() {
+            return members.size();
+        }
+
+        /**
+         * 节点是否都参与了评分
+         *
+         * @param candidates
+         * @return
+         */
+        public boolean contains(final List<Node> candidates) {
+            for (Node node : candidates) {
+                if (!index.containsKey(node)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 是否过期
+         *
+         * @param config 当前配置
+         * @return
+         */
+        public boolean isExpired(final AdaptiveConfig config) {
+            return config != this.config
+                    || window != null && window.getSnapshot() != snapshot
+                    || SystemClock.now() >= expireTime;
+        }
+
+        /**
+         * 抢占重新计算的权利
+         *
+         * @return
+         */
+        public boolean lock() {
+            return refreshing.compareAndSet(false, true);
+        }
+
+        /**
+         * 释放重新计算的权利
+         */
+        public void unlock() {
+            refreshing.set(false);
+        }
+
+        /**
+         * 选择节点
+         *
+         * @return
+         */
+        public NodeRank select() {
+            switch (ranks.length) {
+                case 0:
+                    return null;
+                case 1:
+                    return ranks[0];
+                default:
+                    return weights == null ? election.choose(rankList, electionConfig) : weights.select();
+            }
+        }
+
+        /**
+         * 从子集中选择节点，按成员过滤缓存的评分，不重新计算指标
+         *
+         * @param candidates 节点子集
+         * @return 子集中没有已评分的节点返回空
+         */
+        public NodeRank select(final List<Node> candidates) {
+            BitSet bits = new BitSet(sorted.length);
+            Integer position;
+            for (Node node : candidates) {
+                position = index.get(node);
+                if (position != null && position >= 0) {
+                    bits.set(position);
+                }
+            }
+            int first = bits.nextSetBit(0);
+            if (first < 0) {
+                return null;
+            }
+            //已经排序，子集中最佳评分的节点落在[first,end)
+            Rank top = sorted[first].getRank();
+            int end = first + 1;
+            while (end < sorted.length && sorted[end].getRank() == top) {
+                end++;
+            }
+            int next = bits.nextSetBit(first + 1);
+            if (next < 0 || next >= end) {
+                return sorted[first];
+            }
+            if (weights != null) {
+                //加权随机
+                int total = 0;
+                for (int i = first; i >= 0 && i < end; i = bits.nextSetBit(i + 1)) {
+                    total += Math.max(sorted[i].getWeight(), 0);
+                }
+                if (total > 0) {
+                    int random = ThreadLocalRandom.current().nextInt(total);
+                    for (int i = first; i >= 0 && i < end; i = bits.nextSetBit(i + 1)) {
+                        random -= Math.max(sorted[i].getWeight(), 0);
+                        if (random < 0) {
+                            return sorted[i];
+                        }
+                    }
+                }
+            }
+            List<NodeRank> best = new ArrayList<>(end - first);
+            for (int i = first; i >= 0 && i < end; i = bits.nextSetBit(i + 1)) {
+                best.add(sorted[i]);
             }
+            return election.choose(best, electionConfig);
         }
-        return o -> o.getMetric();
     }
 
     /**
@@ -23,17 +23,50 @@ package io.joyrpc.cluster.distribution.loadbalance.randomweight;
 import io.joyrpc.cluster.Candidate;
 import io.joyrpc.cluster.Node;
 import io.joyrpc.cluster.distribution.LoadBalance;
-import io.joyrpc.cluster.distribution.loadbalance.RandomWeight;
+import io.joyrpc.cluster.distribution.loadbalance.WeightTable;
 import io.joyrpc.extension.Extension;
 
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
 /**
- * 加权随机负载均衡
+ * 加权随机负载均衡，按节点列表缓存累计权重表，节点列表或权重变化的时候才重新计算。<br/>
+ * 路由后的子集和全量节点列表按引用分别缓存，互不覆盖；权重版本由集群的节点共享。
  */
 @Extension("randomWeight")
 public class RandomWeightLoadBalance<T> implements LoadBalance<T> {
 
+    /**
+     * 缓存槽位数
+     */
+    protected static final int SLOTS = 8;
+
+    /**
+     * 累计权重表，按节点列表的引用散列到槽位
+     */
+    protected final AtomicReferenceArray<WeightTable<Node>> tables = new AtomicReferenceArray<>(SLOTS);
+
     @Override
     public Node select(final Candidate candidate, final T request) {
-        return RandomWeight.select(candidate.getNodes());
+        List<Node> nodes = candidate.getNodes();
+        if (nodes == null || nodes.isEmpty()) {
+            return null;
+        }
+        //同一个列表的节点来自同一个集群，共享权重版本
+        long version = nodes.get(0).getWeightVersion();
+        int slot = System.identityHashCode(nodes) & (SLOTS - 1);
+        WeightTable<Node> current = tables.get(slot);
+        WeightTable<Node> result;
+        if (current == null || !current.match(nodes)) {
+            //节点变化
+            result = new WeightTable<>(nodes, version);
+        } else {
+            //权重变化则复用节点重新计算累计权重
+            result = current.reweight(version);
+        }
+        if (result != current) {
+            tables.lazySet(slot, result);
+        }
+        return result.select();
     }
 }
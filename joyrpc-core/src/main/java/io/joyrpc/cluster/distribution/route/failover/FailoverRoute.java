@@ -29,6 +29,8 @@ import io.joyrpc.context.RequestContext;
 import io.joyrpc.exception.FailoverException;
 import io.joyrpc.exception.LafException;
 import io.joyrpc.extension.Extension;
+import io.joyrpc.protocol.message.Invocation;
+import io.joyrpc.protocol.message.RequestMessage;
 import io.joyrpc.util.Futures;
 
 import java.util.List;
@@ -37,7 +39,7 @@ import java.util.function.Function;
 
 import static io.joyrpc.cluster.distribution.Route.FAIL_OVER;
 import static io.joyrpc.cluster.distribution.Route.ORDER_FAILOVER;
-import static io.joyrpc.constants.Constants.INTERNAL_KEY_RETRY_TIMES;
+import static io.joyrpc.constants.Constants.*;
 
 /**
  * 异常重试
@@ -53,6 +55,10 @@ public class FailoverRoute<T, R> extends AbstractRoute<T, R> implements RouteFai
      * 重试函数
      */
     protected Function<T, FailoverPolicy> retryFunction = (request) -> retryPolicy;
+    /**
+     * 重试预算
+     */
+    protected RetryBudget retryBudget;
 
     /**
      * 构建过载异常
@@ -77,6 +83,39 @@ public class FailoverRoute<T, R> extends AbstractRoute<T, R> implements RouteFai
     }
 
 
+    @Override
+    public void setup() {
+        retryBudget = url == null ? new RetryBudget(RETRY_BUDGET_OPTION.getValue(), RETRY_BUDGET_MIN_OPTION.getValue(),
+                RETRY_BUDGET_WINDOW_OPTION.getValue()) :
+                new RetryBudget(url.getPath(), url.getInteger(RETRY_BUDGET_OPTION), url.getInteger(RETRY_BUDGET_MIN_OPTION),
+                        url.getLong(RETRY_BUDGET_WINDOW_OPTION));
+    }
+
+    /**
+     * 获取重试预算，可以获取被拒绝的重试统计
+     *
+     * @return 重试预算
+     */
+    public RetryBudget getRetryBudget() {
+        return retryBudget;
+    }
+
+    /**
+     * 获取方法名称
+     *
+     * @param request 请求
+     * @return 方法名称
+     */
+    protected String getMethodName(final T request) {
+        if (request instanceof RequestMessage) {
+            Object payload = ((RequestMessage) request).getPayLoad();
+            if (payload instanceof Invocation) {
+                return ((Invocation) payload).getMethodName();
+            }
+        }
+        return null;
+    }
+
     @Override
     public void setRetryFunction(final Function<T, FailoverPolicy> retryFunction) {
         this.retryFunction = retryFunction;
@@ -117,54 +156,88 @@ public class FailoverRoute<T, R> extends AbstractRoute<T, R> implements RouteFai
                          final FailoverPolicy policy,
                          final List<Node> origins,
                          final CompletableFuture<R> future) {
+        if (future.isDone()) {
+            //已经结束，例如被取消了
+            return;
+        }
         //负载均衡选择节点
         final Node node = loadBalance.select(candidate, request);
         if (retry > 0) {
             //便于向服务端注入重试次数
-            RequestContext.getContext().setAttachment(INTERNAL_KEY_RETRY_TIMES, retry);
+            RequestContext.getContext().setAttachment(INTERNAL_KEY_RETRY_TIMES, retry, RequestContext.INTERNAL_KEY);
         }
         //调用，如果节点不存在，则抛出Failover异常。
         CompletableFuture<R> result = node != null ? function.apply(node, last, request) :
                 Futures.completeExceptionally(createEmptyException(retry, origins.size(), candidate.getNodes().size() != origins.size()));
-        result.whenComplete((r, t) -> {
-            ExceptionPolicy<R> exceptionPolicy = policy.getExceptionPolicy();
-            t = t == null && exceptionPolicy != null ? exceptionPolicy.getThrowable(r) : t;
-            if (t == null) {
-                future.complete(r);
+        result.whenComplete((r, t) -> complete(request, node, candidate, retry, policy, origins, future, r, t));
+    }
+
+    /**
+     * 调用结束，成功则结束，失败则判断是否继续重试
+     *
+     * @param request   请求
+     * @param node      当前节点
+     * @param candidate 候选者
+     * @param retry     当前重试次数
+     * @param policy    重试策略
+     * @param origins   原始节点
+     * @param future    结束Future
+     * @param r         结果
+     * @param t         异常
+     */
+    protected void complete(final T request,
+                            final Node node,
+                            final Candidate candidate,
+                            final int retry,
+                            final FailoverPolicy policy,
+                            final List<Node> origins,
+                            final CompletableFuture<R> future,
+                            final R r,
+                            Throwable t) {
+        ExceptionPolicy<R> exceptionPolicy = policy.getExceptionPolicy();
+        t = t == null && exceptionPolicy != null ? exceptionPolicy.getThrowable(r) : t;
+        if (t == null) {
+            //只统计开启了重试的方法
+            if (retryBudget != null && policy.getMaxRetry() > 0) {
+                retryBudget.success(getMethodName(request));
+            }
+            future.complete(r);
+        } else {
+            TimeoutPolicy<T> timeoutPolicy = policy.getTimeoutPolicy();
+            if (timeoutPolicy != null && timeoutPolicy.test(request)) {
+                //请求超时了
+                future.completeExceptionally(t);
+            } else if ((!(t instanceof LafException) || !((LafException) t).isRetry())
+                    && (exceptionPolicy == null || !exceptionPolicy.test(t))) {
+                //不需要重试的异常
+                future.completeExceptionally(t);
+            } else if (retry >= policy.getMaxRetry()) {
+                //超过重试次数
+                future.completeExceptionally(createOverloadException(policy.getMaxRetry()));
             } else {
-                TimeoutPolicy<T> timeoutPolicy = policy.getTimeoutPolicy();
-                if (timeoutPolicy != null && timeoutPolicy.test(request)) {
-                    //请求超时了
-                    future.completeExceptionally(t);
-                } else if ((!(t instanceof LafException) || !((LafException) t).isRetry())
-                        && (exceptionPolicy == null || !exceptionPolicy.test(t))) {
-                    //不需要重试的异常
+                //删除失败的节点进行重试
+                List<Node> shards = candidate.getNodes();
+                int size = shards.size();
+                if (size == 1 && policy.isOnlyOncePerNode()) {
+                    //每个节点只重试一次
+                    Futures.completeExceptionally(future, createEmptyException(retry, origins.size(), false));
+                } else if (retryBudget != null && !retryBudget.acquire(getMethodName(request))) {
+                    //超出重试预算，避免重试风暴
                     future.completeExceptionally(t);
-                } else if (retry >= policy.getMaxRetry()) {
-                    //超过重试次数
-                    future.completeExceptionally(createOverloadException(policy.getMaxRetry()));
                 } else {
-                    //删除失败的节点进行重试
-                    List<Node> shards = candidate.getNodes();
-                    int size = shards.size();
-                    if (size == 1 && policy.isOnlyOncePerNode()) {
-                        //每个节点只重试一次
-                        Futures.completeExceptionally(future, createEmptyException(retry, origins.size(), false));
-                    } else {
-                        FailoverSelector selector = policy.getRetrySelector();
-                        if (selector == null) {
-                            selector = SimpleFailoverSelector.INSTANCE;
-                        }
-                        if (timeoutPolicy != null) {
-                            //设置新的超时时间
-                            timeoutPolicy.reset(request);
-                        }
-                        retry(request, node, selector.select(candidate, node, retry, null, origins),
-                                retry + 1, policy, origins, future);
+                    FailoverSelector selector = policy.getRetrySelector();
+                    if (selector == null) {
+                        selector = SimpleFailoverSelector.INSTANCE;
                     }
+                    if (timeoutPolicy != null) {
+                        //设置新的超时时间
+                        timeoutPolicy.reset(request);
+                    }
+                    retry(request, node, selector.select(candidate, node, retry, null, origins),
+                            retry + 1, policy, origins, future);
                 }
             }
-        });
+        }
     }
 
 }
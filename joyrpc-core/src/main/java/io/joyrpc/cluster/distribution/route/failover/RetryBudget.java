@@ -0,0 +1,261 @@
+package io.joyrpc.cluster.distribution.route.failover;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.cluster.event.CounterEvent;
+import io.joyrpc.metric.CounterPublisher;
+import io.joyrpc.util.SystemClock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 重试预算，按方法统计，避免下游变慢时重试放大请求量。<br/>
+ * 当前窗口内的重试次数不能超过上一个窗口成功请求数的百分比，同时保留最小的重试次数，便于低流量的方法重试。<br/>
+ * 只统计开启了重试的方法，被拒绝的重试数在窗口滚动时通过指标插件发布。
+ */
+public class RetryBudget {
+
+    private static final Logger logger = LoggerFactory.getLogger(RetryBudget.class);
+
+    /**
+     * 指标类型
+     */
+    public static final String METRIC_TYPE = "retry.budget";
+    /**
+     * 被拒绝的重试数
+     */
+    public static final String METRIC_REJECTS = "rejects";
+    /**
+     * 当前窗口允许的重试次数
+     */
+    public static final String METRIC_LIMIT = "limit";
+
+    /**
+     * 名称，通常为接口名称
+     */
+    protected final String name;
+    /**
+     * 重试数占成功请求数的百分比
+     */
+    protected final int ratio;
+    /**
+     * 每个窗口最少允许的重试次数
+     */
+    protected final int minRetries;
+    /**
+     * 统计窗口时间(毫秒)
+     */
+    protected final long windowTime;
+    /**
+     * 方法计数器
+     */
+    protected final Map<String, Counter> counters = new ConcurrentHashMap<>();
+
+    /**
+     * 构造函数
+     *
+     * @param ratio      重试数占成功请求数的百分比，小于等于0表示不限制
+     * @param minRetries 每个窗口最少允许的重试次数
+     * @param windowTime 统计窗口时间(毫秒)
+     */
+    public RetryBudget(final int ratio, final int minRetries, final long windowTime) {
+        this(null, ratio, minRetries, windowTime);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param name       名称
+     * @param ratio      重试数占成功请求数的百分比，小于等于0表示不限制
+     * @param minRetries 每个窗口最少允许的重试次数
+     * @param windowTime 统计窗口时间(毫秒)
+     */
+    public RetryBudget(final String name, final int ratio, final int minRetries, final long windowTime) {
+        this.name = name;
+        this.ratio = ratio;
+        this.minRetries = Math.max(0, minRetries);
+        this.windowTime = windowTime <= 0 ? 1000 : windowTime;
+    }
+
+    /**
+     * 是否开启
+     *
+     * @return 开启标识
+     */
+    public boolean isEnabled() {
+        return ratio > 0;
+    }
+
+    /**
+     * 记录成功的请求
+     *
+     * @param method 方法
+     */
+    public void success(final String method) {
+        if (ratio > 0 && method != null) {
+            getCounter(method).success();
+        }
+    }
+
+    /**
+     * 申请一次重试
+     *
+     * @param method 方法
+     * @return 成功标识，失败表示超出了预算
+     */
+    public boolean acquire(final String method) {
+        return ratio <= 0 || method == null || getCounter(method).acquire();
+    }
+
+    /**
+     * 获取方法累计被拒绝的重试数
+     *
+     * @param method 方法
+     * @return 被拒绝的重试数
+     */
+    public long getRejects(final String method) {
+        Counter counter = method == null ? null : counters.get(method);
+        return counter == null ? 0 : counter.rejects.sum();
+    }
+
+    /**
+     * 获取方法计数器
+     *
+     * @param method 方法
+     * @return 计数器
+     */
+    protected Counter getCounter(final String method) {
+        return counters.computeIfAbsent(method, Counter::new);
+    }
+
+    /**
+     * 方法计数器
+     */
+    protected class Counter {
+        /**
+         * 方法
+         */
+        protected final String method;
+        /**
+         * 当前窗口的成功请求数
+         */
+        protected final LongAdder successes = new LongAdder();
+        /**
+         * 累计被拒绝的重试数
+         */
+        protected final LongAdder rejects = new LongAdder();
+        /**
+         * 当前窗口的重试次数
+         */
+        protected final AtomicLong retries = new AtomicLong();
+        /**
+         * 当前窗口的开始时间
+         */
+        protected volatile long windowStart;
+        /**
+         * 当前窗口允许的重试次数
+         */
+        protected volatile long limit;
+        /**
+         * 当前窗口是否已经打印过日志
+         */
+        protected volatile boolean logged;
+        /**
+         * 上次发布指标时的拒绝数
+         */
+        protected long publishedRejects;
+
+        public Counter(final String method) {
+            this.method = method;
+            this.limit = minRetries;
+            this.windowStart = SystemClock.now();
+        }
+
+        /**
+         * 记录成功
+         */
+        public void success() {
+            roll();
+            successes.increment();
+        }
+
+        /**
+         * 申请重试
+         *
+         * @return 成功标识
+         */
+        public boolean acquire() {
+            roll();
+            long value;
+            while ((value = retries.get()) < limit) {
+                if (retries.compareAndSet(value, value + 1)) {
+                    return true;
+                }
+            }
+            rejects.increment();
+            if (!logged) {
+                logged = true;
+                logger.warn(String.format("Retry of method %s is rejected by the retry budget. limit=%d,window=%dms",
+                        method, limit, windowTime));
+            }
+            return false;
+        }
+
+        /**
+         * 窗口到期则滚动，按照上一个窗口的成功请求数计算当前窗口的重试上限
+         */
+        protected void roll() {
+            long now = SystemClock.now();
+            if (now - windowStart >= windowTime) {
+                Map<String, Long> metrics = null;
+                synchronized (this) {
+                    long elapsed = now - windowStart;
+                    if (elapsed >= windowTime) {
+                        long count = successes.sumThenReset();
+                        //超过一个窗口没有请求，则上一个窗口的成功数为0
+                        limit = Math.max(minRetries, elapsed < windowTime * 2 ? count * ratio / 100 : 0);
+                        retries.set(0);
+                        logged = false;
+                        windowStart = now;
+                        long rejected = rejects.sum();
+                        if (rejected > publishedRejects && CounterPublisher.isEnabled()) {
+                            metrics = new HashMap<>(4);
+                            metrics.put(METRIC_REJECTS, rejected - publishedRejects);
+                            metrics.put(METRIC_LIMIT, limit);
+                            publishedRejects = rejected;
+                        }
+                    }
+                }
+                if (metrics != null) {
+                    CounterPublisher.publish(new CounterEvent(RetryBudget.this, METRIC_TYPE,
+                            name == null ? method : name + "." + method, metrics));
+                }
+            }
+        }
+    }
+
+}
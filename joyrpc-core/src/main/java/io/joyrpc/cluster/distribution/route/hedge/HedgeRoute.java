@@ -0,0 +1,449 @@
+package io.joyrpc.cluster.distribution.route.hedge;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.cluster.Candidate;
+import io.joyrpc.cluster.Cluster;
+import io.joyrpc.cluster.Node;
+import io.joyrpc.cluster.distribution.ExceptionPolicy;
+import io.joyrpc.cluster.distribution.FailoverPolicy;
+import io.joyrpc.cluster.distribution.FailoverSelector;
+import io.joyrpc.cluster.distribution.route.failover.FailoverRoute;
+import io.joyrpc.cluster.distribution.route.failover.simple.SimpleFailoverSelector;
+import io.joyrpc.extension.Extension;
+import io.joyrpc.metric.Dashboard;
+import io.joyrpc.metric.TPWindow;
+import io.joyrpc.protocol.message.RequestMessage;
+import io.joyrpc.util.Futures;
+import io.joyrpc.util.SystemClock;
+import io.joyrpc.util.Timer.Timeout;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static io.joyrpc.cluster.distribution.Route.HEDGE;
+import static io.joyrpc.cluster.distribution.Route.ORDER_HEDGE;
+import static io.joyrpc.constants.Constants.*;
+import static io.joyrpc.util.Timer.timer;
+
+/**
+ * 对冲请求，适用于幂等方法，默认关闭，需要按方法配置hedge=true开启。<br/>
+ * 请求在等待时间内没有应答，则向另外一个节点发送相同请求的副本，取先成功的结果并取消另外一个请求。
+ * 等待时间默认取方法的TP90，对冲请求的数量受预算限制，都失败了则按照重试策略继续重试。
+ */
+@Extension(value = HEDGE, order = ORDER_HEDGE)
+public class HedgeRoute<T, R> extends FailoverRoute<T, R> {
+
+    /**
+     * 对冲请求定时任务名称
+     */
+    protected static final String HEDGE_TASK = "HedgeRoute";
+
+    /**
+     * 方法选项
+     */
+    protected Map<String, HedgeOption> options = new ConcurrentHashMap<>();
+    /**
+     * 对冲预算
+     */
+    protected Budget budget;
+
+    @Override
+    public void setup() {
+        super.setup();
+        budget = new Budget(url == null ? HEDGE_BUDGET_OPTION.getValue() : url.getInteger(HEDGE_BUDGET_OPTION));
+    }
+
+    @Override
+    public boolean isCancellable() {
+        return true;
+    }
+
+    @Override
+    public CompletableFuture<R> invoke(final T request, final Candidate candidate) {
+        budget.deposit();
+        String method = getMethodName(request);
+        HedgeOption option = method == null ? null : options.computeIfAbsent(method, this::getOption);
+        long delay = option == null ? 0 : option.getDelay(candidate.getCluster(), method);
+        if (delay <= 0 || candidate.getNodes().size() <= 1) {
+            return super.invoke(request, candidate);
+        }
+        Node node = loadBalance.select(candidate, request);
+        if (node == null) {
+            return super.invoke(request, candidate);
+        }
+        Hedge hedge = new Hedge(request, candidate, retryFunction.apply(request));
+        hedge.start(node, delay);
+        return hedge.future;
+    }
+
+    /**
+     * 获取方法选项
+     *
+     * @param method 方法名称
+     * @return 方法选项
+     */
+    protected HedgeOption getOption(final String method) {
+        if (url == null) {
+            return new HedgeOption(HEDGE_OPTION.getValue(), HEDGE_DELAY_OPTION.getValue());
+        }
+        return new HedgeOption(
+                url.getBoolean(METHOD_KEY.apply(method, HEDGE_OPTION.getName()), url.getBoolean(HEDGE_OPTION)),
+                url.getInteger(METHOD_KEY.apply(method, HEDGE_DELAY_OPTION.getName()), url.getInteger(HEDGE_DELAY_OPTION)));
+    }
+
+    /**
+     * 复制请求，对冲请求和首次请求并发发送，不能共享消息头和调用对象
+     *
+     * @param request 请求
+     * @return 请求副本
+     */
+    protected T copy(final T request) {
+        if (request instanceof RequestMessage) {
+            RequestMessage<?> message = (RequestMessage<?>) request;
+            RequestMessage<?> result = message.copy();
+            //超时从首次请求开始计算
+            result.setCreateTime(message.getCreateTime());
+            return (T) result;
+        }
+        return request;
+    }
+
+    /**
+     * 调度对冲请求
+     *
+     * @param delay    等待时间
+     * @param runnable 任务
+     * @return 定时任务
+     */
+    protected Timeout schedule(final long delay, final Runnable runnable) {
+        return timer().add(HEDGE_TASK, SystemClock.now() + delay, runnable);
+    }
+
+    /**
+     * 调用
+     *
+     * @param node    节点
+     * @param last    前一个节点
+     * @param request 请求
+     * @return 结果
+     */
+    protected CompletableFuture<R> call(final Node node, final Node last, final T request) {
+        try {
+            return function.apply(node, last, request);
+        } catch (Throwable e) {
+            return Futures.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * 方法的对冲选项
+     */
+    protected static class HedgeOption {
+        /**
+         * 是否开启
+         */
+        protected final boolean enabled;
+        /**
+         * 固定的等待时间
+         */
+        protected final int delay;
+
+        public HedgeOption(final boolean enabled, final int delay) {
+            this.enabled = enabled;
+            this.delay = delay;
+        }
+
+        /**
+         * 获取等待时间
+         *
+         * @param cluster 集群
+         * @param method  方法
+         * @return 等待时间，小于等于0表示不对冲
+         */
+        public long getDelay(final Cluster cluster, final String method) {
+            if (!enabled) {
+                return 0;
+            } else if (delay > 0) {
+                return delay;
+            }
+            Dashboard dashboard = cluster == null ? null : cluster.getDashboard();
+            TPWindow window = dashboard == null ? null : dashboard.getMethod(method);
+            //没有统计数据则不对冲
+            return window == null ? 0 : window.getSnapshot().getSnapshot().getTp90();
+        }
+    }
+
+    /**
+     * 对冲预算，每个请求存入预算百分比的令牌，每个对冲请求消耗100个令牌
+     */
+    protected static class Budget {
+        /**
+         * 每个对冲请求消耗的令牌
+         */
+        protected static final long COST = 100;
+        /**
+         * 每个请求存入的令牌
+         */
+        protected final long deposit;
+        /**
+         * 最大令牌数
+         */
+        protected final long capacity;
+        /**
+         * 当前令牌数
+         */
+        protected final AtomicLong balance = new AtomicLong();
+
+        public Budget(final int percent) {
+            this.deposit = Math.max(0, Math.min(100, percent));
+            //允许突发的对冲请求数量和百分比一致
+            this.capacity = COST * Math.max(1, deposit);
+        }
+
+        /**
+         * 存入令牌
+         */
+        public void deposit() {
+            if (deposit > 0 && balance.get() < capacity) {
+                long value = balance.addAndGet(deposit);
+                if (value > capacity) {
+                    balance.compareAndSet(value, capacity);
+                }
+            }
+        }
+
+        /**
+         * 消耗令牌
+         *
+         * @return 成功标识
+         */
+        public boolean withdraw() {
+            long value;
+            while ((value = balance.get()) >= COST) {
+                if (balance.compareAndSet(value, value - COST)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    /**
+     * 一次对冲调用
+     */
+    protected class Hedge {
+        /**
+         * 请求
+         */
+        protected final T request;
+        /**
+         * 对冲请求使用的副本
+         */
+        protected T hedgeRequest;
+        /**
+         * 候选者
+         */
+        protected final Candidate candidate;
+        /**
+         * 原始节点
+         */
+        protected final List<Node> origins;
+        /**
+         * 重试策略
+         */
+        protected final FailoverPolicy policy;
+        /**
+         * 结果
+         */
+        protected final CompletableFuture<R> future = new CompletableFuture<>();
+        /**
+         * 首次请求的节点
+         */
+        protected Node primaryNode;
+        /**
+         * 首次请求
+         */
+        protected CompletableFuture<R> primary;
+        /**
+         * 对冲请求的候选者
+         */
+        protected Candidate hedgeCandidate;
+        /**
+         * 对冲请求的节点
+         */
+        protected Node hedgeNode;
+        /**
+         * 对冲请求
+         */
+        protected CompletableFuture<R> hedge;
+        /**
+         * 对冲定时任务
+         */
+        protected Timeout timeout;
+        /**
+         * 是否还可以发起对冲请求
+         */
+        protected boolean hedgeable = true;
+        /**
+         * 未结束的请求数
+         */
+        protected int pending;
+        /**
+         * 是否已经结束
+         */
+        protected boolean finished;
+
+        public Hedge(final T request, final Candidate candidate, final FailoverPolicy policy) {
+            this.request = request;
+            this.candidate = candidate;
+            this.origins = candidate.getNodes();
+            this.policy = policy;
+        }
+
+        /**
+         * 发起首次请求，并调度对冲请求
+         *
+         * @param node  节点
+         * @param delay 等待时间
+         */
+        protected void start(final Node node, final long delay) {
+            CompletableFuture<R> f;
+            synchronized (this) {
+                primaryNode = node;
+                pending = 1;
+                //在首次请求发送之前复制，避免和发送过程并发修改
+                hedgeRequest = copy(request);
+                timeout = schedule(delay, this::hedge);
+                f = call(node, null, request);
+                primary = f;
+            }
+            f.whenComplete((r, t) -> onComplete(node, f, r, t));
+        }
+
+        /**
+         * 发起对冲请求
+         */
+        protected void hedge() {
+            Node node;
+            synchronized (this) {
+                if (!hedgeable || finished) {
+                    return;
+                }
+                hedgeable = false;
+                if (!budget.withdraw()) {
+                    return;
+                }
+                FailoverSelector selector = policy == null ? null : policy.getRetrySelector();
+                if (selector == null) {
+                    selector = SimpleFailoverSelector.INSTANCE;
+                }
+                //排除首次请求的节点
+                Candidate other = selector.select(candidate, primaryNode, 0, null, origins);
+                node = loadBalance.select(other, request);
+                if (node == null || node == primaryNode) {
+                    return;
+                }
+                hedgeCandidate = other;
+                hedgeNode = node;
+                pending++;
+            }
+            CompletableFuture<R> f = call(node, primaryNode, hedgeRequest);
+            synchronized (this) {
+                hedge = f;
+            }
+            f.whenComplete((r, t) -> onComplete(node, f, r, t));
+        }
+
+        /**
+         * 请求结束
+         *
+         * @param node 节点
+         * @param f    请求
+         * @param r    结果
+         * @param t    异常
+         */
+        protected void onComplete(final Node node, final CompletableFuture<R> f, final R r, final Throwable t) {
+            ExceptionPolicy<R> exceptionPolicy = policy == null ? null : policy.getExceptionPolicy();
+            Throwable error = t == null && exceptionPolicy != null ? exceptionPolicy.getThrowable(r) : t;
+            CompletableFuture<R> loser = null;
+            synchronized (this) {
+                pending--;
+                if (finished) {
+                    return;
+                } else if (error == null) {
+                    finished = true;
+                    hedgeable = false;
+                    if (retryBudget != null && policy != null && policy.getMaxRetry() > 0) {
+                        retryBudget.success(getMethodName(request));
+                    }
+                    loser = f == primary ? hedge : primary;
+                } else if (pending > 0) {
+                    //等待另外一个请求
+                    return;
+                } else {
+                    finished = true;
+                    hedgeable = false;
+                }
+            }
+            if (timeout != null) {
+                timeout.cancel();
+            }
+            if (error == null) {
+                //先取消另外一个请求，再通知结果
+                if (loser != null) {
+                    loser.cancel(true);
+                }
+                future.complete(r);
+            } else {
+                fail(node, r, t);
+            }
+        }
+
+        /**
+         * 请求都失败了，按照重试策略进行重试
+         *
+         * @param node 最后失败的节点
+         * @param r    结果
+         * @param t    异常
+         */
+        protected void fail(final Node node, final R r, final Throwable t) {
+            if (future.isDone()) {
+                return;
+            } else if (policy == null || policy.getMaxRetry() <= 0) {
+                //不重试，保持原有的结果
+                if (t != null) {
+                    future.completeExceptionally(t);
+                } else {
+                    future.complete(r);
+                }
+            } else if (hedgeNode == null) {
+                complete(request, node, candidate, 0, policy, origins, future, r, t);
+            } else {
+                //对冲请求算作一次重试
+                complete(request, hedgeNode, hedgeCandidate, 1, policy, origins, future, r, t);
+            }
+        }
+    }
+}
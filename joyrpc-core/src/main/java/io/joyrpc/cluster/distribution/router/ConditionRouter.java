@@ -24,18 +24,28 @@ import io.joyrpc.cluster.Candidate;
 import io.joyrpc.cluster.Node;
 import io.joyrpc.cluster.Shard;
 import io.joyrpc.cluster.distribution.Router;
+import io.joyrpc.cluster.distribution.router.RouteCondition.Rule;
 
-import java.util.LinkedList;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.BiPredicate;
 import java.util.function.Supplier;
 
 /**
- * 条件路由
+ * 条件路由，编译好的路由条件按照规则版本和节点列表缓存路由索引，规则或节点变化后重新编译
  */
 public class ConditionRouter<T> implements Router<T> {
 
     protected Supplier<BiPredicate<Shard, T>> supplier;
+    /**
+     * 路由索引
+     */
+    protected volatile RouteIndex<T> index;
 
     public ConditionRouter() {
     }
@@ -50,8 +60,17 @@ public class ConditionRouter<T> implements Router<T> {
         if (predicate == null) {
             return candidate.getNodes();
         }
-        List<Node> result = new LinkedList<>();
         List<Node> nodes = candidate.getNodes();
+        if (predicate instanceof RouteCondition && ((RouteCondition<T>) predicate).getRules().size() <= RouteIndex.MAX_RULES) {
+            RouteIndex<T> idx = index;
+            //规则或节点列表变化，重新编译
+            if (idx == null || idx.condition != predicate || idx.source != nodes) {
+                idx = new RouteIndex<>((RouteCondition<T>) predicate, nodes);
+                index = idx;
+            }
+            return idx.route(request);
+        }
+        List<Node> result = new ArrayList<>(nodes.size());
         //先遍历服务列表
         for (Node node : nodes) {
             //在遍历路由规则
@@ -62,4 +81,107 @@ public class ConditionRouter<T> implements Router<T> {
         return result;
     }
 
+    /**
+     * 路由索引，每条规则的then条件编译成节点位图，按照命中规则的掩码缓存路由结果
+     */
+    protected static class RouteIndex<T> {
+        /**
+         * 最大规则数量
+         */
+        protected static final int MAX_RULES = 64;
+        /**
+         * 最大缓存结果数量
+         */
+        protected static final int MAX_ROUTES = 1024;
+        /**
+         * 路由条件
+         */
+        protected final RouteCondition<T> condition;
+        /**
+         * 原始节点列表，用于判断节点是否变化
+         */
+        protected final List<Node> source;
+        /**
+         * 节点
+         */
+        protected final List<Node> nodes;
+        /**
+         * 规则
+         */
+        protected final Rule<T>[] rules;
+        /**
+         * 每条规则满足then条件的节点
+         */
+        protected final BitSet[] thens;
+        /**
+         * 命中规则的掩码对应的路由结果
+         */
+        protected final Map<Long, List<Node>> routes = new ConcurrentHashMap<>();
+
+        protected RouteIndex(final RouteCondition<T> condition, final List<Node> nodes) {
+            this.condition = condition;
+            this.source = nodes;
+            this.nodes = nodes instanceof RandomAccess ? nodes : new ArrayList<>(nodes);
+            this.rules = condition.getRules().toArray(new Rule[0]);
+            this.thens = new BitSet[rules.length];
+            int size = this.nodes.size();
+            for (int i = 0; i < rules.length; i++) {
+                BitSet bitSet = new BitSet(size);
+                for (int j = 0; j < size; j++) {
+                    if (rules[i].then(this.nodes.get(j))) {
+                        bitSet.set(j);
+                    }
+                }
+                thens[i] = bitSet;
+            }
+        }
+
+        /**
+         * 路由
+         *
+         * @param request 请求
+         * @return 节点
+         */
+        protected List<Node> route(final T request) {
+            long mask = 0;
+            for (int i = 0; i < rules.length; i++) {
+                if (rules[i].when(request)) {
+                    mask |= 1L << i;
+                }
+            }
+            if (mask == 0) {
+                return nodes;
+            }
+            List<Node> result = routes.get(mask);
+            if (result == null) {
+                result = build(mask);
+                if (routes.size() < MAX_ROUTES) {
+                    routes.putIfAbsent(mask, result);
+                }
+            }
+            return result;
+        }
+
+        /**
+         * 构建命中规则的路由结果
+         *
+         * @param mask 命中规则的掩码
+         * @return 节点
+         */
+        protected List<Node> build(final long mask) {
+            BitSet bitSet = new BitSet(nodes.size());
+            bitSet.set(0, nodes.size());
+            for (int i = 0; i < rules.length; i++) {
+                if ((mask & (1L << i)) != 0) {
+                    bitSet.and(thens[i]);
+                }
+            }
+            List<Node> result = new ArrayList<>(bitSet.cardinality());
+            for (int i = bitSet.nextSetBit(0); i >= 0; i = bitSet.nextSetBit(i + 1)) {
+                result.add(nodes.get(i));
+            }
+            return Collections.unmodifiableList(result);
+        }
+    }
+
 }
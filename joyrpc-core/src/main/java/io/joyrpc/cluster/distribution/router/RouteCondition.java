@@ -0,0 +1,109 @@
+package io.joyrpc.cluster.distribution.router;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.cluster.Shard;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BiPredicate;
+
+/**
+ * 可编译的路由条件，由多条when/then规则组成，节点需要满足所有命中when条件的规则的then条件。<br/>
+ * when条件只依赖请求，then条件只依赖节点，路由器据此把then条件预先编译成节点位图，请求只需要计算命中的规则。
+ */
+public class RouteCondition<T> implements BiPredicate<Shard, T> {
+
+    /**
+     * 规则
+     */
+    protected final List<Rule<T>> rules = new ArrayList<>(4);
+
+    /**
+     * 添加规则
+     *
+     * @param when 请求条件，只依赖请求
+     * @param then 节点条件，只依赖节点
+     * @return 路由条件
+     */
+    public RouteCondition<T> add(final BiPredicate<Shard, T> when, final BiPredicate<Shard, T> then) {
+        rules.add(new Rule<>(when, then));
+        return this;
+    }
+
+    public List<Rule<T>> getRules() {
+        return rules;
+    }
+
+    public boolean isEmpty() {
+        return rules.isEmpty();
+    }
+
+    @Override
+    public boolean test(final Shard shard, final T request) {
+        for (Rule<T> rule : rules) {
+            //when不匹配，或者when匹配then匹配
+            if (rule.when(request) && !rule.then(shard)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 规则
+     */
+    public static class Rule<T> {
+        /**
+         * 请求条件
+         */
+        protected final BiPredicate<Shard, T> when;
+        /**
+         * 节点条件
+         */
+        protected final BiPredicate<Shard, T> then;
+
+        public Rule(final BiPredicate<Shard, T> when, final BiPredicate<Shard, T> then) {
+            this.when = when;
+            this.then = then;
+        }
+
+        /**
+         * 请求是否命中
+         *
+         * @param request 请求
+         * @return 命中标识
+         */
+        public boolean when(final T request) {
+            return when == null || when.test(null, request);
+        }
+
+        /**
+         * 节点是否满足
+         *
+         * @param shard 节点
+         * @return 满足标识
+         */
+        public boolean then(final Shard shard) {
+            return then == null || then.test(shard, null);
+        }
+    }
+}
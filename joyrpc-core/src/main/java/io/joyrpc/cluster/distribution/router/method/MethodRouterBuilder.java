@@ -21,6 +21,7 @@ package io.joyrpc.cluster.distribution.router.method;
  */
 
 import io.joyrpc.cluster.Shard;
+import io.joyrpc.cluster.distribution.router.RouteCondition;
 import io.joyrpc.cluster.distribution.router.method.predicate.*;
 import io.joyrpc.constants.ExceptionCode;
 import io.joyrpc.exception.InitializationException;
@@ -129,24 +130,27 @@ public class MethodRouterBuilder {
      * @return
      */
     public static BiPredicate<Shard, RequestMessage<Invocation>> build(final String json) {
-        BiPredicate<Shard, RequestMessage<Invocation>> predicate = null;
+        RouteCondition<RequestMessage<Invocation>> predicate = new RouteCondition<>();
         if (json != null && !json.isEmpty()) {
             //json反序列化为Map
             Map<String, String> map = JSON.get().parseObject(json, Map.class);
             if (map != null && map.size() > 0) {
                 for (Map.Entry<String, String> entry : map.entrySet()) {
-                    //遍历map的key生成条件when谓词
+                    //遍历map的key生成条件when谓词，只依赖请求
                     BiPredicate<Shard, RequestMessage<Invocation>> whenCond = buildWhen(entry.getKey());
-                    //遍历map的value生成then谓词
+                    //遍历map的value生成then谓词，只依赖节点
                     BiPredicate<Shard, RequestMessage<Invocation>> thenCond = buildThen(entry.getValue());
                     if (thenCond != null) {
+                        if (whenCond == null) {
+                            throw new InitializationException("Illegal route rule when: [" + entry.getKey() + "]", ExceptionCode.CONSUMER_ROUTE_CONF);
+                        }
                         //when不匹配，或者when匹配then匹配，返回true
-                        predicate = predicate == null ? whenCond.negate().or(thenCond) : predicate.and(whenCond.negate().or(thenCond));
+                        predicate.add(whenCond, thenCond);
                     }
                 }
             }
         }
-        return predicate;
+        return predicate.isEmpty() ? null : predicate;
     }
 
     /**
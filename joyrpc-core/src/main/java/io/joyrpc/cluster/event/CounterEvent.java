@@ -0,0 +1,74 @@
+package io.joyrpc.cluster.event;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.extension.URL;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * 计数指标事件，用于传输、压缩、重试预算等非调用类的指标。<br/>
+ * 计数值为上一次发布以来的增量，通过指标发布器发送给MetricHandler插件，仪表盘会忽略该事件。
+ */
+public class CounterEvent extends MetricEvent {
+    //指标类型
+    protected final String type;
+    //指标对象名称，例如通道地址或方法名
+    protected final String name;
+    //计数增量
+    protected final Map<String, Long> counters;
+
+    public CounterEvent(final Object source, final String type, final String name, final Map<String, Long> counters) {
+        this(source, null, null, type, name, counters);
+    }
+
+    public CounterEvent(final Object source, final URL cluster, final String clusterName,
+                        final String type, final String name, final Map<String, Long> counters) {
+        super(source, null, cluster, clusterName, null, null, null, null, 0, 0, 0);
+        this.type = type;
+        this.name = name;
+        this.counters = counters == null ? Collections.emptyMap() : counters;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Map<String, Long> getCounters() {
+        return counters;
+    }
+
+    /**
+     * 获取计数增量
+     *
+     * @param key 计数名称
+     * @return 计数增量
+     */
+    public long getCounter(final String key) {
+        Long value = counters.get(key);
+        return value == null ? 0 : value;
+    }
+}
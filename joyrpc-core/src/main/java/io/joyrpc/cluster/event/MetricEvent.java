@@ -44,6 +44,8 @@ public class MetricEvent extends AbstractEvent {
     protected final long startTime;
     //结束时间
     protected final long endTime;
+    //纳秒精度的耗时，小于0表示未统计
+    protected final long elapsedNanos;
     //异常
     protected final Throwable throwable;
 
@@ -65,6 +67,28 @@ public class MetricEvent extends AbstractEvent {
                        final URL cluster, final String clusterName, final URL url,
                        final Message request, final Message response, final Throwable throwable,
                        final int concurrency, final long startTime, final long endTime) {
+        this(source, target, cluster, clusterName, url, request, response, throwable, concurrency, startTime, endTime, -1);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param source
+     * @param target
+     * @param cluster
+     * @param url
+     * @param request
+     * @param response
+     * @param throwable
+     * @param concurrency
+     * @param startTime
+     * @param endTime
+     * @param elapsedNanos 纳秒精度的耗时
+     */
+    public MetricEvent(final Object source, final Object target,
+                       final URL cluster, final String clusterName, final URL url,
+                       final Message request, final Message response, final Throwable throwable,
+                       final int concurrency, final long startTime, final long endTime, final long elapsedNanos) {
         super(source, target);
         this.cluster = cluster;
         this.clusterName = clusterName;
@@ -74,6 +98,7 @@ public class MetricEvent extends AbstractEvent {
         this.concurrency = concurrency;
         this.startTime = startTime;
         this.endTime = endTime;
+        this.elapsedNanos = elapsedNanos;
         this.throwable = throwable;
     }
 
@@ -109,6 +134,10 @@ public class MetricEvent extends AbstractEvent {
         return endTime;
     }
 
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
     public Throwable getThrowable() {
         return throwable;
     }
@@ -57,6 +57,10 @@ public interface Compression extends CodecType {
      * deflate压缩（即zlib压缩）
      */
     byte DEFLATE = 7;
+    /**
+     * zstd压缩
+     */
+    byte ZSTD = 8;
     /**
      * snappy frame压缩
      */
@@ -73,6 +77,7 @@ public interface Compression extends CodecType {
     int ZLIB_ORDER = LZ4_ORDER + 100;
     int LZMA_ORDER = ZLIB_ORDER + 100;
     int DEFLATE_ORDER = ZLIB_ORDER + 200;
+    int ZSTD_ORDER = LZ4_FRAME_ORDER + 1;
 
 
     /**
@@ -0,0 +1,556 @@
+package io.joyrpc.codec.compression;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.cluster.event.CounterEvent;
+import io.joyrpc.context.GlobalContext;
+import io.joyrpc.extension.Parametric;
+import io.joyrpc.metric.CounterPublisher;
+import io.joyrpc.transport.session.Session;
+import io.joyrpc.util.SystemClock;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static io.joyrpc.Plugin.COMPRESSION;
+import static io.joyrpc.constants.Constants.*;
+
+/**
+ * 自适应压缩策略。<br/>
+ * 按照接口方法和方向统计，每隔一定数量的报文采样一次，轮流使用不压缩和各个候选算法，
+ * 记录压缩率和编码耗时，选择收益最大的算法，并根据压缩率计算压缩阈值。
+ */
+public class CompressionPolicy {
+
+    /**
+     * 默认的压缩阈值
+     */
+    public static final int DEFAULT_THRESHOLD = 2048;
+    /**
+     * 最大的压缩阈值
+     */
+    protected static final int MAX_THRESHOLD = 64 * 1024;
+    /**
+     * 做出决策前每个候选至少需要的样本数
+     */
+    protected static final int MIN_SAMPLES = 4;
+    /**
+     * 指数加权平均的系数
+     */
+    protected static final double ALPHA = 0.2;
+    /**
+     * 指标类型
+     */
+    public static final String METRIC_TYPE = "compress.adaptive";
+    /**
+     * 报文数
+     */
+    public static final String METRIC_MESSAGES = "messages";
+    /**
+     * 压缩的报文数
+     */
+    public static final String METRIC_COMPRESSIONS = "compressions";
+    /**
+     * 原始字节数
+     */
+    public static final String METRIC_RAW_BYTES = "rawBytes";
+    /**
+     * 输出字节数
+     */
+    public static final String METRIC_BYTES = "bytes";
+    /**
+     * 当前压缩阈值
+     */
+    public static final String METRIC_THRESHOLD = "threshold";
+
+    protected static volatile CompressionPolicy policy;
+
+    protected static volatile boolean initialized;
+
+    /**
+     * 候选压缩算法
+     */
+    protected final List<Compression> compressions;
+    /**
+     * 采样间隔
+     */
+    protected final int interval;
+    /**
+     * 每节省一个字节等价的纳秒数
+     */
+    protected final double byteNanos;
+    /**
+     * 每个报文至少节省的字节数
+     */
+    protected final int minSaving;
+    /**
+     * 指标发布间隔(毫秒)
+     */
+    protected final long metricInterval;
+    /**
+     * 方法策略
+     */
+    protected final Map<String, Map<String, MethodPolicy[]>> policies = new ConcurrentHashMap<>();
+
+    /**
+     * 构造函数
+     *
+     * @param compressions 候选压缩算法
+     * @param interval     采样间隔
+     * @param byteNanos    每节省一个字节等价的纳秒数
+     * @param minSaving    每个报文至少节省的字节数
+     */
+    public CompressionPolicy(final List<Compression> compressions, final int interval,
+                             final double byteNanos, final int minSaving) {
+        this(compressions, interval, byteNanos, minSaving, METRIC_WINDOWS_TIME_OPTION.getValue());
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param compressions   候选压缩算法
+     * @param interval       采样间隔
+     * @param byteNanos      每节省一个字节等价的纳秒数
+     * @param minSaving      每个报文至少节省的字节数
+     * @param metricInterval 指标发布间隔(毫秒)
+     */
+    public CompressionPolicy(final List<Compression> compressions, final int interval,
+                             final double byteNanos, final int minSaving, final long metricInterval) {
+        this.compressions = compressions;
+        this.interval = interval;
+        this.byteNanos = byteNanos;
+        this.minSaving = minSaving;
+        this.metricInterval = metricInterval <= 0 ? METRIC_WINDOWS_TIME_OPTION.getValue() : metricInterval;
+    }
+
+    /**
+     * 获取全局的压缩策略
+     *
+     * @return 压缩策略，没有开启返回null
+     */
+    public static CompressionPolicy policy() {
+        if (!initialized) {
+            synchronized (CompressionPolicy.class) {
+                if (!initialized) {
+                    Parametric parametric = GlobalContext.asParametric();
+                    if (parametric.getBoolean(COMPRESS_ADAPTIVE, Boolean.FALSE)) {
+                        List<Compression> compressions = new LinkedList<>();
+                        for (String name : parametric.getString(COMPRESS_ADAPTIVE_CANDIDATES, "lz4,zstd").split(",")) {
+                            Compression compression = COMPRESSION.get(name.trim());
+                            if (compression != null) {
+                                compressions.add(compression);
+                            }
+                        }
+                        policy = new CompressionPolicy(compressions,
+                                parametric.getPositive(COMPRESS_ADAPTIVE_INTERVAL, 16),
+                                parametric.getDouble(COMPRESS_ADAPTIVE_BYTE_NANOS, 8.0D),
+                                parametric.getPositive(COMPRESS_ADAPTIVE_MIN_SAVING, 32),
+                                parametric.getPositive(METRIC_WINDOWS_TIME_OPTION.getName(), METRIC_WINDOWS_TIME_OPTION.getValue()));
+                    }
+                    initialized = true;
+                }
+            }
+        }
+        return policy;
+    }
+
+    /**
+     * 获取方法策略
+     *
+     * @param className  接口名称
+     * @param methodName 方法名称
+     * @param request    是否是请求方向
+     * @return 方法策略
+     */
+    public MethodPolicy get(final String className, final String methodName, final boolean request) {
+        Map<String, MethodPolicy[]> methods = policies.get(className);
+        if (methods == null) {
+            methods = policies.computeIfAbsent(className, o -> new ConcurrentHashMap<>());
+        }
+        MethodPolicy[] directions = methods.get(methodName);
+        if (directions == null) {
+            directions = methods.computeIfAbsent(methodName, o -> new MethodPolicy[]{
+                    new MethodPolicy(className, methodName, true), new MethodPolicy(className, methodName, false)});
+        }
+        return directions[request ? 0 : 1];
+    }
+
+    /**
+     * 导出决策和统计信息
+     *
+     * @return 统计信息
+     */
+    public List<Map<String, Object>> snapshot() {
+        List<Map<String, Object>> result = new ArrayList<>(policies.size() * 2);
+        policies.forEach((className, methods) -> methods.forEach((methodName, directions) -> {
+            for (MethodPolicy policy : directions) {
+                if (policy.messages.sum() > 0) {
+                    result.add(policy.snapshot());
+                }
+            }
+        }));
+        return result;
+    }
+
+    /**
+     * 方法策略
+     */
+    public class MethodPolicy {
+        /**
+         * 接口名称
+         */
+        protected final String className;
+        /**
+         * 方法名称
+         */
+        protected final String methodName;
+        /**
+         * 是否是请求方向
+         */
+        protected final boolean request;
+        /**
+         * 候选，第一个为不压缩
+         */
+        protected final Candidate[] candidates;
+        /**
+         * 计数器，用于采样
+         */
+        protected final AtomicLong counter = new AtomicLong();
+        /**
+         * 报文数
+         */
+        protected final LongAdder messages = new LongAdder();
+        /**
+         * 压缩的报文数
+         */
+        protected final LongAdder compressions = new LongAdder();
+        /**
+         * 原始字节数
+         */
+        protected final LongAdder rawBytes = new LongAdder();
+        /**
+         * 输出字节数
+         */
+        protected final LongAdder bytes = new LongAdder();
+        /**
+         * 当前决策，为空表示还没有足够的样本
+         */
+        protected volatile Decision decision;
+        /**
+         * 上次发布指标的时间
+         */
+        protected volatile long lastPublishTime = SystemClock.now();
+        /**
+         * 上次发布指标时的报文数
+         */
+        protected long publishedMessages;
+        /**
+         * 上次发布指标时的压缩报文数
+         */
+        protected long publishedCompressions;
+        /**
+         * 上次发布指标时的原始字节数
+         */
+        protected long publishedRawBytes;
+        /**
+         * 上次发布指标时的输出字节数
+         */
+        protected long publishedBytes;
+
+        public MethodPolicy(final String className, final String methodName, final boolean request) {
+            this.className = className;
+            this.methodName = methodName;
+            this.request = request;
+            this.candidates = new Candidate[CompressionPolicy.this.compressions.size() + 1];
+            this.candidates[0] = new Candidate(null);
+            int i = 1;
+            for (Compression compression : CompressionPolicy.this.compressions) {
+                candidates[i++] = new Candidate(compression);
+            }
+        }
+
+        /**
+         * 决策
+         *
+         * @param session 会话，用于判断对端支持的压缩算法
+         * @return 决策，为空表示采用默认的压缩算法和阈值
+         */
+        public Decision decide(final Session session) {
+            long count = counter.getAndIncrement();
+            if (count % interval == 0) {
+                //采样，轮流使用候选
+                Candidate candidate = candidates[(int) ((count / interval) % candidates.length)];
+                if (candidate.isSupported(session)) {
+                    return candidate.probe;
+                }
+            }
+            Decision result = decision;
+            return result == null || !result.candidate.isSupported(session) ? null : result;
+        }
+
+        /**
+         * 编码完成
+         *
+         * @param decision   决策
+         * @param compressed 是否压缩了
+         * @param raw        原始字节数
+         * @param size       输出字节数
+         * @param nanos      采样的编码耗时
+         */
+        public void complete(final Decision decision, final boolean compressed, final int raw, final int size, final long nanos) {
+            messages.increment();
+            rawBytes.add(raw);
+            bytes.add(size);
+            if (compressed) {
+                compressions.increment();
+            }
+            if (decision != null && decision.probe && raw > 0) {
+                decision.candidate.update(raw, compressed ? size : raw, nanos);
+                choose();
+            }
+            if (SystemClock.now() - lastPublishTime >= metricInterval && CounterPublisher.isEnabled()) {
+                publish();
+            }
+        }
+
+        /**
+         * 通过指标插件发布统计信息的增量
+         */
+        protected void publish() {
+            Map<String, Long> counters;
+            synchronized (this) {
+                long now = SystemClock.now();
+                if (now - lastPublishTime < metricInterval) {
+                    return;
+                }
+                lastPublishTime = now;
+                long m = messages.sum();
+                long c = compressions.sum();
+                long r = rawBytes.sum();
+                long b = bytes.sum();
+                Decision current = decision;
+                counters = new HashMap<>(8);
+                counters.put(METRIC_MESSAGES, m - publishedMessages);
+                counters.put(METRIC_COMPRESSIONS, c - publishedCompressions);
+                counters.put(METRIC_RAW_BYTES, r - publishedRawBytes);
+                counters.put(METRIC_BYTES, b - publishedBytes);
+                counters.put(METRIC_THRESHOLD, (long) (current == null ? DEFAULT_THRESHOLD : current.threshold));
+                publishedMessages = m;
+                publishedCompressions = c;
+                publishedRawBytes = r;
+                publishedBytes = b;
+            }
+            CounterPublisher.publish(new CounterEvent(CompressionPolicy.this, METRIC_TYPE,
+                    className + "." + methodName + "." + (request ? "request" : "response"), counters));
+        }
+
+        /**
+         * 根据采样数据选择收益最大的候选
+         */
+        protected synchronized void choose() {
+            Candidate none = candidates[0];
+            if (none.samples < MIN_SAMPLES) {
+                return;
+            }
+            Candidate best = none;
+            double bestScore = 0;
+            double saving;
+            double score;
+            boolean sampled = false;
+            for (int i = 1; i < candidates.length; i++) {
+                Candidate candidate = candidates[i];
+                if (candidate.samples >= MIN_SAMPLES) {
+                    sampled = true;
+                    saving = 1 - candidate.ratio;
+                    //节省的字节折算成纳秒，减去额外的编码耗时
+                    score = saving * byteNanos - (candidate.cost - none.cost);
+                    if (saving > 0 && score > bestScore) {
+                        best = candidate;
+                        bestScore = score;
+                    }
+                }
+            }
+            if (!sampled) {
+                //没有压缩算法的样本，继续采用默认压缩
+                return;
+            }
+            int threshold = best == none ? MAX_THRESHOLD :
+                    (int) Math.min(MAX_THRESHOLD, Math.max(1, Math.ceil(minSaving / (1 - best.ratio))));
+            Decision current = decision;
+            if (current == null || current.candidate != best || current.threshold != threshold) {
+                decision = new Decision(best, threshold, false);
+            }
+        }
+
+        /**
+         * 导出统计信息
+         *
+         * @return 统计信息
+         */
+        protected Map<String, Object> snapshot() {
+            Map<String, Object> result = new HashMap<>(12);
+            Decision current = decision;
+            result.put("className", className);
+            result.put("methodName", methodName);
+            result.put("direction", request ? "request" : "response");
+            result.put("decision", current == null ? "default" : current.candidate.name);
+            result.put("threshold", current == null ? DEFAULT_THRESHOLD : current.threshold);
+            result.put("messages", messages.sum());
+            result.put("compressions", compressions.sum());
+            result.put("rawBytes", rawBytes.sum());
+            result.put("bytes", bytes.sum());
+            List<Map<String, Object>> stats = new ArrayList<>(candidates.length);
+            for (Candidate candidate : candidates) {
+                stats.add(candidate.snapshot());
+            }
+            result.put("candidates", stats);
+            return result;
+        }
+    }
+
+    /**
+     * 候选压缩算法
+     */
+    protected static class Candidate {
+        /**
+         * 压缩算法，为空表示不压缩
+         */
+        protected final Compression compression;
+        /**
+         * 名称
+         */
+        protected final String name;
+        /**
+         * 采样决策
+         */
+        protected final Decision probe;
+        /**
+         * 压缩率（输出/原始）
+         */
+        protected volatile double ratio = 1;
+        /**
+         * 每个原始字节的编码耗时（纳秒）
+         */
+        protected volatile double cost;
+        /**
+         * 样本数
+         */
+        protected volatile long samples;
+
+        public Candidate(final Compression compression) {
+            this.compression = compression;
+            this.name = compression == null ? "none" : compression.getTypeName();
+            this.probe = new Decision(this, 1, true);
+        }
+
+        /**
+         * 会话是否支持该压缩算法
+         *
+         * @param session 会话
+         * @return 支持标识
+         */
+        protected boolean isSupported(final Session session) {
+            if (compression == null) {
+                return true;
+            } else if (session == null) {
+                return false;
+            }
+            List<String> names = session.getCompressions();
+            return names != null && names.contains(name);
+        }
+
+        /**
+         * 更新采样数据
+         *
+         * @param raw   原始字节数
+         * @param size  输出字节数
+         * @param nanos 编码耗时
+         */
+        protected synchronized void update(final int raw, final int size, final long nanos) {
+            double r = (double) size / raw;
+            double c = (double) nanos / raw;
+            if (samples == 0) {
+                ratio = r;
+                cost = c;
+            } else {
+                ratio += ALPHA * (r - ratio);
+                cost += ALPHA * (c - cost);
+            }
+            samples++;
+        }
+
+        protected Map<String, Object> snapshot() {
+            Map<String, Object> result = new HashMap<>(4);
+            result.put("name", name);
+            result.put("ratio", ratio);
+            result.put("cost", cost);
+            result.put("samples", samples);
+            return result;
+        }
+    }
+
+    /**
+     * 决策
+     */
+    public static class Decision {
+        /**
+         * 候选
+         */
+        protected final Candidate candidate;
+        /**
+         * 压缩阈值
+         */
+        protected final int threshold;
+        /**
+         * 是否是采样
+         */
+        protected final boolean probe;
+
+        protected Decision(final Candidate candidate, final int threshold, final boolean probe) {
+            this.candidate = candidate;
+            this.threshold = threshold;
+            this.probe = probe;
+        }
+
+        /**
+         * 获取压缩算法
+         *
+         * @return 压缩算法，为空表示不压缩
+         */
+        public Compression getCompression() {
+            return candidate.compression;
+        }
+
+        public int getThreshold() {
+            return threshold;
+        }
+
+        public boolean isProbe() {
+            return probe;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package io.joyrpc.codec.compression;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.transport.session.Session;
+
+/**
+ * 支持字典的压缩算法，按照接口方法选择字典，小报文也能获得较好的压缩率
+ */
+public interface DictionaryCompression extends Compression {
+
+    /**
+     * 协商属性的前缀，加上压缩算法名称后作为键，值为本地持有的字典标识，多个用逗号分隔
+     */
+    String DICTIONARY_PREFIX = "dictionary.";
+
+    /**
+     * 获取本地持有的字典标识，用于会话协商
+     *
+     * @return 字典标识，多个用逗号分隔
+     */
+    String getDictionaries();
+
+    /**
+     * 绑定了字典后开启压缩的阈值
+     *
+     * @return 阈值
+     */
+    int getThreshold();
+
+    /**
+     * 根据接口方法和对端持有的字典进行绑定
+     *
+     * @param className  接口名称
+     * @param methodName 方法名称
+     * @param session    会话
+     * @return 绑定后的压缩算法，没有可用的字典返回null
+     */
+    Compression bind(String className, String methodName, Session session);
+
+}
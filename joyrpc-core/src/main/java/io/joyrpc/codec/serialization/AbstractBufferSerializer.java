@@ -0,0 +1,184 @@
+package io.joyrpc.codec.serialization;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.exception.SerializerException;
+import io.joyrpc.transport.buffer.ChannelBuffer;
+import io.joyrpc.util.ClassUtils;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 抽象的基于缓冲区的数据序列化，按照类型预估序列化大小，提前扩容缓冲区
+ */
+public abstract class AbstractBufferSerializer extends AbstractSerializer implements BufferSerializer {
+
+    /**
+     * 各类型最近的序列化大小
+     */
+    protected Map<Class<?>, AtomicInteger> sizes = new ConcurrentHashMap<>();
+
+    /**
+     * 构造基于缓冲区的数据写对象
+     *
+     * @param buffer 缓冲区
+     * @param object 对象
+     * @return 数据写对象
+     */
+    protected abstract ObjectWriter createWriter(ChannelBuffer buffer, Object object) throws IOException;
+
+    /**
+     * 构造基于缓冲区的数据读对象
+     *
+     * @param buffer 缓冲区
+     * @param clazz  类型
+     * @return 数据读对象
+     */
+    protected abstract ObjectReader createReader(ChannelBuffer buffer, Class clazz) throws IOException;
+
+    @Override
+    public <T> void serialize(final ChannelBuffer buffer, final T object) throws SerializerException {
+        Class<?> clazz = object.getClass();
+        AtomicInteger size = sizes.get(clazz);
+        if (size != null) {
+            //预估大小，减少扩容次数
+            buffer.ensureWritable(size.get());
+        }
+        int start = buffer.writerIndex();
+        ObjectWriter output = null;
+        try {
+            output = createWriter(buffer, object);
+            if (object instanceof Codec) {
+                ((Codec) object).encode(output);
+            } else {
+                output.writeObject(object);
+            }
+            output.flush();
+        } catch (IOException e) {
+            throw new SerializerException("Error occurred while serializing class " + clazz.getName(), e);
+        } finally {
+            if (output != null) {
+                output.release();
+            }
+        }
+        estimate(clazz, size, buffer.writerIndex() - start);
+    }
+
+    @Override
+    public <T> T deserialize(final ChannelBuffer buffer, final Type type) throws SerializerException {
+        if (!(type instanceof Class)) {
+            throw new SerializerException("type must be a Class " + type);
+        }
+        try {
+            Class<T> clazz = (Class<T>) type;
+            ObjectReader input = createReader(buffer, clazz);
+            T result;
+            if (Codec.class.isAssignableFrom(clazz)) {
+                Codec codec = (Codec) ClassUtils.newInstance(clazz);
+                codec.decode(input);
+                result = (T) codec;
+            } else {
+                result = input.readObject(clazz);
+            }
+            //消息体占用剩余的全部数据
+            buffer.readerIndex(buffer.writerIndex());
+            return result;
+        } catch (Exception e) {
+            throw new SerializerException("Error occurred while deserializing class " + type, e);
+        }
+    }
+
+    /**
+     * 记录序列化大小，变大立即生效，变小则逐步衰减
+     *
+     * @param clazz  类型
+     * @param size   大小
+     * @param actual 本次序列化大小
+     */
+    protected void estimate(final Class<?> clazz, final AtomicInteger size, final int actual) {
+        if (size == null) {
+            sizes.putIfAbsent(clazz, new AtomicInteger(actual));
+        } else {
+            int old = size.get();
+            if (actual > old) {
+                size.lazySet(actual);
+            } else if (actual < old) {
+                size.lazySet(old - ((old - actual) >> 3));
+            }
+        }
+    }
+
+    /**
+     * 获取缓冲区可读数据的字节数组，堆内缓冲区直接返回底层数组，否则批量拷贝
+     *
+     * @param buffer 缓冲区
+     * @return 字节数组片段
+     */
+    protected static ByteArray getReadableBytes(final ChannelBuffer buffer) {
+        int length = buffer.readableBytes();
+        if (buffer.hasArray()) {
+            return new ByteArray(buffer.array(), buffer.arrayOffset() + buffer.readerIndex(), length);
+        }
+        byte[] bytes = new byte[length];
+        buffer.getBytes(buffer.readerIndex(), bytes);
+        return new ByteArray(bytes, 0, length);
+    }
+
+    /**
+     * 字节数组片段
+     */
+    protected static class ByteArray {
+        /**
+         * 数组
+         */
+        protected final byte[] bytes;
+        /**
+         * 开始位置
+         */
+        protected final int offset;
+        /**
+         * 长度
+         */
+        protected final int length;
+
+        public ByteArray(final byte[] bytes, final int offset, final int length) {
+            this.bytes = bytes;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        public byte[] getBytes() {
+            return bytes;
+        }
+
+        public int getOffset() {
+            return offset;
+        }
+
+        public int getLength() {
+            return length;
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package io.joyrpc.codec.serialization;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.exception.SerializerException;
+import io.joyrpc.transport.buffer.ChannelBuffer;
+
+import java.lang.reflect.Type;
+
+/**
+ * 直接基于缓冲区的序列化，避免输入输出流的包装。编解码器会优先使用该接口
+ */
+public interface BufferSerializer extends Serializer {
+
+    /**
+     * 序列化到缓冲区的写位置
+     *
+     * @param buffer 缓冲区
+     * @param object 对象
+     * @param <T>
+     * @throws SerializerException
+     */
+    <T> void serialize(ChannelBuffer buffer, T object) throws SerializerException;
+
+    /**
+     * 从缓冲区的读位置反序列化，消息体占用缓冲区剩余的全部可读数据
+     *
+     * @param buffer 缓冲区
+     * @param type   类型
+     * @param <T>
+     * @return 对象
+     * @throws SerializerException
+     */
+    <T> T deserialize(ChannelBuffer buffer, Type type) throws SerializerException;
+}
@@ -114,4 +114,13 @@ public interface Serialization extends CodecType {
         return true;
     }
 
+    /**
+     * 序列化数据是否自描述类型，反序列化调用参数的时候不依赖方法名和参数类型
+     *
+     * @return
+     */
+    default boolean isSelfDescribing() {
+        return false;
+    }
+
 }
@@ -53,6 +53,11 @@ public class JavaSerialization implements Serialization, BlackList.BlackListAwar
         return JavaSerializer.INSTANCE;
     }
 
+    @Override
+    public boolean isSelfDescribing() {
+        return true;
+    }
+
     @Override
     public void updateBlack(final String blackList) {
         List<String> remotes = blackList == null || blackList.isEmpty() ?
@@ -144,10 +144,26 @@ public abstract class AbstractInterfaceConfig extends AbstractIdConfig {
      * cache最大容量
      */
     protected Integer cacheCapacity;
+    /**
+     * cache最大估算字节数
+     */
+    protected Long cacheCapacityBytes;
     /**
      * 缓存值是否可空
      */
     protected Boolean cacheNullable;
+    /**
+     * 缓存未命中的时候是否合并相同键的并发请求
+     */
+    protected Boolean cacheCoalesce;
+    /**
+     * 缓存提前刷新时间
+     */
+    protected Long cacheRefreshAhead;
+    /**
+     * 缓存过期后还可以返回旧值的时间
+     */
+    protected Long cacheStaleTime;
     /**
      * 外部注入的配置中心
      */
@@ -187,7 +203,11 @@ public abstract class AbstractInterfaceConfig extends AbstractIdConfig {
         this.cache = config.cache;
         this.cacheExpireTime = config.cacheExpireTime;
         this.cacheCapacity = config.cacheCapacity;
+        this.cacheCapacityBytes = config.cacheCapacityBytes;
         this.cacheNullable = config.cacheNullable;
+        this.cacheCoalesce = config.cacheCoalesce;
+        this.cacheRefreshAhead = config.cacheRefreshAhead;
+        this.cacheStaleTime = config.cacheStaleTime;
         this.name = config.name;
         this.interfaceClass = config.interfaceClass;
         this.configure = config.configure;
@@ -429,6 +449,14 @@ public abstract class AbstractInterfaceConfig extends AbstractIdConfig {
         this.cacheCapacity = cacheCapacity;
     }
 
+    public Long getCacheCapacityBytes() {
+        return cacheCapacityBytes;
+    }
+
+    public void setCacheCapacityBytes(Long cacheCapacityBytes) {
+        this.cacheCapacityBytes = cacheCapacityBytes;
+    }
+
     public Boolean getCacheNullable() {
         return cacheNullable;
     }
@@ -437,6 +465,30 @@ public abstract class AbstractInterfaceConfig extends AbstractIdConfig {
         this.cacheNullable = cacheNullable;
     }
 
+    public Boolean getCacheCoalesce() {
+        return cacheCoalesce;
+    }
+
+    public void setCacheCoalesce(Boolean cacheCoalesce) {
+        this.cacheCoalesce = cacheCoalesce;
+    }
+
+    public Long getCacheRefreshAhead() {
+        return cacheRefreshAhead;
+    }
+
+    public void setCacheRefreshAhead(Long cacheRefreshAhead) {
+        this.cacheRefreshAhead = cacheRefreshAhead;
+    }
+
+    public Long getCacheStaleTime() {
+        return cacheStaleTime;
+    }
+
+    public void setCacheStaleTime(Long cacheStaleTime) {
+        this.cacheStaleTime = cacheStaleTime;
+    }
+
     public Configure getConfigure() {
         return configure;
     }
@@ -584,7 +636,11 @@ public abstract class AbstractInterfaceConfig extends AbstractIdConfig {
         addElement2Map(params, Constants.CACHE_PROVIDER_OPTION, cacheProvider);
         addElement2Map(params, Constants.CACHE_KEY_GENERATOR_OPTION, cacheKeyGenerator);
         addElement2Map(params, Constants.CACHE_CAPACITY_OPTION, cacheCapacity);
+        addElement2Map(params, Constants.CACHE_CAPACITY_BYTES_OPTION, cacheCapacityBytes);
         addElement2Map(params, Constants.CACHE_NULLABLE_OPTION, cacheNullable);
+        addElement2Map(params, Constants.CACHE_COALESCE_OPTION, cacheCoalesce);
+        addElement2Map(params, Constants.CACHE_REFRESH_AHEAD_OPTION, cacheRefreshAhead);
+        addElement2Map(params, Constants.CACHE_STALE_TIME_OPTION, cacheStaleTime);
 
         if (null != parameters) {
             parameters.forEach((k, v) -> addElement2Map(params, k, v));
@@ -81,6 +81,10 @@ public class MethodConfig extends AbstractConfig {
      * cache最大容量
      */
     protected Integer cacheCapacity;
+    /**
+     * cache最大估算字节数
+     */
+    protected Long cacheCapacityBytes;
     /**
      * 是否启动压缩
      */
@@ -95,6 +99,18 @@ public class MethodConfig extends AbstractConfig {
      * 缓存值是否可空
      */
     protected Boolean cacheNullable;
+    /**
+     * 缓存未命中的时候是否合并相同键的并发请求
+     */
+    protected Boolean cacheCoalesce;
+    /**
+     * 缓存提前刷新时间
+     */
+    protected Long cacheRefreshAhead;
+    /**
+     * 缓存过期后还可以返回旧值的时间
+     */
+    protected Long cacheStaleTime;
 
     public String getName() {
         return name;
@@ -184,6 +200,14 @@ public class MethodConfig extends AbstractConfig {
         this.cacheCapacity = cacheCapacity;
     }
 
+    public Long getCacheCapacityBytes() {
+        return cacheCapacityBytes;
+    }
+
+    public void setCacheCapacityBytes(Long cacheCapacityBytes) {
+        this.cacheCapacityBytes = cacheCapacityBytes;
+    }
+
     public Integer getDstParam() {
         return dstParam;
     }
@@ -200,6 +224,30 @@ public class MethodConfig extends AbstractConfig {
         this.cacheNullable = cacheNullable;
     }
 
+    public Boolean getCacheCoalesce() {
+        return cacheCoalesce;
+    }
+
+    public void setCacheCoalesce(Boolean cacheCoalesce) {
+        this.cacheCoalesce = cacheCoalesce;
+    }
+
+    public Long getCacheRefreshAhead() {
+        return cacheRefreshAhead;
+    }
+
+    public void setCacheRefreshAhead(Long cacheRefreshAhead) {
+        this.cacheRefreshAhead = cacheRefreshAhead;
+    }
+
+    public Long getCacheStaleTime() {
+        return cacheStaleTime;
+    }
+
+    public void setCacheStaleTime(Long cacheStaleTime) {
+        this.cacheStaleTime = cacheStaleTime;
+    }
+
     public String getCacheProvider() {
         return cacheProvider;
     }
@@ -245,7 +293,11 @@ public class MethodConfig extends AbstractConfig {
         addElement2Map(params, METHOD_KEY.apply(name, Constants.CACHE_KEY_GENERATOR_OPTION.getName()), cacheKeyGenerator);
         addElement2Map(params, METHOD_KEY.apply(name, Constants.CACHE_EXPIRE_TIME_OPTION.getName()), cacheExpireTime);
         addElement2Map(params, METHOD_KEY.apply(name, Constants.CACHE_CAPACITY_OPTION.getName()), cacheCapacity);
+        addElement2Map(params, METHOD_KEY.apply(name, Constants.CACHE_CAPACITY_BYTES_OPTION.getName()), cacheCapacityBytes);
         addElement2Map(params, METHOD_KEY.apply(name, Constants.CACHE_NULLABLE_OPTION.getName()), cacheNullable);
+        addElement2Map(params, METHOD_KEY.apply(name, Constants.CACHE_COALESCE_OPTION.getName()), cacheCoalesce);
+        addElement2Map(params, METHOD_KEY.apply(name, Constants.CACHE_REFRESH_AHEAD_OPTION.getName()), cacheRefreshAhead);
+        addElement2Map(params, METHOD_KEY.apply(name, Constants.CACHE_STALE_TIME_OPTION.getName()), cacheStaleTime);
 
         if (null != parameters) {
             parameters.forEach((k, v) -> addElement2Map(params, METHOD_KEY.apply(name, k), v));
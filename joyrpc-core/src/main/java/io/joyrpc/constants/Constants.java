@@ -251,6 +251,14 @@ public class Constants {
      * properties 文件里默认telnet命令prompt
      */
     public static final URLOption<String> TELNET_PROMPT_OPTION = new URLOption<>("telnet.cmd.prompt", "rpc>");
+    /**
+     * properties 文件里配置是否延迟反序列化请求消息体，延迟到业务线程中执行
+     */
+    public static final URLOption<Boolean> DECODE_LAZY_OPTION = new URLOption<>("decode.lazy", false);
+    /**
+     * properties 文件里配置延迟反序列化的消息体大小阈值，小于该阈值则在IO线程中直接反序列化
+     */
+    public static final URLOption<Integer> DECODE_LAZY_THRESHOLD_OPTION = new URLOption<>("decode.lazy.threshold", 1024);
     /**
      * 上下文资源
      */
@@ -366,6 +374,66 @@ public class Constants {
      * 定时器线程数
      */
     public static final String TIMER_THREADS = "timer.threads";
+    /**
+     * 定时器每一跳的时间(毫秒)
+     */
+    public static final String TIMER_TICK_TIME = "timer.tickTime";
+    /**
+     * 定时器时间轮的槽数
+     */
+    public static final String TIMER_TICKS = "timer.ticks";
+    /**
+     * 定时器分片数
+     */
+    public static final String TIMER_SHARDS = "timer.shards";
+    /**
+     * 是否开启自适应压缩策略，默认关闭
+     */
+    public static final String COMPRESS_ADAPTIVE = "compress.adaptive";
+    /**
+     * 自适应压缩的候选算法，多个用逗号分隔
+     */
+    public static final String COMPRESS_ADAPTIVE_CANDIDATES = "compress.adaptive.candidates";
+    /**
+     * 自适应压缩的采样间隔，每多少个报文采样一次
+     */
+    public static final String COMPRESS_ADAPTIVE_INTERVAL = "compress.adaptive.interval";
+    /**
+     * 自适应压缩每节省一个字节等价的纳秒数，跨机房等低带宽链路可以调大
+     */
+    public static final String COMPRESS_ADAPTIVE_BYTE_NANOS = "compress.adaptive.byteNanos";
+    /**
+     * 自适应压缩每个报文至少节省的字节数，用于计算压缩阈值
+     */
+    public static final String COMPRESS_ADAPTIVE_MIN_SAVING = "compress.adaptive.minSaving";
+    /**
+     * zstd压缩级别
+     */
+    public static final String ZSTD_LEVEL = "zstd.level";
+    /**
+     * zstd绑定字典后开启压缩的阈值
+     */
+    public static final String ZSTD_THRESHOLD = "zstd.threshold";
+    /**
+     * zstd字典目录，启动时加载，训练出来的字典也保存在该目录
+     */
+    public static final String ZSTD_DICTIONARY_PATH = "zstd.dictionary.path";
+    /**
+     * zstd训练的字典大小
+     */
+    public static final String ZSTD_DICTIONARY_SIZE = "zstd.dictionary.size";
+    /**
+     * zstd每个方法训练字典需要的样本数，为0表示不训练
+     */
+    public static final String ZSTD_TRAIN_SAMPLES = "zstd.train.samples";
+    /**
+     * zstd训练字典的采样间隔，每多少个报文采样一次
+     */
+    public static final String ZSTD_TRAIN_INTERVAL = "zstd.train.interval";
+    /**
+     * zstd解压后的最大字节数，防止对端构造的小报文解压出超大数据，默认和payload一致
+     */
+    public static final String ZSTD_MAX_SIZE = "zstd.maxSize";
     /**
      * SERVICE_MESH的键名称
      */
@@ -463,6 +531,30 @@ public class Constants {
      * 重试目标节点选择器
      */
     public static final URLOption<String> FAILOVER_SELECTOR_OPTION = new URLOption<>("failoverSelector", "simple");
+    /**
+     * 重试预算，窗口内重试数占上一个窗口成功请求数的最大百分比，小于等于0表示不限制
+     */
+    public static final URLOption<Integer> RETRY_BUDGET_OPTION = new URLOption<>("retryBudget", 20);
+    /**
+     * 重试预算，每个窗口最少允许的重试次数
+     */
+    public static final URLOption<Integer> RETRY_BUDGET_MIN_OPTION = new URLOption<>("retryBudgetMin", 10);
+    /**
+     * 重试预算的统计窗口时间(毫秒)
+     */
+    public static final URLOption<Long> RETRY_BUDGET_WINDOW_OPTION = new URLOption<>("retryBudgetWindow", 10000L);
+    /**
+     * 对冲请求，在hedge分发策略下生效，默认关闭，只对幂等方法开启
+     */
+    public static final URLOption<Boolean> HEDGE_OPTION = new URLOption<>("hedge", false);
+    /**
+     * 对冲请求的等待时间，单位毫秒，小于等于0则按照方法的TP90计算
+     */
+    public static final URLOption<Integer> HEDGE_DELAY_OPTION = new URLOption<>("hedgeDelay", 0);
+    /**
+     * 对冲请求占正常请求的最大百分比
+     */
+    public static final URLOption<Integer> HEDGE_BUDGET_OPTION = new URLOption<>("hedgeBudget", 10);
     /**
      * 默认负载均衡算法
      */
@@ -490,6 +582,10 @@ public class Constants {
      * 代理工厂选项
      */
     public static final URLOption<String> PROXY_OPTION = new URLOption<>("proxy", DEFAULT_PROXY);
+    /**
+     * 服务端方法调用器，默认和代理工厂一致，不存在则采用methodHandle，reflection为反射调用
+     */
+    public static final URLOption<String> METHOD_CALLER_OPTION = new URLOption<>("methodCaller", DEFAULT_PROXY);
     public static final URLOption<Boolean> VALIDATION_OPTION = new URLOption<>("validation", false);
     public static final URLOption<String> ROUTER_OPTION = new URLOption<>("router", (String) null);
     //默认不压缩
@@ -529,6 +625,14 @@ public class Constants {
     public static final String JAVA_VERSION_KEY = "javaVersion";
 
     public static final String BUILD_VERSION_KEY = "buildVersion";
+    /**
+     * 消费者是否协商接口方法字典，协商成功后请求只携带方法序号
+     */
+    public static final URLOption<Boolean> METHOD_DICTIONARY_OPTION = new URLOption<>("methodDictionary", true);
+    /**
+     * 服务端下发的接口方法签名
+     */
+    public static final String METHOD_SIGNATURES_KEY = "methodSignatures";
 
     public static final String VERSION_KEY = "version";
 
@@ -587,6 +691,8 @@ public class Constants {
     public static final String REGISTRY_NAME_KEY = "name";
     public static final URLOption<String> REGISTRY_BACKUP_PATH_OPTION = new URLOption<>("backupPath", (String) null);
     public static final URLOption<Integer> REGISTRY_BACKUP_DATUM_OPTION = new URLOption<>("backupDatum", 3);
+    public static final URLOption<Long> REGISTRY_BACKUP_JOURNAL_SIZE_OPTION = new URLOption<>("backupJournalSize", 4 * 1024 * 1024L);
+    public static final URLOption<Boolean> REGISTRY_BACKUP_MAPPED_OPTION = new URLOption<>("backupMapped", false);
     public static final URLOption<Boolean> SYSTEM_REFER_OPTION = new URLOption<>("systemRefer", Boolean.FALSE);
     public static final URLOption<Long> TASK_RETRY_INTERVAL_OPTION = new URLOption<>("taskRetryInterval", 5000L);
 
@@ -610,17 +716,49 @@ public class Constants {
     public static final URLOption<String> CACHE_KEY_GENERATOR_OPTION = new URLOption<>("cacheKeyGenerator", DEFAULT_CACHE_KEY_GENERATOR);
     public static final URLOption<Integer> CACHE_EXPIRE_TIME_OPTION = new URLOption<>("cacheExpireTime", -1);
     public static final URLOption<Integer> CACHE_CAPACITY_OPTION = new URLOption<>("cacheCapacity", 10000);
+    /**
+     * 缓存按估算字节数计算的容量，大于0时优先于条目数
+     */
+    public static final URLOption<Long> CACHE_CAPACITY_BYTES_OPTION = new URLOption<>("cacheCapacityBytes", 0L);
     public static final URLOption<Boolean> CACHE_NULLABLE_OPTION = new URLOption<>("cacheNullable", Boolean.FALSE);
+    /**
+     * 缓存未命中的时候，相同键的并发请求是否合并成一次调用
+     */
+    public static final URLOption<Boolean> CACHE_COALESCE_OPTION = new URLOption<>("cacheCoalesce", Boolean.TRUE);
+    /**
+     * 缓存提前刷新时间(毫秒)，剩余有效期小于该值时命中的请求会触发一次后台刷新
+     */
+    public static final URLOption<Integer> CACHE_REFRESH_AHEAD_OPTION = new URLOption<>("cacheRefreshAhead", 0);
+    /**
+     * 缓存过期后还可以返回旧值的时间(毫秒)，期间命中的请求返回旧值并触发一次后台刷新
+     */
+    public static final URLOption<Integer> CACHE_STALE_TIME_OPTION = new URLOption<>("cacheStaleTime", 0);
 
     /**
      * 指标窗口时间（毫秒）
      */
     public static final URLOption<Long> METRIC_WINDOWS_TIME_OPTION = new URLOption<>("metric.window.time", 1000L);
+    /**
+     * 在调用线程上直接记录指标，不经过指标事件队列
+     */
+    public static final URLOption<Boolean> METRIC_INLINE_OPTION = new URLOption<>("metric.inline", false);
+    /**
+     * 指标窗口插件，mc为毫秒精度，hdr为微秒精度的对数线性分桶
+     */
+    public static final URLOption<String> METRIC_WINDOW_OPTION = new URLOption<>("metric.window", "mc");
 
     /**
      * 插件默认常量
      */
     public static final URLOption<String> CHANNEL_MANAGER_FACTORY_OPTION = new URLOption<>("channelManagerFactory", "shared");
+    /**
+     * 连接池模式下每个服务端地址的最大连接数
+     */
+    public static final URLOption<Integer> POOLED_CONNECTIONS_OPTION = new URLOption<>("connections", 4);
+    /**
+     * 连接池模式下，已有连接的待应答请求数都达到该阈值才创建新连接
+     */
+    public static final URLOption<Integer> POOLED_GROW_THRESHOLD_OPTION = new URLOption<>("connections.growThreshold", 0);
 
     public static final URLOption<Integer> PAYLOAD = new URLOption<>("payload", 8388608);
 
@@ -646,6 +784,9 @@ public class Constants {
     public static final URLOption<Boolean> SO_KEEPALIVE_OPTION = new URLOption<>("soKeepAlive", Boolean.TRUE);
     public static final URLOption<Integer> SO_BACKLOG_OPTION = new URLOption<>("soBacklog", 35536);
     public static final URLOption<Integer> SO_TIMEOUT_OPTION = new URLOption<>("soTimeout", 10000);
+    public static final URLOption<Boolean> FLUSH_CONSOLIDATION_OPTION = new URLOption<>("flushConsolidation", false);
+    public static final URLOption<Integer> FLUSH_CONSOLIDATION_MESSAGES_OPTION = new URLOption<>("flushConsolidation.messages", 64);
+    public static final URLOption<Integer> FLUSH_CONSOLIDATION_BYTES_OPTION = new URLOption<>("flushConsolidation.bytes", 64 * 1024);
     public static final String REUSE_PORT_KEY = "reusePort";
 
     /**
@@ -57,7 +57,11 @@ public enum HeadKey {
     /**
      * 没有接口文件
      */
-    generic((byte) 12, Byte.class);
+    generic((byte) 12, Byte.class),
+    /**
+     * 协商的接口方法字典中的方法序号
+     */
+    methodId((byte) 13, Integer.class);
     /**
      * 值
      */
@@ -104,6 +108,8 @@ public enum HeadKey {
                 return checkAuth;
             case 12:
                 return generic;
+            case 13:
+                return methodId;
             default:
                 throw new IllegalArgumentException("Unknown head key value: " + num);
         }
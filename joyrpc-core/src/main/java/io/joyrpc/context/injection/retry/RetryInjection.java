@@ -23,7 +23,7 @@ public class RetryInjection implements NodeReqInjection {
     public void inject(RequestMessage<Invocation> request, Node node) {
         Integer retryTimes = RequestContext.getContext().getAttachment(INTERNAL_KEY_RETRY_TIMES);
         if (retryTimes != null) {
-            request.getContext().setAttachment(INTERNAL_KEY_RETRY_TIMES, retryTimes);
+            request.getContext().setAttachment(INTERNAL_KEY_RETRY_TIMES, retryTimes, RequestContext.INTERNAL_KEY);
         }
     }
 }
@@ -54,7 +54,7 @@ public class LimiterConfigHandler implements ConfigEventHandler {
 
     private static final Logger logger = LoggerFactory.getLogger(LimiterConfigHandler.class);
 
-    public final static String DEFAULT_LIMITER_TYPE = "leakyBucket";
+    public final static String DEFAULT_LIMITER_TYPE = "tokenBucket";
 
     @Override
     public void handle(final String className, final Map<String, String> oldAttrs, final Map<String, String> newAttrs) {
@@ -24,6 +24,7 @@ import io.joyrpc.cluster.distribution.RateLimiter;
 import io.joyrpc.context.AbstractInterfaceConfiguration;
 
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -45,9 +46,9 @@ public class LimiterConfiguration extends AbstractInterfaceConfiguration<String,
          */
         protected final Map<Option, RateLimiter> limiters;
         /**
-         * 最佳配置
+         * 最佳配置索引，方法-别名-应用，避免每次请求创建对象
          */
-        protected final Map<Option, RateLimiter> bests = new ConcurrentHashMap<>();
+        protected final Map<String, Map<String, Map<String, Optional<RateLimiter>>>> bests = new ConcurrentHashMap<>();
 
         /**
          * 构造函数
@@ -65,41 +66,79 @@ public class LimiterConfiguration extends AbstractInterfaceConfiguration<String,
          * @return 结果
          */
         public RateLimiter get(final Option option) {
-            if (option == null || limiters.isEmpty()) {
+            return option == null ? null : get(option.method, option.alias, option.application);
+        }
+
+        /**
+         * 读取限流数据
+         *
+         * @param method      方法名称
+         * @param alias       别名
+         * @param application 应用
+         * @return 结果
+         */
+        public RateLimiter get(final String method, final String alias, final String application) {
+            if (limiters.isEmpty()) {
                 return null;
             }
+            String m = method == null ? "" : method;
+            String a = alias == null ? "" : alias;
+            String app = application == null ? "" : application;
             //从缓存的最佳配置里面获取
-            return bests.computeIfAbsent(option, o -> {
-                //最佳匹配算法
-                Option[] options = o.application.isEmpty() ?
-                        new Option[]{
-                                new Option("", "", ""),
-                                new Option("", o.alias, ""),
-                                new Option(o.method, "", ""),
-                                new Option(o.method, o.alias, "")
-                        } :
-                        new Option[]{
-                                new Option("", "", ""),
-                                new Option("", o.alias, ""),
-                                new Option(o.method, "", ""),
-                                new Option(o.method, o.alias, ""),
-                                new Option("", "", o.application),
-                                new Option("", o.alias, o.application),
-                                new Option(o.method, "", o.application),
-                                new Option(o.method, o.alias, o.application)
-                        };
-                RateLimiter limiter;
-                //按照优先级获取限流配置
-                for (int index = options.length - 1; index >= 0; index--) {
-                    //查找限流器
-                    limiter = limiters.get(options[index]);
-                    if (limiter != null) {
-                        //找到了最佳限流器
-                        return limiter;
-                    }
+            Map<String, Map<String, Optional<RateLimiter>>> aliases = bests.get(m);
+            if (aliases == null) {
+                aliases = bests.computeIfAbsent(m, k -> new ConcurrentHashMap<>());
+            }
+            Map<String, Optional<RateLimiter>> applications = aliases.get(a);
+            if (applications == null) {
+                applications = aliases.computeIfAbsent(a, k -> new ConcurrentHashMap<>());
+            }
+            Optional<RateLimiter> result = applications.get(app);
+            if (result == null) {
+                result = Optional.ofNullable(best(m, a, app));
+                Optional<RateLimiter> exists = applications.putIfAbsent(app, result);
+                result = exists == null ? result : exists;
+            }
+            return result.orElse(null);
+        }
+
+        /**
+         * 最佳匹配算法
+         *
+         * @param method      方法名称
+         * @param alias       别名
+         * @param application 应用
+         * @return 限流器
+         */
+        protected RateLimiter best(final String method, final String alias, final String application) {
+            Option[] options = application.isEmpty() ?
+                    new Option[]{
+                            new Option("", "", ""),
+                            new Option("", alias, ""),
+                            new Option(method, "", ""),
+                            new Option(method, alias, "")
+                    } :
+                    new Option[]{
+                            new Option("", "", ""),
+                            new Option("", alias, ""),
+                            new Option(method, "", ""),
+                            new Option(method, alias, ""),
+                            new Option("", "", application),
+                            new Option("", alias, application),
+                            new Option(method, "", application),
+                            new Option(method, alias, application)
+                    };
+            RateLimiter limiter;
+            //按照优先级获取限流配置
+            for (int index = options.length - 1; index >= 0; index--) {
+                //查找限流器
+                limiter = limiters.get(options[index]);
+                if (limiter != null) {
+                    //找到了最佳限流器
+                    return limiter;
                 }
-                return null;
-            });
+            }
+            return null;
         }
 
         public Map<Option, RateLimiter> getLimiters() {
@@ -21,6 +21,7 @@ package io.joyrpc.filter;
  */
 
 import io.joyrpc.Invoker;
+import io.joyrpc.InvokerAware;
 import io.joyrpc.Result;
 import io.joyrpc.cache.Cache;
 import io.joyrpc.cache.CacheConfig;
@@ -34,14 +35,17 @@ import io.joyrpc.filter.cache.CacheKeyGenerator;
 import io.joyrpc.protocol.message.Invocation;
 import io.joyrpc.protocol.message.RequestMessage;
 import io.joyrpc.util.GenericMethodOption;
+import io.joyrpc.util.SystemClock;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.Serializable;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static io.joyrpc.Plugin.CACHE;
 import static io.joyrpc.Plugin.CACHE_KEY_GENERATOR;
@@ -65,7 +69,11 @@ public class AbstractCacheFilter extends AbstractFilter {
         final boolean defEnable = url.getBoolean(CACHE_OPTION);
         final boolean defCacheNullable = url.getBoolean(CACHE_NULLABLE_OPTION);
         final int defCacheCapacity = url.getInteger(CACHE_CAPACITY_OPTION);
+        final long defCacheCapacityBytes = url.getLong(CACHE_CAPACITY_BYTES_OPTION);
         final int defCacheExpireTime = url.getInteger(CACHE_EXPIRE_TIME_OPTION);
+        final boolean defCacheCoalesce = url.getBoolean(CACHE_COALESCE_OPTION);
+        final int defCacheRefreshAhead = url.getInteger(CACHE_REFRESH_AHEAD_OPTION);
+        final int defCacheStaleTime = url.getInteger(CACHE_STALE_TIME_OPTION);
         final String defKeyGenerator = url.getString(CACHE_KEY_GENERATOR_OPTION);
         final String cacheProvider = url.getString(CACHE_PROVIDER_OPTION);
         //获取缓存实现
@@ -89,15 +97,35 @@ public class AbstractCacheFilter extends AbstractFilter {
                     }
                     return Optional.empty();
                 } else {
+                    if (generator instanceof InvokerAware) {
+                        InvokerAware aware = (InvokerAware) generator;
+                        aware.setUrl(url);
+                        aware.setClass(clazz);
+                        aware.setClassName(className);
+                        aware.setup();
+                    }
                     //判断是否缓存空值
                     boolean cacheNullable = url.getBoolean(getOption(methodName, CACHE_NULLABLE_OPTION.getName(), defCacheNullable));
-                    //创建缓存
+                    int expireTime = url.getInteger(getOption(methodName, CACHE_EXPIRE_TIME_OPTION.getName(), defCacheExpireTime));
+                    int refreshAhead = url.getInteger(getOption(methodName, CACHE_REFRESH_AHEAD_OPTION.getName(), defCacheRefreshAhead));
+                    int staleTime = url.getInteger(getOption(methodName, CACHE_STALE_TIME_OPTION.getName(), defCacheStaleTime));
+                    if (expireTime <= 0) {
+                        //永不过期，不需要刷新
+                        refreshAhead = 0;
+                        staleTime = 0;
+                    } else {
+                        refreshAhead = refreshAhead < 0 ? 0 : Math.min(refreshAhead, expireTime);
+                        staleTime = staleTime < 0 ? 0 : staleTime;
+                    }
+                    //创建缓存，返回旧值需要缓存多保留一段时间
                     CacheConfig<Object, Object> cacheConfig = CacheConfig.builder().nullable(cacheNullable).
                             capacity(url.getInteger(getOption(methodName, CACHE_CAPACITY_OPTION.getName(), defCacheCapacity))).
-                            expireAfterWrite(url.getInteger(getOption(methodName, CACHE_EXPIRE_TIME_OPTION.getName(), defCacheExpireTime))).
+                            capacityBytes(url.getLong(getOption(methodName, CACHE_CAPACITY_BYTES_OPTION.getName(), defCacheCapacityBytes))).
+                            expireAfterWrite(expireTime <= 0 ? expireTime : expireTime + staleTime).
                             build();
                     Cache<Object, Object> cache = cacheFactory.build(methodName, cacheConfig);
-                    return Optional.of(new CacheMeta(cache, generator, cacheNullable));
+                    boolean coalesce = url.getBoolean(getOption(methodName, CACHE_COALESCE_OPTION.getName(), defCacheCoalesce));
+                    return Optional.of(new CacheMeta(cache, generator, cacheNullable, coalesce, expireTime, refreshAhead, staleTime));
                 }
             });
         }
@@ -127,26 +155,44 @@ public class AbstractCacheFilter extends AbstractFilter {
         //获取缓存
         CompletableFuture<CacheObject<Object>> future = meta.getCache(key);
         future.whenComplete((cache, t) -> {
+            Object value = null;
+            boolean hit = false;
             if (t == null && cache != null) {
-                result.complete(new Result(request.getContext(), cache.getResult()));
-            } else {
-                //没有拿到缓存
-                if (t != null) {
-                    //有异常
-                    logger.error("Error occurs while reading cache,caused by " + t.getMessage(), t);
+                value = cache.getResult();
+                hit = true;
+                if (value instanceof CacheValue) {
+                    //带有写入时间，判断是否需要刷新
+                    CacheValue cacheValue = (CacheValue) value;
+                    long age = SystemClock.now() - cacheValue.getWriteTime();
+                    value = cacheValue.getValue();
+                    if (age >= meta.expireTime + meta.staleTime) {
+                        //超过了可以返回旧值的时间
+                        hit = false;
+                    } else if (age >= meta.expireTime - meta.refreshAhead) {
+                        //提前刷新或过期后返回旧值，后台只发起一次调用
+                        meta.refresh(key, invoker, request);
+                    }
                 }
-                //未命中发起远程调用
-                CompletableFuture<Result> invokerFuture = invoker.invoke(request);
-                invokerFuture.whenComplete((r, error) -> {
+            } else if (t != null) {
+                //有异常
+                logger.error("Error occurs while reading cache,caused by " + t.getMessage(), t);
+            }
+            if (hit) {
+                result.complete(new Result(request.getContext(), value));
+            } else {
+                //未命中发起远程调用，开启合并后相同键的并发请求共享一次调用
+                CompletableFuture<Result> loader = meta.coalesce ? meta.load(key, invoker, request) : meta.invoke(key, invoker, request);
+                loader.whenComplete((r, error) -> {
                     if (error != null) {
                         //远程调用异常
                         result.completeExceptionally(error);
-                    } else {
+                    } else if (r.getContext() == request.getContext()) {
                         result.complete(r);
-                        if (!r.isException()) {
-                            //缓存非异常结果
-                            meta.putCache(key, r.getValue());
-                        }
+                    } else if (r.isException()) {
+                        //合并的请求，使用自己的上下文
+                        result.complete(new Result(request.getContext(), r.getException()));
+                    } else {
+                        result.complete(new Result(request.getContext(), r.getValue()));
                     }
                 });
             }
@@ -172,6 +218,36 @@ public class AbstractCacheFilter extends AbstractFilter {
         return false;
     }
 
+    /**
+     * 带写入时间的缓存值，用于提前刷新和过期后返回旧值
+     */
+    protected static class CacheValue implements Serializable {
+        /**
+         * 值
+         */
+        protected Object value;
+        /**
+         * 写入时间
+         */
+        protected long writeTime;
+
+        public CacheValue() {
+        }
+
+        public CacheValue(Object value, long writeTime) {
+            this.value = value;
+            this.writeTime = writeTime;
+        }
+
+        public Object getValue() {
+            return value;
+        }
+
+        public long getWriteTime() {
+            return writeTime;
+        }
+    }
+
     /**
      * 缓存元数据
      */
@@ -188,6 +264,26 @@ public class AbstractCacheFilter extends AbstractFilter {
          * 是否可以缓存null对象
          */
         protected final boolean cacheNullable;
+        /**
+         * 是否合并相同键的并发请求
+         */
+        protected final boolean coalesce;
+        /**
+         * 过期时间
+         */
+        protected final long expireTime;
+        /**
+         * 提前刷新时间
+         */
+        protected final long refreshAhead;
+        /**
+         * 过期后还可以返回旧值的时间
+         */
+        protected final long staleTime;
+        /**
+         * 正在进行的调用
+         */
+        protected final Map<Object, CompletableFuture<Result>> flights = new ConcurrentHashMap<>();
 
         /**
          * 构造函数
@@ -197,9 +293,29 @@ public class AbstractCacheFilter extends AbstractFilter {
          * @param cacheNullable
          */
         public CacheMeta(final Cache<Object, Object> cache, final CacheKeyGenerator generator, final boolean cacheNullable) {
+            this(cache, generator, cacheNullable, false, -1, 0, 0);
+        }
+
+        /**
+         * 构造函数
+         *
+         * @param cache
+         * @param generator
+         * @param cacheNullable
+         * @param coalesce
+         * @param expireTime
+         * @param refreshAhead
+         * @param staleTime
+         */
+        public CacheMeta(final Cache<Object, Object> cache, final CacheKeyGenerator generator, final boolean cacheNullable,
+                         final boolean coalesce, final long expireTime, final long refreshAhead, final long staleTime) {
             this.cache = cache;
             this.generator = generator;
             this.cacheNullable = cacheNullable;
+            this.coalesce = coalesce;
+            this.expireTime = expireTime;
+            this.refreshAhead = refreshAhead;
+            this.staleTime = staleTime;
         }
 
         public Cache<Object, Object> getCache() {
@@ -210,6 +326,15 @@ public class AbstractCacheFilter extends AbstractFilter {
             return generator;
         }
 
+        /**
+         * 是否需要记录写入时间
+         *
+         * @return
+         */
+        protected boolean isRefreshable() {
+            return expireTime > 0 && (refreshAhead > 0 || staleTime > 0);
+        }
+
         /**
          * 生成Key
          *
@@ -246,7 +371,73 @@ public class AbstractCacheFilter extends AbstractFilter {
             if (!cacheNullable && value == null) {
                 return CompletableFuture.completedFuture(null);
             }
-            return cache.put(key, value);
+            return cache.put(key, isRefreshable() ? new CacheValue(value, SystemClock.now()) : value);
+        }
+
+        /**
+         * 后台刷新缓存，复制请求避免和当前请求互相修改
+         *
+         * @param key
+         * @param invoker
+         * @param request
+         */
+        public void refresh(final Object key, final Invoker invoker, final RequestMessage<Invocation> request) {
+            if (!flights.containsKey(key)) {
+                load(key, invoker, request.copy());
+            }
+        }
+
+        /**
+         * 发起调用并更新缓存，相同键同时只有一个调用，其它请求共享该调用的结果
+         *
+         * @param key
+         * @param invoker
+         * @param request
+         * @return
+         */
+        public CompletableFuture<Result> load(final Object key, final Invoker invoker, final RequestMessage<Invocation> request) {
+            CompletableFuture<Result> future = new CompletableFuture<>();
+            CompletableFuture<Result> exists = flights.putIfAbsent(key, future);
+            if (exists != null) {
+                return exists;
+            }
+            try {
+                invoker.invoke(request).whenComplete((r, error) -> {
+                    if (error != null) {
+                        flights.remove(key, future);
+                        future.completeExceptionally(error);
+                    } else if (r.isException()) {
+                        flights.remove(key, future);
+                        future.complete(r);
+                    } else {
+                        //结果先返回给等待的请求，等缓存更新完成后再移除，避免移除后的请求读不到缓存而重复调用
+                        CompletableFuture<Void> put = putCache(key, r.getValue());
+                        future.complete(r);
+                        put.whenComplete((v, e) -> flights.remove(key, future));
+                    }
+                });
+            } catch (Throwable e) {
+                flights.remove(key, future);
+                future.completeExceptionally(e);
+            }
+            return future;
+        }
+
+        /**
+         * 发起调用，缓存非异常结果
+         *
+         * @param key
+         * @param invoker
+         * @param request
+         * @return
+         */
+        protected CompletableFuture<Result> invoke(final Object key, final Invoker invoker, final RequestMessage<Invocation> request) {
+            return invoker.invoke(request).whenComplete((r, error) -> {
+                if (error == null && !r.isException()) {
+                    //缓存非异常结果
+                    putCache(key, r.getValue());
+                }
+            });
         }
     }
 }
@@ -0,0 +1,87 @@
+package io.joyrpc.filter.cache;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * 128位哈希缓存键，先比较哈希值，哈希值相同再比较规范化的键字节。<br/>
+ * 只有不超过64字节的小键才保留键字节，大键只比较哈希值，保持键的大小固定。
+ * 128位哈希的随机碰撞概率约为2^-64量级，可以忽略，但不能防御刻意构造的碰撞，对安全敏感的结果不要开启缓存。
+ */
+public final class CacheKey implements Serializable {
+
+    private static final long serialVersionUID = -4518429531957512837L;
+
+    /**
+     * 高64位
+     */
+    private final long high;
+    /**
+     * 低64位
+     */
+    private final long low;
+    /**
+     * 规范化的键字节，大键为空
+     */
+    private final byte[] bytes;
+
+    public CacheKey(final long high, final long low) {
+        this(high, low, null);
+    }
+
+    public CacheKey(final long high, final long low, final byte[] bytes) {
+        this.high = high;
+        this.low = low;
+        this.bytes = bytes;
+    }
+
+    public long getHigh() {
+        return high;
+    }
+
+    public long getLow() {
+        return low;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+        if (this == o) {
+            return true;
+        } else if (!(o instanceof CacheKey)) {
+            return false;
+        }
+        CacheKey that = (CacheKey) o;
+        return high == that.high && low == that.low && Arrays.equals(bytes, that.bytes);
+    }
+
+    @Override
+    public int hashCode() {
+        //已经是均匀分布的哈希值，直接取低位
+        return (int) (low ^ (low >>> 32));
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%016x%016x", high, low);
+    }
+}
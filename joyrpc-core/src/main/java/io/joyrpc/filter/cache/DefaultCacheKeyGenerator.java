@@ -20,26 +20,369 @@ package io.joyrpc.filter.cache;
  * #L%
  */
 
+import io.joyrpc.InvokerAware;
+import io.joyrpc.codec.serialization.Serialization;
 import io.joyrpc.exception.CacheException;
 import io.joyrpc.exception.SerializerException;
 import io.joyrpc.extension.Extension;
+import io.joyrpc.extension.Prototype;
+import io.joyrpc.extension.URL;
 import io.joyrpc.protocol.message.Invocation;
 
-import static io.joyrpc.Plugin.JSON;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+
+import static io.joyrpc.Plugin.SERIALIZATION;
+import static io.joyrpc.constants.Constants.SERIALIZATION_OPTION;
 
 /**
- * @description: 参数转json
+ * 默认缓存键生成器，把参数流式写入128位哈希(MurmurHash3 x64)，生成固定大小的缓存键。<br/>
+ * 基本类型、字符串、枚举及小集合直接写入哈希，其它对象通过配置的序列化写入哈希，不产生中间字符串。
  */
 @Extension(value = "default")
-public class DefaultCacheKeyGenerator implements CacheKeyGenerator {
+public class DefaultCacheKeyGenerator implements CacheKeyGenerator, InvokerAware, Prototype {
+
+    /**
+     * 小集合的最大元素数，超过则直接序列化
+     */
+    protected static final int SMALL_COLLECTION = 64;
+
+    protected static final byte NULL = 0;
+    protected static final byte BOOLEAN = 1;
+    protected static final byte BYTE = 2;
+    protected static final byte SHORT = 3;
+    protected static final byte CHAR = 4;
+    protected static final byte INT = 5;
+    protected static final byte LONG = 6;
+    protected static final byte FLOAT = 7;
+    protected static final byte DOUBLE = 8;
+    protected static final byte STRING = 9;
+    protected static final byte ENUM = 10;
+    protected static final byte LIST = 11;
+    protected static final byte ARRAY = 12;
+    protected static final byte BYTES = 13;
+    protected static final byte INTS = 14;
+    protected static final byte LONGS = 15;
+    protected static final byte OBJECT = 16;
+
+    /**
+     * URL
+     */
+    protected URL url;
+    /**
+     * 序列化
+     */
+    protected Serialization serialization;
+
+    @Override
+    public void setUrl(final URL url) {
+        this.url = url;
+    }
+
+    @Override
+    public void setup() {
+        serialization = url == null ? null : SERIALIZATION.get(url.getString(SERIALIZATION_OPTION));
+        if (serialization == null) {
+            serialization = SERIALIZATION.get();
+        }
+    }
 
     @Override
     public Object generate(final Invocation invocation) throws CacheException {
+        Object[] args = invocation.getArgs();
+        Murmur3OutputStream hasher = new Murmur3OutputStream();
+        if (args == null) {
+            hasher.writeByte(NULL);
+        } else {
+            hasher.writeInt(args.length);
+            for (Object arg : args) {
+                write(hasher, arg);
+            }
+        }
+        return hasher.toKey();
+    }
+
+    /**
+     * 写入对象
+     *
+     * @param hasher 哈希
+     * @param obj    对象
+     * @throws CacheException
+     */
+    protected void write(final Murmur3OutputStream hasher, final Object obj) throws CacheException {
+        if (obj == null) {
+            hasher.writeByte(NULL);
+        } else if (obj instanceof String) {
+            hasher.writeByte(STRING);
+            hasher.writeString((String) obj);
+        } else if (obj instanceof Integer) {
+            hasher.writeByte(INT);
+            hasher.writeInt((Integer) obj);
+        } else if (obj instanceof Long) {
+            hasher.writeByte(LONG);
+            hasher.writeLong((Long) obj);
+        } else if (obj instanceof Boolean) {
+            hasher.writeByte(BOOLEAN);
+            hasher.writeByte((Boolean) obj ? 1 : 0);
+        } else if (obj instanceof Double) {
+            hasher.writeByte(DOUBLE);
+            hasher.writeLong(Double.doubleToLongBits((Double) obj));
+        } else if (obj instanceof Float) {
+            hasher.writeByte(FLOAT);
+            hasher.writeInt(Float.floatToIntBits((Float) obj));
+        } else if (obj instanceof Short) {
+            hasher.writeByte(SHORT);
+            hasher.writeInt((Short) obj);
+        } else if (obj instanceof Byte) {
+            hasher.writeByte(BYTE);
+            hasher.writeByte((Byte) obj);
+        } else if (obj instanceof Character) {
+            hasher.writeByte(CHAR);
+            hasher.writeInt((Character) obj);
+        } else if (obj instanceof Enum) {
+            hasher.writeByte(ENUM);
+            hasher.writeString(((Enum) obj).getDeclaringClass().getName());
+            hasher.writeInt(((Enum) obj).ordinal());
+        } else if (obj instanceof byte[]) {
+            byte[] bytes = (byte[]) obj;
+            hasher.writeByte(BYTES);
+            hasher.writeInt(bytes.length);
+            hasher.write(bytes, 0, bytes.length);
+        } else if (obj instanceof int[]) {
+            int[] ints = (int[]) obj;
+            hasher.writeByte(INTS);
+            hasher.writeInt(ints.length);
+            for (int v : ints) {
+                hasher.writeInt(v);
+            }
+        } else if (obj instanceof long[]) {
+            long[] longs = (long[]) obj;
+            hasher.writeByte(LONGS);
+            hasher.writeInt(longs.length);
+            for (long v : longs) {
+                hasher.writeLong(v);
+            }
+        } else if (obj instanceof Object[] && ((Object[]) obj).length <= SMALL_COLLECTION) {
+            Object[] objects = (Object[]) obj;
+            hasher.writeByte(ARRAY);
+            hasher.writeInt(objects.length);
+            for (Object v : objects) {
+                write(hasher, v);
+            }
+        } else if (obj instanceof List && ((List) obj).size() <= SMALL_COLLECTION) {
+            //只处理有序集合，无序集合的遍历顺序和容量相关，交给序列化处理
+            List<?> list = (List<?>) obj;
+            hasher.writeByte(LIST);
+            hasher.writeInt(list.size());
+            for (Object v : list) {
+                write(hasher, v);
+            }
+        } else {
+            serialize(hasher, obj);
+        }
+    }
+
+    /**
+     * 序列化写入
+     *
+     * @param hasher 哈希
+     * @param obj    对象
+     * @throws CacheException
+     */
+    protected void serialize(final Murmur3OutputStream hasher, final Object obj) throws CacheException {
+        if (serialization == null) {
+            throw new CacheException("Error occurs while generating cache key, serialization is not found.");
+        }
+        hasher.writeByte(OBJECT);
+        hasher.writeString(obj.getClass().getName());
         try {
-            return JSON.get().toJSONString(invocation.getArgs());
+            serialization.getSerializer().serialize(hasher, obj);
         } catch (SerializerException e) {
             throw new CacheException("Error occurs while generating cache key", e);
         }
     }
 
+    /**
+     * 流式计算MurmurHash3 x64 128位哈希的输出流
+     */
+    protected static class Murmur3OutputStream extends OutputStream {
+
+        protected static final long C1 = 0x87c37b91114253d5L;
+        protected static final long C2 = 0x4cf5ad432745937fL;
+
+        /**
+         * 保留键字节的最大长度
+         */
+        protected static final int MAX_KEY_BYTES = 64;
+        /**
+         * 规范化的键字节，只保留小键，哈希相同时用于比较
+         */
+        protected final byte[] buffer = new byte[MAX_KEY_BYTES];
+        /**
+         * 未满16字节的块
+         */
+        protected final byte[] block = new byte[16];
+        /**
+         * 块中的字节数
+         */
+        protected int position;
+        /**
+         * 总长度
+         */
+        protected long length;
+        protected long h1;
+        protected long h2;
+
+        @Override
+        public void write(final int b) {
+            if (length < MAX_KEY_BYTES) {
+                buffer[(int) length] = (byte) b;
+            }
+            update(b);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) {
+            if (length + len <= MAX_KEY_BYTES) {
+                System.arraycopy(b, off, buffer, (int) length, len);
+            }
+            int offset = off;
+            int end = off + len;
+            //补齐当前块
+            while (position > 0 && offset < end) {
+                update(b[offset++]);
+            }
+            //整块处理
+            while (end - offset >= 16) {
+                mix(getLong(b, offset), getLong(b, offset + 8));
+                offset += 16;
+                length += 16;
+            }
+            while (offset < end) {
+                update(b[offset++]);
+            }
+        }
+
+        /**
+         * 单字节参与哈希计算
+         *
+         * @param b 字节
+         */
+        protected void update(final int b) {
+            block[position++] = (byte) b;
+            length++;
+            if (position == 16) {
+                mix(getLong(block, 0), getLong(block, 8));
+                position = 0;
+            }
+        }
+
+        public void writeByte(final int v) {
+            write(v);
+        }
+
+        public void writeInt(final int v) {
+            write(v);
+            write(v >>> 8);
+            write(v >>> 16);
+            write(v >>> 24);
+        }
+
+        public void writeLong(final long v) {
+            writeInt((int) v);
+            writeInt((int) (v >>> 32));
+        }
+
+        public void writeString(final String v) {
+            int len = v.length();
+            writeInt(len);
+            char ch;
+            for (int i = 0; i < len; i++) {
+                ch = v.charAt(i);
+                write(ch);
+                write(ch >>> 8);
+            }
+        }
+
+        /**
+         * 混合一个16字节的块
+         *
+         * @param k1 低8字节
+         * @param k2 高8字节
+         */
+        protected void mix(long k1, long k2) {
+            h1 ^= mixK1(k1);
+            h1 = Long.rotateLeft(h1, 27);
+            h1 += h2;
+            h1 = h1 * 5 + 0x52dce729;
+            h2 ^= mixK2(k2);
+            h2 = Long.rotateLeft(h2, 31);
+            h2 += h1;
+            h2 = h2 * 5 + 0x38495ab5;
+        }
+
+        /**
+         * 结束计算，生成缓存键
+         *
+         * @return 缓存键
+         */
+        public CacheKey toKey() {
+            long k1 = 0;
+            long k2 = 0;
+            for (int i = position - 1; i >= 8; i--) {
+                k2 = (k2 << 8) | (block[i] & 0xffL);
+            }
+            for (int i = Math.min(position, 8) - 1; i >= 0; i--) {
+                k1 = (k1 << 8) | (block[i] & 0xffL);
+            }
+            long r1 = h1 ^ (position > 0 ? mixK1(k1) : 0);
+            long r2 = h2 ^ (position > 8 ? mixK2(k2) : 0);
+            r1 ^= length;
+            r2 ^= length;
+            r1 += r2;
+            r2 += r1;
+            r1 = fmix(r1);
+            r2 = fmix(r2);
+            r1 += r2;
+            r2 += r1;
+            //大键只保留哈希值，保持键的大小固定
+            return new CacheKey(r1, r2, length <= MAX_KEY_BYTES ? Arrays.copyOf(buffer, (int) length) : null);
+        }
+
+        protected static long getLong(final byte[] b, final int offset) {
+            return (b[offset] & 0xffL)
+                    | (b[offset + 1] & 0xffL) << 8
+                    | (b[offset + 2] & 0xffL) << 16
+                    | (b[offset + 3] & 0xffL) << 24
+                    | (b[offset + 4] & 0xffL) << 32
+                    | (b[offset + 5] & 0xffL) << 40
+                    | (b[offset + 6] & 0xffL) << 48
+                    | (b[offset + 7] & 0xffL) << 56;
+        }
+
+        protected static long mixK1(long k1) {
+            k1 *= C1;
+            k1 = Long.rotateLeft(k1, 31);
+            k1 *= C2;
+            return k1;
+        }
+
+        protected static long mixK2(long k2) {
+            k2 *= C2;
+            k2 = Long.rotateLeft(k2, 33);
+            k2 *= C1;
+            return k2;
+        }
+
+        protected static long fmix(long k) {
+            k ^= k >>> 33;
+            k *= 0xff51afd7ed558ccdL;
+            k ^= k >>> 33;
+            k *= 0xc4ceb9fe1a85ec53L;
+            k ^= k >>> 33;
+            return k;
+        }
+    }
+
 }
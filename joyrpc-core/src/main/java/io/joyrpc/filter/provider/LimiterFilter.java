@@ -26,7 +26,6 @@ import io.joyrpc.cluster.distribution.RateLimiter;
 import io.joyrpc.constants.Constants;
 import io.joyrpc.constants.ExceptionCode;
 import io.joyrpc.context.limiter.LimiterConfiguration;
-import io.joyrpc.context.limiter.LimiterConfiguration.Option;
 import io.joyrpc.exception.RateLimiterException;
 import io.joyrpc.extension.Extension;
 import io.joyrpc.extension.URL;
@@ -55,10 +54,8 @@ public class LimiterFilter extends AbstractProviderFilter {
             String appId = invocation.getAttachment(Constants.HIDDEN_KEY_APPID, "");
             String methodName = invocation.getMethodName();
             String alias = invocation.getAlias();
-            //限流配置的组合
-            Option option = new Option(methodName, alias, appId);
             //获取最佳限流配置
-            RateLimiter limiter = classLimiters.get(option);
+            RateLimiter limiter = classLimiters.get(methodName, alias, appId);
             if (limiter != null && !limiter.getPermission()) {
                 return CompletableFuture.completedFuture(new Result(request.getContext(),
                         new RateLimiterException("Invocation of " + invocation.getClassName() + "." + methodName + " of app " + appId
@@ -37,6 +37,8 @@ import io.joyrpc.extension.URL;
 import io.joyrpc.permission.Authenticator;
 import io.joyrpc.protocol.message.Invocation;
 import io.joyrpc.protocol.message.RequestMessage;
+import io.joyrpc.proxy.MethodCaller;
+import io.joyrpc.proxy.MethodCallerFactory;
 import io.joyrpc.transport.DecoratorServer;
 import io.joyrpc.transport.Server;
 import io.joyrpc.transport.transport.ServerTransport;
@@ -47,6 +49,10 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.CompletableFuture;
@@ -54,8 +60,11 @@ import java.util.function.Consumer;
 
 import static io.joyrpc.Plugin.AUTHENTICATOR;
 import static io.joyrpc.Plugin.FILTER_CHAIN_FACTORY;
+import static io.joyrpc.Plugin.METHOD_CALLER;
 import static io.joyrpc.constants.Constants.FILTER_CHAIN_FACTORY_OPTION;
 import static io.joyrpc.constants.Constants.HIDE_KEY_PREFIX;
+import static io.joyrpc.constants.Constants.METHOD_CALLER_OPTION;
+import static io.joyrpc.proxy.MethodCallerFactory.METHOD_HANDLE;
 import static io.joyrpc.util.ClassUtils.isReturnFuture;
 
 /**
@@ -124,6 +133,14 @@ public class Exporter extends AbstractInvoker {
      * 预热
      */
     protected Warmup warmup;
+    /**
+     * 方法调用器，替代反射调用
+     */
+    protected MethodCaller caller;
+    /**
+     * 方法调用器的方法索引
+     */
+    protected Map<Method, Integer> callerIndexes;
 
     /**
      * 构造函数
@@ -179,6 +196,49 @@ public class Exporter extends AbstractInvoker {
         this.chain = FILTER_CHAIN_FACTORY.getOrDefault(url.getString(FILTER_CHAIN_FACTORY_OPTION))
                 .build(this, this::invokeMethod);
         this.authenticator = AUTHENTICATOR.get(url.getString(Constants.AUTHENTICATION_OPTION));
+        this.callerIndexes = new HashMap<>();
+        this.caller = buildCaller(url.getString(METHOD_CALLER_OPTION));
+    }
+
+    /**
+     * 构建方法调用器，生成失败则降级到MethodHandle，最后降级为反射
+     *
+     * @param type 调用器类型
+     * @return 方法调用器
+     */
+    protected MethodCaller buildCaller(final String type) {
+        if (interfaceClass == null || !interfaceClass.isInstance(ref)) {
+            return null;
+        }
+        List<Method> methods = new ArrayList<>();
+        for (Method method : interfaceClass.getMethods()) {
+            if (!Modifier.isStatic(method.getModifiers())) {
+                methods.add(method);
+            }
+        }
+        Method[] array = methods.toArray(new Method[0]);
+        MethodCallerFactory factory = METHOD_CALLER.get(type, METHOD_HANDLE);
+        MethodCaller result = null;
+        try {
+            result = factory == null ? null : factory.create(interfaceClass, array);
+        } catch (Exception e) {
+            logger.warn(String.format("Error occurs while creating method caller of %s, caused by %s", name, e.getMessage()));
+            MethodCallerFactory fallback = METHOD_CALLER.get(METHOD_HANDLE);
+            if (fallback != null && fallback != factory) {
+                try {
+                    result = fallback.create(interfaceClass, array);
+                } catch (Exception ex) {
+                    logger.warn(String.format("Error occurs while creating method caller of %s by %s, use reflection instead, caused by %s",
+                            name, METHOD_HANDLE, ex.getMessage()));
+                }
+            }
+        }
+        if (result != null) {
+            for (int i = 0; i < array.length; i++) {
+                callerIndexes.put(array[i], i);
+            }
+        }
+        return result;
     }
 
     @Override
@@ -301,15 +361,23 @@ public class Exporter extends AbstractInvoker {
         //恢复上下文，因为过滤链（缓存）这些是异步的
         RequestContext context = request.getContext();
         RequestContext.restore(context);
+        Integer index = caller == null ? null : callerIndexes.get(invocation.getMethod());
         try {
-            // 反射 真正调用业务代码
-            resultFuture = CompletableFuture.completedFuture(new Result(context, invocation.invoke(ref)));
+            if (index != null) {
+                //生成的调用器直接调用业务代码
+                resultFuture = CompletableFuture.completedFuture(new Result(context, caller.invoke(ref, index, invocation.getArgs())));
+            } else {
+                // 反射 真正调用业务代码
+                resultFuture = CompletableFuture.completedFuture(new Result(context, invocation.invoke(ref)));
+            }
         } catch (IllegalArgumentException e) { // 非法参数，可能是实现类和接口类不对应
             resultFuture = CompletableFuture.completedFuture(new Result(context, e));
         } catch (InvocationTargetException e) { // 业务代码抛出异常
             resultFuture = CompletableFuture.completedFuture(new Result(context, e.getCause()));
         } catch (IllegalAccessException e) {
             resultFuture = CompletableFuture.completedFuture(new Result(context, e));
+        } catch (Throwable e) { // 调用器直接抛出的业务异常和Error，和反射调用一样返回给调用方
+            resultFuture = CompletableFuture.completedFuture(new Result(context, e));
         } finally {
             RequestContext.remove();
         }
@@ -51,6 +51,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Map;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.BiConsumer;
 import java.util.function.BiFunction;
@@ -95,6 +96,10 @@ public class Refer extends AbstractInvoker {
      * 集群分发策略
      */
     protected Distribution<RequestMessage<Invocation>, Result> distribution;
+    /**
+     * 分发策略是否会取消请求
+     */
+    protected boolean cancellable;
     /**
      * 过滤链
      */
@@ -255,9 +260,11 @@ public class Refer extends AbstractInvoker {
         }
         //异步发起调用
         CompletableFuture<Message> msgFuture = client.async(request, header.getTimeout());
+        //记录消息ID，对冲请求会重复发送该请求并修改消息ID
+        final int msgId = request.getMsgId();
 
         //返回future
-        return msgFuture.handle((msg, err) -> {
+        CompletableFuture<Result> future = msgFuture.handle((msg, err) -> {
             Result result;
             //线程恢复统一改在consumerInvokerHandler里面
             if (err != null) {
@@ -272,6 +279,15 @@ public class Refer extends AbstractInvoker {
 
             return result;
         });
+        if (cancellable) {
+            //被取消的请求不再等待应答，释放FutureManager中的请求
+            future.whenComplete((r, t) -> {
+                if (t instanceof CancellationException) {
+                    client.getChannel().getFutureManager().remove(msgId);
+                }
+            });
+        }
+        return future;
     }
 
     /**
@@ -349,6 +365,7 @@ public class Refer extends AbstractInvoker {
             route.setUrl(url);
             route.setLoadBalance(loadBalance);
             route.setFunction(this::invokeRemote);
+            cancellable = route.isCancellable();
             if (route instanceof RouteFailover) {
                 ((RouteFailover<RequestMessage<Invocation>, Result>) route).setRetryFunction(this::getFailoverPolicy);
             }
@@ -0,0 +1,98 @@
+package io.joyrpc.metric;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.cluster.MetricHandler;
+import io.joyrpc.cluster.event.CounterEvent;
+import io.joyrpc.cluster.event.MetricEvent;
+import io.joyrpc.event.Publisher;
+
+import java.util.Iterator;
+
+import static io.joyrpc.Plugin.EVENT_BUS;
+import static io.joyrpc.Plugin.METRIC_HANDLER;
+import static io.joyrpc.cluster.Cluster.EVENT_PUBLISHER_METRIC;
+import static io.joyrpc.cluster.Cluster.EVENT_PUBLISHER_METRIC_CONF;
+
+/**
+ * 计数指标发布器，把传输、压缩、重试预算等计数指标通过指标事件发布给MetricHandler插件。<br/>
+ * 没有MetricHandler插件时不发布，调用方可以先判断是否开启，避免构建事件。
+ */
+public class CounterPublisher {
+
+    /**
+     * 发布器名称
+     */
+    protected static final String PUBLISHER_NAME = "counter";
+    /**
+     * 发布器，延迟创建
+     */
+    protected static volatile Publisher<MetricEvent> publisher;
+    /**
+     * 是否已经初始化
+     */
+    protected static volatile boolean initialized;
+
+    /**
+     * 是否开启，即存在MetricHandler插件
+     *
+     * @return 开启标识
+     */
+    public static boolean isEnabled() {
+        return getPublisher() != null;
+    }
+
+    /**
+     * 发布计数事件
+     *
+     * @param event 事件
+     * @return 成功标识
+     */
+    public static boolean publish(final CounterEvent event) {
+        Publisher<MetricEvent> result = getPublisher();
+        return result != null && event != null && result.offer(event);
+    }
+
+    /**
+     * 获取发布器
+     *
+     * @return 发布器，没有MetricHandler插件则返回null
+     */
+    protected static Publisher<MetricEvent> getPublisher() {
+        if (!initialized) {
+            synchronized (CounterPublisher.class) {
+                if (!initialized) {
+                    Iterable<MetricHandler> handlers = METRIC_HANDLER.extensions();
+                    Iterator<MetricHandler> iterator = handlers == null ? null : handlers.iterator();
+                    if (iterator != null && iterator.hasNext()) {
+                        Publisher<MetricEvent> result = EVENT_BUS.get().getPublisher(EVENT_PUBLISHER_METRIC,
+                                PUBLISHER_NAME, EVENT_PUBLISHER_METRIC_CONF);
+                        result.addHandler(handlers);
+                        result.start();
+                        publisher = result;
+                    }
+                    initialized = true;
+                }
+            }
+        }
+        return publisher;
+    }
+}
@@ -22,6 +22,7 @@ package io.joyrpc.metric;
 
 import io.joyrpc.cluster.event.MetricEvent;
 import io.joyrpc.event.EventHandler;
+import io.joyrpc.transport.message.Message;
 
 /**
  * 仪表盘，处理指标事件，返回当前指标
@@ -68,6 +69,23 @@ public interface Dashboard extends EventHandler<MetricEvent> {
      */
     TPWindow getMethod(String methodName);
 
+    /**
+     * 在当前线程直接记录调用指标，不经过事件队列
+     *
+     * @param request      请求
+     * @param response     应答
+     * @param throwable    异常
+     * @param concurrency  并发数
+     * @param startTime    开始时间
+     * @param endTime      结束时间
+     * @param elapsedNanos 纳秒精度的耗时，小于0表示未统计
+     */
+    default void record(final Message request, final Message response, final Throwable throwable,
+                        final int concurrency, final long startTime, final long endTime, final long elapsedNanos) {
+        handle(new MetricEvent(this, null, null, null, null, request, response, throwable,
+                concurrency, startTime, endTime, elapsedNanos));
+    }
+
     /**
      * 面板类型
      */
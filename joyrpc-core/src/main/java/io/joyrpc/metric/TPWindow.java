@@ -22,6 +22,7 @@ package io.joyrpc.metric;
 
 import io.joyrpc.util.MilliPeriod;
 
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
 /**
@@ -47,6 +48,16 @@ public interface TPWindow extends Metric, Snapshot<TPMetric> {
      */
     void success(int time, int records, long dataSize);
 
+    /**
+     * 成功调用，指定时间单位，默认转换成毫秒统计
+     *
+     * @param time 耗时
+     * @param unit 时间单位
+     */
+    default void success(final long time, final TimeUnit unit) {
+        success((int) unit.toMillis(time));
+    }
+
     /**
      * 请求失败
      */
@@ -91,7 +102,7 @@ public interface TPWindow extends Metric, Snapshot<TPMetric> {
     MilliPeriod getBrokenPeriod();
 
     /**
-     * 熔断
+     * 熔断，开启metric.inline后会在完成调用的业务线程上并发调用，实现需要保证熔断期和恢复期一致
      *
      * @param duration   熔断时间（毫秒）
      * @param decubation 恢复期（毫秒）
@@ -0,0 +1,40 @@
+package io.joyrpc.metric;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.extension.Extensible;
+
+/**
+ * 指标窗口工厂类
+ */
+@FunctionalInterface
+@Extensible("tpWindowFactory")
+public interface TPWindowFactory {
+
+    /**
+     * 创建指标窗口
+     *
+     * @param windowTime 窗口时间（毫秒）
+     * @return 指标窗口
+     */
+    TPWindow create(long windowTime);
+
+}
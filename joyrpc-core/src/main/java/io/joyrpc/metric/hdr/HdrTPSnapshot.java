@@ -0,0 +1,320 @@
+package io.joyrpc.metric.hdr;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.metric.mc.McTPSnapshot;
+
+/**
+ * 对数线性分桶的性能指标快照，内部以微秒统计，对外接口仍然返回毫秒（向上取整）。<br/>
+ * 快照保留了分桶计数，可以合并多个快照用于集群维度的聚合。
+ */
+public class HdrTPSnapshot extends McTPSnapshot {
+
+    /**
+     * 每个数量级的子桶位数，相对误差不超过1/(2^SUB_BITS)
+     */
+    public static final int SUB_BITS = 5;
+    /**
+     * 每个数量级的子桶数量
+     */
+    public static final int SUB_COUNT = 1 << SUB_BITS;
+    /**
+     * 行数，覆盖所有的正长整数
+     */
+    public static final int ROWS = 64 - SUB_BITS;
+
+    /**
+     * 分桶计数，按行存储，空行为null
+     */
+    protected long[][] counts;
+    /**
+     * 成功请求的总耗时（微秒）
+     */
+    protected long elapsedMicros;
+    //微秒指标
+    protected long minMicros;
+    protected long maxMicros;
+    protected long tp30Micros;
+    protected long tp50Micros;
+    protected long tp90Micros;
+    protected long tp99Micros;
+    protected long tp999Micros;
+
+    public HdrTPSnapshot() {
+        this.counts = new long[ROWS][];
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param requests      请求数
+     * @param successes     成功数
+     * @param failures      失败数
+     * @param records       记录数
+     * @param dataSize      数据大小
+     * @param elapsedMicros 总耗时（微秒）
+     * @param counts        分桶计数
+     */
+    public HdrTPSnapshot(final long requests, final long successes, final long failures,
+                         final long records, final long dataSize, final long elapsedMicros,
+                         final long[][] counts) {
+        this(requests, successes, failures, records, dataSize, elapsedMicros, counts, percentiles(counts, successes));
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param requests      请求数
+     * @param successes     成功数
+     * @param failures      失败数
+     * @param records       记录数
+     * @param dataSize      数据大小
+     * @param elapsedMicros 总耗时（微秒）
+     * @param counts        分桶计数
+     * @param micros        最小、最大、TP30、TP50、TP90、TP99、TP999（微秒）
+     */
+    protected HdrTPSnapshot(final long requests, final long successes, final long failures,
+                            final long records, final long dataSize, final long elapsedMicros,
+                            final long[][] counts, final long[] micros) {
+        super(requests, successes, failures, records, dataSize, toMillis(elapsedMicros),
+                toMillis(micros[1]), toMillis(micros[0]), toMillis(micros[2]), toMillis(micros[3]),
+                toMillis(micros[4]), toMillis(micros[5]), toMillis(micros[6]));
+        this.counts = counts;
+        this.elapsedMicros = elapsedMicros;
+        this.minMicros = micros[0];
+        this.maxMicros = micros[1];
+        this.tp30Micros = micros[2];
+        this.tp50Micros = micros[3];
+        this.tp90Micros = micros[4];
+        this.tp99Micros = micros[5];
+        this.tp999Micros = micros[6];
+    }
+
+    /**
+     * 微秒转换成毫秒，向上取整，避免亚毫秒的调用都变成0
+     *
+     * @param micros 微秒
+     * @return 毫秒
+     */
+    protected static int toMillis(final long micros) {
+        long millis = (micros + 999) / 1000;
+        return millis > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) millis;
+    }
+
+    /**
+     * 计算分桶的行
+     *
+     * @param value 数值
+     * @return 行
+     */
+    public static int row(final long value) {
+        return value < SUB_COUNT ? 0 : 64 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+    }
+
+    /**
+     * 计算分桶的列
+     *
+     * @param value 数值
+     * @param row   行
+     * @return 列
+     */
+    public static int column(final long value, final int row) {
+        return row == 0 ? (int) value : (int) (value >>> (row - 1)) - SUB_COUNT;
+    }
+
+    /**
+     * 分桶的代表值，取区间的中间值
+     *
+     * @param row    行
+     * @param column 列
+     * @return 代表值
+     */
+    public static long value(final int row, final int column) {
+        return row == 0 ? column : ((long) (column + SUB_COUNT) << (row - 1)) + ((1L << (row - 1)) >> 1);
+    }
+
+    /**
+     * 计算百分位
+     *
+     * @param counts    分桶计数
+     * @param successes 成功数
+     * @return 最小、最大、TP30、TP50、TP90、TP99、TP999
+     */
+    protected static long[] percentiles(final long[][] counts, final long successes) {
+        long[] result = new long[7];
+        if (successes <= 0) {
+            return result;
+        }
+        //各百分位的排序位置，从1开始
+        long[] ranks = new long[]{1, successes, rank(successes, 0.3), rank(successes, 0.5),
+                rank(successes, 0.9), rank(successes, 0.99), rank(successes, 0.999)};
+        boolean[] found = new boolean[7];
+        long pos = 0;
+        long last = 0;
+        long[] row;
+        for (int i = 0; i < counts.length; i++) {
+            row = counts[i];
+            if (row != null) {
+                for (int j = 0; j < row.length; j++) {
+                    if (row[j] > 0) {
+                        pos += row[j];
+                        last = value(i, j);
+                        for (int k = 0; k < ranks.length; k++) {
+                            if (!found[k] && pos >= ranks[k]) {
+                                found[k] = true;
+                                result[k] = last;
+                            }
+                        }
+                        if (pos >= successes) {
+                            return result;
+                        }
+                    }
+                }
+            }
+        }
+        //并发统计的时候，分桶计数可能略少于成功数
+        for (int k = 0; k < ranks.length; k++) {
+            if (!found[k]) {
+                result[k] = last;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 百分位对应的排序位置
+     *
+     * @param total   总数
+     * @param percent 百分比
+     * @return 排序位置
+     */
+    protected static long rank(final long total, final double percent) {
+        long result = (long) Math.ceil(total * percent);
+        return result < 1 ? 1 : result;
+    }
+
+    /**
+     * 合并快照
+     *
+     * @param other 其它快照
+     * @return 合并后的快照
+     */
+    public HdrTPSnapshot merge(final HdrTPSnapshot other) {
+        if (other == null) {
+            return this;
+        }
+        long[][] merged = new long[ROWS][];
+        long[] left;
+        long[] right;
+        for (int i = 0; i < ROWS; i++) {
+            left = counts[i];
+            right = other.counts[i];
+            if (left == null) {
+                merged[i] = right == null ? null : right.clone();
+            } else {
+                merged[i] = left.clone();
+                if (right != null) {
+                    for (int j = 0; j < right.length; j++) {
+                        merged[i][j] += right[j];
+                    }
+                }
+            }
+        }
+        return new HdrTPSnapshot(requests + other.requests, successes + other.successes,
+                failures + other.failures, records + other.records, dataSize + other.dataSize,
+                elapsedMicros + other.elapsedMicros, merged);
+    }
+
+    /**
+     * 合并多个快照
+     *
+     * @param snapshots 快照
+     * @return 合并后的快照
+     */
+    public static HdrTPSnapshot merge(final Iterable<HdrTPSnapshot> snapshots) {
+        HdrTPSnapshot result = new HdrTPSnapshot();
+        if (snapshots != null) {
+            for (HdrTPSnapshot snapshot : snapshots) {
+                result = result.merge(snapshot);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 指定百分位的耗时（微秒）
+     *
+     * @param percent 百分比，取值(0,1]
+     * @return 耗时
+     */
+    public long getPercentileMicros(final double percent) {
+        if (successes <= 0) {
+            return 0;
+        }
+        long target = rank(successes, percent);
+        long pos = 0;
+        long[] row;
+        for (int i = 0; i < counts.length; i++) {
+            row = counts[i];
+            if (row != null) {
+                for (int j = 0; j < row.length; j++) {
+                    pos += row[j];
+                    if (row[j] > 0 && pos >= target) {
+                        return value(i, j);
+                    }
+                }
+            }
+        }
+        return maxMicros;
+    }
+
+    public long getElapsedMicros() {
+        return elapsedMicros;
+    }
+
+    public long getMinMicros() {
+        return minMicros;
+    }
+
+    public long getMaxMicros() {
+        return maxMicros;
+    }
+
+    public long getTp30Micros() {
+        return tp30Micros;
+    }
+
+    public long getTp50Micros() {
+        return tp50Micros;
+    }
+
+    public long getTp90Micros() {
+        return tp90Micros;
+    }
+
+    public long getTp99Micros() {
+        return tp99Micros;
+    }
+
+    public long getTp999Micros() {
+        return tp999Micros;
+    }
+}
@@ -0,0 +1,273 @@
+package io.joyrpc.metric.hdr;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.metric.Clock;
+import io.joyrpc.metric.TPMetric;
+import io.joyrpc.metric.TPWindow;
+import io.joyrpc.metric.mc.McTPMetric;
+import io.joyrpc.util.MilliPeriod;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import static io.joyrpc.metric.hdr.HdrTPSnapshot.*;
+
+/**
+ * 微秒精度的TPWindow实现，采用对数线性分桶，相对误差不超过1/64
+ */
+public class HdrTPWindow implements TPWindow {
+
+    protected volatile Histogram histogram = new Histogram();
+    //当前并发数
+    protected AtomicLong actives = new AtomicLong();
+    //待分发数量
+    protected AtomicLong distribution = new AtomicLong();
+    //连续失败数量
+    protected AtomicLong successiveFailures = new AtomicLong();
+    //快照数据
+    protected volatile McTPMetric snapshot;
+    //时间区间
+    protected long windowTime;
+    //熔断截止时间
+    protected volatile MilliPeriod brokenPeriod;
+    //虚弱开始时间
+    protected volatile MilliPeriod weakPeriod;
+    //时钟
+    protected Clock clock;
+    //上次快照时间
+    protected volatile long lastSnapshotTime;
+
+    /**
+     * 构造函数
+     */
+    public HdrTPWindow() {
+        this(1000, Clock.MILLI);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param windowTime 窗口时间
+     * @param clock      时钟
+     */
+    public HdrTPWindow(final long windowTime, final Clock clock) {
+        this.windowTime = windowTime <= 0 ? 1000 : windowTime;
+        this.clock = clock == null ? Clock.MILLI : clock;
+        this.lastSnapshotTime = this.clock.getTime();
+        this.snapshot = new McTPMetric(successiveFailures, actives, distribution, false, new HdrTPSnapshot());
+    }
+
+    @Override
+    public synchronized void snapshot() {
+        if (isExpired()) {
+            lastSnapshotTime = clock.getTime();
+            Histogram old = histogram;
+            histogram = new Histogram();
+            snapshot = new McTPMetric(successiveFailures, actives, distribution,
+                    brokenPeriod != null && brokenPeriod.between(), old.snapshot());
+        }
+    }
+
+    @Override
+    public TPMetric getSnapshot() {
+        return snapshot;
+    }
+
+    @Override
+    public boolean isExpired() {
+        return clock.getTime() - lastSnapshotTime > windowTime;
+    }
+
+    @Override
+    public void setLastSnapshotTime(final long lastSnapshotTime) {
+        this.lastSnapshotTime = lastSnapshotTime;
+    }
+
+    @Override
+    public void success(final int time) {
+        success(time, 1, 0);
+    }
+
+    @Override
+    public void success(final int time, final int records, final long dataSize) {
+        if (time >= 0) {
+            histogram.success(time * 1000L, records, dataSize);
+            successiveFailures.set(0);
+        }
+    }
+
+    @Override
+    public void success(final long time, final TimeUnit unit) {
+        if (time >= 0) {
+            histogram.success(unit.toMicros(time), 1, 0);
+            successiveFailures.set(0);
+        }
+    }
+
+    @Override
+    public void failure() {
+        histogram.failure();
+        successiveFailures.incrementAndGet();
+    }
+
+    @Override
+    public void resetSuccessiveFailures() {
+        successiveFailures.set(0);
+    }
+
+    @Override
+    public boolean hasRequest() {
+        return histogram.requests.longValue() > 0;
+    }
+
+    @Override
+    public AtomicLong actives() {
+        return actives;
+    }
+
+    @Override
+    public AtomicLong distribution() {
+        return distribution;
+    }
+
+    @Override
+    public long getWindowTime() {
+        return windowTime;
+    }
+
+    @Override
+    public MilliPeriod getBrokenPeriod() {
+        return brokenPeriod;
+    }
+
+    @Override
+    public synchronized void broken(final long duration, final long decubation) {
+        MilliPeriod period = this.brokenPeriod;
+        if (period != null && period.similar(duration, 100)) {
+            //忽略掉100毫秒，防止并发请求大量创建
+            return;
+        }
+        this.brokenPeriod = new MilliPeriod(duration);
+        this.weakPeriod = new MilliPeriod(brokenPeriod.getEndTime(), brokenPeriod.getEndTime() + decubation);
+    }
+
+    @Override
+    public synchronized void weak(final MilliPeriod period, final long duration) {
+        if (weakPeriod != period) {
+            //放置并发
+            return;
+        }
+        MilliPeriod mp = this.weakPeriod;
+        if (mp != null && mp.similar(duration, 100)) {
+            //忽略掉100毫秒，防止并发请求大量创建
+            return;
+        }
+        this.weakPeriod = new MilliPeriod(duration);
+    }
+
+    @Override
+    public MilliPeriod getWeakPeriod() {
+        return weakPeriod;
+    }
+
+    /**
+     * 对数线性分桶的统计器，每个2的幂次区间划分成固定数量的子桶，按需创建
+     */
+    protected static class Histogram {
+        // 分桶计数，按行延迟创建
+        protected AtomicReferenceArray<AtomicLongArray> counts = new AtomicReferenceArray<>(ROWS);
+        // 成功处理的记录条数
+        protected LongAdder records = new LongAdder();
+        // 总调用次数
+        protected LongAdder requests = new LongAdder();
+        // 成功调用次数
+        protected LongAdder successes = new LongAdder();
+        // 失败调用次数
+        protected LongAdder failures = new LongAdder();
+        // 数据大小
+        protected LongAdder dataSize = new LongAdder();
+        // 总时间（微秒）
+        protected LongAdder elapsedTime = new LongAdder();
+
+        /**
+         * 成功调用
+         *
+         * @param micros  耗时（微秒）
+         * @param records 记录条数
+         * @param size    数据包大小
+         */
+        public void success(final long micros, final int records, final long size) {
+            elapsedTime.add(micros);
+            requests.increment();
+            successes.increment();
+            if (records > 0) {
+                this.records.add(records);
+            }
+            if (size > 0) {
+                dataSize.add(size);
+            }
+            int row = row(micros);
+            AtomicLongArray v = counts.get(row);
+            if (v == null) {
+                v = new AtomicLongArray(SUB_COUNT);
+                if (!counts.compareAndSet(row, null, v)) {
+                    v = counts.get(row);
+                }
+            }
+            v.incrementAndGet(column(micros, row));
+        }
+
+        /**
+         * 出错
+         */
+        public void failure() {
+            failures.increment();
+            requests.increment();
+        }
+
+        /**
+         * 获取性能统计
+         *
+         * @return 性能统计
+         */
+        public HdrTPSnapshot snapshot() {
+            long[][] result = new long[ROWS][];
+            AtomicLongArray v;
+            for (int i = 0; i < ROWS; i++) {
+                v = counts.get(i);
+                if (v != null) {
+                    long[] row = new long[SUB_COUNT];
+                    for (int j = 0; j < SUB_COUNT; j++) {
+                        row[j] = v.get(j);
+                    }
+                    result[i] = row;
+                }
+            }
+            return new HdrTPSnapshot(requests.longValue(), successes.longValue(), failures.longValue(),
+                    records.longValue(), dataSize.longValue(), elapsedTime.longValue(), result);
+        }
+    }
+
+}
@@ -23,9 +23,9 @@ package io.joyrpc.metric.mc;
 import io.joyrpc.cluster.distribution.CircuitBreaker;
 import io.joyrpc.cluster.event.MetricEvent;
 import io.joyrpc.extension.URL;
-import io.joyrpc.metric.Clock;
 import io.joyrpc.metric.Dashboard;
 import io.joyrpc.metric.TPWindow;
+import io.joyrpc.metric.TPWindowFactory;
 import io.joyrpc.protocol.message.Invocation;
 import io.joyrpc.protocol.message.RequestMessage;
 import io.joyrpc.protocol.message.ResponseMessage;
@@ -36,9 +36,12 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BiFunction;
 
+import static io.joyrpc.Plugin.TP_WINDOW_FACTORY;
 import static io.joyrpc.constants.Constants.METRIC_WINDOWS_TIME_OPTION;
+import static io.joyrpc.constants.Constants.METRIC_WINDOW_OPTION;
 
 /**
  * 基于方法统计的指标实现
@@ -68,6 +71,10 @@ public class McDashboard implements Dashboard {
      * 时间窗口间隔
      */
     protected long interval;
+    /**
+     * 指标窗口工厂
+     */
+    protected TPWindowFactory windowFactory;
 
     /**
      * 构造函数
@@ -82,7 +89,8 @@ public class McDashboard implements Dashboard {
         this.type = type;
         this.breakerFunction = breakerFunction;
         this.interval = url.getPositiveLong(METRIC_WINDOWS_TIME_OPTION);
-        this.window = new McTPWindow(interval, Clock.MILLI);
+        this.windowFactory = TP_WINDOW_FACTORY.getOrDefault(url.getString(METRIC_WINDOW_OPTION));
+        this.window = windowFactory.create(interval);
     }
 
     @Override
@@ -107,17 +115,28 @@ public class McDashboard implements Dashboard {
      * @return
      */
     public TPWindow getMethod(final String methodName) {
-        return methodName == null ? null : methods.computeIfAbsent(methodName, o -> new McTPWindow(interval, Clock.MILLI));
+        if (methodName == null) {
+            return null;
+        }
+        //先直接获取，避免每次创建Lambda
+        TPWindow result = methods.get(methodName);
+        return result != null ? result : methods.computeIfAbsent(methodName, o -> windowFactory.create(interval));
     }
 
     @Override
     public void handle(final MetricEvent event) {
-        Message message = event.getRequest();
-        if (message instanceof RequestMessage) {
-            RequestMessage requestMessage = (RequestMessage) message;
-            Object payload = requestMessage.getPayLoad();
+        record(event.getRequest(), event.getResponse(), event.getThrowable(),
+                event.getConcurrency(), event.getStartTime(), event.getEndTime(), event.getElapsedNanos());
+    }
+
+    @Override
+    public void record(final Message request, final Message response, final Throwable throwable,
+                       final int concurrency, final long startTime, final long endTime, final long elapsedNanos) {
+        if (request instanceof RequestMessage) {
+            Object payload = ((RequestMessage) request).getPayLoad();
             if (payload instanceof Invocation) {
-                onInvocation(event, (Invocation) payload);
+                onInvocation((Invocation) payload, getThrowable(throwable, response), concurrency,
+                        startTime, endTime, elapsedNanos);
             }
         }
     }
@@ -125,13 +144,18 @@ public class McDashboard implements Dashboard {
     /**
      * 方法调用
      *
-     * @param event
-     * @param invocation
+     * @param invocation   调用
+     * @param throwable    异常
+     * @param concurrency  并发数
+     * @param startTime    开始时间
+     * @param endTime      结束时间
+     * @param elapsedNanos 纳秒精度的耗时，小于0表示未统计
      */
-    protected void onInvocation(final MetricEvent event, final Invocation invocation) {
+    protected void onInvocation(final Invocation invocation, final Throwable throwable,
+                                final int concurrency, final long startTime, final long endTime,
+                                final long elapsedNanos) {
         //方法的指标
         TPWindow method = getMethod(invocation.getMethodName());
-        Throwable throwable = getThrowable(event);
         if (throwable != null) {
             //如果有异常，进行异常统计
             if (type == DashboardType.Node) {
@@ -145,27 +169,33 @@ public class McDashboard implements Dashboard {
                     breaker.apply(throwable, method);
                 }
             }
-        } else if (event.getStartTime() > 0 && event.getEndTime() > 0) {
+        } else if (elapsedNanos >= 0) {
+            //纳秒精度的耗时，由指标窗口决定统计精度
+            method.success(elapsedNanos, TimeUnit.NANOSECONDS);
+            method.actives().set(concurrency);
+            window.success(elapsedNanos, TimeUnit.NANOSECONDS);
+            window.actives().set(concurrency);
+        } else if (startTime > 0 && endTime > 0) {
             //如果正常执行，统计成功
-            int elapse = (int) (event.getEndTime() - event.getStartTime());
+            int elapse = (int) (endTime - startTime);
             method.success(elapse);
-            method.actives().set(event.getConcurrency());
+            method.actives().set(concurrency);
             window.success(elapse);
-            window.actives().set(event.getConcurrency());
+            window.actives().set(concurrency);
         }
     }
 
     /**
      * 获取异常
      *
-     * @param event
+     * @param throwable 调用异常
+     * @param message   应答
      * @return
      */
-    protected Throwable getThrowable(final MetricEvent event) {
-        if (event.getThrowable() != null) {
-            return event.getThrowable();
+    protected Throwable getThrowable(final Throwable throwable, final Message message) {
+        if (throwable != null) {
+            return throwable;
         }
-        Message message = event.getResponse();
         if (message instanceof ResponseMessage) {
             ResponseMessage responseMessage = ((ResponseMessage) message);
             Object payLoad = responseMessage.getPayLoad();
@@ -153,7 +153,7 @@ public class McTPWindow implements TPWindow {
     }
 
     @Override
-    public void broken(final long duration, final long decubation) {
+    public synchronized void broken(final long duration, final long decubation) {
         MilliPeriod period = this.brokenPeriod;
         if (period != null && period.similar(duration, 100)) {
             //忽略掉100毫秒，防止并发请求大量创建
@@ -164,7 +164,7 @@ public class McTPWindow implements TPWindow {
     }
 
     @Override
-    public void weak(final MilliPeriod period, final long duration) {
+    public synchronized void weak(final MilliPeriod period, final long duration) {
         if (weakPeriod != period) {
             //放置并发
             return;
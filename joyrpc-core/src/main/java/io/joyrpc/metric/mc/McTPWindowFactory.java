@@ -0,0 +1,38 @@
+package io.joyrpc.metric.mc;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.extension.Extension;
+import io.joyrpc.metric.Clock;
+import io.joyrpc.metric.TPWindow;
+import io.joyrpc.metric.TPWindowFactory;
+
+/**
+ * 毫秒精度的指标窗口工厂类
+ */
+@Extension("mc")
+public class McTPWindowFactory implements TPWindowFactory {
+
+    @Override
+    public TPWindow create(final long windowTime) {
+        return new McTPWindow(windowTime, Clock.MILLI);
+    }
+}
@@ -22,13 +22,23 @@ package io.joyrpc.protocol;
 
 import io.joyrpc.codec.compression.AdaptiveCompressOutputStream;
 import io.joyrpc.codec.compression.Compression;
+import io.joyrpc.codec.compression.CompressionPolicy;
+import io.joyrpc.codec.compression.CompressionPolicy.Decision;
+import io.joyrpc.codec.compression.CompressionPolicy.MethodPolicy;
+import io.joyrpc.codec.compression.DictionaryCompression;
+import io.joyrpc.codec.serialization.BufferSerializer;
 import io.joyrpc.codec.serialization.Serialization;
+import io.joyrpc.codec.serialization.Serializer;
 import io.joyrpc.constants.ExceptionCode;
+import io.joyrpc.context.GlobalContext;
 import io.joyrpc.exception.CodecException;
 import io.joyrpc.exception.LafException;
 import io.joyrpc.exception.ProtocolException;
 import io.joyrpc.exception.SerializerException;
+import io.joyrpc.extension.Parametric;
 import io.joyrpc.protocol.Protocol.MessageConverter;
+import io.joyrpc.protocol.message.HeaderAttributes;
+import io.joyrpc.protocol.message.Invocation;
 import io.joyrpc.protocol.message.MessageHeader;
 import io.joyrpc.protocol.message.RequestMessage;
 import io.joyrpc.protocol.message.ResponseMessage;
@@ -41,16 +51,17 @@ import io.joyrpc.transport.session.Session;
 import io.joyrpc.util.StringUtils;
 import io.joyrpc.util.SystemClock;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.lang.reflect.Type;
-import java.util.HashMap;
-import java.util.Map;
 import java.util.function.Function;
 
 import static io.joyrpc.Plugin.COMPRESSION_SELECTOR;
 import static io.joyrpc.Plugin.SERIALIZATION_SELECTOR;
+import static io.joyrpc.constants.Constants.DECODE_LAZY_OPTION;
+import static io.joyrpc.constants.Constants.DECODE_LAZY_THRESHOLD_OPTION;
 
 /**
  * 编码基类
@@ -61,12 +72,16 @@ public abstract class AbstractCodec implements Codec, LengthFieldFrameCodec {
      * 协议
      */
     protected Protocol protocol;
+    /**
+     * 延迟反序列化请求消息体的阈值，小于0表示不启用
+     */
+    protected int lazyThreshold;
 
     /**
      * 构造函数
      */
     public AbstractCodec() {
-
+        this(null);
     }
 
     /**
@@ -76,6 +91,9 @@ public abstract class AbstractCodec implements Codec, LengthFieldFrameCodec {
      */
     public AbstractCodec(Protocol protocol) {
         this.protocol = protocol;
+        Parametric parametric = GlobalContext.asParametric();
+        this.lazyThreshold = !parametric.getBoolean(DECODE_LAZY_OPTION) ? -1 :
+                parametric.getNaturalInt(DECODE_LAZY_THRESHOLD_OPTION);
     }
 
     /**
@@ -181,6 +199,8 @@ public abstract class AbstractCodec implements Codec, LengthFieldFrameCodec {
             //转换消息头
             header = convert(target.getHeader(), converter);
             target = convert(target, converter);
+            //根据协议调整消息头
+            adjustHeader(context, header, target);
             //编码魔法位
             encodeMagicCode(context, buffer, header, protocol);
             //预留数据包长度
@@ -227,7 +247,7 @@ public abstract class AbstractCodec implements Codec, LengthFieldFrameCodec {
         //编码增加的头，包括超时时间和会话ID
         buffer.writeInt(header.getTimeout());
         //编码扩展属性
-        encodeAttributes(buffer, ((MessageHeader) header).getAttributes());
+        HeaderAttributes.encode(buffer, ((MessageHeader) header).getAttributes());
         int headLength = buffer.writerIndex() - start;
         header.setHeaderLength((short) headLength);
         // 替换head长度的两位
@@ -235,45 +255,6 @@ public abstract class AbstractCodec implements Codec, LengthFieldFrameCodec {
         return result;
     }
 
-    /**
-     * 编码头部扩展信息
-     *
-     * @param buffer
-     * @param attributes
-     * @return
-     */
-    protected void encodeAttributes(final ChannelBuffer buffer, final Map<Byte, Object> attributes) {
-        int size = attributes == null ? 0 : attributes.size();
-        buffer.writeByte(size);
-        if (size > 0) {
-            byte key;
-            Object val;
-            for (Map.Entry<Byte, Object> attr : attributes.entrySet()) {
-                key = attr.getKey();
-                val = attr.getValue();
-                if (val != null) {
-                    buffer.writeByte(key);
-                    if (val instanceof Integer) {
-                        buffer.writeByte((byte) 1);
-                        buffer.writeInt((Integer) val);
-                    } else if (val instanceof String) {
-                        buffer.writeByte((byte) 2);
-                        buffer.writeString((String) val, null, false, true);
-                    } else if (val instanceof Byte) {
-                        buffer.writeByte((byte) 3);
-                        buffer.writeByte((Byte) val);
-                    } else if (val instanceof Short) {
-                        buffer.writeByte((byte) 4);
-                        buffer.writeShort((Short) val);
-                    } else {
-                        throw new CodecException("Value of attrs in message header must be byte/short/int/string", ExceptionCode.CODEC_HEADER_FORMAT_EXCEPTION);
-                    }
-                }
-            }
-        }
-    }
-
-
     /**
      * 写入魔术字节
      *
@@ -308,27 +289,107 @@ public abstract class AbstractCodec implements Codec, LengthFieldFrameCodec {
         if (serialization == null) {
             throw new CodecException(String.format("serialization %d is not found.", header.getSerialization()));
         }
+        Compression compression = null;
+        int threshold = CompressionPolicy.DEFAULT_THRESHOLD;
+        MethodPolicy policy = null;
+        Decision decision = null;
+        if (header.getCompression() > 0) {
+            compression = COMPRESSION_SELECTOR.select(header.getCompression());
+            //在调整消息体之前获取调用，调整后可能会清空类名
+            Invocation invocation = getInvocation(message);
+            if (invocation != null && invocation.getClassName() != null) {
+                Session session = getSession(context, header);
+                CompressionPolicy compressionPolicy = CompressionPolicy.policy();
+                if (compressionPolicy != null) {
+                    //自适应压缩策略
+                    policy = compressionPolicy.get(invocation.getClassName(), invocation.getMethodName(), message.isRequest());
+                    decision = policy.decide(session);
+                    if (decision != null) {
+                        compression = decision.getCompression();
+                        threshold = decision.getThreshold();
+                    }
+                }
+                if (compression instanceof DictionaryCompression) {
+                    //绑定字典
+                    DictionaryCompression dictionary = (DictionaryCompression) compression;
+                    Compression bound = dictionary.bind(invocation.getClassName(), invocation.getMethodName(), session);
+                    if (bound != null) {
+                        compression = bound;
+                        threshold = Math.min(threshold, dictionary.getThreshold());
+                    }
+                }
+            }
+        }
         //根据协议和序列化进行消息体调整
         adjustEncode(message, serialization);
 
-        if (header.getCompression() > 0) {
-            Compression compression = COMPRESSION_SELECTOR.select(header.getCompression());
-            if (compression != null) {
-                //自适应压缩
-                AdaptiveCompressOutputStream acos = new AdaptiveCompressOutputStream(buffer, compression, 2048);
-                serialize(serialization, acos, message, context);
-                //压缩完成，写完结束标识
-                acos.finish();
-                //输出
-                acos.flush();
-                //动态压缩设置
-                buffer.setByte(compress, !acos.isCompressed() ? Compression.NONE : header.getCompression());
-                return;
-            } else {
-                buffer.setByte(compress, Compression.NONE);
-            }
+        if (header.getCompression() <= 0) {
+            serialize(serialization, buffer, message, context);
+            return;
         }
-        serialize(serialization, buffer.outputStream(), message, context);
+        long startTime = decision != null && decision.isProbe() ? System.nanoTime() : 0;
+        int writerIndex = buffer.writerIndex();
+        boolean compressed = false;
+        int raw;
+        if (compression != null) {
+            //自适应压缩
+            AdaptiveCompressOutputStream acos = new AdaptiveCompressOutputStream(buffer, compression, threshold);
+            serialize(serialization, acos, message, context);
+            //压缩完成，写完结束标识
+            acos.finish();
+            //输出
+            acos.flush();
+            compressed = acos.isCompressed();
+            raw = acos.getTotal();
+            //动态压缩设置
+            buffer.setByte(compress, compressed ? compression.getTypeId() : Compression.NONE);
+        } else {
+            buffer.setByte(compress, Compression.NONE);
+            serialize(serialization, buffer, message, context);
+            raw = buffer.writerIndex() - writerIndex;
+        }
+        if (policy != null) {
+            policy.complete(decision, compressed, raw, buffer.writerIndex() - writerIndex,
+                    startTime == 0 ? 0 : System.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * 获取消息对应的调用，用于按照接口方法选择压缩策略
+     *
+     * @param message 消息
+     * @return 调用
+     */
+    protected Invocation getInvocation(final Message message) {
+        Object payload = message.getPayLoad();
+        return payload instanceof Invocation ? (Invocation) payload :
+                (message instanceof ResponseMessage ? ((ResponseMessage) message).getInvocation() : null);
+    }
+
+    /**
+     * 获取会话
+     *
+     * @param context 上下文
+     * @param header  消息头
+     * @return 会话
+     */
+    protected Session getSession(final EncodeContext context, final Header header) {
+        Session session = header.getSession();
+        if (session == null && header.getSessionId() > 0) {
+            session = context.getChannel().getSession(header.getSessionId());
+        }
+        return session;
+    }
+
+    /**
+     * 编码消息头之前根据协议对消息头进行调整
+     *
+     * @param context 上下文
+     * @param header  消息头
+     * @param message 消息
+     */
+    protected void adjustHeader(final EncodeContext context, final Header header, final Message message) {
+
     }
 
     /**
@@ -341,6 +402,16 @@ public abstract class AbstractCodec implements Codec, LengthFieldFrameCodec {
 
     }
 
+    /**
+     * 获取要序列化的消息体，子类可以返回精简后的副本，不能修改原有消息体
+     *
+     * @param message
+     * @return
+     */
+    protected Object getPayLoad(final Message message) {
+        return message.getPayLoad();
+    }
+
     /**
      * 序列化
      *
@@ -349,7 +420,24 @@ public abstract class AbstractCodec implements Codec, LengthFieldFrameCodec {
      * @param message
      */
     protected void serialize(final Serialization serialization, final OutputStream os, final Message message, final EncodeContext context) {
-        serialization.getSerializer().serialize(os, message.getPayLoad());
+        serialization.getSerializer().serialize(os, getPayLoad(message));
+    }
+
+    /**
+     * 序列化到缓冲区，序列化器支持缓冲区则直接写入，否则包装成输出流
+     *
+     * @param serialization
+     * @param buffer
+     * @param message
+     * @param context
+     */
+    protected void serialize(final Serialization serialization, final ChannelBuffer buffer, final Message message, final EncodeContext context) {
+        Serializer serializer = serialization.getSerializer();
+        if (serializer instanceof BufferSerializer) {
+            ((BufferSerializer) serializer).serialize(buffer, getPayLoad(message));
+        } else {
+            serialize(serialization, buffer.outputStream(), message, context);
+        }
     }
 
     @Override
@@ -407,7 +495,7 @@ public abstract class AbstractCodec implements Codec, LengthFieldFrameCodec {
         header.setSerialization(buffer.readByte());
         header.setCompression(buffer.readByte());
         header.setTimeout(buffer.readInt());
-        header.setAttributes(decodeAttributes(buffer));
+        header.setAttributes(HeaderAttributes.read(buffer));
         header.setLength(length);
         header.setHeaderLength(headerLength);
         header.setProtocolType(AbstractProtocol.PROTOCOL_NUMBER);
@@ -442,11 +530,18 @@ public abstract class AbstractCodec implements Codec, LengthFieldFrameCodec {
             throw new CodecException(String.format("Error occurs while decoding. unknown serialization type %d!", header.getSerialization()), ExceptionCode.CODEC_SERIALIZER_EXCEPTION);
         }
         Compression compression = COMPRESSION_SELECTOR.select(header.getCompression());
-        InputStream inputStream = buffer.inputStream();
-        inputStream = compression == null ? inputStream : compression.decompress(inputStream);
         Class payloadClass = getPayloadClass(msgType);
-
-        Object payload = payloadClass == null ? null : deserialize(serialization, inputStream, payloadClass, msgHeader, context);
+        if (msgType == MsgType.BizReq && payloadClass != null && isLazy(buffer.readableBytes())) {
+            return decodeLazy(context, buffer, msgHeader, serialization, compression, payloadClass);
+        }
+        Object payload;
+        if (payloadClass == null) {
+            payload = null;
+        } else if (compression == null) {
+            payload = deserialize(serialization, buffer, payloadClass, msgHeader, context);
+        } else {
+            payload = deserialize(serialization, compression.decompress(buffer.inputStream()), payloadClass, msgHeader, context);
+        }
         if (msgType.isRequest()) {
             RequestMessage request = new RequestMessage(msgHeader, payload);
             request.setReceiveTime(SystemClock.now());
@@ -460,6 +555,54 @@ public abstract class AbstractCodec implements Codec, LengthFieldFrameCodec {
 
     }
 
+    /**
+     * 是否延迟反序列化
+     *
+     * @param length 消息体长度
+     * @return
+     */
+    protected boolean isLazy(final int length) {
+        return lazyThreshold >= 0 && length >= lazyThreshold;
+    }
+
+    /**
+     * 延迟解码业务请求，IO线程只拷贝消息体，由业务线程在首次获取消息体的时候进行解压缩和反序列化
+     *
+     * @param context
+     * @param buffer
+     * @param header
+     * @param serialization
+     * @param compression
+     * @param payloadClass
+     * @return
+     */
+    protected Object decodeLazy(final DecodeContext context, final ChannelBuffer buffer, final MessageHeader header,
+                                final Serialization serialization, final Compression compression,
+                                final Class payloadClass) {
+        //拷贝消息体，IO线程返回后缓冲区会被释放
+        byte[] body = new byte[buffer.readableBytes()];
+        buffer.readBytes(body);
+        RequestMessage<Object> request = new RequestMessage<>(header);
+        request.setReceiveTime(SystemClock.now());
+        request.setDecoder(() -> {
+            try {
+                InputStream inputStream = new ByteArrayInputStream(body);
+                inputStream = compression == null ? inputStream : compression.decompress(inputStream);
+                request.setPayLoad(deserialize(serialization, inputStream, payloadClass, header, context));
+                adjustDecode(request, serialization);
+                return request.getPayLoad();
+            } catch (CodecException e) {
+                e.setHeader(header);
+                throw e;
+            } catch (Exception e) {
+                CodecException ce = toCodecException("Error occurs while decoding.", e);
+                ce.setHeader(header);
+                throw ce;
+            }
+        });
+        return request;
+    }
+
     /**
      * 反序列化
      *
@@ -472,6 +615,23 @@ public abstract class AbstractCodec implements Codec, LengthFieldFrameCodec {
         return serialization.getSerializer().deserialize(is, type);
     }
 
+    /**
+     * 从缓冲区反序列化，序列化器支持缓冲区则直接读取，否则包装成输入流
+     *
+     * @param serialization
+     * @param buffer
+     * @param type
+     * @param header
+     * @param context
+     */
+    protected Object deserialize(final Serialization serialization, final ChannelBuffer buffer, final Type type, final MessageHeader header, final DecodeContext context) {
+        Serializer serializer = serialization.getSerializer();
+        if (serializer instanceof BufferSerializer) {
+            return ((BufferSerializer) serializer).deserialize(buffer, type);
+        }
+        return deserialize(serialization, buffer.inputStream(), type, header, context);
+    }
+
     /**
      * 解码后根据协议和序列化进行消息调整
      *
@@ -492,44 +652,6 @@ public abstract class AbstractCodec implements Codec, LengthFieldFrameCodec {
         return type.getPayloadClz();
     }
 
-    /**
-     * 解码扩展属性
-     *
-     * @param buffer
-     * @return
-     */
-    protected Map<Byte, Object> decodeAttributes(final ChannelBuffer buffer) {
-        byte size = buffer.readByte();
-        if (size <= 0) {
-            return null;
-        }
-        Map<Byte, Object> attributes = new HashMap<>(size);
-        byte key;
-        byte type;
-        for (int i = 0; i < size; i++) {
-            key = buffer.readByte();
-            type = buffer.readByte();
-            switch (type) {
-                case 1:
-                    attributes.put(key, buffer.readInt());
-                    break;
-                case 2:
-                    attributes.put(key, buffer.readString(null, true));
-                    break;
-                case 3:
-                    attributes.put(key, buffer.readByte());
-                    break;
-                case 4:
-                    attributes.put(key, buffer.readShort());
-                    break;
-                default:
-                    throw new CodecException("Value of attrs in message header must be byte/short/int/string", ExceptionCode.CODEC_HEADER_FORMAT_EXCEPTION);
-
-            }
-        }
-        return attributes;
-    }
-
     @Override
     public LengthFieldFrame getLengthFieldFrame() {
         return new LengthFieldFrame(2, 4, -4, 2);
@@ -23,6 +23,7 @@ package io.joyrpc.protocol.handler;
 import io.joyrpc.Result;
 import io.joyrpc.codec.compression.Compression;
 import io.joyrpc.constants.ExceptionCode;
+import io.joyrpc.constants.HeadKey;
 import io.joyrpc.context.RequestContext;
 import io.joyrpc.context.injection.RespInjection;
 import io.joyrpc.context.injection.Transmit;
@@ -32,6 +33,7 @@ import io.joyrpc.invoker.InvokerManager;
 import io.joyrpc.protocol.MessageHandler;
 import io.joyrpc.protocol.MsgType;
 import io.joyrpc.protocol.message.*;
+import io.joyrpc.protocol.message.negotiation.MethodDictionary;
 import io.joyrpc.transport.channel.Channel;
 import io.joyrpc.transport.channel.ChannelContext;
 import io.joyrpc.transport.session.DefaultSession;
@@ -41,6 +43,7 @@ import io.joyrpc.util.network.Ipv4;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.lang.reflect.Method;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Supplier;
 
@@ -79,7 +82,6 @@ public class BizReqHandler extends AbstractReqHandler implements MessageHandler
         RequestMessage<Invocation> request = (RequestMessage<Invocation>) message;
         //绑定上下文
         request.setContext(RequestContext.getContext());
-        Invocation invocation = request.getPayLoad();
         Channel channel = context.getChannel();
 
         if (request.isTimeout(request::getReceiveTime)) {
@@ -93,9 +95,11 @@ public class BizReqHandler extends AbstractReqHandler implements MessageHandler
                     Channel.toString(channel), request.getHeader()));
             return;
         }
-
+        Invocation invocation = null;
         Exporter exporter = null;
         try {
+            //超时和不可写的请求不需要反序列化，延迟解码的请求在这里反序列化，解码异常走正常的异常应答
+            invocation = request.getPayLoad();
             //从会话恢复
             restore(request, channel);
             //根据请求参数获取输出的服务，依赖于会话恢复的信息
@@ -156,6 +160,7 @@ public class BizReqHandler extends AbstractReqHandler implements MessageHandler
         ResponseMessage<ResponsePayload> response = supplier != null ? supplier.get() :
                 new ResponseMessage<>(header.response(MsgType.BizResp.getType(),
                         session == null ? Compression.NONE : session.getCompressionType()));
+        response.setInvocation(invocation);
         if (result.getContext().isAsync() && !result.isException()) {
             //异步
             ((CompletableFuture<Object>) result.getValue()).whenComplete((obj, th) -> {
@@ -192,6 +197,8 @@ public class BizReqHandler extends AbstractReqHandler implements MessageHandler
         }
         //检查接口ID，兼容老版本
         checkInterfaceId(invocation, className);
+        //根据协商的方法字典恢复方法
+        checkMethodId(request, session);
         //处理调用类
         if (invocation.getClazz() == null) {
             invocation.setClazz(forName(invocation.getClassName()));
@@ -229,6 +236,31 @@ public class BizReqHandler extends AbstractReqHandler implements MessageHandler
         }
     }
 
+    /**
+     * 根据协商的方法字典恢复方法，请求只携带了方法序号
+     *
+     * @param request
+     * @param session
+     * @throws NoSuchMethodException
+     */
+    protected void checkMethodId(final RequestMessage<Invocation> request, final DefaultSession session) throws NoSuchMethodException {
+        Invocation invocation = request.getPayLoad();
+        HeaderAttributes attributes = request.getHeader().getAttributes();
+        if (invocation.getMethodName() == null && attributes != null) {
+            int id = attributes.getInt(HeadKey.methodId.getKey(), -1);
+            if (id >= 0) {
+                MethodDictionary dictionary = session == null ? null : session.getMethodDictionary();
+                Method method = dictionary == null ? null : dictionary.getMethod(id);
+                if (method == null) {
+                    throw new NoSuchMethodException("method is not found by methodId " + id);
+                }
+                invocation.setMethodName(method.getName());
+                invocation.setArgsType(method.getParameterTypes());
+                invocation.setMethod(method);
+            }
+        }
+    }
+
     /**
      * 获取错误信息
      *
@@ -253,9 +285,9 @@ public class BizReqHandler extends AbstractReqHandler implements MessageHandler
     protected String error(final Invocation request, final Channel channel, final String cause, final String code) {
         return String.format(ExceptionCode.format(code == null ? ExceptionCode.PROVIDER_TASK_FAIL : code)
                         + "Error occurs while processing request %s/%s/%s from channel %s->%s, caused by: %s",
-                request.getClassName(),
-                request.getMethodName(),
-                request.getAlias(),
+                request == null ? null : request.getClassName(),
+                request == null ? null : request.getMethodName(),
+                request == null ? null : request.getAlias(),
                 Ipv4.toAddress(channel.getRemoteAddress()),
                 Ipv4.toAddress(channel.getLocalAddress()),
                 cause);
@@ -30,10 +30,10 @@ import io.joyrpc.protocol.MsgType;
 import io.joyrpc.protocol.message.Message;
 import io.joyrpc.protocol.message.ResponseMessage;
 import io.joyrpc.protocol.message.negotiation.AbstractNegotiation;
+import io.joyrpc.protocol.message.negotiation.MethodDictionary;
 import io.joyrpc.protocol.message.negotiation.NegotiationResponse;
 import io.joyrpc.transport.session.DefaultSession;
 import io.joyrpc.transport.channel.ChannelContext;
-import io.joyrpc.transport.session.Session;
 
 import java.util.Map;
 
@@ -41,6 +41,7 @@ import static io.joyrpc.Plugin.*;
 import static io.joyrpc.constants.Constants.*;
 import static io.joyrpc.context.Environment.*;
 import static io.joyrpc.transport.session.Session.REMOTE_START_TIMESTAMP;
+import static io.joyrpc.util.ClassUtils.forName;
 
 /**
  * @date: 2019/3/18
@@ -66,6 +67,14 @@ public class NegotiationReqHandler extends AbstractNegotiationHandler<Message> i
             response.addAttribute(APPLICATION_INSTANCE, GlobalContext.getString(APPLICATION_INSTANCE));
             response.addAttribute(APPLICATION_GROUP, GlobalContext.getString(APPLICATION_GROUP));
             response.addAttribute(REMOTE_START_TIMESTAMP, GlobalContext.getString(START_TIME));
+            if (Boolean.parseBoolean(attributes.get(METHOD_DICTIONARY_OPTION.getName()))) {
+                //下发接口方法字典
+                MethodDictionary dictionary = getMethodDictionary(attributes.get(CONFIG_KEY_INTERFACE));
+                if (dictionary != null) {
+                    response.addAttribute(METHOD_SIGNATURES_KEY, dictionary.getSignatures());
+                }
+            }
+            response.addDictionaries();
         }
         return response;
     }
@@ -74,7 +83,8 @@ public class NegotiationReqHandler extends AbstractNegotiationHandler<Message> i
     protected void session(final ChannelContext context, final int sessionId, final AbstractNegotiation negotiation) {
         Map<String, String> attributes = negotiation.getAttributes();
         long timeout = Converts.getLong(attributes.remove(SESSION_TIMEOUT_OPTION.getName()), SESSION_TIMEOUT_OPTION.getValue());
-        Session session = new DefaultSession(sessionId, timeout);
+        boolean methodDictionary = Boolean.parseBoolean(attributes.remove(METHOD_DICTIONARY_OPTION.getName()));
+        DefaultSession session = new DefaultSession(sessionId, timeout);
         session.setSerialization(SERIALIZATION.get(negotiation.getSerialization()));
         session.setCompression(COMPRESSION.get(negotiation.getCompression()));
         session.setChecksum(CHECKSUM.get(negotiation.getChecksum()));
@@ -82,9 +92,29 @@ public class NegotiationReqHandler extends AbstractNegotiationHandler<Message> i
         session.setCompressions(negotiation.getCompressions());
         session.setChecksums(negotiation.getChecksums());
         session.putAll(attributes);
+        if (methodDictionary) {
+            session.setMethodDictionary(getMethodDictionary(session.getInterfaceName()));
+        }
         context.getChannel().addSession(sessionId, session);
     }
 
+    /**
+     * 获取接口方法字典
+     *
+     * @param interfaceName 接口名称
+     * @return 方法字典，接口不存在返回空
+     */
+    protected MethodDictionary getMethodDictionary(final String interfaceName) {
+        if (interfaceName == null || interfaceName.isEmpty()) {
+            return null;
+        }
+        try {
+            return MethodDictionary.of(forName(interfaceName));
+        } catch (ClassNotFoundException e) {
+            return null;
+        }
+    }
+
     @Override
     public Integer type() {
         return (int) MsgType.NegotiationReq.getType();
@@ -44,6 +44,7 @@ import io.joyrpc.transport.session.Session;
 
 import static io.joyrpc.Plugin.AUTHENTICATOR;
 import static io.joyrpc.constants.Constants.JAVA_VERSION_KEY;
+import static io.joyrpc.constants.Constants.METHOD_DICTIONARY_OPTION;
 import static io.joyrpc.constants.Constants.SESSION_TIMEOUT_OPTION;
 import static io.joyrpc.context.Environment.*;
 import static io.joyrpc.transport.session.Session.REMOTE_START_TIMESTAMP;
@@ -78,6 +79,11 @@ public class JoyClientProtocol extends AbstractProtocol implements ClientProtoco
         negotiation.addAttribute(APPLICATION_GROUP, GlobalContext.getString(APPLICATION_GROUP));
         negotiation.addAttribute(SESSION_TIMEOUT_OPTION.getName(), String.valueOf(clusterUrl.getPositiveLong(SESSION_TIMEOUT_OPTION)));
         negotiation.addAttribute(REMOTE_START_TIMESTAMP, GlobalContext.getString(START_TIME));
+        if (clusterUrl.getBoolean(METHOD_DICTIONARY_OPTION)) {
+            //请求服务端下发接口方法字典
+            negotiation.addAttribute(METHOD_DICTIONARY_OPTION.getName(), Boolean.TRUE.toString());
+        }
+        negotiation.addDictionaries();
         //构造协商请求消息
         return new RequestMessage<>(new MessageHeader(MsgType.NegotiationReq.getType()), negotiation);
     }
@@ -21,14 +21,23 @@ package io.joyrpc.protocol.joy.codec;
  */
 
 import io.joyrpc.codec.serialization.Serialization;
+import io.joyrpc.constants.HeadKey;
 import io.joyrpc.protocol.AbstractCodec;
+import io.joyrpc.protocol.MsgType;
 import io.joyrpc.protocol.Protocol;
+import io.joyrpc.protocol.message.HeaderAttributes;
 import io.joyrpc.protocol.message.Invocation;
+import io.joyrpc.protocol.message.MessageHeader;
+import io.joyrpc.protocol.message.negotiation.MethodDictionary;
+import io.joyrpc.transport.codec.EncodeContext;
+import io.joyrpc.transport.message.Header;
 import io.joyrpc.transport.message.Message;
 import io.joyrpc.transport.session.DefaultSession;
+import io.joyrpc.transport.session.Session;
 
 import java.util.Objects;
 
+import static io.joyrpc.Plugin.SERIALIZATION_SELECTOR;
 import static io.joyrpc.protocol.AbstractCodec.Empty.NULL;
 
 /**
@@ -42,6 +51,58 @@ public class JoyCodec extends AbstractCodec {
         super(protocol);
     }
 
+    @Override
+    protected void adjustHeader(final EncodeContext context, final Header header, final Message message) {
+        //业务请求根据会话协商的方法字典携带方法序号，自描述的序列化才能省略方法名和参数类型
+        if (message.getMsgType() != MsgType.BizReq.getType() || !(message.getPayLoad() instanceof Invocation)) {
+            return;
+        }
+        MessageHeader mh = (MessageHeader) header;
+        Session session = getSession(context, header);
+        MethodDictionary dictionary = session instanceof DefaultSession ? ((DefaultSession) session).getMethodDictionary() : null;
+        int id = -1;
+        if (dictionary != null) {
+            Serialization serialization = SERIALIZATION_SELECTOR.select(header.getSerialization());
+            if (serialization != null && serialization.isSelfDescribing()) {
+                id = dictionary.getId(((Invocation) message.getPayLoad()).getMethod());
+            }
+        }
+        if (id >= 0) {
+            mh.getOrCreateAttributes().putInt(HeadKey.methodId.getKey(), id);
+        } else if (mh.getAttributes() != null) {
+            //重试到其它节点的时候清理掉原有的方法序号
+            mh.getAttributes().remove(HeadKey.methodId.getKey());
+        }
+    }
+
+    @Override
+    protected Object getPayLoad(final Message message) {
+        Invocation compact = getCompactInvocation(message);
+        return compact == null ? message.getPayLoad() : compact;
+    }
+
+    /**
+     * 携带了方法序号的调用，构造省略了方法名和参数类型的副本用于序列化，不修改原有的调用对象
+     *
+     * @param message 消息
+     * @return 精简的调用，没有携带方法序号返回空
+     */
+    protected Invocation getCompactInvocation(final Message message) {
+        if (message.getMsgType() != MsgType.BizReq.getType() || !(message.getPayLoad() instanceof Invocation)) {
+            return null;
+        }
+        HeaderAttributes attributes = ((MessageHeader) message.getHeader()).getAttributes();
+        if (attributes == null || !attributes.contains(HeadKey.methodId.getKey())) {
+            return null;
+        }
+        Invocation invocation = (Invocation) message.getPayLoad();
+        Invocation result = new Invocation(invocation.getAttachments());
+        result.setClassName(invocation.getClassName());
+        result.setAlias(invocation.getAlias());
+        result.setArgs(invocation.getArgs());
+        return result;
+    }
+
     @Override
     protected void adjustEncode(final Message message, final Serialization serialization) {
         //Invocation可以不传输类名和别名，BizReqHandler已经根据会话补充了类名和别名
@@ -0,0 +1,537 @@
+package io.joyrpc.protocol.message;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.constants.ExceptionCode;
+import io.joyrpc.exception.CodecException;
+import io.joyrpc.transport.buffer.ChannelBuffer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 消息头扩展属性，按键有序的紧凑存储，替代Map&lt;Byte,Object&gt;。<br/>
+ * 每个槽位用一个long保存：高8位为键，次高8位为类型，低32位为整数值；字符串等对象值保存在对象列中。<br/>
+ * 整数、短整数和字节的读写不产生装箱，解码时只分配槽位数组。<br/>
+ * 非线程安全，同一时刻只能由一个线程读写，消息头在单个请求的处理链中顺序使用。<br/>
+ * MessageHeader的clone和response会复制属性，需要在其它线程修改的时候，先克隆消息头再修改。
+ */
+public class HeaderAttributes {
+
+    /**
+     * 非序列化的对象类型，例如HTTP协议使用的Boolean
+     */
+    public static final byte OBJECT = 0;
+    /**
+     * 整数，与线上格式一致
+     */
+    public static final byte INT = 1;
+    /**
+     * 字符串，与线上格式一致
+     */
+    public static final byte STRING = 2;
+    /**
+     * 字节，与线上格式一致
+     */
+    public static final byte BYTE = 3;
+    /**
+     * 短整数，与线上格式一致
+     */
+    public static final byte SHORT = 4;
+
+    protected static final long[] EMPTY_SLOTS = new long[0];
+    protected static final String FORMAT_ERROR = "Value of attrs in message header must be byte/short/int/string";
+
+    /**
+     * 槽位，按键有序
+     */
+    protected long[] slots;
+    /**
+     * 对象值，按需创建，和槽位下标对应
+     */
+    protected Object[] objects;
+    /**
+     * 大小
+     */
+    protected int size;
+
+    public HeaderAttributes() {
+        this(4);
+    }
+
+    public HeaderAttributes(final int capacity) {
+        this.slots = capacity <= 0 ? EMPTY_SLOTS : new long[capacity];
+    }
+
+    /**
+     * 从Map构造
+     *
+     * @param attributes 属性
+     * @return 属性存储
+     */
+    public static HeaderAttributes of(final Map<Byte, Object> attributes) {
+        if (attributes == null) {
+            return null;
+        }
+        HeaderAttributes result = new HeaderAttributes(attributes.size());
+        attributes.forEach((k, v) -> {
+            if (k != null) {
+                result.put(k, v);
+            }
+        });
+        return result;
+    }
+
+    protected static long slot(final byte key, final byte type, final int value) {
+        return ((long) key << 56) | ((long) (type & 0xFF) << 48) | (value & 0xFFFFFFFFL);
+    }
+
+    protected static byte key(final long slot) {
+        return (byte) (slot >> 56);
+    }
+
+    protected static byte type(final long slot) {
+        return (byte) (slot >> 48);
+    }
+
+    protected static int value(final long slot) {
+        return (int) slot;
+    }
+
+    /**
+     * 查找键的位置，不存在则返回-(插入位置+1)
+     *
+     * @param key 键
+     * @return 位置
+     */
+    protected int indexOf(final byte key) {
+        //属性个数很少，顺序查找即可
+        byte k;
+        for (int i = 0; i < size; i++) {
+            k = key(slots[i]);
+            if (k == key) {
+                return i;
+            } else if (k > key) {
+                return -(i + 1);
+            }
+        }
+        return -(size + 1);
+    }
+
+    /**
+     * 设置槽位
+     *
+     * @param key    键
+     * @param type   类型
+     * @param value  整数值
+     * @param object 对象值
+     */
+    protected void set(final byte key, final byte type, final int value, final Object object) {
+        int pos = indexOf(key);
+        if (pos < 0) {
+            pos = -pos - 1;
+            if (size == slots.length) {
+                long[] ns = new long[Math.max(4, size << 1)];
+                System.arraycopy(slots, 0, ns, 0, size);
+                slots = ns;
+                if (objects != null) {
+                    Object[] no = new Object[ns.length];
+                    System.arraycopy(objects, 0, no, 0, size);
+                    objects = no;
+                }
+            }
+            if (pos < size) {
+                System.arraycopy(slots, pos, slots, pos + 1, size - pos);
+                if (objects != null) {
+                    System.arraycopy(objects, pos, objects, pos + 1, size - pos);
+                }
+            }
+            size++;
+        }
+        slots[pos] = slot(key, type, value);
+        if (object != null) {
+            if (objects == null) {
+                objects = new Object[slots.length];
+            }
+            objects[pos] = object;
+        } else if (objects != null) {
+            objects[pos] = null;
+        }
+    }
+
+    /**
+     * 添加属性，值为空则忽略
+     *
+     * @param key   键
+     * @param value 值
+     */
+    public void put(final byte key, final Object value) {
+        if (value == null) {
+            return;
+        } else if (value instanceof Integer) {
+            set(key, INT, (Integer) value, null);
+        } else if (value instanceof String) {
+            set(key, STRING, 0, value);
+        } else if (value instanceof Byte) {
+            set(key, BYTE, (Byte) value, null);
+        } else if (value instanceof Short) {
+            set(key, SHORT, (Short) value, null);
+        } else {
+            set(key, OBJECT, 0, value);
+        }
+    }
+
+    public void putInt(final byte key, final int value) {
+        set(key, INT, value, null);
+    }
+
+    public void putShort(final byte key, final short value) {
+        set(key, SHORT, value, null);
+    }
+
+    public void putByte(final byte key, final byte value) {
+        set(key, BYTE, value, null);
+    }
+
+    public void putString(final byte key, final String value) {
+        if (value != null) {
+            set(key, STRING, 0, value);
+        }
+    }
+
+    /**
+     * 获取属性，数值类型会装箱
+     *
+     * @param key 键
+     * @return 值
+     */
+    public Object get(final byte key) {
+        int pos = indexOf(key);
+        return pos < 0 ? null : object(pos);
+    }
+
+    /**
+     * 是否包含属性
+     *
+     * @param key 键
+     * @return 包含标识
+     */
+    public boolean contains(final byte key) {
+        return indexOf(key) >= 0;
+    }
+
+    /**
+     * 是否包含数值类型的属性
+     *
+     * @param key 键
+     * @return 包含标识
+     */
+    public boolean hasNumber(final byte key) {
+        int pos = indexOf(key);
+        return pos >= 0 && isNumber(pos);
+    }
+
+    /**
+     * 获取整数属性
+     *
+     * @param key 键
+     * @param def 默认值
+     * @return 值，非数值类型返回默认值
+     */
+    public int getInt(final byte key, final int def) {
+        int pos = indexOf(key);
+        return pos < 0 || !isNumber(pos) ? def : value(slots[pos]);
+    }
+
+    /**
+     * 获取短整数属性
+     *
+     * @param key 键
+     * @param def 默认值
+     * @return 值，非数值类型返回默认值
+     */
+    public short getShort(final byte key, final short def) {
+        int pos = indexOf(key);
+        return pos < 0 || !isNumber(pos) ? def : (short) value(slots[pos]);
+    }
+
+    /**
+     * 获取字节属性
+     *
+     * @param key 键
+     * @param def 默认值
+     * @return 值，非数值类型返回默认值
+     */
+    public byte getByte(final byte key, final byte def) {
+        int pos = indexOf(key);
+        return pos < 0 || !isNumber(pos) ? def : (byte) value(slots[pos]);
+    }
+
+    /**
+     * 获取字符串属性
+     *
+     * @param key 键
+     * @return 值，非字符串类型返回空
+     */
+    public String getString(final byte key) {
+        int pos = indexOf(key);
+        return pos < 0 || type(slots[pos]) != STRING ? null : (String) objects[pos];
+    }
+
+    /**
+     * 删除属性
+     *
+     * @param key 键
+     * @return 原有值
+     */
+    public Object remove(final byte key) {
+        int pos = indexOf(key);
+        if (pos < 0) {
+            return null;
+        }
+        Object result = object(pos);
+        int moved = size - pos - 1;
+        if (moved > 0) {
+            System.arraycopy(slots, pos + 1, slots, pos, moved);
+            if (objects != null) {
+                System.arraycopy(objects, pos + 1, objects, pos, moved);
+            }
+        }
+        size--;
+        if (objects != null) {
+            objects[size] = null;
+        }
+        return result;
+    }
+
+    /**
+     * 清空，保留已分配的空间
+     */
+    public void clear() {
+        if (objects != null) {
+            for (int i = 0; i < size; i++) {
+                objects[i] = null;
+            }
+        }
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 获取指定位置的键
+     *
+     * @param index 位置
+     * @return 键
+     */
+    public byte keyAt(final int index) {
+        return key(slots[index]);
+    }
+
+    /**
+     * 获取指定位置的类型
+     *
+     * @param index 位置
+     * @return 类型
+     */
+    public byte typeAt(final int index) {
+        return type(slots[index]);
+    }
+
+    /**
+     * 获取指定位置的值，数值类型会装箱
+     *
+     * @param index 位置
+     * @return 值
+     */
+    public Object valueAt(final int index) {
+        return object(index);
+    }
+
+    protected boolean isNumber(final int pos) {
+        byte type = type(slots[pos]);
+        return type == INT || type == SHORT || type == BYTE;
+    }
+
+    protected Object object(final int pos) {
+        long slot = slots[pos];
+        switch (type(slot)) {
+            case INT:
+                return value(slot);
+            case BYTE:
+                return (byte) value(slot);
+            case SHORT:
+                return (short) value(slot);
+            default:
+                return objects[pos];
+        }
+    }
+
+    /**
+     * 复制
+     *
+     * @return 新的属性存储
+     */
+    public HeaderAttributes copy() {
+        HeaderAttributes result = new HeaderAttributes(size);
+        System.arraycopy(slots, 0, result.slots, 0, size);
+        if (objects != null) {
+            result.objects = new Object[size];
+            System.arraycopy(objects, 0, result.objects, 0, size);
+        }
+        result.size = size;
+        return result;
+    }
+
+    /**
+     * 转换成Map
+     *
+     * @return Map
+     */
+    public Map<Byte, Object> toMap() {
+        Map<Byte, Object> result = new HashMap<>(size + 1);
+        for (int i = 0; i < size; i++) {
+            result.put(key(slots[i]), object(i));
+        }
+        return result;
+    }
+
+    /**
+     * 编码，格式为：个数(1) + [键(1) + 类型(1) + 值]*
+     *
+     * @param buffer 缓冲区
+     */
+    public void encode(final ChannelBuffer buffer) {
+        buffer.writeByte(size);
+        long slot;
+        for (int i = 0; i < size; i++) {
+            slot = slots[i];
+            buffer.writeByte(key(slot));
+            switch (type(slot)) {
+                case INT:
+                    buffer.writeByte(INT);
+                    buffer.writeInt(value(slot));
+                    break;
+                case STRING:
+                    buffer.writeByte(STRING);
+                    buffer.writeString((String) objects[i], null, false, true);
+                    break;
+                case BYTE:
+                    buffer.writeByte(BYTE);
+                    buffer.writeByte(value(slot));
+                    break;
+                case SHORT:
+                    buffer.writeByte(SHORT);
+                    buffer.writeShort((short) value(slot));
+                    break;
+                default:
+                    throw new CodecException(FORMAT_ERROR, ExceptionCode.CODEC_HEADER_FORMAT_EXCEPTION);
+            }
+        }
+    }
+
+    /**
+     * 编码，属性为空时写入个数0
+     *
+     * @param buffer     缓冲区
+     * @param attributes 属性
+     */
+    public static void encode(final ChannelBuffer buffer, final HeaderAttributes attributes) {
+        if (attributes == null) {
+            buffer.writeByte(0);
+        } else {
+            attributes.encode(buffer);
+        }
+    }
+
+    /**
+     * 解码到当前对象，会先清空已有属性，复用已分配的空间
+     *
+     * @param buffer 缓冲区
+     * @return 属性个数
+     */
+    public int decode(final ChannelBuffer buffer) {
+        clear();
+        int count = buffer.readByte();
+        if (count <= 0) {
+            return 0;
+        }
+        if (slots.length < count) {
+            slots = new long[count];
+            objects = null;
+        }
+        byte key;
+        byte type;
+        for (int i = 0; i < count; i++) {
+            key = buffer.readByte();
+            type = buffer.readByte();
+            switch (type) {
+                case INT:
+                    set(key, INT, buffer.readInt(), null);
+                    break;
+                case STRING:
+                    set(key, STRING, 0, buffer.readString(null, true));
+                    break;
+                case BYTE:
+                    set(key, BYTE, buffer.readByte(), null);
+                    break;
+                case SHORT:
+                    set(key, SHORT, buffer.readShort(), null);
+                    break;
+                default:
+                    throw new CodecException(FORMAT_ERROR, ExceptionCode.CODEC_HEADER_FORMAT_EXCEPTION);
+            }
+        }
+        return size;
+    }
+
+    /**
+     * 解码，没有属性则返回空，不会创建对象
+     *
+     * @param buffer 缓冲区
+     * @return 属性
+     */
+    public static HeaderAttributes read(final ChannelBuffer buffer) {
+        int count = buffer.getByte(buffer.readerIndex());
+        if (count <= 0) {
+            buffer.skipBytes(1);
+            return null;
+        }
+        HeaderAttributes result = new HeaderAttributes(count);
+        result.decode(buffer);
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < size; i++) {
+            builder.append(' ').append(key(slots[i])).append(" : ").append(object(i));
+        }
+        return builder.toString();
+    }
+}
@@ -399,6 +399,26 @@ public class Invocation implements Serializable {
         return new MapParametric(attachments);
     }
 
+    /**
+     * 复制调用，扩展属性和参数数组是新的对象，参数值共享
+     *
+     * @return
+     */
+    public Invocation copy() {
+        Invocation result = new Invocation(attachments == null ? null : new HashMap<>(attachments));
+        result.className = className;
+        result.alias = alias;
+        result.methodName = methodName;
+        result.argsType = argsType;
+        result.argClasses = argClasses;
+        result.args = args == null ? null : args.clone();
+        result.method = method;
+        result.clazz = clazz;
+        result.object = object;
+        result.generic = generic;
+        return result;
+    }
+
     /**
      * 判断是否是泛型
      *
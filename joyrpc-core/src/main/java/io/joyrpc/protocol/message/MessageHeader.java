@@ -26,9 +26,7 @@ import io.joyrpc.transport.message.Header;
 import io.joyrpc.transport.session.Session;
 import io.joyrpc.util.StringUtils;
 
-import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * 消息头
@@ -73,7 +71,7 @@ public class MessageHeader implements Header {
     /**
      * 扩展属性
      */
-    protected Map<Byte, Object> attributes;
+    protected HeaderAttributes attributes;
 
     /**
      * session 对象
@@ -218,11 +216,11 @@ public class MessageHeader implements Header {
         this.timeout = timeout;
     }
 
-    public Map<Byte, Object> getAttributes() {
+    public HeaderAttributes getAttributes() {
         return attributes;
     }
 
-    public void setAttributes(Map<Byte, Object> attributes) {
+    public void setAttributes(HeaderAttributes attributes) {
         this.attributes = attributes;
     }
 
@@ -241,12 +239,11 @@ public class MessageHeader implements Header {
      *
      * @return
      */
-    protected Map<Byte, Object> getOrCreateAttributes() {
+    public HeaderAttributes getOrCreateAttributes() {
         if (attributes == null) {
-            //TODO 是否是单线程操作
             synchronized (this) {
                 if (attributes == null) {
-                    attributes = new ConcurrentHashMap<>(5);
+                    attributes = new HeaderAttributes();
                 }
             }
         }
@@ -343,14 +340,7 @@ public class MessageHeader implements Header {
         if (attributes == null || key == null) {
             return def;
         }
-        Object result = attributes.get(key);
-        if (result instanceof Byte) {
-            return (Byte) result;
-        } else if (result instanceof Number) {
-            return ((Number) result).byteValue();
-        } else {
-            return def;
-        }
+        return attributes.hasNumber(key) ? attributes.getByte(key, (byte) 0) : def;
     }
 
     /**
@@ -363,14 +353,7 @@ public class MessageHeader implements Header {
         if (attributes == null || key == null) {
             return def;
         }
-        Object result = attributes.get(key);
-        if (result instanceof Short) {
-            return (Short) result;
-        } else if (result instanceof Number) {
-            return ((Number) result).shortValue();
-        } else {
-            return def;
-        }
+        return attributes.hasNumber(key) ? attributes.getShort(key, (short) 0) : def;
     }
 
     /**
@@ -383,14 +366,7 @@ public class MessageHeader implements Header {
         if (attributes == null || key == null) {
             return def;
         }
-        Object result = attributes.get(key);
-        if (result instanceof Integer) {
-            return (Integer) result;
-        } else if (result instanceof Number) {
-            return ((Number) result).intValue();
-        } else {
-            return def;
-        }
+        return attributes.hasNumber(key) ? attributes.getInt(key, 0) : def;
     }
 
     @Override
@@ -451,12 +427,7 @@ public class MessageHeader implements Header {
 
     @Override
     public String toString() {
-        String keymapStr = StringUtils.EMPTY;
-        if (Objects.nonNull(attributes)) {
-            for (Map.Entry<Byte, Object> entry : attributes.entrySet()) {
-                keymapStr = keymapStr + " " + entry.getKey().toString() + " : " + entry.getValue().toString();
-            }
-        }
+        String keymapStr = Objects.nonNull(attributes) ? attributes.toString() : StringUtils.EMPTY;
         return "MessageHeader{" +
                 "msgId=" + msgId +
                 ", length=" + length +
@@ -492,7 +463,7 @@ public class MessageHeader implements Header {
         return response(msgType, compression, null);
     }
 
-    public MessageHeader response(final byte msgType, final byte compression, Map<Byte, Object> attributes) {
+    public MessageHeader response(final byte msgType, final byte compression, final HeaderAttributes attributes) {
         MessageHeader result = new MessageHeader();
         result.msgId = msgId;
         result.msgType = msgType;
@@ -500,14 +471,15 @@ public class MessageHeader implements Header {
         result.protocolType = protocolType;
         result.compression = compression;
         result.sessionId = sessionId;
-        result.attributes = attributes;
+        //扩展属性非线程安全，复制一份，避免应答和请求共享
+        result.attributes = attributes == null ? null : attributes.copy();
         return result;
     }
 
     /**
      * 克隆后和整体原来不是一个对象，
      * 属性相同，修改当前属性不会改变原来的
-     * map和原来是一个对象，修改当前map也会改原来的
+     * 扩展属性会复制一份，修改克隆后的扩展属性也不会改变原来的
      *
      * @return
      */
@@ -523,7 +495,7 @@ public class MessageHeader implements Header {
         result.length = length;
         result.headerLength = headerLength;
         result.sessionId = sessionId;
-        result.attributes = attributes;
+        result.attributes = attributes == null ? null : attributes.copy();
         return result;
     }
 
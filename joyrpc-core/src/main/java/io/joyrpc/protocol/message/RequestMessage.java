@@ -77,6 +77,10 @@ public class RequestMessage<T> extends BaseMessage<T> implements Request {
      * 用于生成应答消息，便于传递请求的上下文
      */
     protected transient Supplier<ResponseMessage> responseSupplier;
+    /**
+     * 延迟解码器，在首次获取消息体的时候进行反序列化
+     */
+    protected transient Supplier<T> decoder;
 
     /**
      * 构造函数
@@ -182,12 +186,38 @@ public class RequestMessage<T> extends BaseMessage<T> implements Request {
 
     @Override
     public T getPayLoad() {
+        if (decoder != null) {
+            //延迟解码，由首次获取消息体的线程执行反序列化，解码失败也不再重复解码
+            Supplier<T> supplier = decoder;
+            decoder = null;
+            payload = supplier.get();
+        }
         return payload;
     }
 
     @Override
     public void setPayLoad(T data) {
         this.payload = data;
+        this.decoder = null;
+    }
+
+    /**
+     * 设置延迟解码器
+     *
+     * @param decoder
+     */
+    public void setDecoder(Supplier<T> decoder) {
+        this.decoder = decoder;
+        this.payload = null;
+    }
+
+    /**
+     * 消息体是否已经解码
+     *
+     * @return
+     */
+    public boolean isDecoded() {
+        return decoder == null;
     }
 
     public long getCreateTime() {
@@ -286,6 +316,28 @@ public class RequestMessage<T> extends BaseMessage<T> implements Request {
         return true;
     }
 
+    /**
+     * 复制请求，消息头、调用对象和上下文都是新的对象，用于后台刷新或并行发起的调用，避免和原有请求互相修改
+     *
+     * @return
+     */
+    @SuppressWarnings("unchecked")
+    public RequestMessage<T> copy() {
+        T data = getPayLoad();
+        RequestMessage<T> result = new RequestMessage<>(header == null ? null : header.clone(),
+                data instanceof Invocation ? (T) ((Invocation) data).copy() : data);
+        result.createTime = SystemClock.now();
+        result.receiveTime = receiveTime;
+        result.timeout = timeout;
+        result.failoverPolicy = failoverPolicy;
+        result.context = context == null ? null : context.copy().setFuture(null);
+        result.localAddress = localAddress;
+        result.remoteAddress = remoteAddress;
+        result.thread = thread;
+        result.responseSupplier = responseSupplier;
+        return result;
+    }
+
     @Override
     public String toString() {
         return "RequestMessage{" +
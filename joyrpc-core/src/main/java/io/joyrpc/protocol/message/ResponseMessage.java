@@ -31,6 +31,10 @@ public class ResponseMessage<T> extends BaseMessage<T> implements Response {
      * 响应结果
      */
     protected T response;
+    /**
+     * 对应的调用，用于按照接口方法选择压缩字典
+     */
+    protected transient Invocation invocation;
 
     /**
      * 构造函数
@@ -123,6 +127,14 @@ public class ResponseMessage<T> extends BaseMessage<T> implements Response {
         this.response = data;
     }
 
+    public Invocation getInvocation() {
+        return invocation;
+    }
+
+    public void setInvocation(Invocation invocation) {
+        this.invocation = invocation;
+    }
+
     @Override
     public boolean isRequest() {
         return false;
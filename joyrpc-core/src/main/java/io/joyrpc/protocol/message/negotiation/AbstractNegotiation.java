@@ -20,11 +20,16 @@ package io.joyrpc.protocol.message.negotiation;
  * #L%
  */
 
+import io.joyrpc.codec.compression.Compression;
+import io.joyrpc.codec.compression.DictionaryCompression;
+
 import java.io.Serializable;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
+import static io.joyrpc.Plugin.COMPRESSION;
+
 /**
  * 协商协议，这个协议采用java序列化，必须实现Serializable接口
  *
@@ -158,6 +163,18 @@ public class AbstractNegotiation implements Serializable {
         }
     }
 
+    /**
+     * 添加本地持有的压缩字典标识，对端只会使用这些字典进行压缩
+     */
+    public void addDictionaries() {
+        for (Compression compression : COMPRESSION.extensions()) {
+            if (compression instanceof DictionaryCompression) {
+                addAttribute(DictionaryCompression.DICTIONARY_PREFIX + compression.getTypeName(),
+                        ((DictionaryCompression) compression).getDictionaries());
+            }
+        }
+    }
+
     /**
      * 删除扩展属性
      *
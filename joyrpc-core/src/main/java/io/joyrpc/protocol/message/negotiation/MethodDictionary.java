@@ -0,0 +1,156 @@
+package io.joyrpc.protocol.message.negotiation;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 接口方法字典，会话协商的时候由服务端下发，请求只需要携带方法序号。<br/>
+ * 接口由会话确定，方法按照签名排序，签名格式为：方法名(参数类型,参数类型)，多个签名用分号分隔。
+ */
+public class MethodDictionary {
+
+    /**
+     * 签名分隔符
+     */
+    protected static final String SEPARATOR = ";";
+    /**
+     * 服务端按照接口缓存的字典
+     */
+    protected static final Map<Class<?>, MethodDictionary> DICTIONARIES = new ConcurrentHashMap<>();
+
+    /**
+     * 签名，用于协商下发
+     */
+    protected final String signatures;
+    /**
+     * 签名对应的序号
+     */
+    protected final Map<String, Integer> ids;
+    /**
+     * 序号对应的方法，只有服务端存在
+     */
+    protected final Method[] methods;
+    /**
+     * 方法对应的序号缓存
+     */
+    protected final Map<Method, Integer> methodIds = new ConcurrentHashMap<>();
+
+    /**
+     * 构造函数
+     *
+     * @param signatures 签名
+     * @param methods    方法
+     */
+    protected MethodDictionary(final String[] signatures, final Method[] methods) {
+        this.signatures = String.join(SEPARATOR, signatures);
+        this.ids = new HashMap<>(signatures.length * 4 / 3 + 1);
+        for (int i = 0; i < signatures.length; i++) {
+            ids.put(signatures[i], i);
+        }
+        this.methods = methods;
+    }
+
+    /**
+     * 构建服务端字典
+     *
+     * @param clazz 接口类
+     * @return 方法字典
+     */
+    public static MethodDictionary of(final Class<?> clazz) {
+        return clazz == null ? null : DICTIONARIES.computeIfAbsent(clazz, c -> {
+            List<Method> list = ClassUtils.getPublicMethod(c);
+            TreeMap<String, Method> sorted = new TreeMap<>();
+            for (Method method : list) {
+                sorted.put(signature(method), method);
+            }
+            return new MethodDictionary(sorted.keySet().toArray(new String[0]), sorted.values().toArray(new Method[0]));
+        });
+    }
+
+    /**
+     * 解析客户端字典
+     *
+     * @param signatures 服务端下发的签名
+     * @return 方法字典
+     */
+    public static MethodDictionary parse(final String signatures) {
+        return signatures == null || signatures.isEmpty() ? null :
+                new MethodDictionary(signatures.split(SEPARATOR), null);
+    }
+
+    /**
+     * 方法签名
+     *
+     * @param method 方法
+     * @return 签名
+     */
+    public static String signature(final Method method) {
+        StringBuilder builder = new StringBuilder(64).append(method.getName()).append('(');
+        Class<?>[] types = method.getParameterTypes();
+        for (int i = 0; i < types.length; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(types[i].getTypeName());
+        }
+        return builder.append(')').toString();
+    }
+
+    /**
+     * 获取方法序号
+     *
+     * @param method 方法
+     * @return 序号，不存在返回-1
+     */
+    public int getId(final Method method) {
+        if (method == null) {
+            return -1;
+        }
+        Integer result = methodIds.get(method);
+        if (result == null) {
+            result = methodIds.computeIfAbsent(method, m -> ids.getOrDefault(signature(m), -1));
+        }
+        return result;
+    }
+
+    /**
+     * 根据序号获取方法
+     *
+     * @param id 序号
+     * @return 方法，不存在返回空
+     */
+    public Method getMethod(final int id) {
+        return methods == null || id < 0 || id >= methods.length ? null : methods[id];
+    }
+
+    public int size() {
+        return ids.size();
+    }
+
+    public String getSignatures() {
+        return signatures;
+    }
+}
@@ -0,0 +1,40 @@
+package io.joyrpc.proxy;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+/**
+ * 方法调用器，按照方法索引直接调用目标对象，替代服务端的反射调用
+ */
+@FunctionalInterface
+public interface MethodCaller {
+
+    /**
+     * 调用方法
+     *
+     * @param target 目标对象
+     * @param index  方法索引，对应创建时传入的方法数组下标
+     * @param args   参数
+     * @return 返回值，void方法返回null
+     * @throws Exception 业务异常，不做包装，Error直接抛出
+     */
+    Object invoke(Object target, int index, Object[] args) throws Exception;
+
+}
@@ -0,0 +1,56 @@
+package io.joyrpc.proxy;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.exception.ProxyException;
+import io.joyrpc.extension.Extensible;
+
+import java.lang.reflect.Method;
+
+/**
+ * 方法调用器工厂类，在服务暴露的时候为接口生成调用器
+ */
+@FunctionalInterface
+@Extensible("methodCaller")
+public interface MethodCallerFactory {
+
+    String METHOD_HANDLE = "methodHandle";
+
+    String REFLECTION = "reflection";
+
+    int ORDER_BYTE_BUDDY = 100;
+
+    int ORDER_JAVASSIST = 101;
+
+    int ORDER_METHOD_HANDLE = 200;
+
+    int ORDER_REFLECTION = 300;
+
+    /**
+     * 创建方法调用器
+     *
+     * @param clz     接口类
+     * @param methods 方法，必须是接口的非静态公共方法
+     * @return 方法调用器
+     * @throws ProxyException
+     */
+    MethodCaller create(Class<?> clz, Method[] methods) throws ProxyException;
+}
@@ -0,0 +1,71 @@
+package io.joyrpc.proxy.jdk;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.exception.ProxyException;
+import io.joyrpc.extension.Extension;
+import io.joyrpc.proxy.MethodCaller;
+import io.joyrpc.proxy.MethodCallerFactory;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import static io.joyrpc.proxy.MethodCallerFactory.METHOD_HANDLE;
+import static io.joyrpc.proxy.MethodCallerFactory.ORDER_METHOD_HANDLE;
+
+/**
+ * 基于MethodHandle的方法调用器，在字节码插件不可用的时候使用
+ */
+@Extension(value = METHOD_HANDLE, order = ORDER_METHOD_HANDLE)
+public class MethodHandleCallerFactory implements MethodCallerFactory {
+
+    /**
+     * 统一的调用类型
+     */
+    protected static final MethodType CALL_TYPE = MethodType.methodType(Object.class, Object.class, Object[].class);
+
+    @Override
+    public MethodCaller create(final Class<?> clz, final Method[] methods) throws ProxyException {
+        MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+        MethodHandle[] handles = new MethodHandle[methods.length];
+        try {
+            for (int i = 0; i < methods.length; i++) {
+                handles[i] = lookup.unreflect(methods[i])
+                        .asSpreader(Object[].class, methods[i].getParameterCount())
+                        .asType(CALL_TYPE);
+            }
+        } catch (IllegalAccessException e) {
+            throw new ProxyException("Error occurred while creating method handle caller of " + clz.getName(), e);
+        }
+        return (target, index, args) -> {
+            try {
+                return handles[index].invokeExact(target, args);
+            } catch (Exception | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new InvocationTargetException(e);
+            }
+        };
+    }
+}
@@ -0,0 +1,56 @@
+package io.joyrpc.proxy.jdk;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.exception.ProxyException;
+import io.joyrpc.extension.Extension;
+import io.joyrpc.proxy.MethodCaller;
+import io.joyrpc.proxy.MethodCallerFactory;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+
+import static io.joyrpc.proxy.MethodCallerFactory.ORDER_REFLECTION;
+import static io.joyrpc.proxy.MethodCallerFactory.REFLECTION;
+
+/**
+ * 基于反射的方法调用器
+ */
+@Extension(value = REFLECTION, order = ORDER_REFLECTION)
+public class ReflectionCallerFactory implements MethodCallerFactory {
+
+    @Override
+    public MethodCaller create(final Class<?> clz, final Method[] methods) throws ProxyException {
+        return (target, index, args) -> {
+            try {
+                return methods[index].invoke(target, args);
+            } catch (InvocationTargetException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof Exception) {
+                    throw (Exception) cause;
+                } else if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw e;
+            }
+        };
+    }
+}
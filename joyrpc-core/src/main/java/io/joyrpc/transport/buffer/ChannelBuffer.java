@@ -112,6 +112,14 @@ public interface ChannelBuffer {
 
     int writableBytes();
 
+    /**
+     * 确保有足够的可写空间，不足则扩容
+     *
+     * @param minWritableBytes 最小可写字节数
+     * @return 缓冲区
+     */
+    ChannelBuffer ensureWritable(int minWritableBytes);
+
     void writeByte(int value);
 
     void writeBytes(byte[] src);
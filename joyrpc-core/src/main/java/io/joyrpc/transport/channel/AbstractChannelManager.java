@@ -90,8 +90,19 @@ public abstract class AbstractChannelManager implements ChannelManager {
             return;
         }
         //创建缓存通道
-        channels.computeIfAbsent(transport.getChannelName(),
-                o -> new PoolChannel(transport, connector, beforeClose)).connect(consumer);
+        select(transport, connector).connect(consumer);
+    }
+
+    /**
+     * 选择通道
+     *
+     * @param transport 客户端通道
+     * @param connector 连接器
+     * @return
+     */
+    protected PoolChannel select(final ClientTransport transport, final Connector connector) {
+        return channels.computeIfAbsent(transport.getChannelName(),
+                o -> new PoolChannel(transport, connector, beforeClose));
     }
 
     @Override
@@ -163,9 +174,24 @@ public abstract class AbstractChannelManager implements ChannelManager {
         protected PoolChannel(final ClientTransport transport,
                               final Connector connector,
                               final Consumer<PoolChannel> beforeClose) {
+            this(transport, transport.getChannelName(), connector, beforeClose);
+        }
+
+        /**
+         * 构造函数
+         *
+         * @param transport
+         * @param name
+         * @param connector
+         * @param beforeClose
+         */
+        protected PoolChannel(final ClientTransport transport,
+                              final String name,
+                              final Connector connector,
+                              final Consumer<PoolChannel> beforeClose) {
             super(null);
             this.publisher = transport.getPublisher();
-            this.name = transport.getChannelName();
+            this.name = name;
             this.connector = connector;
             this.beforeClose = beforeClose;
             this.strategy = transport.getHeartbeatStrategy();
@@ -289,6 +315,29 @@ public abstract class AbstractChannelManager implements ChannelManager {
             return super.isActive() && status == OPENED;
         }
 
+        /**
+         * 引用计数
+         *
+         * @return
+         */
+        public long getRefs() {
+            return counter.get();
+        }
+
+        /**
+         * 待应答的请求数
+         *
+         * @return
+         */
+        public int getRequests() {
+            Channel ch = channel;
+            return ch == null ? 0 : ch.getFutureManager().size();
+        }
+
+        public Status getStatus() {
+            return status;
+        }
+
         @Override
         public boolean close() {
             CountDownLatch latch = new CountDownLatch(1);
@@ -36,6 +36,10 @@ public class EnhanceCompletableFuture<I, M> extends CompletableFuture<M> {
      * 消息ID
      */
     protected final I messageId;
+    /**
+     * 整数键，用于Future管理器的槽位定位，Integer类型的消息ID即为其本身
+     */
+    protected final int key;
     /**
      * 会话
      */
@@ -44,6 +48,10 @@ public class EnhanceCompletableFuture<I, M> extends CompletableFuture<M> {
      * 超时时间
      */
     protected final Timer.Timeout timeout;
+    /**
+     * 过期时间
+     */
+    protected final long expireTime;
     /**
      * Transport上的请求数
      */
@@ -64,15 +72,39 @@ public class EnhanceCompletableFuture<I, M> extends CompletableFuture<M> {
     public EnhanceCompletableFuture(final I messageId, final Session session, final Timer.Timeout timeout,
                                     final AtomicInteger requests) {
         this.messageId = messageId;
+        this.key = messageId == null ? 0 : messageId.hashCode();
         this.session = session;
         this.requests = requests;
         this.timeout = timeout;
+        this.expireTime = Long.MAX_VALUE;
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param messageId
+     * @param session
+     * @param expireTime 过期时间
+     * @param requests
+     */
+    public EnhanceCompletableFuture(final I messageId, final Session session, final long expireTime,
+                                    final AtomicInteger requests) {
+        this.messageId = messageId;
+        this.key = messageId == null ? 0 : messageId.hashCode();
+        this.session = session;
+        this.requests = requests;
+        this.timeout = null;
+        this.expireTime = expireTime;
     }
 
     public I getMessageId() {
         return messageId;
     }
 
+    public int getKey() {
+        return key;
+    }
+
     public Session getSession() {
         return session;
     }
@@ -81,6 +113,10 @@ public class EnhanceCompletableFuture<I, M> extends CompletableFuture<M> {
         return timeout;
     }
 
+    public long getExpireTime() {
+        return expireTime;
+    }
+
     public Object getAttr() {
         return attr;
     }
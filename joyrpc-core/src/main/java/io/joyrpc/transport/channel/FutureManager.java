@@ -23,21 +23,38 @@ package io.joyrpc.transport.channel;
 import io.joyrpc.exception.ChannelClosedException;
 import io.joyrpc.transport.session.Session;
 import io.joyrpc.util.SystemClock;
-import io.joyrpc.util.Timer;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 
 import static io.joyrpc.util.Timer.timer;
 
 /**
+ * Future管理器，按整数消息ID开放寻址存放请求，查找和删除不需要装箱，槽位冲突严重时才放入溢出表。<br/>
+ * 超时检查由每个通道的周期性扫描任务完成，不再为每个请求创建定时任务。
+ *
  * @date: 2019/1/14
  */
 public class FutureManager<I, M> {
+    /**
+     * 默认槽位数
+     */
+    public static final int DEFAULT_CAPACITY = 1024;
+    /**
+     * 超时扫描间隔(毫秒)
+     */
+    public static final long SWEEP_INTERVAL = 100;
+    /**
+     * 超时扫描任务名称
+     */
+    public static final String FUTURE_SWEEP = "FutureSweep-";
     /**
      * 通道
      */
@@ -46,18 +63,30 @@ public class FutureManager<I, M> {
      * ID生成器
      */
     protected Supplier<I> idGenerator;
+    /**
+     * 槽位数
+     */
+    protected int capacity;
     /**
      * 计数器
      */
     protected AtomicInteger counter = new AtomicInteger();
     /**
-     * 消费者
+     * Future管理
      */
-    protected Consumer<I> consumer;
+    protected FutureTable<I, M> futures;
     /**
-     * Future管理，有些连接并发很少不需要初始化
+     * 是否已经调度了超时扫描任务
      */
-    protected Map<I, EnhanceCompletableFuture<I, M>> futures = new ConcurrentHashMap<>();
+    protected AtomicBoolean sweeping = new AtomicBoolean();
+    /**
+     * 超时扫描任务
+     */
+    protected Runnable sweeper = this::sweep;
+    /**
+     * 超时扫描任务名称
+     */
+    protected String sweepName;
 
     /**
      * 构造函数
@@ -66,16 +95,21 @@ public class FutureManager<I, M> {
      * @param idGenerator
      */
     public FutureManager(final Channel channel, final Supplier<I> idGenerator) {
+        this(channel, idGenerator, DEFAULT_CAPACITY);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param channel
+     * @param idGenerator
+     * @param capacity    槽位数，会调整为2的幂
+     */
+    public FutureManager(final Channel channel, final Supplier<I> idGenerator, final int capacity) {
         this.channel = channel;
         this.idGenerator = idGenerator;
-        this.consumer = id -> {
-            EnhanceCompletableFuture<I, M> future = futures.remove(id);
-            if (future != null) {
-                counter.decrementAndGet();
-                //超时
-                future.completeExceptionally(new TimeoutException("future is timeout."));
-            }
-        };
+        this.capacity = capacity <= 0 ? DEFAULT_CAPACITY : Integer.highestOneBit(capacity - 1) << 1;
+        this.futures = new FutureTable<>(this.capacity);
     }
 
     /**
@@ -100,13 +134,19 @@ public class FutureManager<I, M> {
      */
     public EnhanceCompletableFuture<I, M> create(final I messageId, final long timeoutMillis, final Session session,
                                                  final AtomicInteger requests) {
-        return futures.computeIfAbsent(messageId, o -> {
-            //增加计数器
-            counter.incrementAndGet();
-            return new EnhanceCompletableFuture<>(o, session,
-                    timer().add(new FutureTimeoutTask<>(messageId, SystemClock.now() + timeoutMillis, consumer)),
-                    requests);
-        });
+        EnhanceCompletableFuture<I, M> future = new EnhanceCompletableFuture<>(messageId, session,
+                SystemClock.now() + timeoutMillis, requests);
+        EnhanceCompletableFuture<I, M> exists = futures.putIfAbsent(future);
+        if (exists != null) {
+            return exists;
+        }
+        //增加计数器
+        counter.incrementAndGet();
+        //调度超时扫描任务
+        if (sweeping.compareAndSet(false, true)) {
+            schedule();
+        }
+        return future;
     }
 
     /**
@@ -116,6 +156,16 @@ public class FutureManager<I, M> {
      * @return
      */
     public EnhanceCompletableFuture<I, M> get(final I messageId) {
+        return futures.get(messageId.hashCode());
+    }
+
+    /**
+     * 根据整数消息ID获取future，不需要装箱
+     *
+     * @param messageId
+     * @return
+     */
+    public EnhanceCompletableFuture<I, M> get(final int messageId) {
         return futures.get(messageId);
     }
 
@@ -126,9 +176,19 @@ public class FutureManager<I, M> {
      * @return
      */
     public EnhanceCompletableFuture<I, M> remove(final I messageId) {
+        return remove(messageId.hashCode());
+    }
+
+    /**
+     * 根据整数消息ID移除，不需要装箱
+     *
+     * @param messageId
+     * @return
+     */
+    public EnhanceCompletableFuture<I, M> remove(final int messageId) {
         EnhanceCompletableFuture<I, M> result = futures.remove(messageId);
         if (result != null) {
-            //放弃过期检查任务
+            //减少请求数
             result.cancel();
             //减少计数器
             counter.decrementAndGet();
@@ -148,12 +208,11 @@ public class FutureManager<I, M> {
      * @return
      */
     public void close() {
-        Map<I, EnhanceCompletableFuture<I, M>> futures = this.futures;
-        this.futures = new ConcurrentHashMap<>();
+        FutureTable<I, M> futures = this.futures;
+        this.futures = new FutureTable<>(capacity);
         this.counter = new AtomicInteger();
-        Exception exception = new ChannelClosedException("channel is inactive, address is " + channel.getRemoteAddress());
-        futures.forEach((id, future) -> future.cancel(exception));
-        futures.clear();
+        Exception exception = new ChannelClosedException("channel is inactive, address is " + (channel == null ? null : channel.getRemoteAddress()));
+        futures.removeIf(future -> true, future -> future.cancel(exception));
     }
 
     /**
@@ -184,51 +243,154 @@ public class FutureManager<I, M> {
     }
 
     /**
-     * Future超时检查任务
+     * 调度超时扫描任务
+     */
+    protected void schedule() {
+        if (sweepName == null) {
+            sweepName = FUTURE_SWEEP + (channel == null ? "" : Channel.toString(channel));
+        }
+        timer().add(sweepName, SystemClock.now() + SWEEP_INTERVAL, sweeper);
+    }
+
+    /**
+     * 扫描超时的请求
+     */
+    protected void sweep() {
+        long now = SystemClock.now();
+        AtomicInteger counter = this.counter;
+        this.futures.removeIf(future -> future.getExpireTime() <= now, future -> {
+            counter.decrementAndGet();
+            //超时
+            future.completeExceptionally(new TimeoutException("future is timeout."));
+        });
+        if (!isEmpty()) {
+            //还有待应答的请求，继续扫描
+            schedule();
+        } else {
+            sweeping.set(false);
+            //双重检查，防止在修改状态前创建了新的请求
+            if (!isEmpty() && sweeping.compareAndSet(false, true)) {
+                schedule();
+            }
+        }
+    }
+
+    /**
+     * Future存储，以整数消息ID为键的开放寻址表，Integer类型的消息ID即按ID取模。<br/>
+     * 消息ID是递增的，正常情况下首个槽位即命中；槽位被长时间未应答的请求占用时，向后探测有限个槽位，
+     * 都被占用才放入溢出表。删除直接置空槽位，查找时会探测全部的候选槽位，因此不需要墓碑标记。
      *
      * @param <I>
+     * @param <M>
      */
-    protected static class FutureTimeoutTask<I> implements Timer.TimeTask {
-        public static final String FUTURE_TIMEOUT = "FutureTimeout-";
+    protected static class FutureTable<I, M> {
         /**
-         * 消息ID
+         * 最大探测槽位数
          */
-        protected I messageId;
+        protected static final int PROBES = 4;
         /**
-         * 时间
+         * 槽位
          */
-        protected long time;
+        protected final AtomicReferenceArray<EnhanceCompletableFuture<I, M>> slots;
         /**
-         * 执行回调的消费者
+         * 掩码
          */
-        protected Consumer<I> consumer;
+        protected final int mask;
+        /**
+         * 溢出表，只有在探测的槽位都被占用时使用
+         */
+        protected final Map<Integer, EnhanceCompletableFuture<I, M>> overflows = new ConcurrentHashMap<>();
 
         /**
          * 构造函数
          *
-         * @param messageId
-         * @param time
-         * @param consumer
+         * @param capacity 槽位数，必须是2的幂
          */
-        public FutureTimeoutTask(I messageId, long time, Consumer<I> consumer) {
-            this.messageId = messageId;
-            this.time = time;
-            this.consumer = consumer;
+        public FutureTable(final int capacity) {
+            this.slots = new AtomicReferenceArray<>(capacity);
+            this.mask = capacity - 1;
         }
 
-        @Override
-        public String getName() {
-            return FUTURE_TIMEOUT + messageId.toString();
+        /**
+         * 添加，如果已经存在则返回存在的对象
+         *
+         * @param future
+         * @return
+         */
+        public EnhanceCompletableFuture<I, M> putIfAbsent(final EnhanceCompletableFuture<I, M> future) {
+            int key = future.getKey();
+            EnhanceCompletableFuture<I, M> exists = get(key);
+            if (exists != null) {
+                return exists;
+            }
+            int index;
+            for (int i = 0; i < PROBES; i++) {
+                index = (key + i) & mask;
+                if (slots.get(index) == null && slots.compareAndSet(index, null, future)) {
+                    return null;
+                }
+            }
+            return overflows.putIfAbsent(key, future);
+        }
+
+        /**
+         * 获取
+         *
+         * @param key
+         * @return
+         */
+        public EnhanceCompletableFuture<I, M> get(final int key) {
+            EnhanceCompletableFuture<I, M> result;
+            for (int i = 0; i < PROBES; i++) {
+                result = slots.get((key + i) & mask);
+                if (result != null && result.getKey() == key) {
+                    return result;
+                }
+            }
+            return overflows.isEmpty() ? null : overflows.get(key);
         }
 
-        @Override
-        public long getTime() {
-            return time;
+        /**
+         * 删除
+         *
+         * @param key
+         * @return
+         */
+        public EnhanceCompletableFuture<I, M> remove(final int key) {
+            int index;
+            EnhanceCompletableFuture<I, M> result;
+            for (int i = 0; i < PROBES; i++) {
+                index = (key + i) & mask;
+                result = slots.get(index);
+                if (result != null && result.getKey() == key) {
+                    return slots.compareAndSet(index, result, null) ? result : null;
+                }
+            }
+            return overflows.isEmpty() ? null : overflows.remove(key);
         }
 
-        @Override
-        public void run() {
-            consumer.accept(messageId);
+        /**
+         * 删除满足条件的Future，并对成功删除的Future执行消费者
+         *
+         * @param predicate 条件
+         * @param consumer  消费者
+         */
+        public void removeIf(final Predicate<EnhanceCompletableFuture<I, M>> predicate,
+                             final Consumer<EnhanceCompletableFuture<I, M>> consumer) {
+            EnhanceCompletableFuture<I, M> future;
+            for (int i = 0; i < slots.length(); i++) {
+                future = slots.get(i);
+                if (future != null && predicate.test(future) && slots.compareAndSet(i, future, null)) {
+                    consumer.accept(future);
+                }
+            }
+            if (!overflows.isEmpty()) {
+                overflows.forEach((id, f) -> {
+                    if (predicate.test(f) && overflows.remove(id, f)) {
+                        consumer.accept(f);
+                    }
+                });
+            }
         }
     }
 
@@ -0,0 +1,126 @@
+package io.joyrpc.transport.channel;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+
+import io.joyrpc.extension.URL;
+import io.joyrpc.transport.transport.ClientTransport;
+import io.joyrpc.util.Status;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static io.joyrpc.constants.Constants.POOLED_CONNECTIONS_OPTION;
+import static io.joyrpc.constants.Constants.POOLED_GROW_THRESHOLD_OPTION;
+
+/**
+ * 连接池通道管理器，每个服务端地址最多保持N个连接，客户端通道绑定到负载最小的连接上
+ */
+public class PooledChannelManager extends AbstractChannelManager implements ChannelManager {
+
+    /**
+     * 最大连接数
+     */
+    protected int connections;
+    /**
+     * 已有连接的待应答请求数都达到该阈值才创建新连接
+     */
+    protected int growThreshold;
+
+    public PooledChannelManager(URL url) {
+        super(url);
+        this.connections = url.getPositiveInt(POOLED_CONNECTIONS_OPTION);
+        this.growThreshold = url.getNaturalInt(POOLED_GROW_THRESHOLD_OPTION);
+    }
+
+    @Override
+    public String getChannelKey(final ClientTransport transport) {
+        if (transport == null) {
+            return null;
+        }
+        URL url = transport.getUrl();
+        return "ch-pooled-" + url.getProtocol() + "-" + url.getHost() + "-" + url.getPort();
+    }
+
+    @Override
+    protected PoolChannel select(final ClientTransport transport, final Connector connector) {
+        String key = transport.getChannelName();
+        PoolChannel best = null;
+        long bestLoad = Long.MAX_VALUE;
+        int free = -1;
+        PoolChannel channel;
+        long load;
+        for (int i = 0; i < connections; i++) {
+            channel = channels.get(getChannelName(key, i));
+            if (channel == null || channel.getStatus().isClose()) {
+                //空闲的位置
+                if (free < 0) {
+                    free = i;
+                }
+            } else {
+                load = getLoad(channel);
+                if (load < bestLoad) {
+                    best = channel;
+                    bestLoad = load;
+                }
+            }
+        }
+        if (free >= 0 && (best == null || bestLoad >= growThreshold)) {
+            //已有连接负载较高，创建新连接
+            String name = getChannelName(key, free);
+            return channels.computeIfAbsent(name, o -> new PoolChannel(transport, name, connector, beforeClose));
+        }
+        return best;
+    }
+
+    /**
+     * 计算连接的负载，不可写的连接认为已经饱和
+     *
+     * @param channel 连接
+     * @return
+     */
+    protected long getLoad(final PoolChannel channel) {
+        return channel.getStatus() == Status.OPENED && !channel.isWritable() ? Integer.MAX_VALUE : channel.getRequests();
+    }
+
+    /**
+     * 获取连接池中的连接名称
+     *
+     * @param key   服务端地址
+     * @param index 序号
+     * @return
+     */
+    protected String getChannelName(final String key, final int index) {
+        return key + "-" + index;
+    }
+
+    /**
+     * 获取每个连接的待应答请求数
+     *
+     * @return
+     */
+    public Map<String, Integer> getLoads() {
+        Map<String, Integer> result = new HashMap<>(channels.size());
+        channels.forEach((name, channel) -> result.put(name, channel.getRequests()));
+        return result;
+    }
+
+}
@@ -24,6 +24,7 @@ import io.joyrpc.codec.checksum.Checksum;
 import io.joyrpc.codec.compression.Compression;
 import io.joyrpc.codec.serialization.Serialization;
 import io.joyrpc.constants.Constants;
+import io.joyrpc.protocol.message.negotiation.MethodDictionary;
 
 import java.util.List;
 import java.util.Map;
@@ -126,6 +127,11 @@ public class DefaultSession implements Session {
      */
     protected String remoteAppGroup;
 
+    /**
+     * 接口方法字典
+     */
+    protected MethodDictionary methodDictionary;
+
     /**
      * 会话属性集
      */
@@ -270,6 +276,25 @@ public class DefaultSession implements Session {
         return alias;
     }
 
+    /**
+     * 获取接口方法字典，客户端根据服务端下发的签名构建
+     *
+     * @return 方法字典
+     */
+    public MethodDictionary getMethodDictionary() {
+        if (methodDictionary == null) {
+            String signatures = attrs.get(METHOD_SIGNATURES_KEY);
+            if (signatures != null) {
+                methodDictionary = MethodDictionary.parse(signatures);
+            }
+        }
+        return methodDictionary;
+    }
+
+    public void setMethodDictionary(MethodDictionary methodDictionary) {
+        this.methodDictionary = methodDictionary;
+    }
+
     public String getRemoteJavaVersion() {
         if (remoteJavaVersion == null) {
             remoteJavaVersion = attrs.get(Constants.JAVA_VERSION_KEY);
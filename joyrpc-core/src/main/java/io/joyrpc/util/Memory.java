@@ -23,6 +23,8 @@ package io.joyrpc.util;
 import sun.misc.Unsafe;
 
 import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
 import java.security.AccessController;
 import java.security.PrivilegedExceptionAction;
@@ -164,6 +166,35 @@ public class Memory {
         memory.copyMemory(src, srcIndex, dest, destIndex, length);
     }
 
+    /**
+     * 释放直接内存缓冲区，内存映射的缓冲区会立即解除映射，不用等待GC。释放后不能再访问该缓冲区
+     *
+     * @param buffer 缓冲区
+     * @return 成功标识
+     */
+    public static boolean free(final ByteBuffer buffer) {
+        if (buffer == null || !buffer.isDirect()) {
+            return false;
+        }
+        try {
+            try {
+                //JDK9及以上
+                Method method = Unsafe.class.getMethod("invokeCleaner", ByteBuffer.class);
+                method.invoke(UNSAFE, buffer);
+            } catch (NoSuchMethodException e) {
+                //JDK8
+                Method method = buffer.getClass().getMethod("cleaner");
+                method.setAccessible(true);
+                Object cleaner = method.invoke(buffer);
+                if (cleaner != null) {
+                    cleaner.getClass().getMethod("clean").invoke(cleaner);
+                }
+            }
+            return true;
+        } catch (Exception e) {
+            return false;
+        }
+    }
 
     /**
      * 内存操作
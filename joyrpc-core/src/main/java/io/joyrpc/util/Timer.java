@@ -26,8 +26,6 @@ import io.joyrpc.thread.NamedThreadFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.LinkedList;
-import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
@@ -35,10 +33,13 @@ import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 import static io.joyrpc.Plugin.ENVIRONMENT;
+import static io.joyrpc.constants.Constants.TIMER_SHARDS;
 import static io.joyrpc.constants.Constants.TIMER_THREADS;
+import static io.joyrpc.constants.Constants.TIMER_TICKS;
+import static io.joyrpc.constants.Constants.TIMER_TICK_TIME;
 
 /**
- * 时间轮调度器
+ * 时间轮调度器，按照提交线程分片，每个分片有独立的时间轮和驱动线程，降低多核下的竞争
  */
 public class Timer {
 
@@ -50,13 +51,9 @@ public class Timer {
     protected static volatile Timer timer;
 
     /**
-     * 延迟队列
+     * 分片
      */
-    protected DelayQueue<Slot> queue;
-    /**
-     * 底层时间轮
-     */
-    protected TimeWheel timeWheel;
+    protected Shard[] shards;
     /**
      * 过期任务执行线程
      */
@@ -66,33 +63,13 @@ public class Timer {
      */
     protected ExecutorService bossPool;
     /**
-     * 放弃的任务
-     */
-    protected Queue<Task> cancels = new ConcurrentLinkedQueue<>();
-    /**
-     * 待分配的任务，防止并发
-     */
-    protected Queue<Task> flying = new ConcurrentLinkedQueue<>();
-    /**
-     * 待处理的任务计数
+     * 待处理的任务计数，只有设置了最大待处理任务才计数
      */
     protected AtomicLong tasks = new AtomicLong(0);
     /**
      * 最大待处理任务
      */
     protected long maxTasks;
-    /**
-     * 任务执行完毕的消费者
-     */
-    protected Consumer<Task> afterRun;
-    /**
-     * 放弃的消费者
-     */
-    protected Consumer<Task> afterCancel;
-    /**
-     * 任务执行之前的消费者
-     */
-    protected Consumer<Task> beforeRun;
 
     /**
      * 构造函数
@@ -127,51 +104,39 @@ public class Timer {
      * @param maxTasks      最大待处理任务
      */
     public Timer(final String name, final long tickTime, final int ticks, final int workerThreads, final long maxTasks) {
+        this(name, tickTime, ticks, workerThreads, maxTasks, 1);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param name          名称
+     * @param tickTime      每一跳时间
+     * @param ticks         时间轮有几条
+     * @param workerThreads 工作线程数
+     * @param maxTasks      最大待处理任务
+     * @param shards        分片数
+     */
+    public Timer(final String name, final long tickTime, final int ticks, final int workerThreads,
+                 final long maxTasks, final int shards) {
         if (tickTime <= 0) {
             throw new IllegalArgumentException("tickTime must be greater than 0");
         } else if (ticks <= 0) {
             throw new IllegalArgumentException("ticks must be greater than 0");
         } else if (workerThreads <= 0) {
             throw new IllegalArgumentException("workerThreads must be greater than 0");
+        } else if (shards <= 0) {
+            throw new IllegalArgumentException("shards must be greater than 0");
         }
         this.maxTasks = maxTasks;
-        this.afterRun = o -> tasks.decrementAndGet();
-        this.afterCancel = this::cancel;
-        this.beforeRun = this::supply;
-        this.queue = new DelayQueue<>();
-        this.timeWheel = new TimeWheel(tickTime, ticks, SystemClock.now(), queue);
         String prefix = name == null || name.isEmpty() ? "timer" : name;
         this.workerPool = Executors.newFixedThreadPool(workerThreads, new NamedThreadFactory(prefix + "-worker", true));
-        this.bossPool = Executors.newFixedThreadPool(1, new NamedThreadFactory(prefix + "-boss", true));
-        this.bossPool.submit(() -> {
-            while (!Shutdown.isShutdown()) {
-                try {
-                    //拉取一跳时间
-                    Slot slot = queue.poll(timeWheel.tickTime, TimeUnit.MILLISECONDS);
-                    if (!Shutdown.isShutdown()) {
-                        //处理放弃的任务
-                        cancel();
-                        //添加新增的任务，如果当前任务已经过期则立刻执行，否则放入后续的槽中
-                        supply();
-                        if (slot != null) {
-                            //推进一跳
-                            timeWheel.advance(slot.expiration);
-                            //执行任务
-                            slot.flush(beforeRun);
-                        } else {
-                            //推进一跳
-                            timeWheel.advance(timeWheel.now + timeWheel.tickTime);
-                        }
-                    }
-                } catch (InterruptedException e) {
-                    logger.error(e.getMessage(), e);
-                    break;
-                } catch (Exception e) {
-                    logger.error(e.getMessage(), e);
-                    throw e;
-                }
-            }
-        });
+        this.bossPool = Executors.newFixedThreadPool(shards, new NamedThreadFactory(prefix + "-boss", true));
+        this.shards = new Shard[shards];
+        for (int i = 0; i < shards; i++) {
+            this.shards[i] = new Shard(tickTime, ticks);
+            this.bossPool.submit(this.shards[i]);
+        }
     }
 
     /**
@@ -184,56 +149,19 @@ public class Timer {
             synchronized (Timer.class) {
                 if (timer == null) {
                     Parametric parametric = GlobalContext.asParametric();
-                    timer = new Timer("default", 200, 300,
-                            parametric.getPositive(TIMER_THREADS, Math.min(ENVIRONMENT.get().cpuCores() * 2 + 2, 10)));
+                    int cpus = ENVIRONMENT.get().cpuCores();
+                    timer = new Timer("default",
+                            parametric.getPositive(TIMER_TICK_TIME, 10L),
+                            parametric.getPositive(TIMER_TICKS, 512),
+                            parametric.getPositive(TIMER_THREADS, Math.min(cpus * 2 + 2, 10)),
+                            0,
+                            parametric.getPositive(TIMER_SHARDS, Math.min(cpus, 4)));
                 }
             }
         }
         return timer;
     }
 
-    /**
-     * 放弃任务
-     */
-    protected void cancel() {
-        Task task;
-        //移除放弃的任务
-        while ((task = cancels.poll()) != null) {
-            //放弃任务，进入队列之前已经修改了计数器，这里不需要再处理。
-            task.remove();
-        }
-    }
-
-    /**
-     * 添加任务
-     */
-    protected void supply() {
-        Task task;
-        //添加任务，1跳最多10万次
-        for (int i = 0; i < 100000; i++) {
-            task = flying.poll();
-            if (task == null) {
-                break;
-            }
-            if (!task.isCancelled()) {
-                supply(task);
-            }
-        }
-    }
-
-    /**
-     * 添加任务
-     *
-     * @param task 任务
-     * @return
-     */
-    protected void supply(final Task task) {
-        //添加失败任务直接执行
-        if (!timeWheel.add(task)) {
-            workerPool.submit(task);
-        }
-    }
-
     /**
      * 添加任务，至少需要一跳
      *
@@ -243,42 +171,177 @@ public class Timer {
      * @return
      */
     public Timeout add(final String name, final long time, final Runnable runnable) {
-        return runnable == null ? null : add(new Task(name, timeWheel.getLeastOneTick(time), runnable, afterRun, afterCancel));
+        return runnable == null ? null : getShard().add(name, time, runnable);
     }
 
     /**
-     * 添加任务，至少需要一条
+     * 添加任务，至少需要一条。任务名称在需要的时候才获取
      *
      * @param task 任务
      * @return
      */
     public Timeout add(final TimeTask task) {
-        return task == null ? null : add(new Task(task.getName(), timeWheel.getLeastOneTick(task.getTime()), task, afterRun, afterCancel));
+        return task == null ? null : getShard().add(null, task.getTime(), task);
     }
 
     /**
-     * 添加任务
+     * 获取当前线程对应的分片，同一个线程（如IO线程）的任务总是落在同一个分片
      *
-     * @param task 任务
-     * @return
+     * @return 分片
      */
-    protected Timeout add(final Task task) {
-        if (maxTasks > 0 && tasks.incrementAndGet() > maxTasks) {
-            tasks.decrementAndGet();
-            throw new RejectedExecutionException("the maximum of pending tasks is " + maxTasks);
-        }
-        flying.add(task);
-        return task;
+    protected Shard getShard() {
+        return shards.length == 1 ? shards[0] : shards[(int) (Thread.currentThread().getId() % shards.length)];
     }
 
     /**
-     * 放弃任务
-     *
-     * @param task
+     * 分片，独立的时间轮、延迟队列和驱动线程。新增和放弃的任务先放入分片的收件队列，由驱动线程单线程处理
      */
-    protected void cancel(final Task task) {
-        tasks.decrementAndGet();
-        cancels.add(task);
+    protected class Shard implements Runnable {
+        /**
+         * 延迟队列
+         */
+        protected DelayQueue<Slot> queue;
+        /**
+         * 底层时间轮
+         */
+        protected TimeWheel timeWheel;
+        /**
+         * 放弃的任务
+         */
+        protected Queue<Task> cancels = new ConcurrentLinkedQueue<>();
+        /**
+         * 待分配的任务，防止并发
+         */
+        protected Queue<Task> flying = new ConcurrentLinkedQueue<>();
+        /**
+         * 任务执行完毕的消费者
+         */
+        protected Consumer<Task> afterRun;
+        /**
+         * 放弃的消费者
+         */
+        protected Consumer<Task> afterCancel;
+        /**
+         * 任务执行之前的消费者
+         */
+        protected Consumer<Task> beforeRun;
+
+        /**
+         * 构造函数
+         *
+         * @param tickTime 每一跳时间
+         * @param ticks    时间轮有几条
+         */
+        public Shard(final long tickTime, final int ticks) {
+            this.afterRun = maxTasks > 0 ? o -> tasks.decrementAndGet() : null;
+            this.afterCancel = this::cancel;
+            this.beforeRun = this::supply;
+            this.queue = new DelayQueue<>();
+            this.timeWheel = new TimeWheel(tickTime, ticks, SystemClock.now(), queue);
+        }
+
+        @Override
+        public void run() {
+            long tickTime = timeWheel.tickTime;
+            Slot slot;
+            while (!Shutdown.isShutdown()) {
+                try {
+                    //拉取一跳时间
+                    slot = queue.poll(tickTime, TimeUnit.MILLISECONDS);
+                    if (!Shutdown.isShutdown()) {
+                        //处理放弃的任务
+                        cancel();
+                        //推进到当前时间
+                        timeWheel.advance(SystemClock.now());
+                        //执行所有已经过期的槽，槽里面没有到期的任务会重新放入时间轮
+                        while (slot != null) {
+                            slot.flush(beforeRun);
+                            slot = queue.poll();
+                        }
+                        //添加新增的任务，如果当前任务已经过期则立刻执行，否则放入后续的槽中
+                        supply();
+                    }
+                } catch (InterruptedException e) {
+                    logger.error(e.getMessage(), e);
+                    break;
+                } catch (Exception e) {
+                    logger.error(e.getMessage(), e);
+                    throw e;
+                }
+            }
+        }
+
+        /**
+         * 添加任务
+         *
+         * @param name     名称
+         * @param time     任务执行时间
+         * @param runnable 执行任务
+         * @return
+         */
+        protected Timeout add(final String name, final long time, final Runnable runnable) {
+            if (maxTasks > 0 && tasks.incrementAndGet() > maxTasks) {
+                tasks.decrementAndGet();
+                throw new RejectedExecutionException("the maximum of pending tasks is " + maxTasks);
+            }
+            Task task = new Task(name, timeWheel.getLeastOneTick(time), runnable, afterRun, afterCancel);
+            flying.add(task);
+            return task;
+        }
+
+        /**
+         * 放弃任务
+         */
+        protected void cancel() {
+            Task task;
+            //移除放弃的任务
+            while ((task = cancels.poll()) != null) {
+                //放弃任务，进入队列之前已经修改了计数器，这里不需要再处理。
+                task.remove();
+            }
+        }
+
+        /**
+         * 放弃任务
+         *
+         * @param task
+         */
+        protected void cancel(final Task task) {
+            if (maxTasks > 0) {
+                tasks.decrementAndGet();
+            }
+            cancels.add(task);
+        }
+
+        /**
+         * 添加任务
+         */
+        protected void supply() {
+            Task task;
+            //添加任务，1跳最多10万次
+            for (int i = 0; i < 100000; i++) {
+                task = flying.poll();
+                if (task == null) {
+                    break;
+                }
+                if (!task.isCancelled()) {
+                    supply(task);
+                }
+            }
+        }
+
+        /**
+         * 添加任务
+         *
+         * @param task 任务
+         * @return
+         */
+        protected void supply(final Task task) {
+            //添加失败任务直接执行
+            if (!timeWheel.add(task)) {
+                workerPool.submit(task);
+            }
+        }
     }
 
     /**
@@ -317,6 +380,10 @@ public class Timer {
          * 下一层时间轮
          */
         protected TimeWheel next;
+        /**
+         * 是否是底层时间轮
+         */
+        protected boolean bottom;
 
         /**
          * 时间轮
@@ -327,7 +394,22 @@ public class Timer {
          * @param queue
          */
         public TimeWheel(final long tickTime, final int ticks, final long now, final DelayQueue<Slot> queue) {
+            this(tickTime, ticks, now, queue, true);
+        }
+
+        /**
+         * 时间轮
+         *
+         * @param tickTime
+         * @param ticks
+         * @param now
+         * @param queue
+         * @param bottom
+         */
+        protected TimeWheel(final long tickTime, final int ticks, final long now, final DelayQueue<Slot> queue,
+                            final boolean bottom) {
             this.tickTime = tickTime;
+            this.bottom = bottom;
             this.ticks = ticks;
             this.duration = ticks * tickTime;
             this.slots = new Slot[ticks];
@@ -348,7 +430,7 @@ public class Timer {
          */
         protected TimeWheel getNext() {
             if (next == null) {
-                next = new TimeWheel(duration, ticks, now, queue);
+                next = new TimeWheel(duration, ticks, now, queue, false);
             }
             return next;
         }
@@ -368,13 +450,17 @@ public class Timer {
          */
         public boolean add(final Task task) {
             long time = task.getTime() - now;
-            if (time < tickTime) {
+            if (time <= 0) {
                 //过期任务直接执行
                 return false;
-            } else if (time < duration) {
-                //该任务在一个时间轮里面，则加入到对应的时间槽
-                int count = (int) (time / tickTime);
-                Slot slot = slots[(count + index) % ticks];
+            }
+            //底层时间轮向上取整保证任务不会提前执行，上层时间轮向下取整保证任务及时降到底层时间轮。
+            //底层时间轮向上取整后可能等于跳数，会落到当前槽，需要放到上层时间轮；
+            //上层时间轮至少放到下一跳，避免放到已经过期的当前槽，导致反复刷新
+            long count = bottom ? (time + tickTime - 1) / tickTime : Math.max(1, time / tickTime);
+            if (count < ticks) {
+                //该任务在一个时间轮里面，则加入到对应的时间槽。
+                Slot slot = slots[(int) ((count + index) % ticks)];
                 //添加到槽里面
                 if (slot.add(task, now + count * tickTime) == Slot.HEAD) {
                     queue.offer(slot);
@@ -387,15 +473,13 @@ public class Timer {
         }
 
         /**
-         * 推进时间
+         * 推进时间，按照经过的跳数移动槽的位置
          */
         public void advance(final long timestamp) {
             if (timestamp >= now + tickTime) {
-                now = timestamp - (timestamp % tickTime);
-                index++;
-                if (index >= ticks) {
-                    index = 0;
-                }
+                long current = timestamp - (timestamp % tickTime);
+                index = (int) ((index + (current - now) / tickTime) % ticks);
+                now = current;
                 if (next != null) {
                     //推进下层时间轮时间
                     next.advance(timestamp);
@@ -415,7 +499,7 @@ public class Timer {
                 AtomicIntegerFieldUpdater.newUpdater(Task.class, "state");
 
         /**
-         * 名称
+         * 名称，为空的时候从TimeTask延迟获取
          */
         protected String name;
         /**
@@ -478,9 +562,19 @@ public class Timer {
             return time;
         }
 
+        /**
+         * 获取名称
+         *
+         * @return 名称
+         */
+        public String getName() {
+            return name == null && runnable instanceof TimeTask ? ((TimeTask) runnable).getName() : name;
+        }
+
         @Override
         public String toString() {
-            return name == null || name.isEmpty() ? super.toString() : name;
+            String result = getName();
+            return result == null || result.isEmpty() ? super.toString() : result;
         }
 
         @Override
@@ -584,20 +678,24 @@ public class Timer {
         }
 
         /**
-         * 当前槽已经过期，执行任务
+         * 当前槽已经过期，摘下整个链表后执行任务
          *
          * @param consumer 消费者
          */
         protected void flush(final Consumer<Task> consumer) {
-            List<Task> ts = new LinkedList<>();
             Task task = root.next;
+            Task next;
+            root.next = root;
+            root.pre = root;
+            expiration = -1L;
             while (task != root) {
-                remove(task);
-                ts.add(task);
-                task = root.next;
+                next = task.next;
+                task.slot = null;
+                task.next = null;
+                task.pre = null;
+                consumer.accept(task);
+                task = next;
             }
-            expiration = -1L;
-            ts.forEach(consumer);
         }
 
         @Override
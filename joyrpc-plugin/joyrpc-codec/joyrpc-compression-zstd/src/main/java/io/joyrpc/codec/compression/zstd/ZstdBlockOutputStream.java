@@ -0,0 +1,101 @@
+package io.joyrpc.codec.compression.zstd;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.github.luben.zstd.Zstd;
+import io.joyrpc.codec.compression.Finishable;
+import io.joyrpc.codec.serialization.UnsafeByteArrayOutputStream;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * zstd块压缩输出流，缓存全部数据，结束的时候一次性压缩，帧头包含原始大小和字典标识
+ */
+public class ZstdBlockOutputStream extends UnsafeByteArrayOutputStream implements Finishable {
+
+    /**
+     * 输出流
+     */
+    protected final OutputStream out;
+    /**
+     * 压缩级别
+     */
+    protected final int level;
+    /**
+     * 字典
+     */
+    protected final ZstdDictionary dictionary;
+    /**
+     * 采样器
+     */
+    protected final ZstdTrainer.Sampler sampler;
+    /**
+     * 是否结束
+     */
+    protected boolean finished;
+
+    /**
+     * 构造函数
+     *
+     * @param out        输出流
+     * @param level      压缩级别
+     * @param dictionary 字典
+     * @param sampler    采样器
+     */
+    public ZstdBlockOutputStream(final OutputStream out, final int level,
+                                 final ZstdDictionary dictionary, final ZstdTrainer.Sampler sampler) {
+        super(1024);
+        this.out = out;
+        this.level = level;
+        this.dictionary = dictionary;
+        this.sampler = sampler;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        //结束的时候才压缩输出
+    }
+
+    @Override
+    public void finish() throws IOException {
+        if (!finished) {
+            finished = true;
+            if (sampler != null) {
+                sampler.sample(buf, 0, count);
+            }
+            byte[] target = new byte[(int) Zstd.compressBound(count)];
+            long size = dictionary == null ?
+                    Zstd.compressByteArray(target, 0, target.length, buf, 0, count, level) :
+                    Zstd.compressFastDict(target, 0, buf, 0, count, dictionary.getCompress());
+            if (Zstd.isError(size)) {
+                throw new IOException("Error occurs while compressing by zstd. " + Zstd.getErrorName(size));
+            }
+            out.write(target, 0, (int) size);
+            out.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        finish();
+    }
+}
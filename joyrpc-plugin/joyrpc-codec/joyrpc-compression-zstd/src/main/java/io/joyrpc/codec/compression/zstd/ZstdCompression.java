@@ -0,0 +1,269 @@
+package io.joyrpc.codec.compression.zstd;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdInputStream;
+import io.joyrpc.codec.compression.Compression;
+import io.joyrpc.codec.compression.DictionaryCompression;
+import io.joyrpc.codec.serialization.UnsafeByteArrayInputStream;
+import io.joyrpc.codec.serialization.UnsafeByteArrayOutputStream;
+import io.joyrpc.context.GlobalContext;
+import io.joyrpc.extension.Extension;
+import io.joyrpc.extension.Parametric;
+import io.joyrpc.extension.condition.ConditionalOnClass;
+import io.joyrpc.transport.session.Session;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+import static io.joyrpc.constants.Constants.*;
+
+/**
+ * zstd压缩算法，支持按照接口方法训练字典。<br/>
+ * 压缩帧头包含字典标识，对端在协商的时候声明持有的字典，只有对端持有的字典才会被用于压缩。
+ */
+@Extension(value = "zstd", provider = "zstd-jni", order = Compression.ZSTD_ORDER)
+@ConditionalOnClass("com.github.luben.zstd.Zstd")
+public class ZstdCompression implements DictionaryCompression {
+
+    /**
+     * 对端字典的会话属性
+     */
+    protected static final String PEER_DICTIONARIES = DICTIONARY_PREFIX + "zstd";
+
+    /**
+     * 压缩级别
+     */
+    protected int level;
+    /**
+     * 绑定字典后的压缩阈值
+     */
+    protected int threshold;
+    /**
+     * 解压后的最大字节数
+     */
+    protected int maxSize;
+    /**
+     * 字典仓库
+     */
+    protected ZstdDictionaries dictionaries;
+    /**
+     * 字典训练器
+     */
+    protected ZstdTrainer trainer;
+    /**
+     * 是否初始化
+     */
+    protected volatile boolean initialized;
+
+    @Override
+    public byte getTypeId() {
+        return ZSTD;
+    }
+
+    @Override
+    public String getTypeName() {
+        return "zstd";
+    }
+
+    /**
+     * 延迟初始化，确保全局参数已经加载
+     */
+    protected void initialize() {
+        if (!initialized) {
+            synchronized (this) {
+                if (!initialized) {
+                    Parametric parametric = GlobalContext.asParametric();
+                    level = parametric.getInteger(ZSTD_LEVEL, 3);
+                    threshold = parametric.getPositive(ZSTD_THRESHOLD, 64);
+                    maxSize = parametric.getPositive(ZSTD_MAX_SIZE, parametric.getPositive(PAYLOAD.getName(), DEFAULT_PAYLOAD));
+                    String path = parametric.getString(ZSTD_DICTIONARY_PATH);
+                    dictionaries = new ZstdDictionaries(path == null || path.isEmpty() ? null : new File(path), level);
+                    dictionaries.load();
+                    int samples = parametric.getInteger(ZSTD_TRAIN_SAMPLES, 0);
+                    if (samples > 0) {
+                        trainer = new ZstdTrainer(samples,
+                                parametric.getPositive(ZSTD_TRAIN_INTERVAL, 16),
+                                parametric.getPositive(ZSTD_DICTIONARY_SIZE, 16 * 1024),
+                                level,
+                                dictionary -> {
+                                    dictionaries.add(dictionary);
+                                    dictionaries.save(dictionary);
+                                });
+                    }
+                    initialized = true;
+                }
+            }
+        }
+    }
+
+    @Override
+    public String getDictionaries() {
+        initialize();
+        return dictionaries.getIdentities();
+    }
+
+    @Override
+    public int getThreshold() {
+        initialize();
+        return threshold;
+    }
+
+    @Override
+    public Compression bind(final String className, final String methodName, final Session session) {
+        initialize();
+        ZstdDictionary dictionary = dictionaries.get(className, methodName);
+        if (dictionary != null && session != null
+                && ZstdDictionaries.contains(session.get(PEER_DICTIONARIES), dictionary.getId())) {
+            return new BoundCompression(dictionary, null);
+        }
+        ZstdTrainer.Sampler sampler = dictionary != null || trainer == null ? null : trainer.getSampler(className, methodName);
+        return sampler == null ? null : new BoundCompression(null, sampler);
+    }
+
+    @Override
+    public OutputStream compress(final OutputStream out) throws IOException {
+        initialize();
+        return new ZstdBlockOutputStream(out, level, null, null);
+    }
+
+    @Override
+    public InputStream decompress(final InputStream input) throws IOException {
+        initialize();
+        byte[] data = read(input);
+        long id = Zstd.getDictIdFromFrame(data);
+        ZstdDictionary dictionary = id == 0 ? null : dictionaries.find(id);
+        if (id != 0 && dictionary == null) {
+            //对端使用了本地没有的字典，无法解压，需要把字典文件部署到字典目录
+            File directory = dictionaries.getDirectory();
+            throw new IOException(String.format("Error occurs while decompressing by zstd, dictionary %d is not found. %s", id,
+                    directory == null ? "please configure " + ZSTD_DICTIONARY_PATH + " and deploy the dictionary file of the peer." :
+                            "please deploy the dictionary file of the peer to " + directory.getPath()));
+        }
+        //帧头的原始大小来自对端，不能直接信任
+        long size = Zstd.decompressedSize(data);
+        if (size > maxSize) {
+            throw new IOException(String.format("Error occurs while decompressing by zstd, the decompressed size %d exceeds %d. "
+                    + "please check the peer or adjust %s", size, maxSize, ZSTD_MAX_SIZE));
+        } else if (size <= 0) {
+            //帧头没有原始大小，采用流式解压，并限制解压的字节数
+            ZstdInputStream zis = new ZstdInputStream(new ByteArrayInputStream(data));
+            if (dictionary != null) {
+                zis.setDict(dictionary.getDecompress());
+            }
+            try {
+                return read(zis, maxSize);
+            } finally {
+                zis.close();
+            }
+        }
+        byte[] result = new byte[(int) size];
+        long length = dictionary == null ?
+                Zstd.decompressByteArray(result, 0, result.length, data, 0, data.length) :
+                Zstd.decompressFastDict(result, 0, data, 0, data.length, dictionary.getDecompress());
+        if (Zstd.isError(length)) {
+            throw new IOException("Error occurs while decompressing by zstd. " + Zstd.getErrorName(length));
+        }
+        return new UnsafeByteArrayInputStream(result, 0, (int) length);
+    }
+
+    /**
+     * 读取解压数据
+     *
+     * @param input   解压输入流
+     * @param maxSize 最大字节数
+     * @return 数据
+     * @throws IOException 超过最大字节数
+     */
+    protected InputStream read(final InputStream input, final int maxSize) throws IOException {
+        UnsafeByteArrayOutputStream out = new UnsafeByteArrayOutputStream(1024);
+        byte[] buffer = new byte[1024];
+        int length;
+        while ((length = input.read(buffer)) >= 0) {
+            if (out.size() + length > maxSize) {
+                throw new IOException(String.format("Error occurs while decompressing by zstd, the decompressed size exceeds %d. "
+                        + "please check the peer or adjust %s", maxSize, ZSTD_MAX_SIZE));
+            }
+            out.write(buffer, 0, length);
+        }
+        return new UnsafeByteArrayInputStream(out.toByteArray());
+    }
+
+    /**
+     * 读取全部数据
+     *
+     * @param input 输入流
+     * @return 数据
+     * @throws IOException
+     */
+    protected byte[] read(final InputStream input) throws IOException {
+        UnsafeByteArrayOutputStream out = new UnsafeByteArrayOutputStream(Math.max(input.available(), 32));
+        byte[] buffer = new byte[1024];
+        int length;
+        while ((length = input.read(buffer)) >= 0) {
+            out.write(buffer, 0, length);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * 绑定了字典或者采样器的压缩算法
+     */
+    protected class BoundCompression implements Compression {
+        /**
+         * 字典
+         */
+        protected final ZstdDictionary dictionary;
+        /**
+         * 采样器
+         */
+        protected final ZstdTrainer.Sampler sampler;
+
+        public BoundCompression(final ZstdDictionary dictionary, final ZstdTrainer.Sampler sampler) {
+            this.dictionary = dictionary;
+            this.sampler = sampler;
+        }
+
+        @Override
+        public byte getTypeId() {
+            return ZSTD;
+        }
+
+        @Override
+        public String getTypeName() {
+            return ZstdCompression.this.getTypeName();
+        }
+
+        @Override
+        public OutputStream compress(final OutputStream out) throws IOException {
+            return new ZstdBlockOutputStream(out, level, dictionary, sampler);
+        }
+
+        @Override
+        public InputStream decompress(final InputStream input) throws IOException {
+            return ZstdCompression.this.decompress(input);
+        }
+    }
+}
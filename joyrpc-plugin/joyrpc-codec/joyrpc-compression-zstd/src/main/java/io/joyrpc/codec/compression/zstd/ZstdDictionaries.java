@@ -0,0 +1,229 @@
+package io.joyrpc.codec.compression.zstd;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.util.SystemClock;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 字典仓库，按照接口方法和字典标识进行索引
+ */
+public class ZstdDictionaries {
+
+    private static final Logger logger = LoggerFactory.getLogger(ZstdDictionaries.class);
+
+    /**
+     * 缺少字典的时候重新扫描目录的最小间隔
+     */
+    protected static final long RELOAD_INTERVAL = 5000L;
+
+    /**
+     * 字典目录
+     */
+    protected final File directory;
+    /**
+     * 压缩级别
+     */
+    protected final int level;
+    /**
+     * 按照接口方法索引
+     */
+    protected final Map<String, Map<String, ZstdDictionary>> methods = new ConcurrentHashMap<>();
+    /**
+     * 按照字典标识索引
+     */
+    protected final Map<Long, ZstdDictionary> ids = new ConcurrentHashMap<>();
+    /**
+     * 已加载的字典文件及其修改时间
+     */
+    protected final Map<String, Long> files = new ConcurrentHashMap<>();
+    /**
+     * 上次重新扫描目录的时间
+     */
+    protected final AtomicLong lastReload = new AtomicLong();
+    /**
+     * 字典标识，用于协商
+     */
+    protected volatile String identities;
+
+    /**
+     * 构造函数
+     *
+     * @param directory 字典目录
+     * @param level     压缩级别
+     */
+    public ZstdDictionaries(final File directory, final int level) {
+        this.directory = directory;
+        this.level = level;
+    }
+
+    /**
+     * 加载字典目录，跳过已经加载并且没有修改过的文件
+     */
+    public void load() {
+        File[] files = directory == null ? null : directory.listFiles((dir, name) -> name.endsWith(ZstdDictionary.EXTENSION));
+        if (files != null) {
+            long lastModified;
+            for (File file : files) {
+                lastModified = file.lastModified();
+                if (Long.valueOf(lastModified).equals(this.files.get(file.getName()))) {
+                    continue;
+                }
+                try {
+                    ZstdDictionary dictionary = ZstdDictionary.of(file.getName(), Files.readAllBytes(file.toPath()), level);
+                    if (dictionary != null) {
+                        add(dictionary);
+                    }
+                    this.files.put(file.getName(), lastModified);
+                } catch (Exception e) {
+                    logger.error("Error occurs while loading zstd dictionary " + file.getPath(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * 获取方法的字典
+     *
+     * @param className  接口名称
+     * @param methodName 方法名称
+     * @return 字典
+     */
+    public ZstdDictionary get(final String className, final String methodName) {
+        Map<String, ZstdDictionary> dictionaries = methods.get(className);
+        return dictionaries == null ? null : dictionaries.get(methodName);
+    }
+
+    /**
+     * 根据标识获取字典
+     *
+     * @param id 字典标识
+     * @return 字典
+     */
+    public ZstdDictionary get(final long id) {
+        return ids.get(id);
+    }
+
+    /**
+     * 根据标识查找字典，本地没有的时候按照最小间隔重新扫描目录，便于加载后部署的字典
+     *
+     * @param id 字典标识
+     * @return 字典
+     */
+    public ZstdDictionary find(final long id) {
+        ZstdDictionary result = ids.get(id);
+        if (result == null && directory != null) {
+            long now = SystemClock.now();
+            long last = lastReload.get();
+            if (now - last >= RELOAD_INTERVAL && lastReload.compareAndSet(last, now)) {
+                load();
+                result = ids.get(id);
+            }
+        }
+        return result;
+    }
+
+    public File getDirectory() {
+        return directory;
+    }
+
+    /**
+     * 获取字典标识，多个用逗号分隔
+     *
+     * @return 字典标识
+     */
+    public String getIdentities() {
+        return identities;
+    }
+
+    /**
+     * 添加字典，旧的字典继续保留用于解压
+     *
+     * @param dictionary 字典
+     */
+    public synchronized void add(final ZstdDictionary dictionary) {
+        ids.put(dictionary.getId(), dictionary);
+        methods.computeIfAbsent(dictionary.getClassName(), o -> new ConcurrentHashMap<>())
+                .put(dictionary.getMethodName(), dictionary);
+        StringBuilder builder = new StringBuilder(ids.size() * 11);
+        for (Long id : ids.keySet()) {
+            if (builder.length() > 0) {
+                builder.append(',');
+            }
+            builder.append(id);
+        }
+        identities = builder.toString();
+    }
+
+    /**
+     * 保存字典到目录，需要部署到对端才能被协商使用
+     *
+     * @param dictionary 字典
+     */
+    public void save(final ZstdDictionary dictionary) {
+        if (directory == null) {
+            return;
+        }
+        try {
+            if (!directory.exists() && !directory.mkdirs() && !directory.exists()) {
+                throw new IOException("Failed creating directory " + directory.getPath());
+            }
+            Files.write(new File(directory, dictionary.getFileName()).toPath(), dictionary.getContent());
+        } catch (IOException e) {
+            logger.error("Error occurs while saving zstd dictionary " + dictionary.getFileName(), e);
+        }
+    }
+
+    /**
+     * 判断字典标识是否在标识列表里面
+     *
+     * @param identities 逗号分隔的字典标识
+     * @param id         字典标识
+     * @return 包含标识
+     */
+    public static boolean contains(final String identities, final long id) {
+        if (identities == null || identities.isEmpty()) {
+            return false;
+        }
+        long value = 0;
+        char ch;
+        for (int i = 0, length = identities.length(); i <= length; i++) {
+            ch = i == length ? ',' : identities.charAt(i);
+            if (ch == ',') {
+                if (value == id) {
+                    return true;
+                }
+                value = 0;
+            } else if (ch >= '0' && ch <= '9') {
+                value = value * 10 + (ch - '0');
+            }
+        }
+        return false;
+    }
+}
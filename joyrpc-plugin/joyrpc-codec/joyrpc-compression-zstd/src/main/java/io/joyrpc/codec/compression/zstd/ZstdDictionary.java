@@ -0,0 +1,134 @@
+package io.joyrpc.codec.compression.zstd;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdDictDecompress;
+
+/**
+ * zstd字典，按照接口方法训练
+ */
+public class ZstdDictionary {
+
+    /**
+     * 字典文件的扩展名
+     */
+    public static final String EXTENSION = ".dict";
+
+    /**
+     * 字典标识
+     */
+    protected final long id;
+    /**
+     * 接口名称
+     */
+    protected final String className;
+    /**
+     * 方法名称
+     */
+    protected final String methodName;
+    /**
+     * 字典内容
+     */
+    protected final byte[] content;
+    /**
+     * 压缩字典
+     */
+    protected final ZstdDictCompress compress;
+    /**
+     * 解压缩字典
+     */
+    protected final ZstdDictDecompress decompress;
+
+    /**
+     * 构造函数
+     *
+     * @param className  接口名称
+     * @param methodName 方法名称
+     * @param content    字典内容
+     * @param level      压缩级别
+     */
+    public ZstdDictionary(final String className, final String methodName, final byte[] content, final int level) {
+        this.id = Zstd.getDictIdFromDict(content);
+        if (id == 0) {
+            throw new IllegalArgumentException("zstd dictionary is invalid. " + className + "#" + methodName);
+        }
+        this.className = className;
+        this.methodName = methodName;
+        this.content = content;
+        this.compress = new ZstdDictCompress(content, level);
+        this.decompress = new ZstdDictDecompress(content);
+    }
+
+    /**
+     * 根据文件名称构造字典，文件名称格式为"接口名称#方法名称.dict"
+     *
+     * @param fileName 文件名称
+     * @param content  字典内容
+     * @param level    压缩级别
+     * @return 字典，文件名称不合法返回null
+     */
+    public static ZstdDictionary of(final String fileName, final byte[] content, final int level) {
+        if (!fileName.endsWith(EXTENSION)) {
+            return null;
+        }
+        int pos = fileName.lastIndexOf('#');
+        if (pos <= 0 || pos >= fileName.length() - EXTENSION.length() - 1) {
+            return null;
+        }
+        return new ZstdDictionary(fileName.substring(0, pos),
+                fileName.substring(pos + 1, fileName.length() - EXTENSION.length()), content, level);
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public String getClassName() {
+        return className;
+    }
+
+    public String getMethodName() {
+        return methodName;
+    }
+
+    public byte[] getContent() {
+        return content;
+    }
+
+    public ZstdDictCompress getCompress() {
+        return compress;
+    }
+
+    public ZstdDictDecompress getDecompress() {
+        return decompress;
+    }
+
+    /**
+     * 获取文件名称
+     *
+     * @return 文件名称
+     */
+    public String getFileName() {
+        return className + "#" + methodName + EXTENSION;
+    }
+}
@@ -0,0 +1,182 @@
+package io.joyrpc.codec.compression.zstd;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.github.luben.zstd.Zstd;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * 字典训练器，按照接口方法采样报文，样本足够后异步训练字典
+ */
+public class ZstdTrainer {
+
+    private static final Logger logger = LoggerFactory.getLogger(ZstdTrainer.class);
+
+    /**
+     * 每个方法需要的样本数
+     */
+    protected final int samples;
+    /**
+     * 采样间隔
+     */
+    protected final int interval;
+    /**
+     * 字典大小
+     */
+    protected final int dictionarySize;
+    /**
+     * 压缩级别
+     */
+    protected final int level;
+    /**
+     * 训练完成的消费者
+     */
+    protected final Consumer<ZstdDictionary> consumer;
+    /**
+     * 采样器
+     */
+    protected final Map<String, Map<String, Sampler>> samplers = new ConcurrentHashMap<>();
+
+    /**
+     * 构造函数
+     *
+     * @param samples        每个方法需要的样本数
+     * @param interval       采样间隔
+     * @param dictionarySize 字典大小
+     * @param level          压缩级别
+     * @param consumer       训练完成的消费者
+     */
+    public ZstdTrainer(final int samples, final int interval, final int dictionarySize, final int level,
+                       final Consumer<ZstdDictionary> consumer) {
+        this.samples = samples;
+        this.interval = interval;
+        this.dictionarySize = dictionarySize;
+        this.level = level;
+        this.consumer = consumer;
+    }
+
+    /**
+     * 获取采样器
+     *
+     * @param className  接口名称
+     * @param methodName 方法名称
+     * @return 采样器，已经完成采样返回null
+     */
+    public Sampler getSampler(final String className, final String methodName) {
+        Sampler sampler = samplers.computeIfAbsent(className, o -> new ConcurrentHashMap<>())
+                .computeIfAbsent(methodName, o -> new Sampler(className, methodName));
+        return sampler.done ? null : sampler;
+    }
+
+    /**
+     * 训练字典
+     *
+     * @param sampler 采样器
+     */
+    protected void train(final Sampler sampler) {
+        byte[][] data = sampler.samples.toArray(new byte[sampler.samples.size()][]);
+        sampler.samples.clear();
+        byte[] buffer = new byte[dictionarySize];
+        long size = Zstd.trainFromBuffer(data, buffer);
+        if (Zstd.isError(size)) {
+            logger.warn(String.format("Error occurs while training zstd dictionary of %s#%s, caused by %s",
+                    sampler.className, sampler.methodName, Zstd.getErrorName(size)));
+            return;
+        }
+        ZstdDictionary dictionary = new ZstdDictionary(sampler.className, sampler.methodName,
+                Arrays.copyOf(buffer, (int) size), level);
+        logger.info(String.format("Success training zstd dictionary %d of %s#%s with %d samples, size %d",
+                dictionary.getId(), sampler.className, sampler.methodName, data.length, size));
+        consumer.accept(dictionary);
+    }
+
+    /**
+     * 采样器
+     */
+    public class Sampler {
+        /**
+         * 接口名称
+         */
+        protected final String className;
+        /**
+         * 方法名称
+         */
+        protected final String methodName;
+        /**
+         * 计数器
+         */
+        protected final AtomicLong counter = new AtomicLong();
+        /**
+         * 样本
+         */
+        protected final List<byte[]> samples = new ArrayList<>(ZstdTrainer.this.samples);
+        /**
+         * 是否完成
+         */
+        protected volatile boolean done;
+
+        public Sampler(final String className, final String methodName) {
+            this.className = className;
+            this.methodName = methodName;
+        }
+
+        /**
+         * 采样
+         *
+         * @param data   数据
+         * @param offset 偏移量
+         * @param length 长度
+         */
+        public void sample(final byte[] data, final int offset, final int length) {
+            if (done || length <= 0 || counter.getAndIncrement() % interval != 0) {
+                return;
+            }
+            byte[] sample = Arrays.copyOfRange(data, offset, offset + length);
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                samples.add(sample);
+                if (samples.size() >= ZstdTrainer.this.samples) {
+                    done = true;
+                    CompletableFuture.runAsync(() -> {
+                        try {
+                            train(this);
+                        } catch (Throwable e) {
+                            logger.error(String.format("Error occurs while training zstd dictionary of %s#%s",
+                                    className, methodName), e);
+                        }
+                    });
+                }
+            }
+        }
+    }
+}
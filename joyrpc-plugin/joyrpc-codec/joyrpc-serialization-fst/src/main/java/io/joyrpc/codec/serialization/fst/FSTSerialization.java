@@ -23,11 +23,14 @@ package io.joyrpc.codec.serialization.fst;
 import io.joyrpc.codec.serialization.*;
 import io.joyrpc.extension.Extension;
 import io.joyrpc.extension.condition.ConditionalOnClass;
+import io.joyrpc.transport.buffer.ChannelBuffer;
 import org.nustaq.serialization.FSTConfiguration;
+import org.nustaq.serialization.FSTObjectOutput;
 
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Arrays;
 
 /**
  * fast-serialization
@@ -51,10 +54,15 @@ public class FSTSerialization implements Serialization {
         return FSTSerializer.INSTANCE;
     }
 
+    @Override
+    public boolean isSelfDescribing() {
+        return true;
+    }
+
     /**
      * FST序列化和反序列化实现
      */
-    protected static final class FSTSerializer extends AbstractSerializer {
+    protected static final class FSTSerializer extends AbstractBufferSerializer {
 
         //单例，延迟加载
         protected static final FSTSerializer INSTANCE = new FSTSerializer();
@@ -73,5 +81,27 @@ public class FSTSerialization implements Serialization {
             return new ObjectInputReader(fst.getObjectInput(is));
         }
 
+        @Override
+        protected ObjectWriter createWriter(final ChannelBuffer buffer, final Object object) throws IOException {
+            //写入线程复用的内部数组，结束的时候批量拷贝到缓冲区
+            FSTObjectOutput out = fst.getObjectOutput();
+            return new ObjectOutputWriter(out) {
+                @Override
+                public void flush() throws IOException {
+                    //没有输出流，数据都在内部数组中
+                    buffer.writeBytes(out.getBuffer(), 0, out.getWritten());
+                }
+            };
+        }
+
+        @Override
+        protected ObjectReader createReader(final ChannelBuffer buffer, final Class clazz) throws IOException {
+            //FST只支持从数组开头读取
+            ByteArray array = getReadableBytes(buffer);
+            byte[] bytes = array.getOffset() == 0 ? array.getBytes() :
+                    Arrays.copyOfRange(array.getBytes(), array.getOffset(), array.getOffset() + array.getLength());
+            return new ObjectInputReader(fst.getObjectInput(bytes, array.getLength()));
+        }
+
     }
 }
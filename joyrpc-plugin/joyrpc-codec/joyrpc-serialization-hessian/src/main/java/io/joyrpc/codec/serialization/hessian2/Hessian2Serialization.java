@@ -55,6 +55,11 @@ public class Hessian2Serialization implements Serialization, BlackList.BlackList
         return Hessian2Serializer.INSTANCE;
     }
 
+    @Override
+    public boolean isSelfDescribing() {
+        return true;
+    }
+
     @Override
     public void updateBlack(final String blackList) {
         List<String> remotes = blackList == null || blackList.isEmpty() ?
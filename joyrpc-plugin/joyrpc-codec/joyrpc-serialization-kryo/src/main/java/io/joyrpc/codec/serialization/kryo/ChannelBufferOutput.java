@@ -0,0 +1,75 @@
+package io.joyrpc.codec.serialization.kryo;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.esotericsoftware.kryo.KryoException;
+import com.esotericsoftware.kryo.io.Output;
+import io.joyrpc.transport.buffer.ChannelBuffer;
+
+/**
+ * 线程复用的输出，数组写满或者结束的时候批量写入缓冲区
+ */
+public class ChannelBufferOutput extends Output {
+
+    /**
+     * 缓冲区
+     */
+    protected ChannelBuffer channelBuffer;
+
+    public ChannelBufferOutput(final int bufferSize) {
+        super(bufferSize, -1);
+    }
+
+    /**
+     * 绑定缓冲区
+     *
+     * @param buffer 缓冲区
+     * @return 输出
+     */
+    public ChannelBufferOutput wrap(final ChannelBuffer buffer) {
+        this.channelBuffer = buffer;
+        this.position = 0;
+        this.total = 0;
+        return this;
+    }
+
+    /**
+     * 解除绑定
+     */
+    public void release() {
+        this.channelBuffer = null;
+        this.position = 0;
+    }
+
+    @Override
+    public void flush() throws KryoException {
+        if (position > 0 && channelBuffer != null) {
+            channelBuffer.writeBytes(buffer, 0, position);
+            total += position;
+            position = 0;
+        }
+    }
+
+    @Override
+    public void close() throws KryoException {
+        flush();
+    }
+}
@@ -26,6 +26,7 @@ import com.esotericsoftware.kryo.io.Output;
 import io.joyrpc.codec.serialization.*;
 import io.joyrpc.extension.Extension;
 import io.joyrpc.extension.condition.ConditionalOnClass;
+import io.joyrpc.transport.buffer.ChannelBuffer;
 import org.objenesis.strategy.StdInstantiatorStrategy;
 
 import java.io.IOException;
@@ -54,10 +55,15 @@ public class KryoSerialization implements Serialization {
         return KryoSerializer.INSTANCE;
     }
 
+    @Override
+    public boolean isSelfDescribing() {
+        return true;
+    }
+
     /**
      * Kryo序列化和反序列化实现
      */
-    protected static final class KryoSerializer extends AbstractSerializer {
+    protected static final class KryoSerializer extends AbstractBufferSerializer {
 
         protected static final ThreadLocal<Kryo> local = ThreadLocal.withInitial(() -> {
             final Kryo kryo = new Kryo();
@@ -65,6 +71,8 @@ public class KryoSerialization implements Serialization {
             return kryo;
         });
 
+        protected static final ThreadLocal<ChannelBufferOutput> outputs = ThreadLocal.withInitial(() -> new ChannelBufferOutput(4096));
+
         protected static final KryoSerializer INSTANCE = new KryoSerializer();
 
 
@@ -81,5 +89,22 @@ public class KryoSerialization implements Serialization {
             return new KryoReader(local.get(), new Input(is));
         }
 
+        @Override
+        protected ObjectWriter createWriter(final ChannelBuffer buffer, final Object object) throws IOException {
+            ChannelBufferOutput bufferOutput = outputs.get().wrap(buffer);
+            return new KryoWriter(local.get(), bufferOutput) {
+                @Override
+                public void release() {
+                    bufferOutput.release();
+                }
+            };
+        }
+
+        @Override
+        protected ObjectReader createReader(final ChannelBuffer buffer, final Class clazz) throws IOException {
+            ByteArray array = getReadableBytes(buffer);
+            return new KryoReader(local.get(), new Input(array.getBytes(), array.getOffset(), array.getLength()));
+        }
+
     }
 }
@@ -24,6 +24,8 @@ import io.joyrpc.codec.serialization.*;
 import io.joyrpc.codec.serialization.protostuff.schema.*;
 import io.joyrpc.extension.Extension;
 import io.joyrpc.extension.condition.ConditionalOnClass;
+import io.joyrpc.transport.buffer.ChannelBuffer;
+import io.protostuff.CodedInput;
 import io.protostuff.LinkedBuffer;
 import io.protostuff.ProtostuffOutput;
 import io.protostuff.ProtostuffReader;
@@ -61,6 +63,11 @@ public class ProtostuffSerialization implements Serialization {
         return ProtostuffSerializer.INSTANCE;
     }
 
+    @Override
+    public boolean isSelfDescribing() {
+        return true;
+    }
+
     @Override
     public boolean allowArrayNullElement() {
         return false;
@@ -69,7 +76,7 @@ public class ProtostuffSerialization implements Serialization {
     /**
      * Protostuff序列化和反序列化实现
      */
-    protected static class ProtostuffSerializer extends AbstractSerializer {
+    protected static class ProtostuffSerializer extends AbstractBufferSerializer {
 
         protected static final ProtostuffSerializer INSTANCE = new ProtostuffSerializer();
 
@@ -110,6 +117,22 @@ public class ProtostuffSerialization implements Serialization {
         protected ObjectReader createReader(final InputStream is, final Class clazz) throws IOException {
             return new ProtostuffReader(RuntimeSchema.getSchema(clazz), local.get(), is);
         }
+
+        @Override
+        protected ObjectWriter createWriter(final ChannelBuffer buffer, final Object object) throws IOException {
+            //protostuff的Output和写会话都绑定在LinkedBuffer上，无法直接写入通道缓冲区。
+            //这里先序列化到线程复用的LinkedBuffer，写满一块或者flush的时候再批量拷贝到缓冲区，
+            //相比流适配器省掉了逐字节的虚调用，但仍然多一次内存拷贝
+            return createWriter(buffer.outputStream(), object);
+        }
+
+        @Override
+        protected ObjectReader createReader(final ChannelBuffer buffer, final Class clazz) throws IOException {
+            //直接基于字节数组解析，避免按块从输入流填充
+            ByteArray array = getReadableBytes(buffer);
+            return new ProtostuffReader(RuntimeSchema.getSchema(clazz),
+                    new CodedInput(array.getBytes(), array.getOffset(), array.getLength(), true));
+        }
     }
 
 }
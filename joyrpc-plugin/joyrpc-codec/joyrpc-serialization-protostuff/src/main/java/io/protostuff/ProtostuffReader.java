@@ -61,6 +61,11 @@ public class ProtostuffReader implements ObjectReader {
         this.input = new CodedInput(inputStream, buffer.buffer, true);
     }
 
+    public ProtostuffReader(Schema schema, CodedInput input) {
+        this.schema = schema;
+        this.input = input;
+    }
+
     @Override
     public Object readObject() throws IOException {
         Object message = schema.newMessage();
@@ -104,12 +109,14 @@ public class ProtostuffReader implements ObjectReader {
 
     @Override
     public int available() throws IOException {
-        return inputStream.available();
+        return inputStream == null ? 0 : inputStream.available();
     }
 
     @Override
     public void close() throws IOException {
-        inputStream.close();
+        if (inputStream != null) {
+            inputStream.close();
+        }
     }
 
     @Override
@@ -81,7 +81,7 @@ public class GrpcServerProtocol extends AbstractProtocol implements ServerProtoc
 
     @Override
     protected void onException(Channel channel, MessageHeader header, RpcException cause) {
-        int streamId = (Integer) header.getAttributes().get(HeaderMapping.STREAM_ID.getNum());
+        int streamId = header.getAttributes().getInt(HeaderMapping.STREAM_ID.getNum(), 0);
         int msgId = header.getMsgId();
         Http2Headers endHeaders = GrpcServerConvertHandler.buildErrorEndHttp2Headers(cause);
         Http2ResponseMessage http2ResponseMessage = new DefaultHttp2ResponseMessage(streamId, msgId, null, null, endHeaders);
@@ -90,7 +90,7 @@ public class GrpcClientConvertHandler extends AbstractHttpHandler {
                 logger.error(String.format("Error occurs while parsing grpc request from %s", Channel.toString(ctx.getChannel().getRemoteAddress())), e);
                 MessageHeader header = new MessageHeader((byte) Serialization.PROTOBUF_ID, MsgType.BizReq.getType(), GRPC_NUMBER);
                 header.setMsgId(((Http2Message) message).getBizMsgId());
-                header.addAttribute(HeaderMapping.STREAM_ID.getNum(), ((Http2Message) message).getStreamId());
+                header.getOrCreateAttributes().putInt(HeaderMapping.STREAM_ID.getNum(), ((Http2Message) message).getStreamId());
                 throw new RpcException(header, e);
             }
         } else {
@@ -137,7 +137,7 @@ public class GrpcClientConvertHandler extends AbstractHttpHandler {
         }
         MessageHeader header = new MessageHeader(serialization.getTypeId(), MsgType.BizResp.getType(), GRPC_NUMBER);
         header.setMsgId(http2Msg.getBizMsgId());
-        header.addAttribute(HeaderMapping.STREAM_ID.getNum(), http2Msg.getStreamId());
+        header.getOrCreateAttributes().putInt(HeaderMapping.STREAM_ID.getNum(), http2Msg.getStreamId());
         ResponsePayload palyLoad;
         Object grpcStatusVal = http2Msg.endHeaders().get(GRPC_STATUS_KEY);
         int grpcStatus = grpcStatusVal == null ? Status.Code.UNKNOWN.value() : Integer.valueOf(grpcStatusVal.toString());
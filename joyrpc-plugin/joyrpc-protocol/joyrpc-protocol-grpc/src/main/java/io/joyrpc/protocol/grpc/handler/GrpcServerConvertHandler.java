@@ -91,7 +91,7 @@ public class GrpcServerConvertHandler extends AbstractHttpHandler {
             } catch (Throwable e) {
                 logger.error(String.format("Error occurs while parsing grpc request from %s", Channel.toString(ctx.getChannel().getRemoteAddress())), e);
                 MessageHeader header = new MessageHeader();
-                header.addAttribute(HeaderMapping.STREAM_ID.getNum(), http2Req.getStreamId());
+                header.getOrCreateAttributes().putInt(HeaderMapping.STREAM_ID.getNum(), http2Req.getStreamId());
                 header.setMsgId(http2Req.getBizMsgId());
                 header.setMsgType(MsgType.BizReq.getType());
                 throw new RpcException(header, e);
@@ -144,7 +144,7 @@ public class GrpcServerConvertHandler extends AbstractHttpHandler {
         header.setMsgId(message.getBizMsgId());
         header.setMsgType(MsgType.BizReq.getType());
         header.setTimeout(getTimeout(parametric, GrpcUtil.TIMEOUT));
-        header.addAttribute(HeaderMapping.STREAM_ID.getNum(), message.getStreamId());
+        header.getOrCreateAttributes().putInt(HeaderMapping.STREAM_ID.getNum(), message.getStreamId());
         header.addAttribute(ACCEPT_ENCODING.getNum(), parametric.getString(GrpcUtil.MESSAGE_ACCEPT_ENCODING));
         //获取压缩类型
         Compression compression = getCompression(parametric, GrpcUtil.MESSAGE_ENCODING);
@@ -190,7 +190,7 @@ public class GrpcServerConvertHandler extends AbstractHttpHandler {
      * @return
      */
     protected Http2ResponseMessage convert(final GrpcResponseMessage message) throws IOException {
-        int streamId = (Integer) message.getHeader().getAttributes().get(HeaderMapping.STREAM_ID.getNum());
+        int streamId = message.getHeader().getAttributes().getInt(HeaderMapping.STREAM_ID.getNum(), 0);
         ResponsePayload responsePayload = (ResponsePayload) message.getPayLoad();
         if (!responsePayload.isError()) {
             //http2 header
@@ -0,0 +1,69 @@
+package io.joyrpc.protocol.telnet.handler;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.codec.compression.CompressionPolicy;
+import io.joyrpc.transport.channel.Channel;
+import io.joyrpc.transport.telnet.TelnetResponse;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static io.joyrpc.Plugin.JSON;
+
+/**
+ * 输出自适应压缩策略的决策
+ */
+public class CompressTelnetHandler extends AbstractTelnetHandler {
+
+    @Override
+    public String type() {
+        return "compress";
+    }
+
+    @Override
+    public String description() {
+        return "Usage:\tcompress [interface]" + LINE
+                + "Display the decisions of adaptive compression policy. " + LINE
+                + "If no args, show all methods. " + LINE
+                + "If has [interface], show methods of interface [interface]. " + LINE;
+    }
+
+    @Override
+    public String shortDescription() {
+        return "Display the adaptive compression decisions.";
+    }
+
+    @Override
+    public TelnetResponse telnet(final Channel channel, final String[] args) {
+        CompressionPolicy policy = CompressionPolicy.policy();
+        if (policy == null) {
+            return new TelnetResponse("ERROR:adaptive compression is disabled.");
+        }
+        List<Map<String, Object>> result = policy.snapshot();
+        if (args != null && args.length > 0) {
+            String className = args[0];
+            result = result.stream().filter(o -> className.equals(o.get("className"))).collect(Collectors.toList());
+        }
+        return new TelnetResponse(JSON.get().toJSONString(result));
+    }
+}
@@ -0,0 +1,185 @@
+package io.joyrpc.proxy.bytebuddy;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.exception.ProxyException;
+import io.joyrpc.extension.Extension;
+import io.joyrpc.extension.condition.ConditionalOnClass;
+import io.joyrpc.proxy.MethodCaller;
+import io.joyrpc.proxy.MethodCallerFactory;
+import io.joyrpc.util.ClassUtils;
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.ClassFileVersion;
+import net.bytebuddy.asm.AsmVisitorWrapper;
+import net.bytebuddy.description.method.MethodDescription;
+import net.bytebuddy.dynamic.loading.ClassLoadingStrategy;
+import net.bytebuddy.implementation.Implementation;
+import net.bytebuddy.implementation.bytecode.ByteCodeAppender;
+import net.bytebuddy.jar.asm.ClassWriter;
+import net.bytebuddy.jar.asm.Label;
+import net.bytebuddy.jar.asm.MethodVisitor;
+import net.bytebuddy.jar.asm.Opcodes;
+import net.bytebuddy.jar.asm.Type;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.joyrpc.proxy.MethodCallerFactory.ORDER_BYTE_BUDDY;
+import static net.bytebuddy.matcher.ElementMatchers.named;
+
+/**
+ * 基于bytebuddy生成方法调用器，按照方法索引tableswitch后直接调用接口方法
+ */
+@Extension(value = "bytebuddy", order = ORDER_BYTE_BUDDY)
+@ConditionalOnClass("net.bytebuddy.ByteBuddy")
+public class ByteBuddyCallerFactory implements MethodCallerFactory {
+
+    protected static final AtomicInteger COUNTER = new AtomicInteger();
+
+    @Override
+    public MethodCaller create(final Class<?> clz, final Method[] methods) throws ProxyException {
+        try {
+            ClassLoader loader = clz.getClassLoader() == null ? ClassUtils.getCurrentClassLoader() : clz.getClassLoader();
+            Class<? extends MethodCaller> type = new ByteBuddy(ClassFileVersion.ofThisVm(ClassFileVersion.JAVA_V8))
+                    .subclass(MethodCaller.class)
+                    .name(clz.getName() + "_bytebuddy_caller_" + COUNTER.getAndIncrement())
+                    .method(named("invoke"))
+                    .intercept(new Implementation.Simple(new DispatchAppender(clz, methods)))
+                    .visit(new AsmVisitorWrapper.ForDeclaredMethods().writerFlags(ClassWriter.COMPUTE_FRAMES))
+                    .make()
+                    .load(loader, ClassLoadingStrategy.Default.INJECTION)
+                    .getLoaded();
+            return type.newInstance();
+        } catch (Exception e) {
+            throw new ProxyException("Error occurred while creating bytebuddy method caller of " + clz.getName(), e);
+        }
+    }
+
+    /**
+     * 生成按照索引分发的字节码，参数为(target, index, args)
+     */
+    protected static class DispatchAppender implements ByteCodeAppender {
+        //接口
+        protected final Class<?> clz;
+        //方法
+        protected final Method[] methods;
+
+        public DispatchAppender(final Class<?> clz, final Method[] methods) {
+            this.clz = clz;
+            this.methods = methods;
+        }
+
+        @Override
+        public Size apply(final MethodVisitor mv, final Implementation.Context context, final MethodDescription method) {
+            String owner = Type.getInternalName(clz);
+            boolean isInterface = clz.isInterface();
+            int maxStack = 3;
+            Label unknown = new Label();
+            if (methods.length > 0) {
+                Label[] labels = new Label[methods.length];
+                for (int i = 0; i < labels.length; i++) {
+                    labels[i] = new Label();
+                }
+                mv.visitVarInsn(Opcodes.ILOAD, 2);
+                mv.visitTableSwitchInsn(0, methods.length - 1, unknown, labels);
+                Class<?>[] types;
+                int stack;
+                for (int i = 0; i < methods.length; i++) {
+                    mv.visitLabel(labels[i]);
+                    mv.visitVarInsn(Opcodes.ALOAD, 1);
+                    mv.visitTypeInsn(Opcodes.CHECKCAST, owner);
+                    stack = 1;
+                    types = methods[i].getParameterTypes();
+                    for (int j = 0; j < types.length; j++) {
+                        mv.visitVarInsn(Opcodes.ALOAD, 3);
+                        pushInt(mv, j);
+                        mv.visitInsn(Opcodes.AALOAD);
+                        unbox(mv, types[j]);
+                        stack += Type.getType(types[j]).getSize();
+                    }
+                    maxStack = Math.max(maxStack, stack + 2);
+                    mv.visitMethodInsn(isInterface ? Opcodes.INVOKEINTERFACE : Opcodes.INVOKEVIRTUAL, owner,
+                            methods[i].getName(), Type.getMethodDescriptor(methods[i]), isInterface);
+                    box(mv, methods[i].getReturnType());
+                    mv.visitInsn(Opcodes.ARETURN);
+                }
+            }
+            mv.visitLabel(unknown);
+            mv.visitTypeInsn(Opcodes.NEW, "java/lang/IllegalArgumentException");
+            mv.visitInsn(Opcodes.DUP);
+            mv.visitLdcInsn("unknown method index");
+            mv.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/IllegalArgumentException", "<init>", "(Ljava/lang/String;)V", false);
+            mv.visitInsn(Opcodes.ATHROW);
+            return new Size(maxStack, method.getStackSize());
+        }
+
+        /**
+         * 压入整数常量
+         *
+         * @param mv    方法
+         * @param value 整数
+         */
+        protected void pushInt(final MethodVisitor mv, final int value) {
+            if (value <= 5) {
+                mv.visitInsn(Opcodes.ICONST_0 + value);
+            } else if (value <= Byte.MAX_VALUE) {
+                mv.visitIntInsn(Opcodes.BIPUSH, value);
+            } else if (value <= Short.MAX_VALUE) {
+                mv.visitIntInsn(Opcodes.SIPUSH, value);
+            } else {
+                mv.visitLdcInsn(value);
+            }
+        }
+
+        /**
+         * 参数类型转换，基本类型进行拆箱
+         *
+         * @param mv   方法
+         * @param type 参数类型
+         */
+        protected void unbox(final MethodVisitor mv, final Class<?> type) {
+            if (type.isPrimitive()) {
+                String wrapper = Type.getInternalName(ClassUtils.inbox(type));
+                mv.visitTypeInsn(Opcodes.CHECKCAST, wrapper);
+                mv.visitMethodInsn(Opcodes.INVOKEVIRTUAL, wrapper, type.getName() + "Value",
+                        "()" + Type.getDescriptor(type), false);
+            } else if (type != Object.class) {
+                mv.visitTypeInsn(Opcodes.CHECKCAST, Type.getInternalName(type));
+            }
+        }
+
+        /**
+         * 返回值装箱，void返回null
+         *
+         * @param mv   方法
+         * @param type 返回值类型
+         */
+        protected void box(final MethodVisitor mv, final Class<?> type) {
+            if (type == void.class) {
+                mv.visitInsn(Opcodes.ACONST_NULL);
+            } else if (type.isPrimitive()) {
+                Class<?> wrapper = ClassUtils.inbox(type);
+                mv.visitMethodInsn(Opcodes.INVOKESTATIC, Type.getInternalName(wrapper), "valueOf",
+                        "(" + Type.getDescriptor(type) + ")" + Type.getDescriptor(wrapper), false);
+            }
+        }
+    }
+}
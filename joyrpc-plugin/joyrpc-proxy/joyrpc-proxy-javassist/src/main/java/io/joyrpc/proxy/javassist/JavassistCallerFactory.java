@@ -0,0 +1,126 @@
+package io.joyrpc.proxy.javassist;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.exception.ProxyException;
+import io.joyrpc.extension.Extension;
+import io.joyrpc.extension.condition.ConditionalOnClass;
+import io.joyrpc.proxy.MethodCaller;
+import io.joyrpc.proxy.MethodCallerFactory;
+import io.joyrpc.util.ClassUtils;
+import javassist.ClassPool;
+import javassist.CtClass;
+import javassist.CtMethod;
+import javassist.LoaderClassPath;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.joyrpc.proxy.MethodCallerFactory.ORDER_JAVASSIST;
+
+/**
+ * 基于javassist生成方法调用器，按照方法索引switch后直接调用接口方法
+ */
+@Extension(value = "javassist", order = ORDER_JAVASSIST)
+@ConditionalOnClass("javassist.ClassPool")
+public class JavassistCallerFactory implements MethodCallerFactory {
+
+    protected static final AtomicInteger COUNTER = new AtomicInteger();
+
+    @Override
+    public MethodCaller create(final Class<?> clz, final Method[] methods) throws ProxyException {
+        try {
+            ClassPool pool = ClassPool.getDefault();
+            ClassLoader loader = clz.getClassLoader();
+            if (loader != null) {
+                JavassistProxyFactory.LOADERS.computeIfAbsent(loader, o -> {
+                    LoaderClassPath path = new LoaderClassPath(o);
+                    pool.appendClassPath(path);
+                    return path;
+                });
+            }
+            String className = ClassUtils.getName(clz) + "_javassist_caller_" + COUNTER.getAndIncrement();
+            CtClass ctClass = pool.makeClass(className);
+            ctClass.addInterface(pool.get(MethodCaller.class.getName()));
+            ctClass.addMethod(CtMethod.make(source(clz, methods), ctClass));
+            Class<?> type = ctClass.toClass(loader == null ? ClassUtils.getCurrentClassLoader() : loader, clz.getProtectionDomain());
+            ctClass.detach();
+            return (MethodCaller) type.newInstance();
+        } catch (Exception e) {
+            throw new ProxyException("Error occurred while creating javassist method caller of " + clz.getName(), e);
+        }
+    }
+
+    /**
+     * 生成调用方法的源代码
+     *
+     * @param clz     接口
+     * @param methods 方法
+     * @return 源代码
+     */
+    protected String source(final Class<?> clz, final Method[] methods) {
+        StringBuilder builder = new StringBuilder(methods.length * 100 + 200);
+        builder.append("public Object invoke(Object target, int index, Object[] args) throws Exception {");
+        String typeName = ClassUtils.getName(clz);
+        builder.append(typeName).append(" t = (").append(typeName).append(") $1;");
+        builder.append("switch ($2) {");
+        Method method;
+        Class<?>[] types;
+        for (int i = 0; i < methods.length; i++) {
+            method = methods[i];
+            types = method.getParameterTypes();
+            builder.append("case ").append(i).append(": ");
+            boolean isVoid = Void.TYPE.equals(method.getReturnType());
+            builder.append(isVoid ? "" : "return ($w) ");
+            builder.append("t.").append(method.getName()).append('(');
+            for (int j = 0; j < types.length; j++) {
+                if (j > 0) {
+                    builder.append(',');
+                }
+                argument(types[j], "$3[" + j + "]", builder);
+            }
+            builder.append(");");
+            if (isVoid) {
+                builder.append("return null;");
+            }
+        }
+        builder.append("default: throw new IllegalArgumentException(\"unknown method index \" + $2);");
+        builder.append("}}");
+        return builder.toString();
+    }
+
+    /**
+     * 参数类型转换，基本类型进行拆箱
+     *
+     * @param type    参数类型
+     * @param name    参数
+     * @param builder 缓冲区
+     */
+    protected void argument(final Class<?> type, final String name, final StringBuilder builder) {
+        if (type.isPrimitive()) {
+            String wrapper = ClassUtils.inbox(type).getName();
+            builder.append("((").append(wrapper).append(')').append(name).append(").")
+                    .append(type.getName()).append("Value()");
+        } else {
+            builder.append('(').append(ClassUtils.getName(type)).append(')').append(name);
+        }
+    }
+}
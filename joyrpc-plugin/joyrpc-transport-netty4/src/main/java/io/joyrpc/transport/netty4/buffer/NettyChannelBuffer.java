@@ -247,6 +247,12 @@ public class NettyChannelBuffer implements ChannelBuffer {
         return byteBuf.writableBytes();
     }
 
+    @Override
+    public ChannelBuffer ensureWritable(final int minWritableBytes) {
+        byteBuf.ensureWritable(minWritableBytes);
+        return this;
+    }
+
     @Override
     public void writeByte(final int value) {
         byteBuf.writeByte(value);
@@ -0,0 +1,270 @@
+package io.joyrpc.transport.netty4.channel;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.cluster.event.CounterEvent;
+import io.joyrpc.metric.CounterPublisher;
+import io.joyrpc.util.SystemClock;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelOutboundBuffer;
+import io.netty.channel.ChannelPromise;
+import io.netty.channel.EventLoop;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 合并刷盘，减少系统调用次数。<br/>
+ * 业务线程的写操作提交到IO线程执行，IO线程执行完所有已提交的写操作后再统一刷盘；
+ * IO线程中的写操作在当前事件处理完成后统一刷盘；待刷盘的消息数或字节数达到阈值则立即刷盘。<br/>
+ * 任何写操作留下待刷盘的消息时都会在IO线程调度一次刷盘任务，确保没有后续事件时消息也不会滞留。<br/>
+ * 合并比例按指标窗口以计数事件的方式发布给MetricHandler插件。
+ */
+public class FlushConsolidator {
+
+    /**
+     * 指标类型
+     */
+    public static final String METRIC_TYPE = "transport.flush";
+    /**
+     * 写消息数
+     */
+    public static final String METRIC_WRITES = "writes";
+    /**
+     * 刷盘次数
+     */
+    public static final String METRIC_FLUSHES = "flushes";
+
+    /**
+     * 通道
+     */
+    protected final Channel channel;
+    /**
+     * 触发刷盘的最大消息数
+     */
+    protected final int maxMessages;
+    /**
+     * 触发刷盘的最大字节数
+     */
+    protected final long maxBytes;
+    /**
+     * 已提交到IO线程还未执行的写任务数
+     */
+    protected final AtomicInteger tasks = new AtomicInteger();
+    /**
+     * 刷盘任务
+     */
+    protected final Runnable flushTask = this::onFlush;
+    /**
+     * 待刷盘的消息数，只在IO线程中访问
+     */
+    protected int unflushed;
+    /**
+     * 是否已经调度了刷盘任务，只在IO线程中访问
+     */
+    protected boolean scheduled;
+    /**
+     * 写消息数，只在IO线程中修改
+     */
+    protected volatile long writes;
+    /**
+     * 刷盘次数，只在IO线程中修改
+     */
+    protected volatile long flushes;
+    /**
+     * 指标发布间隔(毫秒)
+     */
+    protected final long metricInterval;
+    /**
+     * 上次发布指标的时间，只在IO线程中访问
+     */
+    protected long lastPublishTime;
+    /**
+     * 上次发布指标时的写消息数，只在IO线程中访问
+     */
+    protected long publishedWrites;
+    /**
+     * 上次发布指标时的刷盘次数，只在IO线程中访问
+     */
+    protected long publishedFlushes;
+
+    /**
+     * 构造函数
+     *
+     * @param channel     通道
+     * @param maxMessages 触发刷盘的最大消息数
+     * @param maxBytes    触发刷盘的最大字节数
+     */
+    public FlushConsolidator(final Channel channel, final int maxMessages, final long maxBytes) {
+        this(channel, maxMessages, maxBytes, 1000);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param channel        通道
+     * @param maxMessages    触发刷盘的最大消息数
+     * @param maxBytes       触发刷盘的最大字节数
+     * @param metricInterval 指标发布间隔(毫秒)
+     */
+    public FlushConsolidator(final Channel channel, final int maxMessages, final long maxBytes, final long metricInterval) {
+        this.channel = channel;
+        this.maxMessages = maxMessages;
+        this.maxBytes = maxBytes;
+        this.metricInterval = metricInterval <= 0 ? 1000 : metricInterval;
+        this.lastPublishTime = SystemClock.now();
+    }
+
+    /**
+     * 写消息
+     *
+     * @param message 消息
+     * @param promise 结果
+     */
+    public void write(final Object message, final ChannelPromise promise) {
+        EventLoop loop = channel.eventLoop();
+        if (loop.inEventLoop()) {
+            doWrite(message, promise);
+        } else {
+            //先增加计数再提交任务，确保最后一个执行的写任务能看到计数为0
+            tasks.incrementAndGet();
+            try {
+                loop.execute(() -> {
+                    doWrite(message, promise);
+                    if (tasks.decrementAndGet() == 0) {
+                        flush();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                tasks.decrementAndGet();
+                promise.tryFailure(e);
+            }
+        }
+    }
+
+    /**
+     * 在IO线程中写消息
+     *
+     * @param message 消息
+     * @param promise 结果
+     */
+    protected void doWrite(final Object message, final ChannelPromise promise) {
+        channel.write(message, promise);
+        writes++;
+        if (++unflushed >= maxMessages) {
+            flush();
+        } else if (maxBytes > 0) {
+            ChannelOutboundBuffer buffer = channel.unsafe().outboundBuffer();
+            if (buffer != null && buffer.totalPendingWriteBytes() >= maxBytes) {
+                flush();
+            }
+        }
+        if (unflushed > 0 && !scheduled) {
+            //兜底，在当前事件及已提交的任务处理完成后刷盘
+            schedule();
+        }
+    }
+
+    /**
+     * 调度刷盘任务
+     */
+    protected void schedule() {
+        scheduled = true;
+        try {
+            channel.eventLoop().execute(flushTask);
+        } catch (RejectedExecutionException e) {
+            //IO线程已经关闭
+            scheduled = false;
+        }
+    }
+
+    /**
+     * 刷盘任务
+     */
+    protected void onFlush() {
+        scheduled = false;
+        flush();
+    }
+
+    /**
+     * 在IO线程中刷盘
+     */
+    protected void flush() {
+        if (unflushed > 0) {
+            unflushed = 0;
+            flushes++;
+            channel.flush();
+            publish();
+        }
+    }
+
+    /**
+     * 按指标窗口发布合并刷盘的计数增量
+     */
+    protected void publish() {
+        long now = SystemClock.now();
+        if (now - lastPublishTime < metricInterval) {
+            return;
+        }
+        lastPublishTime = now;
+        if (CounterPublisher.isEnabled()) {
+            long w = writes;
+            long f = flushes;
+            Map<String, Long> counters = new HashMap<>(4);
+            counters.put(METRIC_WRITES, w - publishedWrites);
+            counters.put(METRIC_FLUSHES, f - publishedFlushes);
+            publishedWrites = w;
+            publishedFlushes = f;
+            CounterPublisher.publish(new CounterEvent(this, METRIC_TYPE,
+                    channel.localAddress() + "->" + channel.remoteAddress(), counters));
+        }
+    }
+
+    /**
+     * 写消息数
+     *
+     * @return
+     */
+    public long getWrites() {
+        return writes;
+    }
+
+    /**
+     * 刷盘次数
+     *
+     * @return
+     */
+    public long getFlushes() {
+        return flushes;
+    }
+
+    /**
+     * 合并比例，即平均每次刷盘的消息数
+     *
+     * @return
+     */
+    public double getBatchRatio() {
+        long f = flushes;
+        return f == 0 ? 0 : (double) writes / f;
+    }
+}
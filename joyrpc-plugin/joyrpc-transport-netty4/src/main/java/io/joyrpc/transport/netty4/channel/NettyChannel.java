@@ -24,6 +24,7 @@ import io.joyrpc.event.AsyncResult;
 import io.joyrpc.exception.ChannelClosedException;
 import io.joyrpc.exception.LafException;
 import io.joyrpc.exception.OverloadException;
+import io.joyrpc.extension.URL;
 import io.joyrpc.transport.buffer.ChannelBuffer;
 import io.joyrpc.transport.channel.Channel;
 import io.joyrpc.transport.channel.FutureManager;
@@ -32,6 +33,7 @@ import io.joyrpc.transport.message.Message;
 import io.joyrpc.transport.netty4.buffer.NettyChannelBuffer;
 import io.joyrpc.transport.session.SessionManager;
 import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelPromise;
 import io.netty.util.Attribute;
 import io.netty.util.AttributeKey;
 
@@ -41,6 +43,8 @@ import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
+import static io.joyrpc.constants.Constants.*;
+
 /**
  * @date: 2019/1/15
  */
@@ -65,6 +69,10 @@ public class NettyChannel implements Channel {
      * 是否是服务端
      */
     protected boolean server;
+    /**
+     * 合并刷盘，为空表示每条消息都立即刷盘
+     */
+    protected FlushConsolidator consolidator;
 
     /**
      * 构造函数
@@ -72,10 +80,27 @@ public class NettyChannel implements Channel {
      * @param channel
      */
     public NettyChannel(io.netty.channel.Channel channel, boolean server) {
+        this(channel, server, null);
+    }
+
+    /**
+     * 构造函数
+     *
+     * @param channel
+     * @param server
+     * @param url
+     */
+    public NettyChannel(io.netty.channel.Channel channel, boolean server, URL url) {
         this.channel = channel;
         this.server = server;
         this.futureManager = new FutureManager<>(this, () -> idGenerator.incrementAndGet());
         this.sessionManager = new SessionManager(server);
+        if (url != null && url.getBoolean(FLUSH_CONSOLIDATION_OPTION)) {
+            this.consolidator = new FlushConsolidator(channel,
+                    url.getPositiveInt(FLUSH_CONSOLIDATION_MESSAGES_OPTION),
+                    url.getPositiveInt(FLUSH_CONSOLIDATION_BYTES_OPTION),
+                    url.getPositiveLong(METRIC_WINDOWS_TIME_OPTION));
+        }
     }
 
     @Override
@@ -97,18 +122,43 @@ public class NettyChannel implements Channel {
                 throw throwable;
             }
         } else if (consumer != null) {
-            channel.writeAndFlush(object).addListener((future) -> {
+            ChannelPromise promise = channel.newPromise();
+            promise.addListener((future) -> {
                 if (future.isSuccess()) {
                     consumer.accept(new SendResult(true, this, object));
                 } else {
                     consumer.accept(new SendResult(future.cause(), this, object));
                 }
             });
+            write(object, promise);
+        } else {
+            write(object, channel.voidPromise());
+        }
+    }
+
+    /**
+     * 写消息，开启了合并刷盘则延迟刷盘
+     *
+     * @param object
+     * @param promise
+     */
+    protected void write(final Object object, final ChannelPromise promise) {
+        if (consolidator == null) {
+            channel.writeAndFlush(object, promise);
         } else {
-            channel.writeAndFlush(object, channel.voidPromise());
+            consolidator.write(object, promise);
         }
     }
 
+    /**
+     * 获取合并刷盘，可以获取合并比例等指标
+     *
+     * @return
+     */
+    public FlushConsolidator getConsolidator() {
+        return consolidator;
+    }
+
     @Override
     public boolean close() {
         return execute(channel::close);
@@ -22,6 +22,7 @@ package io.joyrpc.transport.netty4.handler;
 
 import io.joyrpc.transport.channel.Channel;
 import io.joyrpc.transport.channel.ChannelHandler;
+import io.joyrpc.transport.netty4.channel.NettyChannel;
 import io.netty.channel.ChannelDuplexHandler;
 import io.netty.channel.ChannelHandlerContext;
 import io.netty.channel.ChannelPromise;
@@ -65,7 +66,12 @@ public class SimpleBizHandler extends ChannelDuplexHandler {
     public void write(final ChannelHandlerContext ctx, final Object msg, final ChannelPromise promise) {
         try {
             Object resMsg = handler.wrote(new NettyChannelContext(channel), msg);
-            ctx.writeAndFlush(resMsg, promise);
+            if (channel instanceof NettyChannel && ((NettyChannel) channel).getConsolidator() != null) {
+                //开启了合并刷盘，由合并刷盘决定何时刷盘
+                ctx.write(resMsg, promise);
+            } else {
+                ctx.writeAndFlush(resMsg, promise);
+            }
         } catch (Exception e) {
             exceptionCaught(ctx, e);
         }
@@ -123,7 +123,7 @@ public class NettyClientTransport extends AbstractClientTransport {
             @Override
             protected void initChannel(final SocketChannel ch) {
                 //及时发送 与 缓存发送
-                channels[0] = new NettyChannel(ch, false);
+                channels[0] = new NettyChannel(ch, false, url);
                 //设置
                 channels[0].setAttribute(Channel.PAYLOAD, url.getPositiveInt(Constants.PAYLOAD))
                         .setAttribute(Channel.BIZ_THREAD_POOL, bizThreadPool, (k, v) -> v != null);
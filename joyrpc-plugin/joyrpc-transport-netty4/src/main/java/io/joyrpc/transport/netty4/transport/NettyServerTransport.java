@@ -175,7 +175,7 @@ public class NettyServerTransport extends AbstractServerTransport {
         @Override
         protected void initChannel(final SocketChannel ch) {
             //及时发送 与 缓存发送
-            Channel channel = new NettyChannel(ch, true);
+            Channel channel = new NettyChannel(ch, true, url);
             //设置payload,添加业务线程池到channel
             channel.setAttribute(Channel.PAYLOAD, url.getPositiveInt(Constants.PAYLOAD))
                     .setAttribute(Channel.BIZ_THREAD_POOL, bizThreadPool, (k, v) -> v != null);
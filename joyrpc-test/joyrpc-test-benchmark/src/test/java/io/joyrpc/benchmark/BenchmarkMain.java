@@ -0,0 +1,43 @@
+package io.joyrpc.benchmark;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * 压测入口，参数为需要执行的压测类正则表达式，为空则执行全部压测
+ */
+public class BenchmarkMain {
+
+    public static void main(String[] args) throws RunnerException {
+        OptionsBuilder builder = new OptionsBuilder();
+        if (args == null || args.length == 0) {
+            builder.include(BenchmarkMain.class.getPackage().getName() + ".*Benchmark");
+        } else {
+            for (String arg : args) {
+                builder.include(arg);
+            }
+        }
+        new Runner(builder.build()).run();
+    }
+}
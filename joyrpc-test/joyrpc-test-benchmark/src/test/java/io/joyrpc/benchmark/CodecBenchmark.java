@@ -0,0 +1,137 @@
+package io.joyrpc.benchmark;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.benchmark.model.Order;
+import io.joyrpc.benchmark.service.OrderService;
+import io.joyrpc.codec.compression.Compression;
+import io.joyrpc.protocol.ClientProtocol;
+import io.joyrpc.protocol.MsgType;
+import io.joyrpc.protocol.message.Invocation;
+import io.joyrpc.protocol.message.MessageHeader;
+import io.joyrpc.protocol.message.RequestMessage;
+import io.joyrpc.transport.codec.Codec;
+import io.joyrpc.transport.codec.DecodeContext;
+import io.joyrpc.transport.codec.EncodeContext;
+import io.joyrpc.transport.netty4.buffer.NettyChannelBuffer;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
+import io.netty.buffer.Unpooled;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import static io.joyrpc.Plugin.*;
+
+/**
+ * joy协议编解码压测，覆盖AbstractCodec的encode和decode
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CodecBenchmark {
+
+    /**
+     * 序列化插件名称
+     */
+    @Param({"hessian", "protostuff"})
+    protected String serialization;
+    /**
+     * 压缩插件名称，none表示不压缩
+     */
+    @Param({"none", "lz4"})
+    protected String compression;
+    /**
+     * 订单明细数量，用于控制数据包大小
+     */
+    @Param({"1", "100"})
+    protected int items;
+
+    protected Codec codec;
+
+    protected int magicCodeLength;
+
+    protected EncodeContext encodeContext = () -> null;
+
+    protected DecodeContext decodeContext = () -> null;
+
+    protected Method method;
+
+    protected Object[] args;
+
+    protected byte serializationType;
+
+    protected byte compressionType;
+
+    protected byte[] encoded;
+
+    @Setup
+    public void setup() throws Exception {
+        ClientProtocol protocol = CLIENT_PROTOCOL.get("joy");
+        codec = protocol.getCodec();
+        byte[] magicCode = protocol.getMagicCode();
+        magicCodeLength = magicCode == null ? 0 : magicCode.length;
+        method = OrderService.class.getMethod("echo", Order.class);
+        args = new Object[]{Order.create(1, items)};
+        serializationType = SERIALIZATION.get(serialization).getTypeId();
+        compressionType = "none".equals(compression) ? Compression.NONE : COMPRESSION.get(compression).getTypeId();
+        ByteBuf buf = Unpooled.buffer(1024);
+        codec.encode(encodeContext, new NettyChannelBuffer(buf), createRequest());
+        encoded = new byte[buf.readableBytes()];
+        buf.readBytes(encoded);
+    }
+
+    /**
+     * 构造请求，编码过程会修改Invocation，所以每次都新建
+     *
+     * @return 请求
+     */
+    protected RequestMessage<Invocation> createRequest() {
+        MessageHeader header = new MessageHeader(MsgType.BizReq.getType(), serializationType);
+        header.setMsgId(1);
+        header.setCompression(compressionType);
+        header.setTimeout(5000);
+        return new RequestMessage<>(header, new Invocation(OrderService.class, method, args));
+    }
+
+    @Benchmark
+    public int encode() {
+        ByteBuf buf = PooledByteBufAllocator.DEFAULT.buffer(1024);
+        try {
+            codec.encode(encodeContext, new NettyChannelBuffer(buf), createRequest());
+            return buf.readableBytes();
+        } finally {
+            buf.release();
+        }
+    }
+
+    @Benchmark
+    public Object decode() {
+        //与LengthFieldFrameDecodeHandler一样，解码前去掉魔术位
+        ByteBuf buf = Unpooled.wrappedBuffer(encoded, magicCodeLength, encoded.length - magicCodeLength);
+        return codec.decode(decodeContext, new NettyChannelBuffer(buf));
+    }
+
+}
@@ -0,0 +1,104 @@
+package io.joyrpc.benchmark;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.benchmark.model.Order;
+import io.joyrpc.codec.compression.Compression;
+import io.joyrpc.codec.compression.Finishable;
+import io.joyrpc.codec.serialization.UnsafeByteArrayInputStream;
+import io.joyrpc.codec.serialization.UnsafeByteArrayOutputStream;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+import static io.joyrpc.Plugin.COMPRESSION;
+import static io.joyrpc.Plugin.SERIALIZATION;
+
+/**
+ * 压缩插件压测，数据源为hessian序列化后的订单
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CompressionBenchmark {
+
+    /**
+     * 压缩插件名称
+     */
+    @Param({"lz4", "lz4f", "snappy", "snappyf", "zlib", "gzip", "lzma", "zstd"})
+    protected String compression;
+    /**
+     * 订单明细数量，用于控制数据包大小
+     */
+    @Param({"20", "200"})
+    protected int items;
+
+    protected Compression target;
+
+    protected byte[] source;
+
+    protected byte[] compressed;
+
+    protected byte[] buffer;
+
+    protected UnsafeByteArrayOutputStream baos;
+
+    @Setup
+    public void setup() throws IOException {
+        target = COMPRESSION.get(compression);
+        baos = new UnsafeByteArrayOutputStream(16 * 1024);
+        SERIALIZATION.get("hessian").getSerializer().serialize(baos, Order.create(1, items));
+        source = baos.toByteArray();
+        buffer = new byte[source.length];
+        compress();
+        compressed = baos.toByteArray();
+    }
+
+    @Benchmark
+    public int compress() throws IOException {
+        baos.reset();
+        OutputStream os = target.compress(baos);
+        os.write(source);
+        if (os instanceof Finishable) {
+            ((Finishable) os).finish();
+        }
+        os.flush();
+        return baos.size();
+    }
+
+    @Benchmark
+    public int decompress() throws IOException {
+        InputStream is = target.decompress(new UnsafeByteArrayInputStream(compressed));
+        int total = 0;
+        int count;
+        while (total < buffer.length && (count = is.read(buffer, total, buffer.length - total)) > 0) {
+            total += count;
+        }
+        return total;
+    }
+
+}
@@ -0,0 +1,66 @@
+package io.joyrpc.benchmark;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.transport.channel.FutureManager;
+import io.joyrpc.transport.message.Message;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 请求Future管理压测，模拟一次请求的创建和应答移除
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FutureManagerBenchmark {
+
+    protected AtomicInteger idGenerator = new AtomicInteger();
+
+    protected FutureManager<Integer, Message> futureManager;
+
+    @Setup
+    public void setup() {
+        futureManager = new FutureManager<>(null, () -> idGenerator.incrementAndGet());
+    }
+
+    @Benchmark
+    @Threads(1)
+    public Object createAndRemove() {
+        Integer id = futureManager.generateId();
+        futureManager.create(id, 5000);
+        return futureManager.remove(id);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public Object createAndRemoveConcurrently() {
+        Integer id = futureManager.generateId();
+        futureManager.create(id, 5000);
+        return futureManager.remove(id);
+    }
+
+}
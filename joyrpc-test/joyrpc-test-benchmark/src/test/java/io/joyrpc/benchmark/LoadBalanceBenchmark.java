@@ -0,0 +1,112 @@
+package io.joyrpc.benchmark;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.InvokerAware;
+import io.joyrpc.benchmark.model.Order;
+import io.joyrpc.benchmark.service.OrderService;
+import io.joyrpc.cluster.Candidate;
+import io.joyrpc.cluster.Cluster;
+import io.joyrpc.cluster.Node;
+import io.joyrpc.cluster.Region;
+import io.joyrpc.cluster.Shard;
+import io.joyrpc.cluster.Shard.ShardState;
+import io.joyrpc.cluster.discovery.naming.fix.FixRegistar;
+import io.joyrpc.cluster.distribution.LoadBalance;
+import io.joyrpc.extension.URL;
+import io.joyrpc.metric.Dashboard;
+import io.joyrpc.metric.Dashboard.DashboardType;
+import io.joyrpc.metric.DashboardAware;
+import io.joyrpc.metric.DashboardFactory;
+import io.joyrpc.protocol.message.Invocation;
+import io.joyrpc.protocol.message.RequestMessage;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static io.joyrpc.Plugin.*;
+
+/**
+ * 负载均衡压测
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class LoadBalanceBenchmark {
+
+    /**
+     * 负载均衡插件名称
+     */
+    @Param({"randomWeight", "roundRobin", "adaptive"})
+    protected String loadBalance;
+    /**
+     * 集群节点数
+     */
+    @Param({"10", "100", "300"})
+    protected int nodes;
+
+    protected LoadBalance<RequestMessage<Invocation>> target;
+
+    protected Candidate candidate;
+
+    protected RequestMessage<Invocation> request;
+
+    @Setup
+    public void setup() throws Exception {
+        URL url = URL.valueOf("joyrpc://127.0.0.1:22000/" + OrderService.class.getName() + "?loadbalance=" + loadBalance);
+        target = LOADBALANCE.get(loadBalance);
+        target.setUrl(url);
+        if (target instanceof InvokerAware) {
+            ((InvokerAware) target).setClassName(url.getPath());
+        }
+        target.setup();
+        //和InvokerManager一样，只有感知面板的负载均衡才创建面板
+        DashboardFactory<Dashboard> factory = target instanceof DashboardAware ? DASHBOARD_FACTORY.get() : null;
+        String name = "benchmark";
+        Cluster cluster = new Cluster(name, url, new FixRegistar(url), null, null, null, factory,
+                Collections.emptyList(), null);
+        List<Node> list = new ArrayList<>(nodes);
+        for (int i = 0; i < nodes; i++) {
+            URL nodeUrl = URL.valueOf("joyrpc://10.0." + (i / 250) + "." + (i % 250 + 1) + ":22000");
+            list.add(new Node(name, url,
+                    new Shard.DefaultShard("shard" + i, "huabei", "lf", "joyrpc", nodeUrl, i % 10 + 1, ShardState.CONNECTED),
+                    ENDPOINT_FACTORY.get(), null, null,
+                    factory == null ? null : factory.create(nodeUrl, DashboardType.Node), null));
+        }
+        candidate = Candidate.builder().cluster(cluster).region(new Region.DefaultRegion("huabei", "lf"))
+                .nodes(list).size(nodes).build();
+        request = RequestMessage.build(new Invocation(OrderService.class, OrderService.class.getMethod("echo", Order.class),
+                new Object[]{Order.create(1, 1)}));
+    }
+
+    @Benchmark
+    public Node select() {
+        return target.select(candidate, request);
+    }
+
+}
@@ -0,0 +1,80 @@
+package io.joyrpc.benchmark;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.benchmark.model.Order;
+import io.joyrpc.benchmark.service.OrderService;
+import io.joyrpc.proxy.MethodCaller;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+import static io.joyrpc.Plugin.METHOD_CALLER;
+
+/**
+ * 服务端方法调用器压测，对比反射和生成的调用器
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@Threads(4)
+@State(Scope.Benchmark)
+public class MethodCallerBenchmark {
+
+    /**
+     * 调用器插件名称
+     */
+    @Param({"reflection", "methodHandle", "bytebuddy", "javassist"})
+    protected String type;
+
+    protected MethodCaller caller;
+
+    protected OrderService service;
+
+    protected Object[] args;
+
+    @Setup
+    public void setup() throws Exception {
+        Method[] methods = new Method[]{OrderService.class.getMethod("echo", Order.class)};
+        caller = METHOD_CALLER.get(type).create(OrderService.class, methods);
+        service = new OrderService() {
+            @Override
+            public Order echo(final Order order) {
+                return order;
+            }
+
+            @Override
+            public Order get(final long id) {
+                return Order.create(1, 1);
+            }
+        };
+        args = new Object[]{Order.create(1, 1)};
+    }
+
+    @Benchmark
+    public Object invoke() throws Throwable {
+        return caller.invoke(service, 0, args);
+    }
+
+}
@@ -0,0 +1,88 @@
+package io.joyrpc.benchmark;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.cluster.event.MetricEvent;
+import io.joyrpc.event.Publisher;
+import io.joyrpc.extension.URL;
+import io.joyrpc.metric.Dashboard;
+import io.joyrpc.metric.mc.McDashboard;
+import io.joyrpc.protocol.message.Invocation;
+import io.joyrpc.protocol.message.RequestMessage;
+import io.joyrpc.util.SystemClock;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static io.joyrpc.Plugin.EVENT_BUS;
+import static io.joyrpc.cluster.Cluster.EVENT_PUBLISHER_METRIC;
+import static io.joyrpc.cluster.Cluster.EVENT_PUBLISHER_METRIC_CONF;
+
+/**
+ * 指标记录压测，对比事件队列和在调用线程直接记录
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MetricBenchmark {
+
+    @Param({"mc", "hdr"})
+    protected String window;
+
+    protected Dashboard dashboard;
+
+    protected Publisher<MetricEvent> publisher;
+
+    protected RequestMessage<Invocation> request;
+
+    @Setup
+    public void setup() {
+        URL url = URL.valueOf("joyrpc://127.0.0.1:22000/io.joyrpc.benchmark.service.EchoService?metric.window=" + window);
+        dashboard = new McDashboard(url, Dashboard.DashboardType.Node, null);
+        publisher = EVENT_BUS.get().getPublisher(EVENT_PUBLISHER_METRIC, "benchmark", EVENT_PUBLISHER_METRIC_CONF);
+        publisher.addHandler(dashboard);
+        publisher.start();
+        request = RequestMessage.build(new Invocation("io.joyrpc.benchmark.service.EchoService", null, "echo"));
+    }
+
+    @TearDown
+    public void tearDown() {
+        publisher.close();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void publish() {
+        long now = SystemClock.now();
+        publisher.offer(new MetricEvent(this, null, null, null, null, request, null, null, 1, now - 1, now));
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void inline() {
+        long now = SystemClock.now();
+        dashboard.record(request, null, null, 1, now - 1, now, 1000000L);
+    }
+
+}
@@ -0,0 +1,122 @@
+package io.joyrpc.benchmark;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.benchmark.model.Order;
+import io.joyrpc.benchmark.service.OrderService;
+import io.joyrpc.benchmark.service.OrderServiceImpl;
+import io.joyrpc.config.ConsumerConfig;
+import io.joyrpc.config.ProviderConfig;
+import io.joyrpc.config.ServerConfig;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static io.joyrpc.constants.Constants.FLUSH_CONSOLIDATION_OPTION;
+
+/**
+ * 本机回环的消费者到服务提供者全链路压测，SampleTime模式可以输出p99等分位值
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(16)
+@State(Scope.Benchmark)
+public class RoundTripBenchmark {
+
+    /**
+     * 序列化插件名称
+     */
+    @Param({"hessian", "protostuff"})
+    protected String serialization;
+    /**
+     * 订单明细数量，用于控制数据包大小
+     */
+    @Param({"1", "100"})
+    protected int items;
+    /**
+     * 服务端口
+     */
+    @Param({"22099"})
+    protected int port;
+    /**
+     * 是否开启合并刷盘
+     */
+    @Param({"false"})
+    protected String flushConsolidation;
+
+    protected ProviderConfig<OrderService> providerConfig;
+
+    protected ConsumerConfig<OrderService> consumerConfig;
+
+    protected OrderService consumer;
+
+    protected Order order;
+
+    @Setup
+    public void setup() throws Exception {
+        ServerConfig serverConfig = new ServerConfig();
+        serverConfig.setPort(port);
+        serverConfig.setParameter(FLUSH_CONSOLIDATION_OPTION.getName(), flushConsolidation);
+
+        providerConfig = new ProviderConfig<>();
+        providerConfig.setServerConfig(serverConfig);
+        providerConfig.setInterfaceClazz(OrderService.class.getName());
+        providerConfig.setRef(new OrderServiceImpl());
+        providerConfig.setAlias("benchmark");
+        //不注册也不订阅，使用内存注册中心
+        providerConfig.setRegister(false);
+        providerConfig.setSubscribe(false);
+        providerConfig.exportAndOpen().get();
+
+        consumerConfig = new ConsumerConfig<>();
+        consumerConfig.setInterfaceClazz(OrderService.class.getName());
+        consumerConfig.setAlias("benchmark");
+        //直连服务提供者
+        consumerConfig.setUrl("joy://127.0.0.1:" + port);
+        //同一个进程内，需要关闭injvm调用，否则不走网络
+        consumerConfig.setInjvm(false);
+        consumerConfig.setSerialization(serialization);
+        consumerConfig.setTimeout(5000);
+        consumerConfig.setParameter(FLUSH_CONSOLIDATION_OPTION.getName(), flushConsolidation);
+        consumer = consumerConfig.refer().get();
+        order = Order.create(1, items);
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        consumerConfig.unrefer().get();
+        providerConfig.unexport().get();
+    }
+
+    @Benchmark
+    public Order echo() {
+        return consumer.echo(order);
+    }
+
+    @Benchmark
+    public Order get() {
+        return consumer.get(1);
+    }
+
+}
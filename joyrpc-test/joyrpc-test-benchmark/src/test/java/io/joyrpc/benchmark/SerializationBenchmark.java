@@ -0,0 +1,84 @@
+package io.joyrpc.benchmark;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.benchmark.model.Order;
+import io.joyrpc.codec.serialization.Serializer;
+import io.joyrpc.codec.serialization.UnsafeByteArrayInputStream;
+import io.joyrpc.codec.serialization.UnsafeByteArrayOutputStream;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+import static io.joyrpc.Plugin.SERIALIZATION;
+
+/**
+ * 序列化插件压测
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SerializationBenchmark {
+
+    /**
+     * 序列化插件名称
+     */
+    @Param({"hessian", "protostuff", "kryo", "fst", "json", "java"})
+    protected String serialization;
+    /**
+     * 订单明细数量，用于控制数据包大小
+     */
+    @Param({"1", "20"})
+    protected int items;
+
+    protected Serializer serializer;
+
+    protected Order order;
+
+    protected UnsafeByteArrayOutputStream baos;
+
+    protected byte[] bytes;
+
+    @Setup
+    public void setup() {
+        serializer = SERIALIZATION.get(serialization).getSerializer();
+        order = Order.create(1, items);
+        baos = new UnsafeByteArrayOutputStream(4096);
+        serializer.serialize(baos, order);
+        bytes = baos.toByteArray();
+    }
+
+    @Benchmark
+    public int serialize() {
+        baos.reset();
+        serializer.serialize(baos, order);
+        return baos.size();
+    }
+
+    @Benchmark
+    public Object deserialize() {
+        return serializer.deserialize(new UnsafeByteArrayInputStream(bytes), Order.class);
+    }
+
+}
@@ -0,0 +1,69 @@
+package io.joyrpc.benchmark;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.util.SystemClock;
+import io.joyrpc.util.Timer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 时间轮压测，模拟请求超时任务的添加和放弃
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TimerBenchmark {
+
+    protected static final Runnable NOOP = () -> {
+    };
+
+    /**
+     * 分片数
+     */
+    @Param({"1", "4"})
+    protected int shards;
+
+    protected Timer timer;
+
+    @Setup
+    public void setup() {
+        //和默认定时器的参数保持一致
+        timer = new Timer("benchmark", 10, 512, 4, 0, shards);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean addAndCancel() {
+        return timer.add("benchmark", SystemClock.now() + 5000, NOOP).cancel();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean addAndCancelConcurrently() {
+        return timer.add("benchmark", SystemClock.now() + 5000, NOOP).cancel();
+    }
+
+}
@@ -0,0 +1,157 @@
+package io.joyrpc.benchmark.model;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * 压测用的订单对象，模拟常见的业务DTO
+ */
+public class Order implements Serializable {
+
+    protected long id;
+
+    protected String customer;
+
+    protected String address;
+
+    protected int status;
+
+    protected double amount;
+
+    protected long createTime;
+
+    protected List<OrderItem> items;
+
+    public Order() {
+    }
+
+    public Order(long id, String customer, String address, int status, double amount, long createTime, List<OrderItem> items) {
+        this.id = id;
+        this.customer = customer;
+        this.address = address;
+        this.status = status;
+        this.amount = amount;
+        this.createTime = createTime;
+        this.items = items;
+    }
+
+    /**
+     * 构造指定明细数量的订单
+     *
+     * @param id    订单ID
+     * @param items 明细数量
+     * @return 订单
+     */
+    public static Order create(final long id, final int items) {
+        List<OrderItem> list = new ArrayList<>(items);
+        double amount = 0;
+        for (int i = 0; i < items; i++) {
+            OrderItem item = new OrderItem(i, "sku-" + i, "product name of item " + i, i % 5 + 1, 9.9 * (i + 1));
+            amount += item.getPrice() * item.getQuantity();
+            list.add(item);
+        }
+        return new Order(id, "customer-" + id, "No.18 Kechuang 11th Street, Beijing Economic-Technological Development Area",
+                1, amount, 1571124000000L + id, list);
+    }
+
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public String getCustomer() {
+        return customer;
+    }
+
+    public void setCustomer(String customer) {
+        this.customer = customer;
+    }
+
+    public String getAddress() {
+        return address;
+    }
+
+    public void setAddress(String address) {
+        this.address = address;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    public double getAmount() {
+        return amount;
+    }
+
+    public void setAmount(double amount) {
+        this.amount = amount;
+    }
+
+    public long getCreateTime() {
+        return createTime;
+    }
+
+    public void setCreateTime(long createTime) {
+        this.createTime = createTime;
+    }
+
+    public List<OrderItem> getItems() {
+        return items;
+    }
+
+    public void setItems(List<OrderItem> items) {
+        this.items = items;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        Order order = (Order) o;
+        return id == order.id &&
+                status == order.status &&
+                Double.compare(order.amount, amount) == 0 &&
+                createTime == order.createTime &&
+                Objects.equals(customer, order.customer) &&
+                Objects.equals(address, order.address) &&
+                Objects.equals(items, order.items);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id, customer, address, status, amount, createTime, items);
+    }
+}
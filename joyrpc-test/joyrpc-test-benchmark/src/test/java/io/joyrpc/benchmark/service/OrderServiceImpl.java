@@ -0,0 +1,44 @@
+package io.joyrpc.benchmark.service;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.benchmark.model.Order;
+
+/**
+ * 压测服务实现
+ */
+public class OrderServiceImpl implements OrderService {
+
+    /**
+     * 预先构造好的订单，避免服务端的构造开销干扰压测结果
+     */
+    protected final Order order = Order.create(1, 10);
+
+    @Override
+    public Order echo(final Order order) {
+        return order;
+    }
+
+    @Override
+    public Order get(final long id) {
+        return order;
+    }
+}
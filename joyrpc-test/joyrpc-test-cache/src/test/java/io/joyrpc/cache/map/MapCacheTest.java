@@ -0,0 +1,192 @@
+package io.joyrpc.cache.map;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.cache.CacheConfig;
+import io.joyrpc.cache.CacheStats;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Map缓存测试
+ */
+public class MapCacheTest {
+
+    protected MapCache<String, String> build(final int capacity, final long capacityBytes, final int expireAfterWrite) {
+        CacheConfig.Builder<String, String> builder = CacheConfig.builder();
+        return new MapCache<>("test", builder.capacity(capacity).capacityBytes(capacityBytes).expireAfterWrite(expireAfterWrite).build());
+    }
+
+    @Test
+    public void testCapacity() throws Exception {
+        MapCache<String, String> cache = build(1000, -1, -1);
+        for (int i = 0; i < 10000; i++) {
+            cache.put(String.valueOf(i), String.valueOf(i)).get();
+        }
+        CacheStats stats = cache.getStats();
+        Assert.assertTrue(stats.getSize() <= 1000);
+        Assert.assertEquals(stats.getSize(), stats.getWeight());
+        Assert.assertEquals(10000 - stats.getSize(), stats.getEvictions());
+    }
+
+    @Test
+    public void testFrequencyAdmission() throws Exception {
+        MapCache<String, String> cache = build(1000, -1, -1);
+        //热点数据
+        for (int round = 0; round < 10; round++) {
+            for (int i = 0; i < 500; i++) {
+                String key = "hot" + i;
+                if (cache.get(key).get() == null) {
+                    cache.put(key, key).get();
+                }
+            }
+        }
+        //一次性扫描不应该冲掉热点数据
+        for (int i = 0; i < 10000; i++) {
+            cache.put("cold" + i, "cold").get();
+        }
+        int hits = 0;
+        for (int i = 0; i < 500; i++) {
+            if (cache.get("hot" + i).get() != null) {
+                hits++;
+            }
+        }
+        Assert.assertTrue("hot hits " + hits, hits > 450);
+    }
+
+    @Test
+    public void testCapacityBytes() throws Exception {
+        MapCache<String, String> cache = build(-1, 100000, -1);
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            builder.append('a');
+        }
+        String value = builder.toString();
+        for (int i = 0; i < 1000; i++) {
+            cache.put(String.valueOf(i), value).get();
+        }
+        CacheStats stats = cache.getStats();
+        Assert.assertTrue(stats.getWeight() <= 100000);
+        Assert.assertTrue(stats.getSize() < 100);
+        Assert.assertTrue(stats.getEvictions() > 0);
+    }
+
+    @Test
+    public void testExpireSweep() throws Exception {
+        MapCache<String, String> cache = build(-1, -1, 100);
+        for (int i = 0; i < 100; i++) {
+            cache.put(String.valueOf(i), String.valueOf(i)).get();
+        }
+        Assert.assertEquals(100, cache.getStats().getSize());
+        //不读取，由定时任务清理
+        long end = System.currentTimeMillis() + 3000;
+        while (cache.getStats().getSize() > 0 && System.currentTimeMillis() < end) {
+            Thread.sleep(50);
+        }
+        CacheStats stats = cache.getStats();
+        Assert.assertEquals(0, stats.getSize());
+        Assert.assertEquals(100, stats.getExpirations());
+    }
+
+    @Test
+    public void testSweeperNotRetain() throws Exception {
+        MapCache<String, String> cache = build(-1, -1, 60000);
+        cache.put("a", "a").get();
+        //已经调度了过期清理，时间轮不能持有缓存
+        WeakReference<MapCache<String, String>> reference = new WeakReference<>(cache);
+        cache = null;
+        for (int i = 0; i < 20 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(50);
+        }
+        Assert.assertNull(reference.get());
+    }
+
+    @Test
+    public void testReadBuffer() {
+        MapCache.ReadBuffer<Integer> buffer = new MapCache.ReadBuffer<>(1);
+        for (int i = 0; i < MapCache.ReadBuffer.BUFFER_SIZE - 1; i++) {
+            Assert.assertFalse(buffer.offer(i));
+        }
+        //满了需要回放，再放入的丢弃
+        Assert.assertTrue(buffer.offer(MapCache.ReadBuffer.BUFFER_SIZE - 1));
+        Assert.assertTrue(buffer.offer(-1));
+        List<Integer> reads = new ArrayList<>();
+        buffer.drain(reads::add);
+        Assert.assertEquals(MapCache.ReadBuffer.BUFFER_SIZE, reads.size());
+        for (int i = 0; i < reads.size(); i++) {
+            Assert.assertEquals(i, reads.get(i).intValue());
+        }
+        Assert.assertFalse(buffer.offer(100));
+        reads.clear();
+        buffer.drain(reads::add);
+        Assert.assertEquals(1, reads.size());
+        Assert.assertEquals(100, reads.get(0).intValue());
+    }
+
+    @Test
+    public void testStats() throws Exception {
+        MapCache<String, String> cache = build(100, -1, -1);
+        cache.put("a", "a").get();
+        cache.get("a").get();
+        cache.get("b").get();
+        CacheStats stats = cache.getStats();
+        Assert.assertEquals(1, stats.getHits());
+        Assert.assertEquals(1, stats.getMisses());
+    }
+
+    @Test
+    public void testConcurrent() throws Exception {
+        MapCache<String, String> cache = build(1000, -1, 1000);
+        int threads = 4;
+        ExecutorService service = Executors.newFixedThreadPool(threads);
+        Future<?>[] futures = new Future[threads];
+        for (int t = 0; t < threads; t++) {
+            futures[t] = service.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 100000; i++) {
+                    String key = String.valueOf(random.nextInt(5000));
+                    if (random.nextInt(10) == 0) {
+                        cache.remove(key).get();
+                    } else if (cache.get(key).get() == null) {
+                        cache.put(key, key).get();
+                    }
+                }
+                return null;
+            });
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        service.shutdown();
+        CacheStats stats = cache.getStats();
+        Assert.assertTrue(stats.getSize() <= 1000);
+        Assert.assertEquals(stats.getSize(), stats.getWeight());
+    }
+}
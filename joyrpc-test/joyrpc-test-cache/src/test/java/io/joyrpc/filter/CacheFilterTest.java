@@ -0,0 +1,135 @@
+package io.joyrpc.filter;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.Invoker;
+import io.joyrpc.Result;
+import io.joyrpc.context.RequestContext;
+import io.joyrpc.extension.URL;
+import io.joyrpc.filter.consumer.CacheFilter;
+import io.joyrpc.protocol.message.Invocation;
+import io.joyrpc.protocol.message.RequestMessage;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 缓存过滤器测试
+ */
+public class CacheFilterTest {
+
+    public interface EchoService {
+
+        String echo(String value);
+    }
+
+    protected CacheFilter build(final String parameters) {
+        URL url = URL.valueOf("joyrpc://127.0.0.1:22000/" + EchoService.class.getName() + "?cache=true&cacheProvider=map&" + parameters);
+        CacheFilter filter = new CacheFilter();
+        filter.setUrl(url);
+        filter.setClass(EchoService.class);
+        filter.setClassName(EchoService.class.getName());
+        filter.setup();
+        return filter;
+    }
+
+    protected RequestMessage<Invocation> request(final String value) throws NoSuchMethodException {
+        RequestMessage<Invocation> request = RequestMessage.build(new Invocation(EchoService.class,
+                EchoService.class.getMethod("echo", String.class), new Object[]{value}));
+        request.setContext(new RequestContext());
+        return request;
+    }
+
+    @Test
+    public void testCoalesce() throws Exception {
+        CacheFilter filter = build("cacheExpireTime=60000");
+        AtomicInteger counter = new AtomicInteger();
+        List<CompletableFuture<Result>> pending = new ArrayList<>();
+        List<RequestMessage<Invocation>> requests = new ArrayList<>();
+        List<CompletableFuture<Result>> results = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            RequestMessage<Invocation> request = request("hello");
+            requests.add(request);
+            results.add(filter.invoke(r -> {
+                counter.incrementAndGet();
+                CompletableFuture<Result> future = new CompletableFuture<>();
+                pending.add(future);
+                return future;
+            }, request));
+        }
+        //并发未命中只发起一次调用
+        Assert.assertEquals(1, counter.get());
+        pending.get(0).complete(new Result(requests.get(0).getContext(), "world"));
+        for (int i = 0; i < results.size(); i++) {
+            Result result = results.get(i).get();
+            Assert.assertEquals("world", result.getValue());
+            Assert.assertSame(requests.get(i).getContext(), result.getContext());
+        }
+        //命中缓存
+        Assert.assertEquals("world", filter.invoke(r -> {
+            counter.incrementAndGet();
+            return CompletableFuture.completedFuture(new Result(r.getContext(), "again"));
+        }, request("hello")).get().getValue());
+        Assert.assertEquals(1, counter.get());
+    }
+
+    @Test
+    public void testStaleWhileRevalidate() throws Exception {
+        CacheFilter filter = build("cacheExpireTime=100&cacheStaleTime=60000");
+        AtomicInteger counter = new AtomicInteger();
+        List<RequestMessage<Invocation>> invoked = new ArrayList<>();
+        Invoker invoker = r -> {
+            invoked.add(r);
+            return CompletableFuture.completedFuture(new Result(r.getContext(), "v" + counter.incrementAndGet()));
+        };
+        Assert.assertEquals("v1", filter.invoke(invoker, request("hello")).get().getValue());
+        Thread.sleep(200);
+        //过期后返回旧值，同时后台用复制的请求刷新
+        RequestMessage<Invocation> request = request("hello");
+        Assert.assertEquals("v1", filter.invoke(invoker, request).get().getValue());
+        Assert.assertEquals(2, counter.get());
+        RequestMessage<Invocation> refresh = invoked.get(1);
+        Assert.assertNotSame(request, refresh);
+        Assert.assertNotSame(request.getHeader(), refresh.getHeader());
+        Assert.assertNotSame(request.getPayLoad(), refresh.getPayLoad());
+        Assert.assertNotSame(request.getContext(), refresh.getContext());
+        Assert.assertEquals("hello", refresh.getPayLoad().getArgs()[0]);
+        Assert.assertEquals("v2", filter.invoke(invoker, request("hello")).get().getValue());
+        Assert.assertEquals(2, counter.get());
+    }
+
+    @Test
+    public void testRefreshAhead() throws Exception {
+        CacheFilter filter = build("cacheExpireTime=1000&cacheRefreshAhead=900");
+        AtomicInteger counter = new AtomicInteger();
+        Invoker invoker = r -> CompletableFuture.completedFuture(new Result(r.getContext(), "v" + counter.incrementAndGet()));
+        Assert.assertEquals("v1", filter.invoke(invoker, request("hello")).get().getValue());
+        Thread.sleep(200);
+        //快到期的时候返回当前值，同时提前刷新
+        Assert.assertEquals("v1", filter.invoke(invoker, request("hello")).get().getValue());
+        Assert.assertEquals("v2", filter.invoke(invoker, request("hello")).get().getValue());
+        Assert.assertEquals(2, counter.get());
+    }
+}
@@ -0,0 +1,152 @@
+package io.joyrpc.filter.cache;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import io.joyrpc.extension.URL;
+import io.joyrpc.filter.cache.DefaultCacheKeyGenerator.Murmur3OutputStream;
+import io.joyrpc.protocol.message.Invocation;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.util.*;
+
+/**
+ * 缓存键生成器测试
+ */
+public class CacheKeyGeneratorTest {
+
+    public interface QueryService {
+
+        Object query(Object value);
+    }
+
+    public static class Query implements Serializable {
+
+        private String name;
+        private int age;
+
+        public Query() {
+        }
+
+        public Query(String name, int age) {
+            this.name = name;
+            this.age = age;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public int getAge() {
+            return age;
+        }
+
+        public void setAge(int age) {
+            this.age = age;
+        }
+    }
+
+    protected DefaultCacheKeyGenerator build() {
+        DefaultCacheKeyGenerator generator = new DefaultCacheKeyGenerator();
+        generator.setUrl(URL.valueOf("joyrpc://127.0.0.1:22000/" + QueryService.class.getName()));
+        generator.setup();
+        return generator;
+    }
+
+    protected Object generate(final DefaultCacheKeyGenerator generator, final Object arg) throws NoSuchMethodException {
+        return generator.generate(new Invocation(QueryService.class,
+                QueryService.class.getMethod("query", Object.class), new Object[]{arg}));
+    }
+
+    @Test
+    public void testMurmur3() {
+        Random random = new Random(0);
+        for (int len = 0; len < 100; len++) {
+            byte[] bytes = new byte[len];
+            random.nextBytes(bytes);
+            HashCode expect = Hashing.murmur3_128().hashBytes(bytes);
+            //逐字节写入和批量写入结果一致
+            Murmur3OutputStream single = new Murmur3OutputStream();
+            for (byte b : bytes) {
+                single.write(b);
+            }
+            Murmur3OutputStream batch = new Murmur3OutputStream();
+            batch.write(1);
+            batch.write(bytes, 0, bytes.length);
+            Murmur3OutputStream expectBatch = new Murmur3OutputStream();
+            expectBatch.write(1);
+            for (byte b : bytes) {
+                expectBatch.write(b);
+            }
+            Assert.assertEquals(expect.asLong(), single.toKey().getHigh());
+            Assert.assertEquals(expectBatch.toKey(), batch.toKey());
+        }
+    }
+
+    @Test
+    public void testGenerate() throws Exception {
+        DefaultCacheKeyGenerator generator = build();
+        Assert.assertEquals(generate(generator, "hello"), generate(generator, "hello"));
+        Assert.assertNotEquals(generate(generator, "hello"), generate(generator, "world"));
+        //类型不同键不同
+        Assert.assertNotEquals(generate(generator, 1), generate(generator, 1L));
+        Assert.assertNotEquals(generate(generator, null), generate(generator, "null"));
+        Assert.assertEquals(generate(generator, Arrays.asList(1, "a", null)), generate(generator, Arrays.asList(1, "a", null)));
+        Assert.assertEquals(generate(generator, new int[]{1, 2}), generate(generator, new int[]{1, 2}));
+        Assert.assertNotEquals(generate(generator, new int[]{1, 2}), generate(generator, new int[]{2, 1}));
+        //对象通过序列化写入
+        Assert.assertEquals(generate(generator, new Query("joy", 10)), generate(generator, new Query("joy", 10)));
+        Assert.assertNotEquals(generate(generator, new Query("joy", 10)), generate(generator, new Query("joy", 11)));
+        List<Integer> big = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            big.add(i);
+        }
+        Assert.assertEquals(generate(generator, big), generate(generator, new ArrayList<>(big)));
+    }
+
+    @Test
+    public void testCollision() {
+        //哈希相同但键字节不同，不能认为是同一个键
+        CacheKey key1 = new CacheKey(1, 2, new byte[]{1, 2});
+        CacheKey key2 = new CacheKey(1, 2, new byte[]{2, 1});
+        Assert.assertNotEquals(key1, key2);
+        Assert.assertEquals(key1.hashCode(), key2.hashCode());
+        Assert.assertEquals(key1, new CacheKey(1, 2, new byte[]{1, 2}));
+        //大键只保留哈希值
+        Murmur3OutputStream hasher = new Murmur3OutputStream();
+        hasher.write(new byte[100], 0, 100);
+        CacheKey key = hasher.toKey();
+        Assert.assertEquals(new CacheKey(key.getHigh(), key.getLow()), key);
+        //小键保留键字节
+        hasher = new Murmur3OutputStream();
+        hasher.write(new byte[10], 0, 10);
+        key = hasher.toKey();
+        Assert.assertNotEquals(new CacheKey(key.getHigh(), key.getLow()), key);
+        Assert.assertEquals(new CacheKey(key.getHigh(), key.getLow(), new byte[10]), key);
+    }
+}
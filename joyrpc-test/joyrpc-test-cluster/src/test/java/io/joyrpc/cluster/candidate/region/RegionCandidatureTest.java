@@ -177,4 +177,60 @@ public class RegionCandidatureTest {
         Assert.assertEquals(result.getBackups().size(), 0);
 
     }
+
+    @Test
+    public void testSubset() {
+        String name = "test";
+        URL url = URL.valueOf("joyrpc://127.0.0.1/xxx.xxx.xxx.xxx");
+        List<Node> nodes = new LinkedList<>();
+        for (int i = 1; i <= 10; i++) {
+            nodes.add(new Node(name, url, new Shard.DefaultShard("lf" + i, "huabei", "lf", "joyrpc", URL.valueOf("joyrpc://192.168.1." + i), 100, ShardState.INITIAL)));
+        }
+        for (int i = 1; i <= 100; i++) {
+            nodes.add(new Node(name, url, new Shard.DefaultShard("ht" + i, "huabei", "ht", "joyrpc", URL.valueOf("joyrpc://192.168.2." + i), 100, ShardState.INITIAL)));
+        }
+        RegionCandidature candidature = new RegionCandidature();
+        Candidate.Builder builder = Candidate.builder().region(new Region.DefaultRegion("huabei", "lf")).nodes(nodes).size(5);
+        //每个消费者从ht机房选择一个热备节点，统计每个节点的扇入
+        Map<String, Integer> fanIns = new HashMap<>();
+        int consumers = 1000;
+        for (int i = 0; i < consumers; i++) {
+            URL consumer = URL.valueOf("joyrpc://127.0.0.1/xxx.xxx.xxx.xxx?subsetKey=10.0.0." + i);
+            Candidature.Result result = candidature.candidate(consumer, builder.build());
+            Assert.assertEquals(10, result.getCandidates().size());
+            Assert.assertEquals(1, result.getStandbys().size());
+            Assert.assertEquals(0.01, result.getFanIns().get(result.getStandbys().get(0).getName()), 0.0001);
+            Assert.assertEquals(1.0, result.getFanIns().get("lf1"), 0.0001);
+            fanIns.merge(result.getStandbys().get(0).getName(), 1, Integer::sum);
+        }
+        //期望每个节点10个
+        for (Integer count : fanIns.values()) {
+            Assert.assertTrue(count <= 30);
+        }
+        Assert.assertTrue(fanIns.size() > 90);
+    }
+
+    @Test
+    public void testSubsetStable() {
+        String name = "test";
+        URL url = URL.valueOf("joyrpc://127.0.0.1/xxx.xxx.xxx.xxx");
+        List<Node> nodes = new LinkedList<>();
+        nodes.add(new Node(name, url, new Shard.DefaultShard("lf1", "huabei", "lf", "joyrpc", URL.valueOf("joyrpc://192.168.1.1"), 100, ShardState.INITIAL)));
+        for (int i = 1; i <= 100; i++) {
+            nodes.add(new Node(name, url, new Shard.DefaultShard("ht" + i, "huabei", "ht", "joyrpc", URL.valueOf("joyrpc://192.168.2." + i), 100, ShardState.INITIAL)));
+        }
+        RegionCandidature candidature = new RegionCandidature();
+        URL consumer = URL.valueOf("joyrpc://127.0.0.1/xxx.xxx.xxx.xxx?subsetKey=10.0.0.1");
+        Candidate.Builder builder = Candidate.builder().region(new Region.DefaultRegion("huabei", "lf")).size(1);
+        Candidature.Result result = candidature.candidate(consumer, builder.nodes(new ArrayList<>(nodes)).build());
+        Assert.assertEquals(1, result.getStandbys().size());
+        Node standby = result.getStandbys().get(0);
+        //重复选举结果不变
+        Assert.assertEquals(standby, candidature.candidate(consumer, builder.nodes(new ArrayList<>(nodes)).build()).getStandbys().get(0));
+        //其它节点下线不影响选择结果
+        List<Node> others = new ArrayList<>(nodes);
+        others.removeIf(o -> o != standby && o.getName().endsWith("7"));
+        Collections.reverse(others);
+        Assert.assertEquals(standby, candidature.candidate(consumer, builder.nodes(others).build()).getStandbys().get(0));
+    }
 }
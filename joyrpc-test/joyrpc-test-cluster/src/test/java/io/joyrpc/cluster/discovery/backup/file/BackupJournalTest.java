@@ -0,0 +1,171 @@
+package io.joyrpc.cluster.discovery.backup.file;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.cluster.discovery.backup.BackupDatum;
+import io.joyrpc.cluster.discovery.backup.BackupShard;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 备份日志测试
+ */
+public class BackupJournalTest {
+
+    protected BackupDatum delta(final String cluster, final List<BackupShard> shards,
+                                final String config, final Map<String, String> configs) {
+        BackupDatum result = new BackupDatum();
+        Map<String, List<BackupShard>> clusters = new HashMap<>();
+        clusters.put(cluster, shards);
+        result.setClusters(clusters);
+        Map<String, Map<String, String>> map = new HashMap<>();
+        map.put(config, configs);
+        result.setConfigs(map);
+        return result;
+    }
+
+    protected List<BackupShard> shards(final int count) {
+        List<BackupShard> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(new BackupShard("shard" + i, "region", null, "joyrpc",
+                    "joyrpc://127.0.0.1:" + (22000 + i), 100));
+        }
+        return result;
+    }
+
+    protected void replay(final boolean mapped) throws IOException {
+        File file = File.createTempFile("backup", ".journal");
+        try {
+            try (BackupJournal journal = new BackupJournal(file, 64 * 1024, mapped)) {
+                Map<String, String> configs = new HashMap<>();
+                configs.put("timeout", "5000");
+                Assert.assertTrue(journal.append(delta("a", shards(2), "a", configs)));
+                Assert.assertTrue(journal.append(delta("b", shards(3), "b", configs)));
+                //删除a
+                Assert.assertTrue(journal.append(delta("a", null, "a", null)));
+            }
+            BackupDatum datum = new BackupDatum();
+            Assert.assertEquals(6, BackupJournal.replay(file, datum));
+            Assert.assertNull(datum.getClusters().get("a"));
+            Assert.assertEquals(shards(3), datum.getClusters().get("b"));
+            Assert.assertNull(datum.getConfigs().get("a"));
+            Assert.assertEquals("5000", datum.getConfigs().get("b").get("timeout"));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testReplay() throws IOException {
+        replay(false);
+    }
+
+    @Test
+    public void testMappedReplay() throws IOException {
+        replay(true);
+    }
+
+    protected void rollback(final boolean mapped) throws IOException {
+        File file = File.createTempFile("backup", ".journal");
+        try {
+            try (BackupJournal journal = new BackupJournal(file, 64 * 1024, mapped)) {
+                Assert.assertTrue(journal.append(delta("a", shards(2), "a", new HashMap<>())));
+                //模拟写了一半失败
+                byte[] garbage = new byte[]{0, 0, 0, 100, 1, 2, 3, 4, 5};
+                if (mapped) {
+                    journal.buffer.put(garbage);
+                } else {
+                    journal.channel.write(ByteBuffer.wrap(garbage), journal.getPosition());
+                }
+                journal.rollback();
+                Assert.assertTrue(journal.append(delta("b", shards(1), "b", new HashMap<>())));
+            }
+            BackupDatum datum = new BackupDatum();
+            Assert.assertEquals(4, BackupJournal.replay(file, datum));
+            Assert.assertEquals(shards(1), datum.getClusters().get("b"));
+            //解除映射后可以删除
+            Assert.assertTrue(file.delete());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testRollback() throws IOException {
+        rollback(false);
+    }
+
+    @Test
+    public void testMappedRollback() throws IOException {
+        rollback(true);
+    }
+
+    @Test
+    public void testFull() throws IOException {
+        File file = File.createTempFile("backup", ".journal");
+        try (BackupJournal journal = new BackupJournal(file, 256, false)) {
+            Assert.assertTrue(journal.append(delta("a", shards(1), "a", new HashMap<>())));
+            //空间不足，需要压缩成快照
+            Assert.assertFalse(journal.append(delta("b", shards(10), "b", new HashMap<>())));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testCorruptedTail() throws IOException {
+        File file = File.createTempFile("backup", ".journal");
+        try {
+            long position;
+            try (BackupJournal journal = new BackupJournal(file, 64 * 1024, false)) {
+                Assert.assertTrue(journal.append(delta("a", shards(2), "a", new HashMap<>())));
+                position = journal.getPosition();
+                Assert.assertTrue(journal.append(delta("b", shards(2), "b", new HashMap<>())));
+            }
+            //破坏最后一条记录
+            try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+                raf.seek(raf.length() - 1);
+                int value = raf.read();
+                raf.seek(raf.length() - 1);
+                raf.write(value ^ 0xFF);
+            }
+            BackupDatum datum = new BackupDatum();
+            BackupJournal.replay(file, datum);
+            Assert.assertEquals(shards(2), datum.getClusters().get("a"));
+            //最后一条记录是配置b
+            Assert.assertEquals(shards(2), datum.getClusters().get("b"));
+            Assert.assertNull(datum.getConfigs().get("b"));
+            Assert.assertEquals(1, datum.getConfigs().size());
+            Assert.assertTrue(position < file.length());
+        } finally {
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package io.joyrpc.cluster.distribution.limiter;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.cluster.distribution.RateLimiter;
+import io.joyrpc.context.limiter.LimiterConfiguration.ClassLimiter;
+import io.joyrpc.context.limiter.LimiterConfiguration.Option;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 令牌桶限流测试
+ */
+public class TokenBucketRateLimiterTest {
+
+    protected RateLimiter build(final int limit, final long periodMillis) {
+        return new TokenBucketRateLimiter(RateLimiterConfig.builder().type("tokenBucket").limitCount(limit)
+                .limitPeriodNanos(TimeUnit.MILLISECONDS.toNanos(periodMillis)).build());
+    }
+
+    @Test
+    public void testLimit() throws InterruptedException {
+        RateLimiter limiter = build(100, 1000);
+        int permits = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (limiter.getPermission()) {
+                permits++;
+            }
+        }
+        //桶容量是一个周期的许可数
+        Assert.assertTrue(permits >= 99 && permits <= 101);
+        Thread.sleep(200);
+        permits = 0;
+        for (int i = 0; i < 1000; i++) {
+            if (limiter.getPermission()) {
+                permits++;
+            }
+        }
+        Assert.assertTrue(permits >= 15 && permits <= 25);
+    }
+
+    @Test
+    public void testStriped() throws Exception {
+        int limit = 1000000;
+        RateLimiter limiter = build(limit, 1000);
+        int threads = 4;
+        ExecutorService service = Executors.newFixedThreadPool(threads);
+        Future<Integer>[] futures = new Future[threads];
+        long start = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            futures[t] = service.submit(() -> {
+                int permits = 0;
+                for (int i = 0; i < 2000000; i++) {
+                    if (limiter.getPermission()) {
+                        permits++;
+                    }
+                }
+                return permits;
+            });
+        }
+        int permits = 0;
+        for (Future<Integer> future : futures) {
+            permits += future.get();
+        }
+        service.shutdown();
+        long seconds = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - start) + 1;
+        //初始满桶加上运行期间产生的许可
+        Assert.assertTrue("permits " + permits, permits <= limit * (seconds + 1) * 1.05);
+        Assert.assertTrue("permits " + permits, permits >= limit * 0.9);
+    }
+
+    @Test
+    public void testClassLimiter() {
+        Map<Option, RateLimiter> limiters = new HashMap<>();
+        RateLimiter all = build(100, 1000);
+        RateLimiter method = build(100, 1000);
+        RateLimiter app = build(100, 1000);
+        limiters.put(new Option("", "", ""), all);
+        limiters.put(new Option("echo", "", ""), method);
+        limiters.put(new Option("echo", "", "app1"), app);
+        ClassLimiter classLimiter = new ClassLimiter(limiters);
+        Assert.assertSame(all, classLimiter.get("hello", "a", ""));
+        Assert.assertSame(method, classLimiter.get("echo", "a", ""));
+        Assert.assertSame(method, classLimiter.get("echo", "a", "app2"));
+        Assert.assertSame(app, classLimiter.get("echo", "a", "app1"));
+        Assert.assertSame(app, classLimiter.get(new Option("echo", "a", "app1")));
+        Assert.assertNull(new ClassLimiter(new HashMap<>()).get("echo", "a", "app1"));
+    }
+}
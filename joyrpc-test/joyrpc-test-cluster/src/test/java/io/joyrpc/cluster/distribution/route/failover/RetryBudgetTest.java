@@ -0,0 +1,131 @@
+package io.joyrpc.cluster.distribution.route.failover;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.cluster.Candidate;
+import io.joyrpc.cluster.Node;
+import io.joyrpc.cluster.Region;
+import io.joyrpc.cluster.Shard;
+import io.joyrpc.cluster.Shard.ShardState;
+import io.joyrpc.cluster.distribution.FailoverPolicy;
+import io.joyrpc.exception.FailoverException;
+import io.joyrpc.extension.URL;
+import io.joyrpc.protocol.message.Invocation;
+import io.joyrpc.protocol.message.RequestMessage;
+import io.joyrpc.util.Futures;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 重试预算测试
+ */
+public class RetryBudgetTest {
+
+    @Test
+    public void testBudget() throws InterruptedException {
+        RetryBudget budget = new RetryBudget(50, 2, 100);
+        //首个窗口按照最小重试次数
+        Assert.assertTrue(budget.acquire("sayHello"));
+        Assert.assertTrue(budget.acquire("sayHello"));
+        Assert.assertFalse(budget.acquire("sayHello"));
+        Assert.assertTrue(budget.acquire("sayWorld"));
+        for (int i = 0; i < 10; i++) {
+            budget.success("sayHello");
+        }
+        Thread.sleep(150);
+        //按照上一个窗口成功请求数的百分比
+        for (int i = 0; i < 5; i++) {
+            Assert.assertTrue(budget.acquire("sayHello"));
+        }
+        Assert.assertFalse(budget.acquire("sayHello"));
+        Assert.assertEquals(2, budget.getRejects("sayHello"));
+        //不限制
+        budget = new RetryBudget(0, 0, 100);
+        Assert.assertTrue(budget.acquire("sayHello"));
+    }
+
+    @Test
+    public void testRoute() throws InterruptedException, TimeoutException {
+        URL url = URL.valueOf("joyrpc://127.0.0.1/xxx.xxx.xxx.xxx?retryBudget=10&retryBudgetMin=1&retryBudgetWindow=60000");
+        List<Node> nodes = new ArrayList<>(5);
+        for (int i = 1; i <= 5; i++) {
+            nodes.add(new Node("test", url, new Shard.DefaultShard("shard" + i, "huabei", "lf", "joyrpc",
+                    URL.valueOf("joyrpc://192.168.1." + i), 100, ShardState.CONNECTED)));
+        }
+        AtomicInteger calls = new AtomicInteger();
+        FailoverRoute<RequestMessage<Invocation>, String> route = new FailoverRoute<>();
+        route.setUrl(url);
+        route.setLoadBalance((candidate, request) -> candidate.getNodes().isEmpty() ? null : candidate.getNodes().get(0));
+        route.setFunction((node, last, request) -> {
+            calls.incrementAndGet();
+            return Futures.completeExceptionally(new FailoverException("error", true));
+        });
+        route.setRetryFunction(request -> new FailoverPolicy.DefaultFailoverPolicy<>(4));
+        route.setup();
+        Candidate candidate = new Candidate(null, new Region.DefaultRegion("huabei", "lf"), nodes, nodes.size());
+        //第一次调用只允许重试一次
+        try {
+            route.invoke(RequestMessage.build(new Invocation("io.joyrpc.HelloService", "test", "sayHello")), candidate)
+                    .get(1, TimeUnit.SECONDS);
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof FailoverException);
+        }
+        Assert.assertEquals(2, calls.get());
+        //预算耗尽，不再重试
+        calls.set(0);
+        try {
+            route.invoke(RequestMessage.build(new Invocation("io.joyrpc.HelloService", "test", "sayHello")), candidate)
+                    .get(1, TimeUnit.SECONDS);
+            Assert.fail();
+        } catch (ExecutionException e) {
+            Assert.assertTrue(e.getCause() instanceof FailoverException);
+        }
+        Assert.assertEquals(1, calls.get());
+    }
+
+    @Test
+    public void testNoRetry() throws Exception {
+        URL url = URL.valueOf("joyrpc://127.0.0.1/xxx.xxx.xxx.xxx");
+        List<Node> nodes = new ArrayList<>(1);
+        nodes.add(new Node("test", url, new Shard.DefaultShard("shard1", "huabei", "lf", "joyrpc",
+                URL.valueOf("joyrpc://192.168.1.1"), 100, ShardState.CONNECTED)));
+        FailoverRoute<RequestMessage<Invocation>, String> route = new FailoverRoute<>();
+        route.setUrl(url);
+        route.setLoadBalance((candidate, request) -> candidate.getNodes().isEmpty() ? null : candidate.getNodes().get(0));
+        route.setFunction((node, last, request) -> CompletableFuture.completedFuture("ok"));
+        route.setRetryFunction(request -> new FailoverPolicy.DefaultFailoverPolicy<>(0));
+        route.setup();
+        Candidate candidate = new Candidate(null, new Region.DefaultRegion("huabei", "lf"), nodes, nodes.size());
+        Assert.assertEquals("ok", route.invoke(RequestMessage.build(new Invocation("io.joyrpc.HelloService", "test", "sayHello")), candidate)
+                .get(1, TimeUnit.SECONDS));
+        //没有开启重试，不创建计数器
+        Assert.assertTrue(route.getRetryBudget().counters.isEmpty());
+    }
+}
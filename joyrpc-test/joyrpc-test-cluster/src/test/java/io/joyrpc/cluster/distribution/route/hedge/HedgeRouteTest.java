@@ -0,0 +1,201 @@
+package io.joyrpc.cluster.distribution.route.hedge;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.cluster.Candidate;
+import io.joyrpc.cluster.Node;
+import io.joyrpc.cluster.Region;
+import io.joyrpc.cluster.Shard;
+import io.joyrpc.cluster.Shard.ShardState;
+import io.joyrpc.extension.URL;
+import io.joyrpc.protocol.message.Invocation;
+import io.joyrpc.protocol.message.RequestMessage;
+import io.joyrpc.util.Timer.Timeout;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对冲请求测试
+ */
+public class HedgeRouteTest {
+
+    protected List<Node> nodes(final int count) {
+        URL url = URL.valueOf("joyrpc://127.0.0.1/xxx.xxx.xxx.xxx");
+        List<Node> result = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            result.add(new Node("test", url, new Shard.DefaultShard("shard" + i, "huabei", "lf", "joyrpc",
+                    URL.valueOf("joyrpc://192.168.1." + i), 100, ShardState.CONNECTED)));
+        }
+        return result;
+    }
+
+    protected RequestMessage<Invocation> request() {
+        return RequestMessage.build(new Invocation("io.joyrpc.HelloService", "test", "sayHello"));
+    }
+
+    /**
+     * 可以手工触发对冲任务的路由
+     */
+    protected static class ManualHedgeRoute extends HedgeRoute<RequestMessage<Invocation>, String> {
+        /**
+         * 调度的对冲任务
+         */
+        protected final List<Runnable> tasks = new ArrayList<>();
+
+        @Override
+        protected Timeout schedule(final long delay, final Runnable runnable) {
+            tasks.add(runnable);
+            return new Timeout() {
+                @Override
+                public boolean isExpired() {
+                    return false;
+                }
+
+                @Override
+                public boolean isCancelled() {
+                    return false;
+                }
+
+                @Override
+                public boolean cancel() {
+                    return true;
+                }
+            };
+        }
+
+        /**
+         * 触发对冲任务
+         */
+        public void fire() {
+            tasks.forEach(Runnable::run);
+        }
+    }
+
+    /**
+     * 构建路由，第一个节点不应答，其它节点立即应答
+     *
+     * @param url      url
+     * @param futures  每个节点的请求
+     * @param requests 每个节点收到的请求
+     * @return 路由
+     */
+    protected ManualHedgeRoute route(final URL url,
+                                     final Map<String, CompletableFuture<String>> futures,
+                                     final Map<String, RequestMessage<Invocation>> requests) {
+        ManualHedgeRoute route = new ManualHedgeRoute();
+        route.setUrl(url);
+        //总是优先选择第一个节点
+        route.setLoadBalance((candidate, request) -> candidate.getNodes().isEmpty() ? null : candidate.getNodes().get(0));
+        route.setFunction((node, last, request) -> {
+            CompletableFuture<String> future = new CompletableFuture<>();
+            futures.put(node.getName(), future);
+            requests.put(node.getName(), request);
+            if (!"shard1".equals(node.getName())) {
+                future.complete(node.getName());
+            }
+            return future;
+        });
+        route.setup();
+        return route;
+    }
+
+    protected Candidate candidate(final List<Node> nodes) {
+        return new Candidate(null, new Region.DefaultRegion("huabei", "lf"), nodes, nodes.size());
+    }
+
+    @Test
+    public void testHedge() throws Exception {
+        Map<String, CompletableFuture<String>> futures = new ConcurrentHashMap<>();
+        Map<String, RequestMessage<Invocation>> requests = new ConcurrentHashMap<>();
+        ManualHedgeRoute route = route(
+                URL.valueOf("joyrpc://127.0.0.1/xxx.xxx.xxx.xxx?hedge=true&hedgeDelay=20&hedgeBudget=100"), futures, requests);
+        List<Node> nodes = nodes(3);
+        //先积累预算
+        route.budget.deposit();
+        RequestMessage<Invocation> request = request();
+        CompletableFuture<String> future = route.invoke(request, candidate(nodes));
+        Assert.assertFalse(future.isDone());
+        Assert.assertEquals(1, route.tasks.size());
+        //触发对冲
+        route.fire();
+        Assert.assertEquals("shard2", future.get(1, TimeUnit.SECONDS));
+        //慢请求被取消
+        Assert.assertTrue(futures.get("shard1").isCancelled());
+        Assert.assertEquals(3, nodes.size());
+        //对冲请求使用副本
+        RequestMessage<Invocation> hedge = requests.get("shard2");
+        Assert.assertSame(request, requests.get("shard1"));
+        Assert.assertNotSame(request, hedge);
+        Assert.assertNotSame(request.getHeader(), hedge.getHeader());
+        Assert.assertNotSame(request.getPayLoad(), hedge.getPayLoad());
+        Assert.assertEquals("sayHello", hedge.getPayLoad().getMethodName());
+        Assert.assertEquals(request.getCreateTime(), hedge.getCreateTime());
+    }
+
+    @Test
+    public void testBudget() throws Exception {
+        Map<String, CompletableFuture<String>> futures = new ConcurrentHashMap<>();
+        ManualHedgeRoute route = route(
+                URL.valueOf("joyrpc://127.0.0.1/xxx.xxx.xxx.xxx?hedge=true&hedgeDelay=20&hedgeBudget=0"), futures, new ConcurrentHashMap<>());
+        List<Node> nodes = nodes(3);
+        CompletableFuture<String> future = route.invoke(request(), candidate(nodes));
+        route.fire();
+        //没有预算，不发起对冲请求
+        Assert.assertFalse(future.isDone());
+        Assert.assertEquals(1, futures.size());
+        futures.get("shard1").complete("shard1");
+        Assert.assertEquals("shard1", future.get(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        Map<String, CompletableFuture<String>> futures = new ConcurrentHashMap<>();
+        ManualHedgeRoute route = route(
+                URL.valueOf("joyrpc://127.0.0.1/xxx.xxx.xxx.xxx?hedge=true&hedgeDelay=20&hedgeBudget=100&mc.sayHello.hedge=false"), futures, new ConcurrentHashMap<>());
+        List<Node> nodes = nodes(3);
+        route.budget.deposit();
+        CompletableFuture<String> future = route.invoke(request(), candidate(nodes));
+        //方法关闭了对冲
+        Assert.assertTrue(route.tasks.isEmpty());
+        Assert.assertFalse(future.isDone());
+        Assert.assertEquals(1, futures.size());
+    }
+
+    @Test
+    public void testDefaultDisabled() throws Exception {
+        Map<String, CompletableFuture<String>> futures = new ConcurrentHashMap<>();
+        ManualHedgeRoute route = route(
+                URL.valueOf("joyrpc://127.0.0.1/xxx.xxx.xxx.xxx?hedgeDelay=20&hedgeBudget=100"), futures, new ConcurrentHashMap<>());
+        List<Node> nodes = nodes(3);
+        route.budget.deposit();
+        route.invoke(request(), candidate(nodes));
+        //默认不对冲
+        Assert.assertTrue(route.tasks.isEmpty());
+        Assert.assertEquals(1, futures.size());
+    }
+}
@@ -0,0 +1,127 @@
+package io.joyrpc.cluster.distribution.router;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.cluster.Candidate;
+import io.joyrpc.cluster.Node;
+import io.joyrpc.cluster.Region;
+import io.joyrpc.cluster.Shard;
+import io.joyrpc.cluster.Shard.ShardState;
+import io.joyrpc.cluster.distribution.router.method.predicate.LanMatcher;
+import io.joyrpc.cluster.distribution.router.method.predicate.MethodNameMatcher;
+import io.joyrpc.cluster.distribution.router.method.predicate.Operator;
+import io.joyrpc.cluster.distribution.router.method.predicate.ParameterMatcher;
+import io.joyrpc.extension.URL;
+import io.joyrpc.protocol.message.Invocation;
+import io.joyrpc.protocol.message.RequestMessage;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiPredicate;
+
+/**
+ * 条件路由测试
+ */
+public class ConditionRouterTest {
+
+    protected List<Node> nodes(final int count) {
+        String name = "test";
+        URL url = URL.valueOf("joyrpc://127.0.0.1/xxx.xxx.xxx.xxx");
+        List<Node> result = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            String ip = (i % 2 == 0 ? "192.168.1." : "10.0.0.") + i;
+            result.add(new Node(name, url, new Shard.DefaultShard("shard" + i, "huabei", "lf", "joyrpc", URL.valueOf("joyrpc://" + ip), 100, ShardState.CONNECTED)));
+        }
+        return result;
+    }
+
+    protected RequestMessage<Invocation> request(final String method, final Object... args) {
+        Invocation invocation = new Invocation("io.joyrpc.HelloService", "test", method);
+        invocation.setArgs(args);
+        return RequestMessage.build(invocation);
+    }
+
+    protected Candidate candidate(final List<Node> nodes) {
+        return new Candidate(null, new Region.DefaultRegion("huabei", "lf"), nodes, nodes.size());
+    }
+
+    @Test
+    public void testRoute() {
+        RouteCondition<RequestMessage<Invocation>> condition = new RouteCondition<RequestMessage<Invocation>>()
+                .add(new MethodNameMatcher("sayHello", Operator.eq), new LanMatcher("192.168.1.*"))
+                .add(new MethodNameMatcher("echo", Operator.eq).and(new ParameterMatcher(0, "vip", Operator.eq)), new LanMatcher("10.0.0.*"));
+        AtomicReference<BiPredicate<Shard, RequestMessage<Invocation>>> reference = new AtomicReference<>(condition);
+        ConditionRouter<RequestMessage<Invocation>> router = new ConditionRouter<>(reference::get);
+        List<Node> nodes = nodes(10);
+        Candidate candidate = candidate(nodes);
+
+        //不命中规则，直接返回原始节点
+        Assert.assertSame(nodes, router.route(candidate, request("other")));
+        Assert.assertSame(nodes, router.route(candidate, request("echo", "normal")));
+        //命中规则
+        List<Node> routes = router.route(candidate, request("sayHello"));
+        Assert.assertTrue(routes instanceof RandomAccess);
+        Assert.assertEquals(5, routes.size());
+        routes.forEach(o -> Assert.assertTrue(o.getUrl().getHost().startsWith("192.168.1.")));
+        //结果缓存
+        Assert.assertSame(routes, router.route(candidate, request("sayHello")));
+        routes = router.route(candidate, request("echo", "vip"));
+        Assert.assertEquals(5, routes.size());
+        routes.forEach(o -> Assert.assertTrue(o.getUrl().getHost().startsWith("10.0.0.")));
+        //和逐个节点判断的结果一致
+        for (String method : new String[]{"sayHello", "echo", "other"}) {
+            RequestMessage<Invocation> request = request(method, "vip");
+            List<Node> expect = new ArrayList<>();
+            nodes.forEach(o -> {
+                if (condition.test(o, request)) {
+                    expect.add(o);
+                }
+            });
+            Assert.assertEquals(expect, router.route(candidate, request));
+        }
+    }
+
+    @Test
+    public void testInvalidate() {
+        RouteCondition<RequestMessage<Invocation>> condition = new RouteCondition<RequestMessage<Invocation>>()
+                .add(new MethodNameMatcher("sayHello", Operator.eq), new LanMatcher("192.168.1.*"));
+        AtomicReference<BiPredicate<Shard, RequestMessage<Invocation>>> reference = new AtomicReference<>(condition);
+        ConditionRouter<RequestMessage<Invocation>> router = new ConditionRouter<>(reference::get);
+        List<Node> nodes = nodes(10);
+        Assert.assertEquals(5, router.route(candidate(nodes), request("sayHello")).size());
+        //节点变化
+        nodes = nodes(4);
+        Assert.assertEquals(2, router.route(candidate(nodes), request("sayHello")).size());
+        //规则变化
+        reference.set(new RouteCondition<RequestMessage<Invocation>>()
+                .add(new MethodNameMatcher("sayHello", Operator.eq), new LanMatcher("10.0.0.*")));
+        List<Node> routes = router.route(candidate(nodes), request("sayHello"));
+        Assert.assertEquals(2, routes.size());
+        routes.forEach(o -> Assert.assertTrue(o.getUrl().getHost().startsWith("10.0.0.")));
+        //规则删除
+        reference.set(null);
+        Assert.assertSame(nodes, router.route(candidate(nodes), request("sayHello")));
+    }
+}
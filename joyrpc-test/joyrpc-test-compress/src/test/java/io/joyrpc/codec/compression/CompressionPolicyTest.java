@@ -0,0 +1,111 @@
+package io.joyrpc.codec.compression;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.codec.compression.CompressionPolicy.Decision;
+import io.joyrpc.codec.compression.CompressionPolicy.MethodPolicy;
+import io.joyrpc.transport.session.DefaultSession;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static io.joyrpc.Plugin.COMPRESSION;
+
+public class CompressionPolicyTest {
+
+    protected CompressionPolicy policy() {
+        return new CompressionPolicy(Arrays.asList(COMPRESSION.get("lz4"), COMPRESSION.get("zstd")), 2, 8, 32);
+    }
+
+    protected DefaultSession session(String... compressions) {
+        DefaultSession session = new DefaultSession();
+        session.setCompressions(Arrays.asList(compressions));
+        return session;
+    }
+
+    /**
+     * 模拟编码，按照候选返回压缩率和每字节耗时
+     */
+    protected void encode(final MethodPolicy policy, final DefaultSession session, final int times,
+                          final double[] ratios, final double[] costs) {
+        int raw = 1000;
+        for (int i = 0; i < times; i++) {
+            Decision decision = policy.decide(session);
+            int index = 0;
+            if (decision != null) {
+                Compression compression = decision.getCompression();
+                index = compression == null ? 0 : ("lz4".equals(compression.getTypeName()) ? 1 : 2);
+            }
+            boolean compressed = index > 0;
+            policy.complete(decision, compressed, raw, (int) (raw * ratios[index]), (long) (raw * costs[index]));
+        }
+    }
+
+    @Test
+    public void testChoose() {
+        MethodPolicy policy = policy().get("io.joyrpc.Test", "test", true);
+        DefaultSession session = session("lz4", "zstd");
+        //lz4收益 0.5*8-2=2，zstd收益 0.7*8-5=0.6
+        encode(policy, session, 200, new double[]{1, 0.5, 0.3}, new double[]{10, 12, 15});
+        Decision decision = policy.decision;
+        Assert.assertNotNull(decision);
+        Assert.assertEquals("lz4", decision.getCompression().getTypeName());
+        Assert.assertEquals(64, decision.getThreshold());
+        //低带宽链路，lz4收益 0.5*80-2=38，zstd收益 0.7*80-5=51
+        policy = new CompressionPolicy(Arrays.asList(COMPRESSION.get("lz4"), COMPRESSION.get("zstd")), 2, 80, 32)
+                .get("io.joyrpc.Test", "test", true);
+        encode(policy, session, 200, new double[]{1, 0.5, 0.3}, new double[]{10, 12, 15});
+        Assert.assertEquals("zstd", policy.decision.getCompression().getTypeName());
+        Assert.assertEquals(46, policy.decision.getThreshold());
+    }
+
+    @Test
+    public void testIncompressible() {
+        MethodPolicy policy = policy().get("io.joyrpc.Test", "test", false);
+        DefaultSession session = session("lz4", "zstd");
+        encode(policy, session, 200, new double[]{1, 1.01, 1.002}, new double[]{10, 11, 20});
+        Assert.assertNull(policy.decision.getCompression());
+        for (int i = 0; i < 10; i++) {
+            Decision decision = policy.decide(session);
+            if (!decision.isProbe()) {
+                Assert.assertNull(decision.getCompression());
+            }
+        }
+    }
+
+    @Test
+    public void testSession() {
+        MethodPolicy policy = policy().get("io.joyrpc.Test", "test", true);
+        DefaultSession session = session("zstd");
+        for (int i = 0; i < 100; i++) {
+            Decision decision = policy.decide(session);
+            Assert.assertTrue(decision == null || decision.getCompression() == null
+                    || "zstd".equals(decision.getCompression().getTypeName()));
+        }
+        //没有会话只能不压缩
+        policy = policy().get("io.joyrpc.Test", "test", true);
+        for (int i = 0; i < 100; i++) {
+            Decision decision = policy.decide(null);
+            Assert.assertTrue(decision == null || decision.getCompression() == null);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package io.joyrpc.codec.compression.zstd;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdOutputStream;
+import io.joyrpc.codec.compression.Compression;
+import io.joyrpc.codec.compression.DictionaryCompression;
+import io.joyrpc.transport.session.DefaultSession;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static io.joyrpc.Plugin.COMPRESSION;
+
+public class ZstdCompressionTest {
+
+    protected byte[] payload(final int i) {
+        return String.format("{\"orderId\":%d,\"userId\":\"user-%d\",\"status\":\"PAID\",\"amount\":%d.%02d," +
+                        "\"address\":{\"province\":\"beijing\",\"city\":\"beijing\",\"street\":\"street-%d\"}," +
+                        "\"items\":[{\"sku\":%d,\"name\":\"item-%d\",\"quantity\":%d}]}",
+                i, i % 97, i % 1000, i % 100, i % 13, i * 31, i % 7, i % 5 + 1).getBytes(StandardCharsets.UTF_8);
+    }
+
+    protected byte[] compress(final Compression compression, final byte[] source) throws IOException {
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        OutputStream os = compression.compress(bos);
+        os.write(source);
+        ((ZstdBlockOutputStream) os).finish();
+        return bos.toByteArray();
+    }
+
+    protected byte[] decompress(final Compression compression, final byte[] source) throws IOException {
+        InputStream is = compression.decompress(new ByteArrayInputStream(source));
+        ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        byte[] buffer = new byte[256];
+        int length;
+        while ((length = is.read(buffer)) >= 0) {
+            bos.write(buffer, 0, length);
+        }
+        return bos.toByteArray();
+    }
+
+    @Test
+    public void testDictionary() throws IOException, InterruptedException, ExecutionException, TimeoutException {
+        ZstdCompression compression = (ZstdCompression) COMPRESSION.get("zstd");
+        String className = ZstdCompressionTest.class.getName();
+        CompletableFuture<ZstdDictionary> future = new CompletableFuture<>();
+        compression.initialize();
+        compression.trainer = new ZstdTrainer(200, 1, 4096, 3, d -> {
+            compression.dictionaries.add(d);
+            future.complete(d);
+        });
+        DefaultSession session = new DefaultSession();
+        for (int i = 0; i < 200; i++) {
+            //采样阶段不使用字典
+            Compression bound = compression.bind(className, "test", session);
+            Assert.assertNotNull(bound);
+            byte[] source = payload(i);
+            Assert.assertArrayEquals(source, decompress(compression, compress(bound, source)));
+        }
+        ZstdDictionary dictionary = future.get(10, TimeUnit.SECONDS);
+        Assert.assertTrue(compression.getDictionaries().contains(String.valueOf(dictionary.getId())));
+        //对端没有声明字典
+        Assert.assertNull(compression.bind(className, "test", session));
+        session.put(DictionaryCompression.DICTIONARY_PREFIX + "zstd", "1," + dictionary.getId());
+        Compression bound = compression.bind(className, "test", session);
+        Assert.assertNotNull(bound);
+        byte[] source = payload(1000);
+        byte[] plain = compress(compression, source);
+        byte[] target = compress(bound, source);
+        Assert.assertTrue(target.length < plain.length);
+        Assert.assertArrayEquals(source, decompress(compression, target));
+    }
+
+    @Test
+    public void testMissingDictionary() throws IOException {
+        byte[][] samples = new byte[200][];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = payload(i);
+        }
+        byte[] content = new byte[4096];
+        long size = Zstd.trainFromBuffer(samples, content);
+        Assert.assertFalse(Zstd.isError(size));
+        ZstdDictionary dictionary = new ZstdDictionary(ZstdCompressionTest.class.getName(), "missing",
+                Arrays.copyOf(content, (int) size), 3);
+        //发送方使用字典压缩
+        ZstdCompression sender = new ZstdCompression();
+        sender.initialize();
+        byte[] source = payload(1000);
+        byte[] target = compress(sender.new BoundCompression(dictionary, null), source);
+        //接收方没有字典
+        File directory = Files.createTempDirectory("zstd").toFile();
+        directory.deleteOnExit();
+        ZstdCompression receiver = new ZstdCompression();
+        receiver.initialize();
+        receiver.dictionaries = new ZstdDictionaries(directory, 3);
+        try {
+            decompress(receiver, target);
+            Assert.fail();
+        } catch (IOException e) {
+            Assert.assertTrue(e.getMessage().contains(String.valueOf(dictionary.getId())));
+            Assert.assertTrue(e.getMessage().contains(directory.getPath()));
+        }
+        //部署字典文件后重新扫描目录
+        receiver.dictionaries.save(dictionary);
+        new File(directory, dictionary.getFileName()).deleteOnExit();
+        receiver.dictionaries.lastReload.set(0);
+        Assert.assertArrayEquals(source, decompress(receiver, target));
+    }
+
+    @Test
+    public void testMaxSize() throws IOException {
+        ZstdCompression compression = new ZstdCompression();
+        compression.initialize();
+        compression.maxSize = 1024 * 1024;
+        byte[] source = new byte[compression.maxSize + 1];
+        //帧头带原始大小
+        byte[] frame = Zstd.compress(source);
+        Assert.assertTrue(frame.length < 1024);
+        try {
+            decompress(compression, frame);
+            Assert.fail();
+        } catch (IOException e) {
+            Assert.assertTrue(e.getMessage().contains(String.valueOf(compression.maxSize)));
+        }
+        //流式压缩，帧头没有原始大小
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ZstdOutputStream zos = new ZstdOutputStream(baos)) {
+            zos.write(source);
+        }
+        try {
+            decompress(compression, baos.toByteArray());
+            Assert.fail();
+        } catch (IOException e) {
+            Assert.assertTrue(e.getMessage().contains(String.valueOf(compression.maxSize)));
+        }
+        //未超过限制
+        byte[] small = Arrays.copyOf(source, compression.maxSize);
+        Assert.assertArrayEquals(small, decompress(compression, Zstd.compress(small)));
+    }
+
+    @Test
+    public void testContains() {
+        Assert.assertTrue(ZstdDictionaries.contains("12,345,6789", 345));
+        Assert.assertTrue(ZstdDictionaries.contains("12,345,6789", 6789));
+        Assert.assertFalse(ZstdDictionaries.contains("12,345,6789", 34));
+        Assert.assertFalse(ZstdDictionaries.contains("", 0));
+        Assert.assertFalse(ZstdDictionaries.contains(null, 12));
+    }
+}
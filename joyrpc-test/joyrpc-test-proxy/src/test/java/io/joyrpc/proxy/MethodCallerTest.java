@@ -0,0 +1,121 @@
+package io.joyrpc.proxy;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.joyrpc.Plugin.METHOD_CALLER;
+
+/**
+ * 方法调用器测试
+ */
+public class MethodCallerTest {
+
+    @Test
+    public void testInvoke() throws Throwable {
+        Method[] methods = Calculator.class.getMethods();
+        Calculator calculator = new CalculatorImpl();
+        List<String> types = METHOD_CALLER.names();
+        Assert.assertTrue(types.size() >= 2);
+        MethodCaller caller;
+        List<String> names = new ArrayList<>();
+        for (String type : types) {
+            names.clear();
+            caller = METHOD_CALLER.get(type).create(Calculator.class, methods);
+            for (int i = 0; i < methods.length; i++) {
+                switch (methods[i].getName()) {
+                    case "add":
+                        Assert.assertEquals(type, 3L, caller.invoke(calculator, i, new Object[]{1, 2L}));
+                        break;
+                    case "echo":
+                        Assert.assertEquals(type, "hello", caller.invoke(calculator, i, new Object[]{"hello"}));
+                        break;
+                    case "append":
+                        Assert.assertNull(type, caller.invoke(calculator, i, new Object[]{names, "a"}));
+                        Assert.assertEquals(type, 1, names.size());
+                        break;
+                    case "fail":
+                        try {
+                            caller.invoke(calculator, i, new Object[]{"error"});
+                            Assert.fail(type);
+                        } catch (IllegalStateException e) {
+                            Assert.assertEquals(type, "error", e.getMessage());
+                        }
+                        break;
+                    case "crash":
+                        try {
+                            caller.invoke(calculator, i, new Object[]{"error"});
+                            Assert.fail(type);
+                        } catch (AssertionError e) {
+                            Assert.assertEquals(type, "error", e.getMessage());
+                        }
+                        break;
+                }
+            }
+        }
+    }
+
+    public interface Calculator {
+
+        long add(int a, long b);
+
+        String echo(String value);
+
+        void append(List<String> values, String value);
+
+        void fail(String message);
+
+        void crash(String message);
+    }
+
+    static class CalculatorImpl implements Calculator {
+
+        @Override
+        public long add(final int a, final long b) {
+            return a + b;
+        }
+
+        @Override
+        public String echo(final String value) {
+            return value;
+        }
+
+        @Override
+        public void append(final List<String> values, final String value) {
+            values.add(value);
+        }
+
+        @Override
+        public void fail(final String message) {
+            throw new IllegalStateException(message);
+        }
+
+        @Override
+        public void crash(final String message) {
+            throw new AssertionError(message);
+        }
+    }
+}
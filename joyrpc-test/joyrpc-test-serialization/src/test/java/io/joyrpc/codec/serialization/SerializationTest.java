@@ -25,8 +25,12 @@ import io.joyrpc.cluster.discovery.backup.BackupDatum;
 import io.joyrpc.cluster.discovery.backup.BackupShard;
 import io.joyrpc.codec.serialization.model.*;
 import io.joyrpc.exception.MethodOverloadException;
+import io.joyrpc.protocol.message.Invocation;
+import io.joyrpc.transport.netty4.buffer.NettyChannelBuffer;
 import io.joyrpc.util.ClassUtils;
 import io.joyrpc.util.GrpcType;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -125,6 +129,29 @@ public class SerializationTest {
         serializeAndDeserialize(datum);
     }
 
+    @Test
+    public void testSelfDescribingInvocation() {
+        //方法字典协商后请求省略类名、方法名和参数类型，自描述的序列化要能正确还原参数
+        List<String> list = new ArrayList<>(Arrays.asList("a", "b"));
+        Map<String, Object> map = new HashMap<>();
+        map.put("k", 1);
+        UnsafeByteArrayOutputStream baos = new UnsafeByteArrayOutputStream(1024);
+        for (String type : SERIALIZATION.names()) {
+            Serialization serialization = SERIALIZATION.get(type);
+            if (!serialization.isSelfDescribing()) {
+                continue;
+            }
+            Invocation invocation = new Invocation();
+            invocation.setArgs(new Object[]{"hello", 1L, list, map, null});
+            baos.reset();
+            Serializer serializer = serialization.getSerializer();
+            serializer.serialize(baos, invocation);
+            Invocation target = serializer.deserialize(new UnsafeByteArrayInputStream(baos.toByteArray()), Invocation.class);
+            Assert.assertNull(type, target.getMethodName());
+            Assert.assertArrayEquals(type, invocation.getArgs(), target.getArgs());
+        }
+    }
+
     @Test
     public void testJava8Time() {
         ZoneId zoneId = ZoneId.of("UTC");
@@ -152,6 +179,33 @@ public class SerializationTest {
         serializeAndDeserialize(new Apple(1000, "appale", (byte) 1, true, new byte[]{1, 2}));
     }
 
+    @Test
+    public void testBufferSerializer() {
+        Apple apple = new Apple(1000, "appale", (byte) 1, true, new byte[]{1, 2});
+        UnsafeByteArrayOutputStream baos = new UnsafeByteArrayOutputStream(1024);
+        for (String type : SERIALIZATION.names()) {
+            Serializer serializer = SERIALIZATION.get(type).getSerializer();
+            if (!(serializer instanceof BufferSerializer)) {
+                continue;
+            }
+            BufferSerializer bufferSerializer = (BufferSerializer) serializer;
+            baos.reset();
+            serializer.serialize(baos, apple);
+            byte[] expect = baos.toByteArray();
+            for (ByteBuf byteBuf : new ByteBuf[]{Unpooled.buffer(16), Unpooled.directBuffer(16)}) {
+                byteBuf.writeByte(0);
+                bufferSerializer.serialize(new NettyChannelBuffer(byteBuf), apple);
+                byteBuf.skipBytes(1);
+                byte[] actual = new byte[byteBuf.readableBytes()];
+                byteBuf.getBytes(byteBuf.readerIndex(), actual);
+                Assert.assertArrayEquals(type, expect, actual);
+                Assert.assertEquals(type, apple, bufferSerializer.deserialize(new NettyChannelBuffer(byteBuf), Apple.class));
+                Assert.assertEquals(type, 0, byteBuf.readableBytes());
+                byteBuf.release();
+            }
+        }
+    }
+
     @Test
     public void testTransient() {
         TransientObj t1 = new TransientObj(1, 1);
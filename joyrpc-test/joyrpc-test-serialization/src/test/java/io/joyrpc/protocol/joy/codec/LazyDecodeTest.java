@@ -0,0 +1,221 @@
+package io.joyrpc.protocol.joy.codec;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.codec.compression.Compression;
+import io.joyrpc.codec.serialization.Serialization;
+import io.joyrpc.context.GlobalContext;
+import io.joyrpc.protocol.MsgType;
+import io.joyrpc.protocol.handler.BizReqHandler;
+import io.joyrpc.protocol.message.Invocation;
+import io.joyrpc.protocol.message.MessageHeader;
+import io.joyrpc.protocol.message.RequestMessage;
+import io.joyrpc.protocol.message.ResponseMessage;
+import io.joyrpc.protocol.message.ResponsePayload;
+import io.joyrpc.transport.buffer.ChannelBuffer;
+import io.joyrpc.transport.channel.Channel;
+import io.joyrpc.transport.channel.ChannelContext;
+import io.joyrpc.transport.netty4.buffer.NettyChannelBuffer;
+import io.netty.buffer.Unpooled;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Proxy;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static io.joyrpc.Plugin.COMPRESSION;
+import static io.joyrpc.Plugin.SERIALIZATION;
+import static io.joyrpc.constants.Constants.DECODE_LAZY_OPTION;
+import static io.joyrpc.constants.Constants.DECODE_LAZY_THRESHOLD_OPTION;
+
+/**
+ * 延迟解码测试
+ */
+public class LazyDecodeTest {
+
+    protected static final int THRESHOLD = 1024;
+
+    protected Serialization serialization = SERIALIZATION.get("hessian");
+
+    protected Compression compression = COMPRESSION.get("gzip");
+
+    /**
+     * 发送的消息
+     */
+    protected List<Object> sends = new ArrayList<>();
+
+    /**
+     * 模拟通道，记录发送的消息
+     */
+    protected Channel channel = (Channel) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{Channel.class},
+            (proxy, method, args) -> {
+                switch (method.getName()) {
+                    case "send":
+                        sends.add(args[0]);
+                        return null;
+                    case "isWritable":
+                    case "isActive":
+                        return true;
+                    case "isServer":
+                        return false;
+                    case "getLocalAddress":
+                    case "getRemoteAddress":
+                        return new InetSocketAddress("127.0.0.1", 22000);
+                    default:
+                        return null;
+                }
+            });
+
+    /**
+     * 构造编解码
+     *
+     * @param lazy 是否延迟解码
+     * @return 编解码
+     */
+    protected JoyCodec build(final boolean lazy) {
+        GlobalContext.put(DECODE_LAZY_OPTION.getName(), String.valueOf(lazy));
+        GlobalContext.put(DECODE_LAZY_THRESHOLD_OPTION.getName(), String.valueOf(THRESHOLD));
+        try {
+            return new JoyCodec(null);
+        } finally {
+            GlobalContext.remove(DECODE_LAZY_OPTION.getName());
+            GlobalContext.remove(DECODE_LAZY_THRESHOLD_OPTION.getName());
+        }
+    }
+
+    /**
+     * 构造参数，随机字符保证压缩后仍然超过阈值
+     *
+     * @param size 大小
+     * @return 参数
+     */
+    protected String text(final int size) {
+        Random random = new Random(size);
+        StringBuilder builder = new StringBuilder(size);
+        for (int i = 0; i < size; i++) {
+            builder.append((char) ('a' + random.nextInt(26)));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 编码请求
+     *
+     * @param codec    编解码
+     * @param arg      参数
+     * @param compress 是否压缩
+     * @return 缓冲区
+     */
+    protected ChannelBuffer encode(final JoyCodec codec, final String arg, final boolean compress) {
+        MessageHeader header = new MessageHeader(MsgType.BizReq.getType(), serialization.getTypeId());
+        header.setMsgId(1);
+        header.setTimeout(5000);
+        header.setCompression(compress ? compression.getTypeId() : Compression.NONE);
+        Invocation invocation = new Invocation("io.joyrpc.Hello", "test", "echo", new Class[]{String.class});
+        invocation.setArgs(new Object[]{arg});
+        ChannelBuffer buffer = new NettyChannelBuffer(Unpooled.buffer(1024));
+        codec.encode(() -> channel, buffer, new RequestMessage<>(header, invocation));
+        return buffer;
+    }
+
+    /**
+     * 解码请求
+     *
+     * @param codec  编解码
+     * @param buffer 缓冲区
+     * @return 请求
+     */
+    @SuppressWarnings("unchecked")
+    protected RequestMessage<Invocation> decode(final JoyCodec codec, final ChannelBuffer buffer) {
+        return (RequestMessage<Invocation>) codec.decode(() -> channel, buffer);
+    }
+
+    @Test
+    public void testThreshold() {
+        JoyCodec codec = build(true);
+        //小于阈值的直接解码
+        RequestMessage<Invocation> request = decode(codec, encode(codec, "hello", false));
+        Assert.assertTrue(request.isDecoded());
+        Assert.assertEquals("hello", request.getPayLoad().getArgs()[0]);
+        //超过阈值的延迟到首次获取消息体
+        String arg = text(THRESHOLD * 4);
+        request = decode(codec, encode(codec, arg, false));
+        Assert.assertFalse(request.isDecoded());
+        Assert.assertEquals(arg, request.getPayLoad().getArgs()[0]);
+        Assert.assertEquals("echo", request.getPayLoad().getMethodName());
+        Assert.assertTrue(request.isDecoded());
+        //没有开启延迟解码
+        codec = build(false);
+        request = decode(codec, encode(codec, arg, false));
+        Assert.assertTrue(request.isDecoded());
+        Assert.assertEquals(arg, request.getPayLoad().getArgs()[0]);
+    }
+
+    @Test
+    public void testCompressed() {
+        JoyCodec codec = build(true);
+        String arg = text(THRESHOLD * 8);
+        ChannelBuffer buffer = encode(codec, arg, true);
+        //压缩后的消息体仍然超过阈值
+        RequestMessage<Invocation> request = decode(codec, buffer);
+        Assert.assertEquals(compression.getTypeId(), request.getHeader().getCompression());
+        Assert.assertFalse(request.isDecoded());
+        Assert.assertEquals(arg, request.getPayLoad().getArgs()[0]);
+    }
+
+    @Test
+    public void testDecodeError() {
+        JoyCodec codec = build(true);
+        ChannelBuffer buffer = encode(codec, text(THRESHOLD * 8), true);
+        //破坏压缩数据的头部
+        int body = 4 + buffer.getShort(4);
+        buffer.setByte(body, 0);
+        buffer.setByte(body + 1, 0);
+        RequestMessage<Invocation> request = decode(codec, buffer);
+        Assert.assertFalse(request.isDecoded());
+        //业务线程解码失败，返回异常应答，不能让客户端等到超时
+        new BizReqHandler().handle(new ChannelContext() {
+            @Override
+            public Channel getChannel() {
+                return channel;
+            }
+
+            @Override
+            public void end() {
+            }
+
+            @Override
+            public boolean isEnd() {
+                return false;
+            }
+        }, request);
+        Assert.assertEquals(1, sends.size());
+        ResponseMessage<ResponsePayload> response = (ResponseMessage<ResponsePayload>) sends.get(0);
+        Assert.assertEquals(1, response.getHeader().getMsgId());
+        Assert.assertTrue(response.getPayLoad().isError());
+        //解码失败不再重复解码
+        Assert.assertTrue(request.isDecoded());
+        Assert.assertNull(request.getPayLoad());
+    }
+}
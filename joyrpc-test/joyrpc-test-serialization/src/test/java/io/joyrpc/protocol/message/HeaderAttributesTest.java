@@ -0,0 +1,138 @@
+package io.joyrpc.protocol.message;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.exception.CodecException;
+import io.joyrpc.transport.buffer.ChannelBuffer;
+import io.joyrpc.transport.netty4.buffer.NettyChannelBuffer;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+public class HeaderAttributesTest {
+
+    /**
+     * 按原有Map方式编码
+     */
+    protected void encodeMap(final ChannelBuffer buffer, final Map<Byte, Object> attributes) {
+        buffer.writeByte(attributes.size());
+        for (Map.Entry<Byte, Object> attr : attributes.entrySet()) {
+            Object val = attr.getValue();
+            buffer.writeByte(attr.getKey());
+            if (val instanceof Integer) {
+                buffer.writeByte((byte) 1);
+                buffer.writeInt((Integer) val);
+            } else if (val instanceof String) {
+                buffer.writeByte((byte) 2);
+                buffer.writeString((String) val, null, false, true);
+            } else if (val instanceof Byte) {
+                buffer.writeByte((byte) 3);
+                buffer.writeByte((Byte) val);
+            } else if (val instanceof Short) {
+                buffer.writeByte((byte) 4);
+                buffer.writeShort((Short) val);
+            }
+        }
+    }
+
+    protected Map<Byte, Object> sample() {
+        Map<Byte, Object> map = new TreeMap<>();
+        map.put((byte) -3, "callback-1");
+        map.put((byte) 1, 123456);
+        map.put((byte) 5, (byte) 1);
+        map.put((byte) 7, (short) 300);
+        map.put((byte) 9, "text/json");
+        return map;
+    }
+
+    @Test
+    public void testWireCompatible() {
+        Map<Byte, Object> map = sample();
+        NettyChannelBuffer expect = new NettyChannelBuffer(Unpooled.buffer(128));
+        encodeMap(expect, map);
+        //乱序添加
+        HeaderAttributes attributes = new HeaderAttributes(1);
+        attributes.put((byte) 9, "text/json");
+        attributes.putShort((byte) 7, (short) 300);
+        attributes.putInt((byte) 1, 123456);
+        attributes.put((byte) -3, "callback-1");
+        attributes.putByte((byte) 5, (byte) 1);
+        NettyChannelBuffer actual = new NettyChannelBuffer(Unpooled.buffer(128));
+        attributes.encode(actual);
+        Assert.assertTrue(ByteBufUtil.equals(expect.getByteBuf(), actual.getByteBuf()));
+
+        HeaderAttributes decoded = HeaderAttributes.read(expect);
+        Assert.assertEquals(0, expect.readableBytes());
+        Assert.assertEquals(map, decoded.toMap());
+        Assert.assertEquals(123456, decoded.getInt((byte) 1, 0));
+        Assert.assertEquals(300, decoded.getShort((byte) 7, (short) 0));
+        Assert.assertEquals(1, decoded.getByte((byte) 5, (byte) 0));
+        Assert.assertEquals("callback-1", decoded.getString((byte) -3));
+        Assert.assertEquals(-1, decoded.getInt((byte) 9, -1));
+    }
+
+    @Test
+    public void testDecodeReuse() {
+        NettyChannelBuffer buffer = new NettyChannelBuffer(Unpooled.buffer(128));
+        encodeMap(buffer, sample());
+        HeaderAttributes.encode(buffer, null);
+        HeaderAttributes attributes = new HeaderAttributes(8);
+        Assert.assertEquals(5, attributes.decode(buffer));
+        Assert.assertEquals(0, attributes.decode(buffer));
+        Assert.assertTrue(attributes.isEmpty());
+        Assert.assertNull(attributes.getString((byte) 9));
+    }
+
+    @Test
+    public void testRemove() {
+        HeaderAttributes attributes = HeaderAttributes.of(sample());
+        Assert.assertEquals(300, ((Short) attributes.remove((byte) 7)).intValue());
+        Assert.assertEquals("text/json", attributes.remove((byte) 9));
+        Assert.assertEquals(3, attributes.size());
+        Assert.assertEquals("callback-1", attributes.getString((byte) -3));
+        Assert.assertNull(attributes.remove((byte) 7));
+        attributes.put((byte) 3, Boolean.TRUE);
+        Assert.assertEquals(Boolean.TRUE, attributes.get((byte) 3));
+        try {
+            attributes.encode(new NettyChannelBuffer(Unpooled.buffer(128)));
+            Assert.fail();
+        } catch (CodecException ignored) {
+        }
+    }
+
+    @Test
+    public void testHeaderCopy() {
+        MessageHeader header = new MessageHeader();
+        header.setAttributes(HeaderAttributes.of(sample()));
+        MessageHeader clone = header.clone();
+        clone.getAttributes().putInt((byte) 1, 100);
+        clone.getAttributes().remove((byte) 9);
+        MessageHeader response = header.response((byte) 1, (byte) 0, header.getAttributes());
+        response.getAttributes().remove((byte) 7);
+        Assert.assertEquals(sample(), header.getAttributes().toMap());
+        Assert.assertEquals(100, clone.getAttributes().getInt((byte) 1, 0));
+        Assert.assertEquals("text/json", response.getAttributes().getString((byte) 9));
+    }
+}
@@ -0,0 +1,59 @@
+package io.joyrpc.protocol.message.negotiation;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.reflect.Method;
+import java.util.List;
+
+public class MethodDictionaryTest {
+
+    public interface HelloService {
+
+        String hello(String name);
+
+        String hello(String name, int times);
+
+        List<String>[] query(long[] ids, String... names);
+    }
+
+    @Test
+    public void testDictionary() throws NoSuchMethodException {
+        MethodDictionary server = MethodDictionary.of(HelloService.class);
+        Assert.assertSame(server, MethodDictionary.of(HelloService.class));
+        Assert.assertEquals(3, server.size());
+        Assert.assertEquals("hello(java.lang.String);hello(java.lang.String,int);query(long[],java.lang.String[])",
+                server.getSignatures());
+        //客户端只根据签名构建
+        MethodDictionary client = MethodDictionary.parse(server.getSignatures());
+        for (Method method : HelloService.class.getMethods()) {
+            int id = client.getId(method);
+            Assert.assertEquals(method, server.getMethod(id));
+            Assert.assertNull(client.getMethod(id));
+        }
+        Assert.assertEquals(-1, client.getId(Object.class.getMethod("toString")));
+        Assert.assertNull(server.getMethod(3));
+        Assert.assertNull(server.getMethod(-1));
+        Assert.assertNull(MethodDictionary.parse(""));
+    }
+}
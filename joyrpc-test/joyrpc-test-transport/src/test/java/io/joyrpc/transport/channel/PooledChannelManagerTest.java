@@ -0,0 +1,229 @@
+package io.joyrpc.transport.channel;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.joyrpc.event.AsyncResult;
+import io.joyrpc.extension.URL;
+import io.joyrpc.transport.channel.AbstractChannelManager.PoolChannel;
+import io.joyrpc.transport.channel.ChannelManager.Connector;
+import io.joyrpc.transport.message.Message;
+import io.joyrpc.transport.transport.ClientTransport;
+import io.joyrpc.util.Status;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Proxy;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 连接池通道管理器测试
+ */
+public class PooledChannelManagerTest {
+
+    protected static final String KEY = "ch-pooled-joyrpc-127.0.0.1-22000";
+
+    protected URL url = URL.valueOf("joyrpc://127.0.0.1:22000?connections=3&connections.growThreshold=1");
+
+    protected PooledChannelManager manager;
+
+    protected ClientTransport transport;
+
+    /**
+     * 已经建立的物理连接
+     */
+    protected List<Channel> connections = new ArrayList<>();
+
+    protected Connector connector = consumer -> {
+        Channel channel = mockChannel();
+        connections.add(channel);
+        consumer.accept(new AsyncResult<>(channel));
+    };
+
+    @Before
+    public void setUp() {
+        manager = new PooledChannelManager(url);
+        transport = mock(ClientTransport.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getChannelName":
+                    return KEY;
+                case "getUrl":
+                    return url;
+                case "getPublisher":
+                    return mock(io.joyrpc.event.Publisher.class, (p, m, a) -> defaultValue(m.getReturnType()));
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        });
+    }
+
+    /**
+     * 构造代理
+     *
+     * @param type    类型
+     * @param handler 处理器
+     * @return 代理
+     */
+    @SuppressWarnings("unchecked")
+    protected <T> T mock(final Class<T> type, final InvocationHandler handler) {
+        return (T) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{type}, handler);
+    }
+
+    /**
+     * 基本类型的默认值
+     *
+     * @param type 类型
+     * @return 默认值
+     */
+    protected static Object defaultValue(final Class<?> type) {
+        if (type == boolean.class) {
+            return false;
+        } else if (type == int.class) {
+            return 0;
+        } else if (type == long.class) {
+            return 0L;
+        }
+        return null;
+    }
+
+    /**
+     * 模拟物理连接，待应答请求数由FutureManager决定
+     *
+     * @return 连接
+     */
+    @SuppressWarnings("unchecked")
+    protected Channel mockChannel() {
+        Map<String, Object> attributes = new HashMap<>();
+        AtomicBoolean active = new AtomicBoolean(true);
+        AtomicInteger ids = new AtomicInteger();
+        Channel[] holder = new Channel[1];
+        FutureManager<Integer, Message>[] futures = new FutureManager[1];
+        holder[0] = mock(Channel.class, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "getFutureManager":
+                    return futures[0];
+                case "setAttribute":
+                    attributes.put((String) args[0], args[1]);
+                    return proxy;
+                case "getAttribute":
+                    return attributes.get(args[0]);
+                case "isWritable":
+                    return true;
+                case "isActive":
+                    return active.get();
+                case "getRemoteAddress":
+                case "getLocalAddress":
+                    return new InetSocketAddress("127.0.0.1", 22000);
+                case "close":
+                    active.set(false);
+                    if (args != null && args.length == 1) {
+                        ((Consumer<AsyncResult<Channel>>) args[0]).accept(new AsyncResult<>((Channel) proxy));
+                    }
+                    return true;
+                default:
+                    return defaultValue(method.getReturnType());
+            }
+        });
+        futures[0] = new FutureManager<>(holder[0], ids::incrementAndGet);
+        return holder[0];
+    }
+
+    /**
+     * 获取连接
+     *
+     * @return 连接
+     */
+    protected PoolChannel acquire() {
+        List<Channel> result = new ArrayList<>(1);
+        manager.getChannel(transport, r -> result.add(r.getResult()), connector);
+        Assert.assertEquals(1, result.size());
+        return (PoolChannel) result.get(0);
+    }
+
+    /**
+     * 增加待应答请求
+     *
+     * @param channel 连接
+     * @param count   数量
+     */
+    protected void request(final PoolChannel channel, final int count) {
+        FutureManager<Integer, Message> futures = channel.getFutureManager();
+        for (int i = 0; i < count; i++) {
+            futures.create(futures.generateId(), 60000);
+        }
+    }
+
+    @Test
+    public void testSelect() {
+        PoolChannel ch0 = acquire();
+        Assert.assertEquals(KEY + "-0", ch0.name);
+        //负载没有达到阈值，复用已有连接
+        Assert.assertSame(ch0, acquire());
+        Assert.assertEquals(1, connections.size());
+        //已有连接都达到阈值，创建新连接
+        request(ch0, 1);
+        PoolChannel ch1 = acquire();
+        Assert.assertEquals(KEY + "-1", ch1.name);
+        Assert.assertEquals(2, connections.size());
+        //选择负载最小的连接
+        Assert.assertSame(ch1, acquire());
+        request(ch1, 2);
+        PoolChannel ch2 = acquire();
+        Assert.assertEquals(KEY + "-2", ch2.name);
+        request(ch2, 3);
+        //连接数已满，选择负载最小的连接
+        Assert.assertSame(ch0, acquire());
+        Assert.assertEquals(3, connections.size());
+        Map<String, Integer> loads = manager.getLoads();
+        Assert.assertEquals(3, loads.size());
+        Assert.assertEquals(1, loads.get(KEY + "-0").intValue());
+        Assert.assertEquals(2, loads.get(KEY + "-1").intValue());
+        Assert.assertEquals(3, loads.get(KEY + "-2").intValue());
+    }
+
+    @Test
+    public void testClose() {
+        PoolChannel ch0 = acquire();
+        request(ch0, 1);
+        PoolChannel ch1 = acquire();
+        Assert.assertEquals(2, ch0.getRefs() + ch1.getRefs());
+        //引用计数归零，从连接池移除并关闭物理连接
+        ch1.close(r -> {
+        });
+        Assert.assertEquals(Status.CLOSED, ch1.getStatus());
+        Assert.assertFalse(connections.get(1).isActive());
+        Assert.assertFalse(manager.getLoads().containsKey(KEY + "-1"));
+        //空出的位置重新建立连接
+        PoolChannel ch2 = acquire();
+        Assert.assertEquals(KEY + "-1", ch2.name);
+        Assert.assertNotSame(ch1, ch2);
+        Assert.assertEquals(3, connections.size());
+        Assert.assertTrue(ch2.isActive());
+    }
+}
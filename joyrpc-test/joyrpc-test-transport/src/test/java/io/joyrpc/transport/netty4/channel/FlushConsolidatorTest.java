@@ -0,0 +1,67 @@
+package io.joyrpc.transport.netty4.channel;
+
+/*-
+ * #%L
+ * joyrpc
+ * %%
+ * Copyright (C) 2019 joyrpc.io
+ * %%
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ * 
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ * 
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ * #L%
+ */
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.Assert;
+import org.junit.Test;
+
+/**
+ * 合并刷盘测试
+ */
+public class FlushConsolidatorTest {
+
+    @Test
+    public void testFlushWithoutFollowingEvent() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        FlushConsolidator consolidator = new FlushConsolidator(channel, 64, 0);
+        //IO线程中的写操作，没有后续的读事件
+        consolidator.write(Unpooled.wrappedBuffer(new byte[]{1}), channel.newPromise());
+        Assert.assertNull(channel.readOutbound());
+        //调度的刷盘任务保证消息被刷出
+        channel.runPendingTasks();
+        ByteBuf buf = channel.readOutbound();
+        Assert.assertNotNull(buf);
+        Assert.assertEquals(1, buf.readByte());
+        Assert.assertEquals(1, consolidator.getWrites());
+        Assert.assertEquals(1, consolidator.getFlushes());
+        buf.release();
+        channel.finish();
+    }
+
+    @Test
+    public void testFlushOnThreshold() {
+        EmbeddedChannel channel = new EmbeddedChannel();
+        FlushConsolidator consolidator = new FlushConsolidator(channel, 1, 0);
+        consolidator.write(Unpooled.wrappedBuffer(new byte[]{1}), channel.newPromise());
+        //达到消息数阈值立即刷盘，不需要调度刷盘任务
+        ByteBuf buf = channel.readOutbound();
+        Assert.assertNotNull(buf);
+        buf.release();
+        Assert.assertEquals(1, consolidator.getFlushes());
+        channel.runPendingTasks();
+        Assert.assertEquals(1, consolidator.getFlushes());
+        Assert.assertEquals(1.0, consolidator.getBatchRatio(), 0.0001);
+        channel.finishAndReleaseAll();
+    }
+}
@@ -1,11 +1,17 @@
 package io.joyrpc.util;
 
+import org.junit.Assert;
 import org.junit.Test;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 public class TimerTest {
     protected static final Logger logger = LoggerFactory.getLogger(TimerTest.class);
@@ -28,6 +34,59 @@ public class TimerTest {
         latch.await();
     }
 
+    @Test
+    public void testShards() throws InterruptedException {
+        Timer timer = new Timer("shards", 5, 64, 2, 0, 4);
+        int count = 400;
+        CountDownLatch latch = new CountDownLatch(count);
+        AtomicInteger early = new AtomicInteger();
+        AtomicLong maxDelay = new AtomicLong();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < count; i++) {
+            long time = SystemClock.now() + 20 + (i % 40) * 10;
+            Timer.Timeout timeout = timer.add("test", time, () -> {
+                long delay = SystemClock.now() - time;
+                if (delay < 0) {
+                    early.incrementAndGet();
+                }
+                maxDelay.accumulateAndGet(delay, Math::max);
+                latch.countDown();
+            });
+            //一半的任务在其它线程放弃
+            if (i % 2 == 1) {
+                executor.submit(() -> {
+                    if (timeout.cancel()) {
+                        latch.countDown();
+                    }
+                });
+            }
+        }
+        Assert.assertTrue(latch.await(5, TimeUnit.SECONDS));
+        executor.shutdown();
+        Assert.assertEquals(0, early.get());
+        logger.info("max delay " + maxDelay.get() + "ms");
+    }
+
+    @Test
+    public void testBottomBoundary() {
+        Timer.TimeWheel wheel = new Timer.TimeWheel(10, 5, 1000, new DelayQueue<>());
+        //距离周期不足一跳，向上取整后等于跳数，不能落到当前槽
+        Timer.Task task = new Timer.Task("test", 1049, () -> {
+        }, null, null);
+        Assert.assertTrue(wheel.add(task));
+        Assert.assertNotSame(wheel.slots[wheel.index], task.slot);
+        Assert.assertNotNull(wheel.next);
+        //上层时间轮不能放到已经过期的当前槽
+        Assert.assertSame(wheel.next.slots[(wheel.next.index + 1) % 5], task.slot);
+        Assert.assertEquals(1050, task.slot.expiration);
+        //最后一个槽
+        task = new Timer.Task("test", 1040, () -> {
+        }, null, null);
+        Assert.assertTrue(wheel.add(task));
+        Assert.assertSame(wheel.slots[(wheel.index + 4) % 5], task.slot);
+        Assert.assertEquals(1040, task.slot.expiration);
+    }
+
     protected static class MyTask implements Runnable {
         protected String name;
         protected CountDownLatch latch;